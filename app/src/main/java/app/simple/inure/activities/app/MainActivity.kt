@@ -13,6 +13,7 @@ import android.widget.FrameLayout
 import android.widget.Toast
 import androidx.fragment.app.Fragment
 import app.simple.inure.R
+import app.simple.inure.apk.parsers.ResourceTableCache
 import app.simple.inure.apk.utils.PackageUtils.isPackageInstalled
 import app.simple.inure.constants.IntentConstants
 import app.simple.inure.constants.Misc
@@ -71,6 +72,7 @@ class MainActivity : BaseActivity() {
 
         // AndroidBug5497Workaround.assistActivity(this)
         ThemeManager.addListener(this)
+        ResourceTableCache.register(applicationContext)
 
         container = findViewById(R.id.app_container)
         content = findViewById(android.R.id.content)
@@ -12,11 +12,13 @@ import app.simple.inure.decorations.typeface.TypeFaceTextView
 import app.simple.inure.decorations.views.AppIconImageView
 import app.simple.inure.glide.util.ImageLoader.loadAppIcon
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
+import app.simple.inure.util.PackageListDiffer
 import app.simple.inure.util.PackageListUtils.setAppInfo
 
-class AnalyticsDataAdapter(private val packageInfo: ArrayList<PackageInfo>) : RecyclerView.Adapter<AnalyticsDataAdapter.Holder>() {
+class AnalyticsDataAdapter(private var packageInfo: ArrayList<PackageInfo>) : RecyclerView.Adapter<AnalyticsDataAdapter.Holder>() {
 
     private var adapterCallbacks: AdapterCallbacks? = null
+    private val differ = PackageListDiffer<PackageInfo>(this, packageOf = { it })
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): Holder {
         return Holder(LayoutInflater.from(parent.context).inflate(R.layout.adapter_all_apps_small_details, parent, false))
@@ -47,6 +49,21 @@ class AnalyticsDataAdapter(private val packageInfo: ArrayList<PackageInfo>) : Re
         this.adapterCallbacks = adapterCallbacks
     }
 
+    /**
+     * Swap in a newer list, only the rows whose packages were added,
+     * removed, moved or changed are bound again
+     */
+    fun updateApps(packageInfo: ArrayList<PackageInfo>) {
+        differ.submit(this.packageInfo, packageInfo) {
+            this.packageInfo = packageInfo
+        }
+    }
+
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView)
+        differ.cancel()
+    }
+
     fun getPackageInfo(position: Int): PackageInfo {
         return packageInfo[position]
     }
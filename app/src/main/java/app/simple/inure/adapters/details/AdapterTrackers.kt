@@ -41,9 +41,15 @@ class AdapterTrackers(private val list: ArrayList<Tracker>, private val keyword:
             holder.packageId.text = list[position].name
             holder.trackerId.text = list[position].trackerId
             holder.switch.staticChecked(list[position].isBlocked.invert())
+        } else {
+            // Found in the dex classes only, there is no component to block
+            holder.icon.setImageResource(R.drawable.ic_code)
+            holder.name.text = list[position].name.substring((list[position]).name.lastIndexOf(".") + 1)
+            holder.packageId.text = list[position].name
+            holder.trackerId.text = list[position].trackerId
         }
 
-        if (isRoot) {
+        if (isRoot && list[position].isComponent) {
             holder.switch.setOnSwitchCheckedChangeListener {
                 trackersCallbacks?.onTrackersClicked(list[position], it, position)
             }
@@ -55,6 +61,7 @@ class AdapterTrackers(private val list: ArrayList<Tracker>, private val keyword:
             holder.switch.visible(animate = false)
         } else {
             holder.switch.gone()
+            holder.container.setOnClickListener(null)
         }
 
         if (keyword.isNotBlank()) AdapterUtils.searchHighlighter(holder.packageId, keyword)
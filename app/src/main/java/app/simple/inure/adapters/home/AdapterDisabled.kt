@@ -15,6 +15,7 @@ import app.simple.inure.decorations.views.AppIconImageView
 import app.simple.inure.glide.modules.GlideApp
 import app.simple.inure.glide.util.ImageLoader.loadAppIcon
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
+import app.simple.inure.util.PackageListDiffer
 import app.simple.inure.util.PackageListUtils.setAppInfo
 import app.simple.inure.util.RecyclerViewUtils
 
@@ -22,6 +23,7 @@ class AdapterDisabled : RecyclerView.Adapter<VerticalListViewHolder>() {
 
     var apps = arrayListOf<PackageInfo>()
     private lateinit var adapterCallbacks: AdapterCallbacks
+    private val differ = PackageListDiffer<PackageInfo>(this, offset = 1, packageOf = { it })
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): VerticalListViewHolder {
         return when (viewType) {
@@ -88,6 +90,22 @@ class AdapterDisabled : RecyclerView.Adapter<VerticalListViewHolder>() {
         return position.toLong()
     }
 
+    /**
+     * Swap in a newer list, only the rows whose packages were added,
+     * removed, moved or changed are bound again
+     */
+    fun updateApps(apps: ArrayList<PackageInfo>) {
+        differ.submit(this.apps, apps) {
+            this.apps = apps
+            notifyItemChanged(0) // Header shows the total
+        }
+    }
+
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView)
+        differ.cancel()
+    }
+
     fun setOnItemClickListener(adapterCallbacks: AdapterCallbacks) {
         this.adapterCallbacks = adapterCallbacks
     }
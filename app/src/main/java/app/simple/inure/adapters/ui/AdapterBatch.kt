@@ -17,6 +17,7 @@ import app.simple.inure.glide.modules.GlideApp
 import app.simple.inure.glide.util.ImageLoader.loadAppIcon
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
 import app.simple.inure.models.BatchPackageInfo
+import app.simple.inure.models.PackageSnapshot
 import app.simple.inure.preferences.BatchPreferences
 import app.simple.inure.preferences.FormattingPreferences
 import app.simple.inure.util.*
@@ -33,6 +34,12 @@ class AdapterBatch(var apps: ArrayList<BatchPackageInfo>, var headerEnabled: Boo
     private val pattern = FormattingPreferences.getDateFormat()
     private var highlight = BatchPreferences.isSelectedBatchHighlighted()
 
+    private val differ = PackageListDiffer<BatchPackageInfo>(this, offset = if (headerEnabled) 1 else 0,
+                                                             packageOf = { it.packageInfo }) { old, new ->
+        old.isSelected == new.isSelected && old.dateSelected == new.dateSelected &&
+                PackageSnapshot.isChanged(old.packageInfo, new.packageInfo).not()
+    }
+
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): VerticalListViewHolder {
         return when (viewType) {
             RecyclerViewUtils.TYPE_HEADER -> {
@@ -275,13 +282,26 @@ class AdapterBatch(var apps: ArrayList<BatchPackageInfo>, var headerEnabled: Boo
         }
     }
 
-    @Suppress("unused")
-    fun updateList(it: ArrayList<BatchPackageInfo>) {
-        val oldSize: Int = apps.size
-        apps.clear()
-        notifyItemRangeRemoved(1, oldSize.plus(1))
-        apps.addAll(it)
-        notifyItemRangeInserted(1, it.size.plus(1))
+    /**
+     * Swap in a newer list, only the rows whose packages were added,
+     * removed, moved, changed or selected are bound again. [onUpdated] is
+     * called once the adapter holds [apps].
+     */
+    fun updateList(apps: ArrayList<BatchPackageInfo>, onUpdated: () -> Unit = {}) {
+        differ.submit(this.apps, apps) {
+            this.apps = apps
+
+            if (headerEnabled) {
+                notifyItemChanged(0) // Header shows the totals
+            }
+
+            onUpdated()
+        }
+    }
+
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView)
+        differ.cancel()
     }
 
     fun selectAll() {
@@ -15,6 +15,7 @@ import app.simple.inure.decorations.typeface.TypeFaceTextView
 import app.simple.inure.decorations.views.AppIconImageView
 import app.simple.inure.glide.modules.GlideApp
 import app.simple.inure.glide.util.ImageLoader.loadAppIcon
+import app.simple.inure.models.DeepSearchResults
 import app.simple.inure.models.SearchModel
 import app.simple.inure.preferences.SearchPreferences
 import app.simple.inure.util.AdapterUtils
@@ -100,6 +101,32 @@ class AdapterDeepSearch(private var deepSearchInfo: ArrayList<SearchModel>, priv
         resources.text = "${searchModel.resources} ${context.getString(R.string.resources)}"
     }
 
+    /**
+     * Show the next chunk of a search that is still running, the items
+     * shown so far have to be the first items of [deepSearchResults] and
+     * it has to be searched for the keyword highlighted here
+     *
+     * @return false if [deepSearchResults] is from another search
+     */
+    fun appendResults(deepSearchResults: DeepSearchResults): Boolean {
+        val deepSearchInfo = deepSearchResults.results
+
+        if (deepSearchResults.keywords != searchKeyword || deepSearchInfo.size < this.deepSearchInfo.size) {
+            return false
+        }
+
+        for (i in this.deepSearchInfo.indices) {
+            if (deepSearchInfo[i] !== this.deepSearchInfo[i]) {
+                return false
+            }
+        }
+
+        val count = this.deepSearchInfo.size
+        this.deepSearchInfo = deepSearchInfo
+        notifyItemRangeInserted(count, deepSearchInfo.size - count)
+        return true
+    }
+
     fun setOnItemClickListener(adapterCallbacks: AdapterDeepSearchCallbacks) {
         this.adapterDeepSearchCallbacks = adapterCallbacks
     }
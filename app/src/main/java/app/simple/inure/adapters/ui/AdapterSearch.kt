@@ -18,12 +18,14 @@ import app.simple.inure.interfaces.adapters.AdapterCallbacks
 import app.simple.inure.preferences.SearchPreferences
 import app.simple.inure.util.AdapterUtils
 import app.simple.inure.util.FileUtils.toFile
+import app.simple.inure.util.PackageListDiffer
 import app.simple.inure.util.PackageListUtils.setAppInfo
 
 class AdapterSearch(private var apps: ArrayList<PackageInfo>, private var searchKeyword: String = "") : RecyclerView.Adapter<AdapterSearch.Holder>() {
 
     private lateinit var adapterCallbacks: AdapterCallbacks
     var ignoreCasing = SearchPreferences.isCasingIgnored()
+    private val differ = PackageListDiffer<PackageInfo>(this, packageOf = { it })
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): Holder {
         return Holder(LayoutInflater.from(parent.context)
@@ -65,6 +67,27 @@ class AdapterSearch(private var apps: ArrayList<PackageInfo>, private var search
         return apps.size
     }
 
+    /**
+     * Swap in the results of a newer search, only the rows whose packages
+     * were added, removed, moved or changed are bound again. Every row is
+     * bound again if the keyword changed, it's highlighted in all of them.
+     */
+    fun updateApps(apps: ArrayList<PackageInfo>, searchKeyword: String) {
+        differ.submit(this.apps, apps) {
+            if (this.searchKeyword != searchKeyword) {
+                this.searchKeyword = searchKeyword
+                notifyItemRangeChanged(0, this.apps.size)
+            }
+
+            this.apps = apps
+        }
+    }
+
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView)
+        differ.cancel()
+    }
+
     fun setOnItemClickListener(adapterCallbacks: AdapterCallbacks) {
         this.adapterCallbacks = adapterCallbacks
     }
@@ -0,0 +1,129 @@
+package app.simple.inure.adapters.viewers
+
+import android.text.Spannable
+import android.text.SpannableString
+import android.text.style.BackgroundColorSpan
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.RecyclerView
+import app.simple.inure.R
+import app.simple.inure.constants.Misc
+import app.simple.inure.decorations.overscroll.VerticalListViewHolder
+import app.simple.inure.decorations.typeface.TypeFaceTextView
+import app.simple.inure.text.MappedTextFile
+
+/**
+ * Shows a [MappedTextFile] one row per item. Rows are decoded a page
+ * at a time and only the last [MAX_PAGES] pages are kept, the rest of
+ * the file stays in the mapped buffer.
+ */
+class AdapterText(private val textFile: MappedTextFile) : RecyclerView.Adapter<AdapterText.Holder>() {
+
+    private var rowCount = textFile.getRowCount()
+    private var matches: List<MappedTextFile.Match> = emptyList()
+    private var focused = -1
+
+    private val pages = object : LinkedHashMap<Int, List<String>>(MAX_PAGES, 0.75F, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, List<String>>?): Boolean {
+            return size > MAX_PAGES
+        }
+    }
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): Holder {
+        return Holder(LayoutInflater.from(parent.context).inflate(R.layout.adapter_text_row, parent, false))
+    }
+
+    override fun onBindViewHolder(holder: Holder, position: Int) {
+        val row = getRow(position)
+        val first = firstMatch(position)
+
+        if (first == -1) {
+            holder.row.text = row
+        } else {
+            val spannable = SpannableString(row)
+            var i = first
+
+            while (i < matches.size && matches[i].row == position) {
+                val color = if (i == focused) Misc.textHighlightFocused else Misc.textHighlightUnfocused
+                spannable.setSpan(BackgroundColorSpan(color), minOf(matches[i].start, row.length),
+                                  minOf(matches[i].end, row.length), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE)
+                i++
+            }
+
+            holder.row.text = spannable
+        }
+    }
+
+    override fun getItemCount(): Int {
+        return rowCount
+    }
+
+    /**
+     * Show the rows indexed since the last call
+     */
+    fun updateRowCount() {
+        val count = textFile.getRowCount()
+        if (count > rowCount) {
+            val old = rowCount
+            rowCount = count
+            // The last page may have been loaded short
+            pages.remove((old - 1) / PAGE_ROWS)
+            notifyItemRangeInserted(old, count - old)
+        }
+    }
+
+    /**
+     * @param matches sorted by row
+     * @param focused index of the current match, drawn in a different color
+     */
+    fun setMatches(matches: List<MappedTextFile.Match>, focused: Int) {
+        val old = this.matches.getOrNull(this.focused)?.row
+        this.matches = matches
+        this.focused = focused
+
+        if (old == null && matches.isEmpty()) {
+            return
+        }
+
+        @Suppress("NotifyDataSetChanged") // Any visible row may have matches
+        notifyDataSetChanged()
+    }
+
+    private fun getRow(position: Int): String {
+        val page = position / PAGE_ROWS
+        val start = page * PAGE_ROWS
+        var rows = pages[page]
+
+        if (rows == null || position - start >= rows.size) {
+            rows = textFile.getRows(start, PAGE_ROWS)
+            pages[page] = rows
+        }
+
+        return rows[position - start]
+    }
+
+    /**
+     * @return index of the first match in [row] or -1
+     */
+    private fun firstMatch(row: Int): Int {
+        var low = 0
+        var high = matches.size
+
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (matches[mid].row < row) low = mid + 1 else high = mid
+        }
+
+        return if (low < matches.size && matches[low].row == row) low else -1
+    }
+
+    inner class Holder(itemView: View) : VerticalListViewHolder(itemView) {
+        val row: TypeFaceTextView = itemView.findViewById(R.id.row)
+    }
+
+    companion object {
+        private const val PAGE_ROWS = 128
+        private const val MAX_PAGES = 8
+    }
+}
@@ -0,0 +1,252 @@
+package app.simple.inure.apk.dex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import androidx.annotation.Nullable;
+import app.simple.inure.apk.parsers.ApkIndex;
+import app.simple.inure.apk.structure.dex.DexHeader;
+import app.simple.inure.exceptions.ParserException;
+
+/**
+ * Access to the classes*.dex entries of an APK without copying them
+ * to the Java heap.
+ * <p>
+ * Stored (uncompressed) entries, which is what modern APKs use, are
+ * memory mapped straight from the APK. Deflated entries are inflated
+ * into a direct buffer. Headers are read on their own so counting
+ * methods never touches more than {@link DexParser#HEADER_SIZE} bytes
+ * per dex.
+ */
+public class DexFiles implements Closeable {
+    
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final File apkFile;
+    private final ApkIndex index;
+    private final List <String> entries;
+    
+    @Nullable
+    private FileChannel fileChannel;
+    @Nullable
+    private ZipFile zipFile;
+    
+    public DexFiles(String path) throws IOException {
+        this.apkFile = new File(path);
+        this.index = ApkIndex.of(path);
+        this.entries = getDexEntries(index);
+    }
+    
+    /**
+     * classes.dex, classes2.dex ... at the root of the APK, in order
+     */
+    public List <String> getEntries() {
+        return entries;
+    }
+    
+    /**
+     * @return the whole dex entry, mapped or inflated off heap
+     */
+    public ByteBuffer open(String name) throws IOException {
+        int i = indexOf(name);
+        
+        long dataOffset = getDataOffset(i);
+        if (dataOffset >= 0) {
+            return getChannel().map(FileChannel.MapMode.READ_ONLY, dataOffset, index.getSize(i))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        
+        return inflate(name, index.getSize(i));
+    }
+    
+    /**
+     * Read only the header of a dex entry
+     *
+     * @return the header or null if the entry isn't a valid dex file
+     */
+    @Nullable
+    public DexHeader readHeader(String name) throws IOException {
+        int i = indexOf(name);
+        ByteBuffer buffer = ByteBuffer.allocate(DexParser.HEADER_SIZE);
+        
+        long dataOffset = getDataOffset(i);
+        if (dataOffset >= 0) {
+            readFully(buffer, dataOffset);
+        } else {
+            try (InputStream inputStream = getZipFile().getInputStream(getZipEntry(name))) {
+                int read;
+                while (buffer.hasRemaining() && (read = inputStream.read(buffer.array(), buffer.position(), buffer.remaining())) > 0) {
+                    buffer.position(buffer.position() + read);
+                }
+            }
+            buffer.flip();
+        }
+        
+        return new DexParser(buffer).readHeader();
+    }
+    
+    /**
+     * Sum of method_ids_size of every dex, read from the headers only
+     */
+    public long getMethodCount() throws IOException {
+        long count = 0;
+        
+        for (String name : entries) {
+            DexHeader header = readHeader(name);
+            if (header != null) {
+                count += header.getMethodIdsSize() & 0xffffffffL;
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Map an extracted dex file
+     */
+    public static ByteBuffer map(File dex) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(dex, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+    
+    public static List <String> getDexEntries(ApkIndex index) {
+        List <String> list = new ArrayList <>();
+        
+        for (int i = 0; i < index.getSize(); i++) {
+            String name = index.getName(i);
+            if (index.getKind(i) == ApkIndex.KIND_DEX && name.startsWith("classes") && name.indexOf('/') == -1) {
+                list.add(name);
+            }
+        }
+        
+        list.sort((a, b) -> Integer.compare(dexNumber(a), dexNumber(b)));
+        return list;
+    }
+    
+    private static int dexNumber(String name) {
+        String number = name.substring("classes".length(), name.length() - ".dex".length());
+        try {
+            return number.isEmpty() ? 1 : Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+    
+    private int indexOf(String name) {
+        int i = index.indexOf(name);
+        if (i == -1) {
+            throw new ParserException(String.format("Dex file %s not found", name));
+        }
+        
+        return i;
+    }
+    
+    /**
+     * Offset of the entry's data in the APK if it can be mapped as is,
+     * -1 if it is compressed or its local header is unknown
+     */
+    private long getDataOffset(int i) throws IOException {
+        long localHeaderOffset = index.getLocalHeaderOffset(i);
+        if (index.getMethod(i) != ZipEntry.STORED || localHeaderOffset < 0) {
+            return -1;
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, localHeaderOffset);
+        
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            return -1;
+        }
+        
+        int nameLength = header.getShort(26) & 0xffff;
+        int extraLength = header.getShort(28) & 0xffff;
+        
+        // the extra field of the local header may differ from the central one
+        return localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+    
+    private ByteBuffer inflate(String name, long size) throws IOException {
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new ParserException(String.format("Dex file %s is too large", name));
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] chunk = new byte[BUFFER_SIZE];
+        
+        try (InputStream inputStream = getZipFile().getInputStream(getZipEntry(name))) {
+            int read;
+            while (buffer.hasRemaining() && (read = inputStream.read(chunk, 0, Math.min(chunk.length, buffer.remaining()))) > 0) {
+                buffer.put(chunk, 0, read);
+            }
+        }
+        
+        buffer.flip();
+        return buffer;
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        FileChannel channel = getChannel();
+        long offset = 0;
+        
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        
+        buffer.flip();
+    }
+    
+    private ZipEntry getZipEntry(String name) throws IOException {
+        ZipEntry entry = getZipFile().getEntry(name);
+        if (entry == null) {
+            throw new ParserException(String.format("Dex file %s not found", name));
+        }
+        
+        return entry;
+    }
+    
+    private FileChannel getChannel() throws IOException {
+        if (fileChannel == null) {
+            fileChannel = new RandomAccessFile(apkFile, "r").getChannel();
+        }
+        
+        return fileChannel;
+    }
+    
+    private ZipFile getZipFile() throws IOException {
+        if (zipFile == null) {
+            zipFile = new ZipFile(apkFile);
+        }
+        
+        return zipFile;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (fileChannel != null) {
+            fileChannel.close();
+        }
+        
+        if (zipFile != null) {
+            zipFile.close();
+        }
+    }
+}
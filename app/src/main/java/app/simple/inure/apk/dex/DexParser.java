@@ -1,19 +1,20 @@
 package app.simple.inure.apk.dex;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import app.simple.inure.apk.structure.dex.DexClassStruct;
 import app.simple.inure.apk.structure.dex.DexHeader;
-import app.simple.inure.apk.structure.string.StringPool;
 import app.simple.inure.apk.utils.Buffers;
 import app.simple.inure.exceptions.ParserException;
-import app.simple.inure.models.StringPoolEntry;
 
 /**
  * parse dex file.
  * current we only get the class name.
+ * <p>
+ * The buffer is only read with absolute or relative gets, so a
+ * {@link java.nio.MappedByteBuffer} over an extracted or zip stored
+ * dex is parsed without copying it to the heap, see {@link DexFiles}.
  * see:
  * http://source.android.com/devices/tech/dalvik/dex-format.html
  * http://dexandroid.googlecode.com/svn/trunk/dalvik/libdex/DexFile.h
@@ -26,31 +27,36 @@ public class DexParser {
     
     private static final int NO_INDEX = 0xffffffff;
     
+    /**
+     * size of a class_def_item in bytes
+     */
+    private static final int CLASS_DEF_SIZE = 32;
+    
+    /**
+     * size of header_item in bytes
+     */
+    public static final int HEADER_SIZE = 0x70;
+    
     public DexParser(ByteBuffer buffer) {
         this.buffer = buffer.duplicate();
         this.buffer.order(ByteOrder.LITTLE_ENDIAN);
     }
     
     public DexClass[] parse() {
-        // read magic
-        String magic = new String(Buffers.readBytes(buffer, 8));
-        if (!magic.startsWith("dex\n")) {
+        DexHeader header = readHeader();
+        if (header == null) {
             return new DexClass[0];
         }
-        int version = Integer.parseInt(magic.substring(4, 7));
+        
         // now the version is 035
-        if (version < 35) {
+        if (header.getVersion() < 35) {
             // version 009 was used for the M3 releases of the Android platform (November–December 2007),
             // and version 013 was used for the M5 releases of the Android platform (February–March 2008)
-            throw new ParserException("Dex file version: " + version + " is not supported");
+            throw new ParserException("Dex file version: " + header.getVersion() + " is not supported");
         }
         
-        // read header
-        DexHeader header = readDexHeader();
-        header.setVersion(version);
-        
-        // read string pool
-        long[] stringOffsets = readStringPool(header.getStringIdsOff(), header.getStringIdsSize());
+        // only the strings referenced by class_defs are decoded
+        DexStrings strings = new DexStrings(buffer, header.getStringIdsOff(), header.getStringIdsSize());
         
         // read types
         int[] typeIds = readTypes(header.getTypeIdsOff(), header.getTypeIdsSize());
@@ -59,29 +65,80 @@ public class DexParser {
         DexClassStruct[] dexClassStructs = readClass(header.getClassDefsOff(),
                 header.getClassDefsSize());
         
-        StringPool stringpool = readStrings(stringOffsets);
-        
-        String[] types = new String[typeIds.length];
-        for (int i = 0; i < typeIds.length; i++) {
-            types[i] = stringpool.get(typeIds[i]);
-        }
-        
         DexClass[] dexClasses = new DexClass[dexClassStructs.length];
         for (int i = 0; i < dexClassStructs.length; i++) {
             DexClassStruct dexClassStruct = dexClassStructs[i];
-    
+            
             String superClass = null;
             if (dexClassStruct.getSuperclassIdx() != NO_INDEX) {
-                superClass = types[dexClassStruct.getSuperclassIdx()];
+                superClass = strings.get(typeIds[dexClassStruct.getSuperclassIdx()]);
             }
             dexClasses[i] = new DexClass(
-                    types[dexClassStruct.getClassIdx()],
+                    strings.get(typeIds[dexClassStruct.getClassIdx()]),
                     superClass,
                     dexClassStruct.getAccessFlags());
         }
         return dexClasses;
     }
     
+    /**
+     * Read and check only the dex header, the buffer doesn't need to
+     * hold more than the first {@link #HEADER_SIZE} bytes of the file.
+     *
+     * @return the header or null if this isn't a dex file
+     */
+    public DexHeader readHeader() {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        
+        // read magic
+        String magic = new String(Buffers.readBytes(buffer, 8));
+        if (!magic.startsWith("dex\n")) {
+            return null;
+        }
+        
+        int version;
+        try {
+            version = Integer.parseInt(magic.substring(4, 7));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        
+        DexHeader header = readDexHeader();
+        header.setVersion(version);
+        return header;
+    }
+    
+    /**
+     * Read only the type descriptors of the classes defined in this dex.
+     * Unlike {@link #parse()} nothing is allocated per class, the strings
+     * referenced by class_defs are decoded into a single reused buffer.
+     *
+     * @param visitor receives each descriptor, e.g. Lcom/example/Foo;
+     */
+    public void readClassTypes(ClassTypeVisitor visitor) {
+        DexHeader header = readHeader();
+        if (header == null) {
+            return;
+        }
+        
+        DexStrings strings = new DexStrings(buffer, header.getStringIdsOff(), header.getStringIdsSize());
+        StringBuilder descriptor = new StringBuilder(128);
+        
+        for (int i = 0; i < header.getClassDefsSize(); i++) {
+            int classIdx = buffer.getInt((int) header.getClassDefsOff() + i * CLASS_DEF_SIZE);
+            int stringIdx = buffer.getInt((int) header.getTypeIdsOff() + classIdx * 4);
+            
+            descriptor.setLength(0);
+            strings.read(stringIdx, descriptor);
+            
+            if (!visitor.visit(descriptor)) {
+                return;
+            }
+        }
+    }
+    
     /**
      * read class info.
      */
@@ -119,119 +176,6 @@ public class DexParser {
         return typeIds;
     }
     
-    /**
-     * read string pool for dex file.
-     * dex file string pool diff a bit with binary xml file or resource table.
-     *
-     * @param offsets
-     * @return
-     * @throws IOException
-     */
-    private StringPool readStrings(long[] offsets) {
-        // read strings.
-        // buffer some apk, the strings' offsets may not well ordered. we sort it first
-        
-        StringPoolEntry[] entries = new StringPoolEntry[offsets.length];
-        for (int i = 0; i < offsets.length; i++) {
-            entries[i] = new StringPoolEntry(i, offsets[i]);
-        }
-        
-        String lastStr = null;
-        long lastOffset = -1;
-        StringPool stringpool = new StringPool(offsets.length);
-        for (StringPoolEntry entry : entries) {
-            if (entry.getOffset() == lastOffset) {
-                stringpool.set(entry.getIdx(), lastStr);
-                continue;
-            }
-            Buffers.position(buffer, entry.getOffset());
-            lastOffset = entry.getOffset();
-            String str = readString();
-            lastStr = str;
-            stringpool.set(entry.getIdx(), str);
-        }
-        return stringpool;
-    }
-    
-    /*
-     * read string identifiers list.
-     */
-    private long[] readStringPool(long stringIdsOff, int stringIdsSize) {
-        Buffers.position(buffer, stringIdsOff);
-        long[] offsets = new long[stringIdsSize];
-        for (int i = 0; i < stringIdsSize; i++) {
-            offsets[i] = Buffers.readUInt(buffer);
-        }
-        
-        return offsets;
-    }
-    
-    /**
-     * read dex encoding string.
-     */
-    private String readString() {
-        // the length is char len, not byte len
-        int strLen = readVarInts();
-        return readString(strLen);
-    }
-    
-    /**
-     * read Modified UTF-8 encoding str.
-     *
-     * @param strLen the java-utf16-char len, not strLen nor bytes len.
-     */
-    private String readString(int strLen) {
-        char[] chars = new char[strLen];
-        
-        for (int i = 0; i < strLen; i++) {
-            short a = Buffers.readUByte(buffer);
-            if ((a & 0x80) == 0) {
-                // ascii char
-                chars[i] = (char) a;
-            } else if ((a & 0xe0) == 0xc0) {
-                // read one more
-                short b = Buffers.readUByte(buffer);
-                chars[i] = (char) (((a & 0x1F) << 6) | (b & 0x3F));
-            } else if ((a & 0xf0) == 0xe0) {
-                short b = Buffers.readUByte(buffer);
-                short c = Buffers.readUByte(buffer);
-                chars[i] = (char) (((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F));
-            } else if ((a & 0xf0) == 0xf0) {
-                // throw new UTFDataFormatException();
-            } else {
-                // throw new UTFDataFormatException();
-            }
-            if (chars[i] == 0) {
-                // the end of string.
-            }
-        }
-        
-        return new String(chars);
-    }
-    
-    /**
-     * read varints.
-     *
-     * @return
-     * @throws IOException
-     */
-    private int readVarInts() {
-        int i = 0;
-        int count = 0;
-        short s;
-        do
-        {
-            if (count > 4) {
-                throw new ParserException("read varints error.");
-            }
-            s = Buffers.readUByte(buffer);
-            i |= (s & 0x7f) << (count * 7);
-            count++;
-        } while ((s & 0x80) != 0);
-        
-        return i;
-    }
-    
     private DexHeader readDexHeader() {
         
         // check sum. skip
@@ -279,4 +223,13 @@ public class DexParser {
         
         return header;
     }
-}
\ No newline at end of file
+    
+    public interface ClassTypeVisitor {
+        /**
+         * @param descriptor the class type descriptor, the instance is
+         *                   reused so it must be copied to be kept
+         * @return false to stop reading the remaining classes
+         */
+        boolean visit(CharSequence descriptor);
+    }
+}
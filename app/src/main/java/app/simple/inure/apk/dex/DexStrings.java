@@ -0,0 +1,88 @@
+package app.simple.inure.apk.dex;
+
+import java.nio.ByteBuffer;
+
+import app.simple.inure.exceptions.ParserException;
+
+/**
+ * Lazily decoded dex string pool.
+ * <p>
+ * Nothing is read up front, the string_ids table and the string data
+ * are read straight from the dex buffer with absolute gets the first
+ * time an index is requested, decoded strings are memoized per index.
+ */
+public class DexStrings {
+    
+    private final ByteBuffer buffer;
+    private final int stringIdsOff;
+    private final String[] strings;
+    
+    /**
+     * @param buffer little endian buffer holding the whole dex file
+     */
+    public DexStrings(ByteBuffer buffer, long stringIdsOff, int stringIdsSize) {
+        this.buffer = buffer;
+        this.stringIdsOff = (int) stringIdsOff;
+        this.strings = new String[stringIdsSize];
+    }
+    
+    public int size() {
+        return strings.length;
+    }
+    
+    /**
+     * get the string at {@code idx}, decoding it on first access
+     */
+    public String get(int idx) {
+        String string = strings[idx];
+        if (string == null) {
+            StringBuilder builder = new StringBuilder();
+            read(idx, builder);
+            string = builder.toString();
+            strings[idx] = string;
+        }
+        
+        return string;
+    }
+    
+    /**
+     * Decode the string at {@code idx} into {@code out} without
+     * allocating or memoizing it
+     */
+    public void read(int idx, StringBuilder out) {
+        int position = (int) (buffer.getInt(stringIdsOff + idx * 4) & 0xffffffffL);
+        
+        // the length is utf16 char count, not byte count
+        int length = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            if (shift > 28) {
+                throw new ParserException("read varints error.");
+            }
+            b = buffer.get(position++) & 0xff;
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        
+        out.ensureCapacity(out.length() + length);
+        
+        // Modified UTF-8, supplementary chars are stored as two 3 byte surrogates
+        for (int i = 0; i < length; i++) {
+            int a = buffer.get(position++) & 0xff;
+            if ((a & 0x80) == 0) {
+                out.append((char) a);
+            } else if ((a & 0xe0) == 0xc0) {
+                int c = buffer.get(position++) & 0xff;
+                out.append((char) (((a & 0x1F) << 6) | (c & 0x3F)));
+            } else if ((a & 0xf0) == 0xe0) {
+                int c = buffer.get(position++) & 0xff;
+                int d = buffer.get(position++) & 0xff;
+                out.append((char) (((a & 0x0F) << 12) | ((c & 0x3F) << 6) | (d & 0x3F)));
+            } else {
+                out.append((char) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package app.simple.inure.apk.dex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import app.simple.inure.util.TrackerMatcher;
+
+/**
+ * Finds tracker SDKs by their classes instead of their manifest components,
+ * so SDKs that don't declare any activity, service or receiver are found too.
+ * <p>
+ * Every classes*.dex entry is mapped and parsed one at a time, only the class
+ * descriptors are decoded and matched against the {@link TrackerMatcher}.
+ * Scanning stops as soon as every signature has been found.
+ */
+public class DexTrackerScanner {
+    
+    private final TrackerMatcher matcher;
+    private final BitSet found;
+    private final BitSet newlyFound;
+    
+    /**
+     * First class found for each signature, in discovery order
+     */
+    private final Map <String, String> matches = new LinkedHashMap <>();
+    
+    public DexTrackerScanner(TrackerMatcher matcher) {
+        this.matcher = matcher;
+        this.found = new BitSet(matcher.getSignatures().size());
+        this.newlyFound = new BitSet(matcher.getSignatures().size());
+    }
+    
+    /**
+     * Scan all dex files of the APK at the given path
+     *
+     * @return map of each found signature to the first class that matched it
+     */
+    public Map <String, String> scan(String path) throws IOException {
+        try (DexFiles dexFiles = new DexFiles(path)) {
+            for (String name : dexFiles.getEntries()) {
+                if (scan(dexFiles.open(name))) {
+                    break;
+                }
+            }
+        }
+        
+        return getMatches();
+    }
+    
+    /**
+     * Scan a single dex file, results accumulate across calls
+     *
+     * @return true if every signature has been found and
+     * there is no need to scan further
+     */
+    public boolean scan(ByteBuffer dex) {
+        if (isComplete()) {
+            return true;
+        }
+        
+        new DexParser(dex).readClassTypes(descriptor -> {
+            if (matcher.matchDescriptor(descriptor, found, newlyFound) > 0) {
+                String className = toClassName(descriptor);
+                
+                for (int i = newlyFound.nextSetBit(0); i >= 0; i = newlyFound.nextSetBit(i + 1)) {
+                    matches.put(matcher.getSignatures().get(i), className);
+                }
+                
+                newlyFound.clear();
+            }
+            
+            return !isComplete();
+        });
+        
+        return isComplete();
+    }
+    
+    public Map <String, String> getMatches() {
+        return matches;
+    }
+    
+    private boolean isComplete() {
+        return found.cardinality() == matcher.getSignatures().size();
+    }
+    
+    /**
+     * Lcom/example/Foo; -> com.example.Foo
+     */
+    private static String toClassName(CharSequence descriptor) {
+        int start = descriptor.length() > 0 && descriptor.charAt(0) == 'L' ? 1 : 0;
+        int end = descriptor.length();
+        if (end > start && descriptor.charAt(end - 1) == ';') {
+            end--;
+        }
+        
+        return descriptor.subSequence(start, end).toString().replace('/', '.');
+    }
+}
@@ -3,21 +3,16 @@ package app.simple.inure.apk.parsers
 import android.content.Context
 import android.content.pm.ApplicationInfo
 import app.simple.inure.R
+import app.simple.inure.apk.dex.DexFiles
 import app.simple.inure.exceptions.ApkParserException
 import app.simple.inure.exceptions.DexClassesNotFoundException
-import app.simple.inure.util.ConditionUtils.invert
-import app.simple.inure.util.FileUtils.isImageFile
 import app.simple.inure.util.FileUtils.toFile
 import app.simple.inure.util.LocaleHelper
 import com.jaredrummler.apkparser.ApkParser
 import net.dongliu.apk.parser.ApkFile
 import net.dongliu.apk.parser.bean.ApkMeta
-import net.dongliu.apk.parser.bean.DexClass
 import java.io.File
 import java.io.IOException
-import java.util.Enumeration
-import java.util.zip.ZipEntry
-import java.util.zip.ZipFile
 
 object APKParser {
 
@@ -28,6 +23,8 @@ object APKParser {
     private const val x86 = "x86"
     private const val x86_64 = "x86_64"
 
+    private val abis = arrayOf(ARMEABI, ARM64, ARMv7, MIPS, x86, x86_64)
+
     /**
      * Fetch the decompiled manifest from an APK file
      */
@@ -77,21 +74,15 @@ object APKParser {
 
     fun File.getNativeLibraries(context: Context): StringBuilder {
         val stringBuilder = StringBuilder()
-        var zipFile: ZipFile? = null
-        try {
-            zipFile = ZipFile(path)
-            val entries: Enumeration<out ZipEntry?> = zipFile.entries()
-            while (entries.hasMoreElements()) {
-                val entry: ZipEntry? = entries.nextElement()
-                val name: String = entry!!.name
-                if (name.contains("lib") || name.contains("libs")) {
-                    if (name.endsWith(".so")) {
-                        if (stringBuilder.isNotEmpty()) {
-                            stringBuilder.append("\n")
-                        }
 
-                        stringBuilder.append(name)
+        try {
+            ApkIndex.of(path).forEachName(ApkIndex.KIND_SO) { name ->
+                if (name.contains("lib")) {
+                    if (stringBuilder.isNotEmpty()) {
+                        stringBuilder.append("\n")
                     }
+
+                    stringBuilder.append(name)
                 }
             }
         } catch (e: IOException) {
@@ -99,14 +90,6 @@ object APKParser {
             if (stringBuilder.isBlank()) {
                 stringBuilder.append(context.getString(R.string.error))
             }
-        } finally {
-            if (zipFile != null) {
-                try {
-                    zipFile.close()
-                } catch (e: IOException) {
-                    e.printStackTrace()
-                }
-            }
         }
 
         if (stringBuilder.isBlank()) {
@@ -117,75 +100,22 @@ object APKParser {
     }
 
     fun File.getApkArchitecture(context: Context): StringBuilder {
-        var zipFile: ZipFile? = null
         val stringBuilder = StringBuilder()
 
         try {
-            zipFile = ZipFile(path)
-            val entries: Enumeration<out ZipEntry?> = zipFile.entries()
-            while (entries.hasMoreElements()) {
-                val entry: ZipEntry? = entries.nextElement()
-                val name: String = entry!!.name
-
+            ApkIndex.of(path).forEachName { name ->
                 if (name.contains("lib")) {
-                    if (name.contains(ARMEABI)) {
-                        if (!stringBuilder.contains(ARMEABI)) {
+                    for (abi in abis) {
+                        if (name.contains(abi) && !stringBuilder.contains(abi)) {
                             if (stringBuilder.isNotBlank()) {
                                 stringBuilder.append(" | ")
                             }
 
-                            stringBuilder.append(ARMEABI)
-                            stringBuilder.append(" “generic” 32-bit ARM")
-                        }
-                    }
+                            stringBuilder.append(abi)
 
-                    if (name.contains(ARM64)) {
-                        if (!stringBuilder.contains(ARM64)) {
-                            if (stringBuilder.isNotBlank()) {
-                                stringBuilder.append(" | ")
+                            if (abi == ARMEABI) {
+                                stringBuilder.append(" “generic” 32-bit ARM")
                             }
-
-                            stringBuilder.append(ARM64)
-                        }
-                    }
-
-                    if (name.contains(ARMv7)) {
-                        if (!stringBuilder.contains(ARMv7)) {
-                            if (stringBuilder.isNotBlank()) {
-                                stringBuilder.append(" | ")
-                            }
-
-                            stringBuilder.append(ARMv7)
-                        }
-                    }
-
-                    if (name.contains(MIPS)) {
-                        if (!stringBuilder.contains(MIPS)) {
-                            if (stringBuilder.isNotBlank()) {
-                                stringBuilder.append(" | ")
-                            }
-
-                            stringBuilder.append(MIPS)
-                        }
-                    }
-
-                    if (name.contains(x86)) {
-                        if (!stringBuilder.contains(x86)) {
-                            if (stringBuilder.isNotBlank()) {
-                                stringBuilder.append(" | ")
-                            }
-
-                            stringBuilder.append(x86)
-                        }
-                    }
-
-                    if (name.contains(x86_64)) {
-                        if (!stringBuilder.contains(x86_64)) {
-                            if (stringBuilder.isNotBlank()) {
-                                stringBuilder.append(" | ")
-                            }
-
-                            stringBuilder.append(x86_64)
                         }
                     }
                 }
@@ -195,14 +125,6 @@ object APKParser {
             if (stringBuilder.isBlank()) {
                 stringBuilder.append(context.getString(R.string.error))
             }
-        } finally {
-            if (zipFile != null) {
-                try {
-                    zipFile.close()
-                } catch (e: IOException) {
-                    e.printStackTrace()
-                }
-            }
         }
 
         if (stringBuilder.isBlank()) {
@@ -227,48 +149,40 @@ object APKParser {
     }
 
     /**
-     * Fetch APK's dex data
+     * Count the methods of every classes*.dex in the APK, only the dex
+     * headers are read so nothing is parsed or kept in memory
+     *
+     * @return number of dex files to their total method count
      */
-    fun File.getDexData(): Array<DexClass> {
+    fun File.getDexMethodCount(): Pair<Int, Long> {
         kotlin.runCatching {
-            ApkFile(this).use {
-                return it.dexClasses
+            DexFiles(absolutePath).use {
+                if (it.entries.isNotEmpty()) {
+                    return Pair(it.entries.size, it.methodCount)
+                }
             }
-        }.getOrElse {
-            throw DexClassesNotFoundException("This apk does not contain any recognizable dex classes data.")
         }
+
+        throw DexClassesNotFoundException("This apk does not contain any recognizable dex classes data.")
     }
 
     /**
      * Get list of all xml files within an APK file
      */
     fun getXmlFiles(path: String?, keyword: String): MutableList<String> {
-        val xmlFiles: MutableList<String> = ArrayList()
-        var zipFile: ZipFile? = null
-        try {
-            zipFile = ZipFile(path)
-            val entries: Enumeration<out ZipEntry?> = zipFile.entries()
-            while (entries.hasMoreElements()) {
-                val entry: ZipEntry? = entries.nextElement()
-                val name: String = entry!!.name
-                if (name.endsWith(".xml") && name != "AndroidManifest.xml") {
-                    if (name.contains(keyword)) xmlFiles.add(name)
-                }
+        val xmlFiles: MutableList<String> = try {
+            ApkIndex.of(path!!).filterNames(ApkIndex.KIND_XML) { name ->
+                name != "AndroidManifest.xml" && name.contains(keyword)
             }
         } catch (e: IOException) {
             e.printStackTrace()
-        } finally {
-            if (zipFile != null) {
-                try {
-                    zipFile.close()
-                } catch (e: IOException) {
-                    e.printStackTrace()
-                }
-            }
+            ArrayList()
         }
+
         xmlFiles.sortBy {
             it.lowercase()
         }
+
         return xmlFiles
     }
 
@@ -276,113 +190,31 @@ object APKParser {
      * Get list of all raster image files within an APK file
      */
     fun getGraphicsFiles(path: String?, keyword: String): MutableList<String> {
-
-        val graphicsFiles: MutableList<String> = ArrayList()
-        var zipFile: ZipFile? = null
-        try {
-            zipFile = ZipFile(path)
-            val entries: Enumeration<out ZipEntry?> = zipFile.entries()
-            while (entries.hasMoreElements()) {
-
-                val entry: ZipEntry? = entries.nextElement()
-                val name: String = entry!!.name
-
-                if (keyword.lowercase().startsWith("$")) {
-                    if (name.lowercase().endsWith(keyword.lowercase().replace("$", ""))) {
-                        if (name.lowercase().isImageFile()) {
-                            graphicsFiles.add(name)
-                        }
-                    }
-                } else if (keyword.lowercase().endsWith("$")) {
-                    if (name.lowercase().startsWith(keyword.lowercase().replace("$", ""))) {
-                        if (name.lowercase().isImageFile()) {
-                            graphicsFiles.add(name)
-                        }
-                    }
-                } else {
-                    if (name.lowercase().contains(keyword.lowercase())) {
-                        if (name.lowercase().isImageFile()) {
-                            graphicsFiles.add(name)
-                        }
-                    }
-                }
+        val graphicsFiles: MutableList<String> = try {
+            ApkIndex.of(path!!).filterNames(ApkIndex.KIND_IMAGE) { name ->
+                name.matchesKeyword(keyword)
             }
         } catch (e: IOException) {
             e.printStackTrace()
-        } finally {
-            if (zipFile != null) {
-                try {
-                    zipFile.close()
-                } catch (ignored: IOException) {
-                }
-            }
+            ArrayList()
         }
+
         graphicsFiles.sort()
         return graphicsFiles
     }
 
     /**
-     * Get list of all raster image files within an APK file
+     * Get list of all files within an APK file that aren't
+     * dex, native libraries, xml, resource tables or images
      */
     fun getExtraFiles(path: String?, keyword: String): MutableList<String> {
-
-        val extraFiles: MutableList<String> = ArrayList()
-        var zipFile: ZipFile? = null
-
-        try {
-            zipFile = ZipFile(path)
-            val entries: Enumeration<out ZipEntry?> = zipFile.entries()
-            while (entries.hasMoreElements()) {
-                val entry: ZipEntry? = entries.nextElement()
-                val name: String = entry!!.name
-
-                if (keyword.lowercase().startsWith("$")) {
-                    if (name.lowercase().endsWith(keyword.lowercase().replace("$", ""))) {
-                        if (name.endsWith(".xml") ||
-                            name.endsWith(".so") ||
-                            name.endsWith(".dex") ||
-                            name.endsWith(".arsc")) {
-                            continue
-                        } else {
-                            if (name.isImageFile().invert()) {
-                                extraFiles.add(name)
-                            }
-                        }
-                    }
-                } else if (keyword.lowercase().endsWith("$")) {
-                    if (name.lowercase().startsWith(keyword.lowercase().replace("$", ""))) {
-                        if (name.endsWith(".xml") ||
-                            name.endsWith(".so") ||
-                            name.endsWith(".dex") ||
-                            name.endsWith(".arsc")) {
-                            continue
-                        } else {
-                            if (name.isImageFile().invert()) {
-                                extraFiles.add(name)
-                            }
-                        }
-                    }
-                } else {
-                    if (name.lowercase().contains(keyword.lowercase())) {
-                        if (name.endsWith(".xml") ||
-                            name.endsWith(".so") ||
-                            name.endsWith(".dex") ||
-                            name.endsWith(".arsc")) {
-                            continue
-                        } else {
-                            if (name.isImageFile().invert()) {
-                                extraFiles.add(name)
-                            }
-                        }
-                    }
-                }
+        val extraFiles: MutableList<String> = try {
+            ApkIndex.of(path!!).filterNames(ApkIndex.KIND_OTHER) { name ->
+                name.matchesKeyword(keyword)
             }
         } catch (e: IOException) {
             e.printStackTrace()
-        } finally {
-            kotlin.runCatching {
-                zipFile?.close()
-            }
+            ArrayList()
         }
 
         extraFiles.sortBy {
@@ -391,4 +223,19 @@ object APKParser {
 
         return extraFiles
     }
-}
\ No newline at end of file
+
+    /**
+     * A keyword starting with $ matches the end of the name, one ending
+     * with $ matches the start, anything else matches anywhere
+     */
+    private fun String.matchesKeyword(keyword: String): Boolean {
+        val name = lowercase()
+        val key = keyword.lowercase()
+
+        return when {
+            key.startsWith("$") -> name.endsWith(key.replace("$", ""))
+            key.endsWith("$") -> name.startsWith(key.replace("$", ""))
+            else -> name.contains(key)
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package app.simple.inure.apk.parsers
+
+import app.simple.inure.util.FileUtils.isImageFile
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.util.zip.ZipFile
+
+/**
+ * A compact, read-only table of every entry in an APK's central
+ * directory. The central directory is parsed exactly once per
+ * path + mtime and the result is kept in a small LRU cache so the
+ * different [APKParser] listings can all be answered from memory
+ * instead of re-opening the zip for every query.
+ *
+ * Entries are stored in parallel primitive arrays in the same order
+ * they appear in the central directory.
+ */
+class ApkIndex private constructor(
+        val path: String,
+        val lastModified: Long,
+        private val names: Array<String>,
+        private val localHeaderOffsets: LongArray,
+        private val compressedSizes: LongArray,
+        private val sizes: LongArray,
+        private val crcs: IntArray,
+        private val methods: ShortArray,
+        private val kinds: ByteArray) {
+
+    val size: Int
+        get() = names.size
+
+    fun getName(index: Int): String = names[index]
+
+    fun getKind(index: Int): Byte = kinds[index]
+
+    fun getSize(index: Int): Long = sizes[index]
+
+    fun getCompressedSize(index: Int): Long = compressedSizes[index]
+
+    fun getCrc(index: Int): Int = crcs[index]
+
+    fun getMethod(index: Int): Int = methods[index].toInt()
+
+    /**
+     * Offset of the entry's local file header, or -1 if the index
+     * was built through the [ZipFile] fallback
+     */
+    fun getLocalHeaderOffset(index: Int): Long = localHeaderOffsets[index]
+
+    /**
+     * @return true if at least one entry of the given [kind] exists
+     */
+    fun hasKind(kind: Byte): Boolean {
+        for (k in kinds) {
+            if (k == kind) return true
+        }
+
+        return false
+    }
+
+    /**
+     * Iterate over entry names in central directory order, optionally
+     * restricted to a single [kind]
+     */
+    inline fun forEachName(kind: Byte = KIND_ANY, action: (String) -> Unit) {
+        for (i in 0 until size) {
+            if (kind == KIND_ANY || getKind(i) == kind) {
+                action(getName(i))
+            }
+        }
+    }
+
+    fun filterNames(kind: Byte = KIND_ANY, predicate: (String) -> Boolean): MutableList<String> {
+        val list = ArrayList<String>()
+
+        forEachName(kind) {
+            if (predicate(it)) {
+                list.add(it)
+            }
+        }
+
+        return list
+    }
+
+    fun indexOf(name: String): Int {
+        return names.indexOf(name)
+    }
+
+    companion object {
+        const val KIND_ANY: Byte = -1
+        const val KIND_OTHER: Byte = 0
+        const val KIND_DEX: Byte = 1
+        const val KIND_SO: Byte = 2
+        const val KIND_XML: Byte = 3
+        const val KIND_IMAGE: Byte = 4
+        const val KIND_ARSC: Byte = 5
+
+        private const val CACHE_SIZE = 8
+
+        private const val EOCD_SIGNATURE = 0x06054b50
+        private const val EOCD_MIN_LENGTH = 22
+        private const val EOCD_MAX_COMMENT = 0xFFFF
+        private const val ZIP64_LOCATOR_SIGNATURE = 0x07064b50
+        private const val ZIP64_LOCATOR_LENGTH = 20
+        private const val ZIP64_EOCD_SIGNATURE = 0x06064b50
+        private const val CENTRAL_SIGNATURE = 0x02014b50
+        private const val CENTRAL_HEADER_LENGTH = 46
+        private const val ZIP64_EXTRA_ID = 0x0001
+        private const val UINT16_MAX = 0xFFFF
+        private const val UINT32_MAX = 0xFFFFFFFFL
+
+        private val cache = object : LinkedHashMap<String, ApkIndex>(CACHE_SIZE, 0.75F, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, ApkIndex>?): Boolean {
+                return size > CACHE_SIZE
+            }
+        }
+
+        /**
+         * Get the index for the APK at [path], parsing its central directory
+         * only if it isn't cached yet or the file changed since it was cached
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun of(path: String): ApkIndex {
+            val file = File(path)
+            val lastModified = file.lastModified()
+
+            synchronized(cache) {
+                cache[path]?.let {
+                    if (it.lastModified == lastModified) {
+                        return it
+                    }
+                }
+            }
+
+            val index = build(file, lastModified)
+
+            synchronized(cache) {
+                cache[path] = index
+            }
+
+            return index
+        }
+
+        fun invalidate(path: String) {
+            synchronized(cache) {
+                cache.remove(path)
+            }
+        }
+
+        fun clear() {
+            synchronized(cache) {
+                cache.clear()
+            }
+        }
+
+        fun kindOf(name: String): Byte {
+            return when {
+                name.endsWith(".dex") -> KIND_DEX
+                name.endsWith(".so") -> KIND_SO
+                name.endsWith(".xml") -> KIND_XML
+                name.endsWith(".arsc") -> KIND_ARSC
+                name.lowercase().isImageFile() -> KIND_IMAGE
+                else -> KIND_OTHER
+            }
+        }
+
+        private fun build(file: File, lastModified: Long): ApkIndex {
+            return kotlin.runCatching {
+                readCentralDirectory(file, lastModified)
+            }.getOrElse {
+                it.printStackTrace()
+                readWithZipFile(file, lastModified)
+            }
+        }
+
+        private fun readCentralDirectory(file: File, lastModified: Long): ApkIndex {
+            RandomAccessFile(file, "r").use { randomAccessFile ->
+                val channel = randomAccessFile.channel
+                val length = channel.size()
+
+                if (length < EOCD_MIN_LENGTH) {
+                    throw IOException("${file.path} is too small to be a zip file")
+                }
+
+                val tailLength = minOf(length, (EOCD_MIN_LENGTH + EOCD_MAX_COMMENT).toLong()).toInt()
+                val tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN)
+                channel.readFully(tail, length - tailLength)
+
+                var eocd = -1
+                for (i in tailLength - EOCD_MIN_LENGTH downTo 0) {
+                    if (tail.getInt(i) == EOCD_SIGNATURE) {
+                        eocd = i
+                        break
+                    }
+                }
+
+                if (eocd == -1) {
+                    throw IOException("End of central directory not found in ${file.path}")
+                }
+
+                var count = tail.getShort(eocd + 10).toInt() and UINT16_MAX
+                var directorySize = tail.getInt(eocd + 12).toLong() and UINT32_MAX
+                var directoryOffset = tail.getInt(eocd + 16).toLong() and UINT32_MAX
+
+                if (count == UINT16_MAX || directorySize == UINT32_MAX || directoryOffset == UINT32_MAX) {
+                    val locatorPosition = length - tailLength + eocd - ZIP64_LOCATOR_LENGTH
+                    val locator = ByteBuffer.allocate(ZIP64_LOCATOR_LENGTH).order(ByteOrder.LITTLE_ENDIAN)
+                    channel.readFully(locator, locatorPosition)
+
+                    if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+                        val zip64 = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN)
+                        channel.readFully(zip64, locator.getLong(8))
+
+                        if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                            throw IOException("Corrupt zip64 end of central directory in ${file.path}")
+                        }
+
+                        count = zip64.getLong(32).toInt()
+                        directorySize = zip64.getLong(40)
+                        directoryOffset = zip64.getLong(48)
+                    }
+                }
+
+                if (directoryOffset + directorySize > length || directorySize > Int.MAX_VALUE) {
+                    throw IOException("Central directory out of bounds in ${file.path}")
+                }
+
+                val directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, directorySize)
+                directory.order(ByteOrder.LITTLE_ENDIAN)
+
+                val names = arrayOfNulls<String>(count)
+                val offsets = LongArray(count)
+                val compressedSizes = LongArray(count)
+                val sizes = LongArray(count)
+                val crcs = IntArray(count)
+                val methods = ShortArray(count)
+                val kinds = ByteArray(count)
+                var nameBuffer = ByteArray(256)
+                var position = 0
+
+                for (i in 0 until count) {
+                    if (directory.getInt(position) != CENTRAL_SIGNATURE) {
+                        throw IOException("Bad central directory entry $i in ${file.path}")
+                    }
+
+                    val nameLength = directory.getShort(position + 28).toInt() and UINT16_MAX
+                    val extraLength = directory.getShort(position + 30).toInt() and UINT16_MAX
+                    val commentLength = directory.getShort(position + 32).toInt() and UINT16_MAX
+
+                    methods[i] = directory.getShort(position + 10)
+                    crcs[i] = directory.getInt(position + 16)
+                    compressedSizes[i] = directory.getInt(position + 20).toLong() and UINT32_MAX
+                    sizes[i] = directory.getInt(position + 24).toLong() and UINT32_MAX
+                    offsets[i] = directory.getInt(position + 42).toLong() and UINT32_MAX
+
+                    if (nameBuffer.size < nameLength) {
+                        nameBuffer = ByteArray(nameLength)
+                    }
+
+                    directory.position(position + CENTRAL_HEADER_LENGTH)
+                    directory.get(nameBuffer, 0, nameLength)
+                    names[i] = String(nameBuffer, 0, nameLength, Charsets.UTF_8)
+
+                    if (sizes[i] == UINT32_MAX || compressedSizes[i] == UINT32_MAX || offsets[i] == UINT32_MAX) {
+                        readZip64Extra(directory, position + CENTRAL_HEADER_LENGTH + nameLength, extraLength, i, sizes, compressedSizes, offsets)
+                    }
+
+                    kinds[i] = kindOf(names[i]!!)
+                    position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength
+                }
+
+                @Suppress("UNCHECKED_CAST")
+                return ApkIndex(file.path, lastModified, names as Array<String>, offsets, compressedSizes, sizes, crcs, methods, kinds)
+            }
+        }
+
+        /**
+         * Zip64 extended information only holds the fields that
+         * overflowed in the central header, in this fixed order
+         */
+        private fun readZip64Extra(directory: ByteBuffer, start: Int, length: Int, i: Int,
+                                   sizes: LongArray, compressedSizes: LongArray, offsets: LongArray) {
+            var position = start
+            val end = start + length
+
+            while (position + 4 <= end) {
+                val id = directory.getShort(position).toInt() and UINT16_MAX
+                val size = directory.getShort(position + 2).toInt() and UINT16_MAX
+                var field = position + 4
+
+                if (id == ZIP64_EXTRA_ID) {
+                    if (sizes[i] == UINT32_MAX && field + 8 <= end) {
+                        sizes[i] = directory.getLong(field)
+                        field += 8
+                    }
+
+                    if (compressedSizes[i] == UINT32_MAX && field + 8 <= end) {
+                        compressedSizes[i] = directory.getLong(field)
+                        field += 8
+                    }
+
+                    if (offsets[i] == UINT32_MAX && field + 8 <= end) {
+                        offsets[i] = directory.getLong(field)
+                    }
+
+                    return
+                }
+
+                position += 4 + size
+            }
+        }
+
+        private fun readWithZipFile(file: File, lastModified: Long): ApkIndex {
+            ZipFile(file).use { zipFile ->
+                val count = zipFile.size()
+                val names = ArrayList<String>(count)
+                val compressedSizes = LongArray(count)
+                val sizes = LongArray(count)
+                val crcs = IntArray(count)
+                val methods = ShortArray(count)
+                val kinds = ByteArray(count)
+                val entries = zipFile.entries()
+                var i = 0
+
+                while (entries.hasMoreElements() && i < count) {
+                    val entry = entries.nextElement()
+                    names.add(entry.name)
+                    compressedSizes[i] = entry.compressedSize
+                    sizes[i] = entry.size
+                    crcs[i] = entry.crc.toInt()
+                    methods[i] = entry.method.toShort()
+                    kinds[i] = kindOf(entry.name)
+                    i++
+                }
+
+                return ApkIndex(file.path, lastModified, names.toTypedArray(),
+                                LongArray(i) { -1L }, compressedSizes.copyOf(i), sizes.copyOf(i),
+                                crcs.copyOf(i), methods.copyOf(i), kinds.copyOf(i))
+            }
+        }
+
+        private fun FileChannel.readFully(buffer: ByteBuffer, position: Long) {
+            var offset = 0L
+            while (buffer.hasRemaining()) {
+                val read = read(buffer, position + offset)
+                if (read < 0) throw IOException("Unexpected end of file")
+                offset += read
+            }
+            buffer.flip()
+        }
+    }
+}
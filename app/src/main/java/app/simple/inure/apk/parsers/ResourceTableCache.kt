@@ -0,0 +1,135 @@
+package app.simple.inure.apk.parsers
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.util.Log
+import app.simple.inure.apk.structure.resource.ResourceTable
+import app.simple.inure.apk.utils.Inputs
+import app.simple.inure.constants.AndroidConstants
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.util.zip.ZipFile
+
+/**
+ * Parsed resources.arsc tables shared by every XML decoded from the
+ * same APK. Tables are keyed by path + mtime like [ApkIndex] and kept
+ * in an LRU bounded by the size of their arsc data, which the parsed
+ * table keeps referencing. The cache is dropped when the system asks
+ * the app to trim its memory.
+ */
+object ResourceTableCache : ComponentCallbacks2 {
+
+    private const val TAG = "ResourceTableCache"
+    private const val MAX_CACHE_SIZE = 64L * 1024L * 1024L
+
+    private val maxSize = minOf(Runtime.getRuntime().maxMemory() / 8, MAX_CACHE_SIZE)
+
+    private val cache = LinkedHashMap<String, Entry>(4, 0.75F, true)
+    private var size = 0L
+
+    @Volatile
+    private var isRegistered = false
+
+    private class Entry(val lastModified: Long, val table: ResourceTable, val size: Long)
+
+    /**
+     * Get the resource table of the APK at [path], resources.arsc is
+     * read and parsed only if it isn't cached yet or the file changed
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun get(path: String): ResourceTable {
+        val lastModified = File(path).lastModified()
+
+        synchronized(cache) {
+            cache[path]?.let {
+                if (it.lastModified == lastModified) {
+                    return it.table
+                }
+            }
+        }
+
+        val entry = parse(path, lastModified)
+
+        synchronized(cache) {
+            cache.put(path, entry)?.let {
+                size -= it.size
+            }
+
+            size += entry.size
+            trimToSize(maxSize)
+        }
+
+        return entry.table
+    }
+
+    /**
+     * Release the cache on memory pressure, safe to call more than once
+     */
+    fun register(context: Context) {
+        if (isRegistered.not()) {
+            synchronized(this) {
+                if (isRegistered.not()) {
+                    context.applicationContext.registerComponentCallbacks(this)
+                    isRegistered = true
+                }
+            }
+        }
+    }
+
+    fun clear() {
+        synchronized(cache) {
+            trimToSize(0L)
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            Log.d(TAG, "Releasing $size bytes of resource tables, trim level $level")
+            clear()
+        }
+    }
+
+    override fun onLowMemory() {
+        clear()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {
+        /* no-op */
+    }
+
+    /**
+     * Evict the least recently used tables, the most recent one is kept
+     * even if it is alone larger than [maxSize] unless [max] is 0
+     */
+    private fun trimToSize(max: Long) {
+        val iterator = cache.entries.iterator()
+
+        while (size > max && iterator.hasNext() && (max == 0L || cache.size > 1)) {
+            size -= iterator.next().value.size
+            iterator.remove()
+        }
+
+        if (cache.isEmpty()) {
+            size = 0L
+        }
+    }
+
+    private fun parse(path: String, lastModified: Long): Entry {
+        val data = ZipFile(path).use { zipFile ->
+            zipFile.getEntry(AndroidConstants.RESOURCE_FILE)?.let {
+                Inputs.readAllAndClose(zipFile.getInputStream(it))
+            }
+        }
+
+        // if no resource entry has been found, we assume it is not needed by this APK
+        data ?: return Entry(lastModified, ResourceTable(), 0L)
+
+        val resourceTableParser = ResourceTableParser(ByteBuffer.wrap(data))
+        resourceTableParser.parse()
+
+        return Entry(lastModified, resourceTableParser.resourceTable, data.size.toLong())
+    }
+}
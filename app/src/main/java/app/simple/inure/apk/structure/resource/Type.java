@@ -29,7 +29,11 @@ public class Type {
         this.density = config.getDensity();
     }
     
-    public ResourceEntry getResourceEntry(int id) {
+    /**
+     * Entries are read from the shared type buffer, tables are cached
+     * and used by several parsers at once so reads are serialized
+     */
+    public synchronized ResourceEntry getResourceEntry(int id) {
         if (id >= offsets.length) {
             return null;
         }
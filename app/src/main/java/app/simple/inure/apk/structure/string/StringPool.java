@@ -1,17 +1,123 @@
 package app.simple.inure.apk.structure.string;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * String pool of a binary xml file or resource table.
+ * <p>
+ * Only the offsets of the strings are kept, a string is decoded from
+ * the backing buffer the first time it is requested. Decoded strings
+ * are kept in a small direct mapped cache, pools of resource tables
+ * easily hold 100k strings while a layout only needs a few dozen.
+ * <p>
+ * The buffer is only read with absolute gets so a pool can be shared
+ * by several threads, a lost cache write only costs a decode.
+ */
 public class StringPool {
-    private final String[] pool;
     
-    public StringPool(int poolSize) {
-        pool = new String[poolSize];
+    private static final int MAX_CACHE_SIZE = 1024;
+    
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final boolean utf8;
+    private final Slot[] cache;
+    private final int mask;
+    
+    /**
+     * @param buffer  buffer the offsets point into, it isn't modified
+     * @param offsets absolute position of every string in the buffer
+     * @param utf8    true if strings are UTF-8, otherwise UTF-16
+     */
+    public StringPool(ByteBuffer buffer, int[] offsets, boolean utf8) {
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.offsets = offsets;
+        this.utf8 = utf8;
+        
+        int size = 1;
+        while (size < offsets.length && size < MAX_CACHE_SIZE) {
+            size <<= 1;
+        }
+        
+        this.cache = new Slot[size];
+        this.mask = size - 1;
+    }
+    
+    public int size() {
+        return offsets.length;
     }
     
     public String get(int idx) {
-        return pool[idx];
+        int offset = offsets[idx];
+        Slot slot = cache[idx & mask];
+        
+        if (slot != null && slot.idx == idx) {
+            return slot.value;
+        }
+        
+        String value = utf8 ? readUTF8(offset) : readUTF16(offset);
+        cache[idx & mask] = new Slot(idx, value);
+        return value;
+    }
+    
+    /**
+     * The lengths are encoded in the same way as for the 16-bit format
+     * but using 8-bit rather than 16-bit integers, char count comes first
+     * followed by the byte count.
+     * see StringPool.cpp ENCODE_LENGTH
+     */
+    private String readUTF8(int position) {
+        // skip utf16 length
+        position += (buffer.get(position) & 0x80) != 0 ? 2 : 1;
+        
+        int length = buffer.get(position) & 0xff;
+        if ((length & 0x80) != 0) {
+            length = ((length & 0x7f) << 8) | (buffer.get(position + 1) & 0xff);
+            position += 2;
+        } else {
+            position += 1;
+        }
+        
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+        }
+        
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * The length is encoded as either one or two 16-bit integers
+     */
+    private String readUTF16(int position) {
+        int length = buffer.getShort(position) & 0xffff;
+        if ((length & 0x8000) != 0) {
+            length = ((length & 0x7fff) << 16) | (buffer.getShort(position + 2) & 0xffff);
+            position += 4;
+        } else {
+            position += 2;
+        }
+        
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = buffer.getChar(position + i * 2);
+        }
+        
+        return new String(chars);
     }
     
-    public void set(int idx, String value) {
-        pool[idx] = value;
+    private static final class Slot {
+        private final int idx;
+        private final String value;
+        
+        private Slot(int idx, String value) {
+            this.idx = idx;
+            this.value = value;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package app.simple.inure.apk.utils
+
+import app.simple.inure.models.Tracker
+import app.simple.inure.util.ConditionUtils.invert
+import org.w3c.dom.Document
+
+/**
+ * Edits the rules of an intent firewall file, /data/system/ifw/<package>.xml
+ *
+ * <rules>
+ *      <activity block="true" log="false">
+ *          <component-filter name="package_name/component_name" />
+ *      </activity>
+ *      <service block="true" log="false">
+ *          <component-filter name="package_name/component_name" />
+ *      </service>
+ *      <broadcast block="true" log="false">
+ *          <component-filter name="package_name/component_name" />
+ *      </broadcast>
+ * </rules>
+ *
+ * Only trackers backed by a manifest component are touched, the ones
+ * found in the dex classes alone have no component a rule could name.
+ */
+object IntentFirewallUtils {
+
+    /**
+     * Append the components of [trackers] to the blocking activity,
+     * service and broadcast tags of [document], the tags are created if
+     * they don't exist
+     */
+    fun blockTrackers(document: Document, packageName: String, trackers: List<Tracker>) {
+        val rules = document.getElementsByTagName("rules").item(0)
+
+        for (tracker in trackers) {
+            if (tracker.isComponent.invert()) {
+                continue
+            }
+
+            /**
+             * Remove the component if it already exists
+             * This is to prevent duplicate entries
+             */
+            removeComponentFilters(document, "$packageName/${tracker.name}")
+
+            val componentFilter = document.createElement("component-filter")
+            componentFilter.setAttribute("name", "$packageName/${tracker.name}")
+
+            if (tracker.isActivity) {
+                // Check if the activity tag exists
+                val activity = document.getElementsByTagName("activity").item(0)
+
+                if (activity == null) {
+                    val activity1 = document.createElement("activity")
+                    activity1.setAttribute("block", "true")
+                    activity1.setAttribute("log", "false")
+                    activity1.appendChild(componentFilter)
+
+                    rules.appendChild(activity1)
+                } else {
+                    /**
+                     * Check if block already exists and is true, if false
+                     * create another activity tag with block and log attributes
+                     * set to true
+                     */
+                    if (activity.attributes.getNamedItem("block") != null && activity.attributes.getNamedItem("block").nodeValue == "false") {
+                        val activity1 = document.createElement("activity")
+                        activity1.setAttribute("block", "true")
+                        activity1.setAttribute("log", "false")
+                        activity1.appendChild(componentFilter)
+
+                        rules.appendChild(activity1)
+                    } else {
+                        activity.appendChild(componentFilter)
+                    }
+                }
+            }
+
+            if (tracker.isService) {
+                // Check if the service tag exists
+                val service = document.getElementsByTagName("service").item(0)
+
+                if (service == null) {
+                    val service1 = document.createElement("service")
+                    service1.setAttribute("block", "true")
+                    service1.setAttribute("log", "false")
+                    service1.appendChild(componentFilter)
+
+                    rules.appendChild(service1)
+                } else {
+                    /**
+                     * Check if block already exists and is true, if false
+                     * create another service tag with block and log attributes
+                     * set to true
+                     */
+                    if (service.attributes.getNamedItem("block") != null && service.attributes.getNamedItem("block").nodeValue == "false") {
+                        val service1 = document.createElement("service")
+                        service1.setAttribute("block", "true")
+                        service1.setAttribute("log", "false")
+                        service1.appendChild(componentFilter)
+
+                        rules.appendChild(service1)
+                    } else {
+                        service.appendChild(componentFilter)
+                    }
+                }
+            }
+
+            if (tracker.isReceiver) {
+                // Check if the broadcast tag exists
+                val broadcast = document.getElementsByTagName("broadcast").item(0)
+
+                if (broadcast == null) {
+                    val broadcast1 = document.createElement("broadcast")
+                    broadcast1.setAttribute("block", "true")
+                    broadcast1.setAttribute("log", "false")
+                    broadcast1.appendChild(componentFilter)
+
+                    rules.appendChild(broadcast1)
+                } else {
+                    /**
+                     * Check if block already exists and is true, if false
+                     * create another broadcast tag with block and log attributes
+                     * set to true
+                     */
+                    if (broadcast.attributes.getNamedItem("block") != null && broadcast.attributes.getNamedItem("block").nodeValue == "false") {
+                        val broadcast1 = document.createElement("broadcast")
+                        broadcast1.setAttribute("block", "true")
+                        broadcast1.setAttribute("log", "false")
+                        broadcast1.appendChild(componentFilter)
+
+                        rules.appendChild(broadcast1)
+                    } else {
+                        broadcast.appendChild(componentFilter)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the rules of the components of [trackers] from [document]
+     */
+    fun unblockTrackers(document: Document, packageName: String, trackers: List<Tracker>) {
+        for (tracker in trackers) {
+            if (tracker.isComponent.invert()) {
+                continue
+            }
+
+            removeComponentFilters(document, "$packageName/${tracker.name}")
+        }
+    }
+
+    /**
+     * Remove every component-filter named [name] from [document]. The
+     * node list is live and shrinks with every removal, it is walked
+     * from the end so no entry is skipped.
+     */
+    private fun removeComponentFilters(document: Document, name: String) {
+        val components = document.getElementsByTagName("component-filter")
+
+        for (i in components.length - 1 downTo 0) {
+            val component = components.item(i)
+
+            if (component.attributes.getNamedItem("name")?.nodeValue == name) {
+                component.parentNode.removeChild(component)
+            }
+        }
+    }
+}
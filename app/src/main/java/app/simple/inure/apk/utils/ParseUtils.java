@@ -10,7 +10,6 @@ import app.simple.inure.apk.structure.resource.ResourceValue;
 import app.simple.inure.apk.structure.string.StringPool;
 import app.simple.inure.apk.structure.string.StringPoolHeader;
 import app.simple.inure.exceptions.ParserException;
-import app.simple.inure.models.StringPoolEntry;
 
 public class ParseUtils {
     
@@ -89,6 +88,7 @@ public class ParseUtils {
     
     /**
      * read String pool, for apk binary xml file and resource table.
+     * Only the string offsets are read, see {@link StringPool}.
      */
     public static StringPool readStringPool(ByteBuffer buffer, StringPoolHeader stringPoolHeader) {
         
@@ -96,9 +96,7 @@ public class ParseUtils {
         int[] offsets = new int[stringPoolHeader.getStringCount()];
         // read strings offset
         if (stringPoolHeader.getStringCount() > 0) {
-            for (int idx = 0; idx < stringPoolHeader.getStringCount(); idx++) {
-                offsets[idx] = Unsigned.toUInt(Buffers.readUInt(buffer));
-            }
+            buffer.asIntBuffer().get(offsets);
         }
         // read flag
         // the string index is sorted by the string values if true
@@ -108,28 +106,12 @@ public class ParseUtils {
         
         // read strings. the head and metas have 28 bytes
         long stringPos = beginPos + stringPoolHeader.getStringsStart() - stringPoolHeader.getHeaderSize();
-        Buffers.position(buffer, stringPos);
-        
-        StringPoolEntry[] entries = new StringPoolEntry[offsets.length];
-        for (int i = 0; i < offsets.length; i++) {
-            entries[i] = new StringPoolEntry(i, stringPos + Unsigned.toLong(offsets[i]));
+        for (int idx = 0; idx < offsets.length; idx++) {
+            offsets[idx] = (int) (stringPos + (offsets[idx] & 0xffffffffL));
         }
         
-        String lastStr = null;
-        long lastOffset = -1;
-        StringPool stringPool = new StringPool(stringPoolHeader.getStringCount());
-        for (StringPoolEntry entry : entries) {
-            if (entry.getOffset() == lastOffset) {
-                stringPool.set(entry.getIdx(), lastStr);
-                continue;
-            }
-            
-            Buffers.position(buffer, entry.getOffset());
-            lastOffset = entry.getOffset();
-            String str = ParseUtils.readString(buffer, utf8);
-            lastStr = str;
-            stringPool.set(entry.getIdx(), str);
-        }
+        // strings are decoded on demand
+        StringPool stringPool = new StringPool(buffer, offsets, utf8);
         
         // read styles
         if (stringPoolHeader.getStyleCount() > 0) {
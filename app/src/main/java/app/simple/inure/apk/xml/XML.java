@@ -5,24 +5,23 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.Collections;
 import java.util.Locale;
-import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
-import app.simple.inure.apk.parsers.ResourceTableParser;
+import app.simple.inure.apk.parsers.ResourceTableCache;
 import app.simple.inure.apk.structure.resource.ResourceTable;
 import app.simple.inure.apk.utils.Inputs;
-import app.simple.inure.constants.AndroidConstants;
 
 public class XML implements Closeable {
     
     private final ZipFile zipFile;
+    private final String path;
     private ResourceTable resourceTable;
     
     public XML(String path) throws IOException {
         File apkFile = new File(path);
+        this.path = path;
         // create zip file cost time, use one zip file for apk parser life cycle
         this.zipFile = new ZipFile(apkFile);
     }
@@ -39,13 +38,29 @@ public class XML implements Closeable {
         if (data == null) {
             return null;
         }
-        parseResourceTable();
         
         XmlTranslator xmlTranslator = new XmlTranslator();
         transBinaryXml(data, xmlTranslator);
         return xmlTranslator.getXml();
     }
     
+    /**
+     * parse a binary xml file into the given streamer.
+     *
+     * @param path the xml file path in apk file
+     * @return the streamer. null if file not exists
+     * @throws IOException if file is invalid
+     */
+    public <T extends XmlStreamer> T transBinaryXml(String path, T xmlStreamer) throws IOException {
+        byte[] data = getFileData(path);
+        if (data == null) {
+            return null;
+        }
+        
+        transBinaryXml(data, xmlStreamer);
+        return xmlStreamer;
+    }
+    
     private void transBinaryXml(byte[] data, XmlStreamer xmlStreamer) throws IOException {
         parseResourceTable();
         
@@ -57,23 +72,13 @@ public class XML implements Closeable {
     }
     
     /**
-     * parse resource table.
+     * get the resource table from the shared cache, resources.arsc is
+     * parsed only once for all XML instances of the same apk.
      */
     private void parseResourceTable() throws IOException {
-        byte[] data = getFileData(AndroidConstants.RESOURCE_FILE);
-        Set <Locale> locales;
-        if (data == null) {
-            // if no resource entry has been found, we assume it is not needed by this APK
-            this.resourceTable = new ResourceTable();
-            locales = Collections.emptySet();
-            return;
+        if (resourceTable == null) {
+            resourceTable = ResourceTableCache.get(path);
         }
-        
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        ResourceTableParser resourceTableParser = new ResourceTableParser(buffer);
-        resourceTableParser.parse();
-        this.resourceTable = resourceTableParser.getResourceTable();
-        locales = resourceTableParser.getLocales();
     }
     
     public byte[] getFileData(String path) throws IOException {
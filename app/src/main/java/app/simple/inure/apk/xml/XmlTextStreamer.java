@@ -0,0 +1,169 @@
+package app.simple.inure.apk.xml;
+
+import java.util.List;
+
+import app.simple.inure.apk.structure.attribute.Attribute;
+import app.simple.inure.apk.structure.xml.XmlCData;
+import app.simple.inure.apk.structure.xml.XmlNamespaceEndTag;
+import app.simple.inure.apk.structure.xml.XmlNamespaceStartTag;
+import app.simple.inure.apk.structure.xml.XmlNodeEndTag;
+import app.simple.inure.apk.structure.xml.XmlNodeStartTag;
+
+/**
+ * Stream binary xml straight to indented plain text.
+ * <p>
+ * The text is laid out like {@link XmlTranslator} output after it went
+ * through the DOM formatter of the viewer: four spaces per level, no
+ * xml declaration and empty elements closed with {@code />}. Highlighting
+ * is left to the viewer, which only highlights the lines around its
+ * viewport.
+ */
+public class XmlTextStreamer implements XmlStreamer {
+    
+    private static final String INDENT = "    ";
+    
+    private final StringBuilder sb;
+    private final XmlNamespaces namespaces;
+    private int shift = 0;
+    private boolean isLastStartTag;
+    
+    public XmlTextStreamer() {
+        sb = new StringBuilder();
+        namespaces = new XmlNamespaces();
+    }
+    
+    @Override
+    public void onStartTag(XmlNodeStartTag xmlNodeStartTag) {
+        if (isLastStartTag) {
+            sb.append(">\n");
+        }
+        appendShift(shift++);
+        
+        sb.append('<');
+        if (xmlNodeStartTag.getNamespace() != null) {
+            String prefix = namespaces.getPrefixViaUri(xmlNodeStartTag.getNamespace());
+            if (prefix != null) {
+                sb.append(prefix).append(":");
+            } else {
+                sb.append(xmlNodeStartTag.getNamespace()).append(":");
+            }
+        }
+        sb.append(xmlNodeStartTag.getName());
+        
+        List <XmlNamespaces.XmlNamespace> nps = namespaces.consumeNameSpaces();
+        for (XmlNamespaces.XmlNamespace np : nps) {
+            sb.append(" xmlns:").append(np.getPrefix()).append('=');
+            appendValue(np.getUri());
+        }
+        isLastStartTag = true;
+        
+        for (Attribute attribute : xmlNodeStartTag.getAttributes().values()) {
+            onAttribute(attribute);
+        }
+    }
+    
+    private void onAttribute(Attribute attribute) {
+        sb.append(' ');
+        String namespace = this.namespaces.getPrefixViaUri(attribute.getNamespace());
+        if (namespace == null) {
+            namespace = attribute.getNamespace();
+        }
+        if (namespace != null && !namespace.isEmpty()) {
+            sb.append(namespace).append(':');
+        }
+        sb.append(attribute.getName()).append('=');
+        appendValue(attribute.getValue());
+    }
+    
+    @Override
+    public void onEndTag(XmlNodeEndTag xmlNodeEndTag) {
+        --shift;
+        if (isLastStartTag) {
+            sb.append("/>\n");
+        } else {
+            appendShift(shift);
+            sb.append("</");
+            if (xmlNodeEndTag.getNamespace() != null) {
+                String namespace = this.namespaces.getPrefixViaUri(xmlNodeEndTag.getNamespace());
+                if (namespace == null) {
+                    namespace = xmlNodeEndTag.getNamespace();
+                }
+                sb.append(namespace).append(":");
+            }
+            sb.append(xmlNodeEndTag.getName());
+            sb.append(">\n");
+        }
+        isLastStartTag = false;
+    }
+    
+    @Override
+    public void onCData(XmlCData xmlCData) {
+        if (isLastStartTag) {
+            sb.append(">\n");
+        }
+        appendShift(shift);
+        sb.append(xmlCData.getValue()).append('\n');
+        isLastStartTag = false;
+    }
+    
+    @Override
+    public void onNamespaceStart(XmlNamespaceStartTag tag) {
+        this.namespaces.addNamespace(tag);
+    }
+    
+    @Override
+    public void onNamespaceEnd(XmlNamespaceEndTag tag) {
+        this.namespaces.removeNamespace(tag);
+    }
+    
+    public String getXml() {
+        return sb.toString();
+    }
+    
+    /**
+     * Quote and escape an attribute value the same way the
+     * DOM formatter serializes it
+     */
+    private void appendValue(String value) {
+        sb.append('"');
+        
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&':
+                        sb.append("&amp;");
+                        break;
+                    case '<':
+                        sb.append("&lt;");
+                        break;
+                    case '>':
+                        sb.append("&gt;");
+                        break;
+                    case '"':
+                        sb.append("&quot;");
+                        break;
+                    case '\n':
+                        sb.append("&#10;");
+                        break;
+                    case '\r':
+                        sb.append("&#13;");
+                        break;
+                    case '\t':
+                        sb.append("&#9;");
+                        break;
+                    default:
+                        sb.append(c);
+                }
+            }
+        }
+        
+        sb.append('"');
+    }
+    
+    private void appendShift(int shift) {
+        for (int i = 0; i < shift; i++) {
+            sb.append(INDENT);
+        }
+    }
+}
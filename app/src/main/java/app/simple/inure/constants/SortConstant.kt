@@ -17,6 +17,7 @@ object SortConstant {
     const val SPLIT = 8
     const val UNINSTALLED = 16
     const val COMBINE_FLAGS = 32
+    const val TRACKERS = 64
     const val ALL = DISABLED or ENABLED or APK or SPLIT
 
     const val CATEGORY_UNSPECIFIED = 1L shl 1
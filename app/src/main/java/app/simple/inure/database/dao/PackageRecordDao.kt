@@ -0,0 +1,41 @@
+package app.simple.inure.database.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import app.simple.inure.models.PackageRecord
+
+@Dao
+interface PackageRecordDao {
+
+    /**
+     * Get every stored [PackageRecord], the whole catalogue in one query
+     */
+    @Query("SELECT * FROM packages")
+    fun getAllPackages(): MutableList<PackageRecord>
+
+    /**
+     * Get the stored [PackageRecord] of [packageName] if any
+     */
+    @Query("SELECT * FROM packages WHERE package_name = :packageName")
+    fun getPackage(packageName: String): PackageRecord?
+
+    /**
+     * Insert or replace a batch of [PackageRecord]s
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertPackages(packages: List<PackageRecord>)
+
+    /**
+     * Delete the records of packages that are gone
+     */
+    @Query("DELETE FROM packages WHERE package_name IN (:packageNames)")
+    fun deletePackages(packageNames: List<String>)
+
+    /**
+     * Delete the entire table
+     */
+    @Query("DELETE FROM packages")
+    fun nukeTable()
+}
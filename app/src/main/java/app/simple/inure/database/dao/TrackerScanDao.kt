@@ -0,0 +1,48 @@
+package app.simple.inure.database.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import app.simple.inure.models.TrackerScan
+
+@Dao
+interface TrackerScanDao {
+
+    /**
+     * Get all stored [TrackerScan] results
+     */
+    @Query("SELECT * FROM tracker_scans")
+    fun getAllScans(): MutableList<TrackerScan>
+
+    /**
+     * Get the stored [TrackerScan] of [packageName] if any
+     */
+    @Query("SELECT * FROM tracker_scans WHERE package_name = :packageName")
+    fun getScan(packageName: String): TrackerScan?
+
+    /**
+     * Get the package names of all packages with
+     * at least one tracker
+     */
+    @Query("SELECT package_name FROM tracker_scans WHERE tracker_count > 0")
+    fun getPackagesWithTrackers(): MutableList<String>
+
+    /**
+     * Insert or replace a batch of [TrackerScan] results
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertScans(scans: List<TrackerScan>)
+
+    /**
+     * Delete the scans of packages that are not installed anymore
+     */
+    @Query("DELETE FROM tracker_scans WHERE package_name IN (:packageNames)")
+    fun deleteScans(packageNames: List<String>)
+
+    /**
+     * Delete the entire table
+     */
+    @Query("DELETE FROM tracker_scans")
+    fun nukeTable()
+}
@@ -0,0 +1,39 @@
+package app.simple.inure.database.instances
+
+import android.content.Context
+import androidx.room.Database
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import app.simple.inure.database.dao.PackageRecordDao
+import app.simple.inure.models.PackageRecord
+import app.simple.inure.util.NullSafety.isNull
+
+@Database(entities = [PackageRecord::class], exportSchema = true, version = 1)
+abstract class PackageCatalogueDatabase : RoomDatabase() {
+
+    abstract fun getPackageRecordDao(): PackageRecordDao?
+
+    companion object {
+        private var instance: PackageCatalogueDatabase? = null
+        private const val db_name = "package_catalogue.db"
+
+        @Synchronized
+        fun getInstance(context: Context): PackageCatalogueDatabase? {
+            instance = if (instance.isNull()) {
+                Room.databaseBuilder(context, PackageCatalogueDatabase::class.java, db_name)
+                    .fallbackToDestructiveMigration()
+                    .build()
+            } else {
+                if (instance!!.isOpen) {
+                    return instance
+                } else {
+                    Room.databaseBuilder(context, PackageCatalogueDatabase::class.java, db_name)
+                        .fallbackToDestructiveMigration()
+                        .build()
+                }
+            }
+
+            return instance
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package app.simple.inure.database.instances
+
+import android.content.Context
+import androidx.room.Database
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import app.simple.inure.database.dao.TrackerScanDao
+import app.simple.inure.models.TrackerScan
+import app.simple.inure.util.NullSafety.isNull
+
+@Database(entities = [TrackerScan::class], exportSchema = true, version = 1)
+abstract class TrackerScanDatabase : RoomDatabase() {
+
+    abstract fun getTrackerScanDao(): TrackerScanDao?
+
+    companion object {
+        private var instance: TrackerScanDatabase? = null
+        private const val db_name = "tracker_scans.db"
+
+        @Synchronized
+        fun getInstance(context: Context): TrackerScanDatabase? {
+            instance = if (instance.isNull()) {
+                Room.databaseBuilder(context, TrackerScanDatabase::class.java, db_name)
+                    .fallbackToDestructiveMigration()
+                    .build()
+            } else {
+                if (instance!!.isOpen) {
+                    return instance
+                } else {
+                    Room.databaseBuilder(context, TrackerScanDatabase::class.java, db_name)
+                        .fallbackToDestructiveMigration()
+                        .build()
+                }
+            }
+
+            return instance
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package app.simple.inure.decorations.emulatorview;
+
+import android.util.Log;
+
+import app.simple.inure.decorations.emulatorview.compat.AndroidCharacterCompat;
+import app.simple.inure.decorations.emulatorview.compat.AndroidCompat;
+
+/**
+ * The emulator core on a device: logcat and Android's own character widths.
+ */
+final class AndroidPlatform extends EmulatorPlatform {
+    @Override
+    void println(int priority, String tag, String message, Throwable throwable) {
+        if (throwable != null) {
+            message = message + '\n' + Log.getStackTraceString(throwable);
+        }
+        Log.println(priority, tag, message);
+    }
+    
+    @Override
+    boolean isWide(char c) {
+        switch (AndroidCharacterCompat.getEastAsianWidth(c)) {
+            case AndroidCharacterCompat.EAST_ASIAN_WIDTH_FULL_WIDTH:
+            case AndroidCharacterCompat.EAST_ASIAN_WIDTH_WIDE:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    @Override
+    boolean composesHangulJamo() {
+        return AndroidCompat.SDK >= UnicodeTranscript.HANGUL_CONJOINING_MIN_SDK;
+    }
+}
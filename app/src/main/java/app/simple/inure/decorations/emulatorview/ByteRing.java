@@ -0,0 +1,119 @@
+package app.simple.inure.decorations.emulatorview;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A byte ring for exactly one producer thread and one consumer thread
+ * which hands out its own array instead of copying.
+ * <p>
+ * The producer reads straight into {@link #array()} at
+ * {@link #writeOffset()}, at most {@link #writableRun()} bytes, and then
+ * {@link #publish}es them.  The consumer works on the bytes at
+ * {@link #readOffset()}, at most {@link #readableRun()} of them, and then
+ * {@link #consume}s them.  Neither side takes a lock, only the producer
+ * parks when the ring is full until the consumer makes room.
+ */
+class ByteRing {
+    private final byte[] mBuffer;
+    private final int mMask;
+    
+    /**
+     * Next byte to read, only written by the consumer
+     */
+    private final AtomicLong mHead = new AtomicLong();
+    
+    /**
+     * Next byte to write, only written by the producer
+     */
+    private final AtomicLong mTail = new AtomicLong();
+    
+    /**
+     * The producer while it is parked on a full ring
+     */
+    private volatile Thread mWaiter;
+    
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    ByteRing(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mBuffer = new byte[size];
+        mMask = size - 1;
+    }
+    
+    byte[] array() {
+        return mBuffer;
+    }
+    
+    int getBytesAvailable() {
+        return (int) (mTail.get() - mHead.get());
+    }
+    
+    int writeOffset() {
+        return (int) mTail.get() & mMask;
+    }
+    
+    /**
+     * Free bytes from {@link #writeOffset()} up to the end of the array
+     */
+    int writableRun() {
+        long tail = mTail.get();
+        int free = mBuffer.length - (int) (tail - mHead.get());
+        return Math.min(free, mBuffer.length - ((int) tail & mMask));
+    }
+    
+    /**
+     * Hand the bytes written at {@link #writeOffset()} over to the consumer.
+     */
+    void publish(int count) {
+        mTail.lazySet(mTail.get() + count);
+    }
+    
+    /**
+     * Park the producer until there is room to write.
+     */
+    void awaitSpace() throws InterruptedException {
+        while (writableRun() == 0) {
+            mWaiter = Thread.currentThread();
+            
+            // Checked again after mWaiter is set, see consume()
+            if (writableRun() == 0) {
+                LockSupport.park(this);
+            }
+            
+            mWaiter = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+    
+    int readOffset() {
+        return (int) mHead.get() & mMask;
+    }
+    
+    /**
+     * Published bytes from {@link #readOffset()} up to the end of the array
+     */
+    int readableRun() {
+        long head = mHead.get();
+        int available = (int) (mTail.get() - head);
+        return Math.min(available, mBuffer.length - ((int) head & mMask));
+    }
+    
+    /**
+     * Give the bytes at {@link #readOffset()} back to the producer.
+     */
+    void consume(int count) {
+        mHead.set(mHead.get() + count);
+        
+        Thread waiter = mWaiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package app.simple.inure.decorations.emulatorview;
+
+import java.util.Arrays;
+
+/**
+ * Remembers which rows of a TranscriptScreen changed since the view last
+ * drew it.
+ * <p>
+ * Rows are screen rows, 0 being the top of the screen.  Scrolling the whole
+ * screen is counted instead of damaging every row, the view moves the rows
+ * it already drew up instead of drawing them again.
+ */
+class DamageTracker {
+    private boolean[] mDirty;
+    private int mScrolled;
+    private boolean mAllDirty = true;
+    
+    DamageTracker(int rows) {
+        mDirty = new boolean[rows];
+    }
+    
+    void damage(int row) {
+        if (row >= 0 && row < mDirty.length) {
+            mDirty[row] = true;
+        }
+    }
+    
+    void damage(int row, int count) {
+        int end = Math.min(row + count, mDirty.length);
+        for (int i = Math.max(row, 0); i < end; ++i) {
+            mDirty[i] = true;
+        }
+    }
+    
+    void damageAll() {
+        mAllDirty = true;
+    }
+    
+    /**
+     * Track TranscriptScreen.scroll()
+     */
+    void scroll(int topMargin, int bottomMargin) {
+        int rows = mDirty.length;
+        if (topMargin != 0 || bottomMargin != rows) {
+            damage(topMargin, bottomMargin - topMargin);
+            return;
+        }
+        
+        // Damage moves up with the rows, the new bottom row is blank
+        System.arraycopy(mDirty, 1, mDirty, 0, rows - 1);
+        mDirty[rows - 1] = true;
+        if (++mScrolled >= rows) {
+            mAllDirty = true;
+        }
+    }
+    
+    void resize(int rows) {
+        if (rows != mDirty.length) {
+            mDirty = new boolean[rows];
+        }
+        mAllDirty = true;
+    }
+    
+    /**
+     * Hand the damage over to the view and start again with a clean screen.
+     *
+     * @param dirty set for every damaged row, rows past its end are dropped
+     * @return how many rows scrolled off the top since the last call, or -1
+     * if everything has to be drawn again
+     */
+    int collect(boolean[] dirty) {
+        int scrolled = mAllDirty ? -1 : mScrolled;
+        System.arraycopy(mDirty, 0, dirty, 0, Math.min(dirty.length, mDirty.length));
+        if (dirty.length > mDirty.length) {
+            Arrays.fill(dirty, mDirty.length, dirty.length, true);
+        }
+        
+        Arrays.fill(mDirty, false);
+        mScrolled = 0;
+        mAllDirty = false;
+        return scrolled;
+    }
+}
@@ -0,0 +1,81 @@
+package app.simple.inure.decorations.emulatorview;
+
+/**
+ * The few things the emulator core needs from the platform it runs on.
+ * <p>
+ * TerminalEmulator, TranscriptScreen and UnicodeTranscript don't use the
+ * Android SDK themselves so they run on a plain JVM for tests and
+ * benchmarks.  Until something else is installed with {@link #set} the core
+ * logs to System.err and measures characters with the JDK, TermSession
+ * installs {@link AndroidPlatform}.
+ */
+abstract class EmulatorPlatform {
+    /**
+     * Log priorities, the same values as android.util.Log
+     */
+    static final int DEBUG = 3;
+    static final int WARN = 5;
+    static final int ERROR = 6;
+    
+    private static volatile EmulatorPlatform sPlatform = new JvmPlatform();
+    
+    static EmulatorPlatform get() {
+        return sPlatform;
+    }
+    
+    static void set(EmulatorPlatform platform) {
+        sPlatform = platform;
+    }
+    
+    static void log(int priority, String tag, String message) {
+        sPlatform.println(priority, tag, message, null);
+    }
+    
+    static void log(int priority, String tag, String message, Throwable throwable) {
+        sPlatform.println(priority, tag, message, throwable);
+    }
+    
+    abstract void println(int priority, String tag, String message, Throwable throwable);
+    
+    /**
+     * Whether a BMP character is East Asian wide or full width.
+     */
+    abstract boolean isWide(char c);
+    
+    /**
+     * Whether the renderer composes Hangul jamo into syllable blocks, medial
+     * vowels and final consonants then take no columns of their own.
+     */
+    abstract boolean composesHangulJamo();
+    
+    private static final class JvmPlatform extends EmulatorPlatform {
+        @Override
+        void println(int priority, String tag, String message, Throwable throwable) {
+            System.err.println(tag + ": " + message);
+            if (throwable != null) {
+                throwable.printStackTrace();
+            }
+        }
+        
+        /**
+         * The wide and full width ranges of Markus Kuhn's wcwidth(), the JDK
+         * has no East Asian width of its own
+         */
+        @Override
+        boolean isWide(char c) {
+            return c >= 0x1100 && (c <= 0x115f || c == 0x2329 || c == 0x232a
+                    || (c >= 0x2e80 && c <= 0xa4cf && c != 0x303f)
+                    || (c >= 0xac00 && c <= 0xd7a3)
+                    || (c >= 0xf900 && c <= 0xfaff)
+                    || (c >= 0xfe10 && c <= 0xfe19)
+                    || (c >= 0xfe30 && c <= 0xfe6f)
+                    || (c >= 0xff00 && c <= 0xff60)
+                    || (c >= 0xffe0 && c <= 0xffe6));
+        }
+        
+        @Override
+        boolean composesHangulJamo() {
+            return true;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package app.simple.inure.decorations.emulatorview;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
@@ -210,8 +211,7 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
             } else {
                 mCursorVisible = true;
             }
-            // Perhaps just invalidate the character with the cursor.
-            invalidate();
+            invalidateCursorRow();
         }
     };
     
@@ -247,6 +247,39 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
      */
     private final Hashtable <Integer, URLSpan[]> mLinkLayer = new Hashtable <Integer, URLSpan[]>();
     
+    /**
+     * Rows of the view which have to be drawn again and rows whose links
+     * have to be found again, row 0 is the top row of the view.
+     */
+    private boolean[] mStaleRows = new boolean[0];
+    private boolean[] mStaleLinks = new boolean[0];
+    private boolean[] mDamagedRows = new boolean[0];
+    
+    /**
+     * The rows drawn last, only used with hardware accelerated canvases
+     */
+    private RowRenderCache mRowCache;
+    private final Rect mClipBounds = new Rect();
+    
+    /**
+     * What the rows were drawn with, anything different means they have to
+     * be drawn again
+     */
+    private TranscriptScreen mDrawnScreen;
+    private TextRenderer mDrawnRenderer;
+    private boolean mDrawnWithRowCache;
+    private boolean mDrawnReverseVideo;
+    private int mDrawnTopRow;
+    private int mDrawnLeftColumn;
+    private int mDrawnCursorRow;
+    private int mDrawnCursorCol = -1;
+    private int mDrawnCursorStyle;
+    private String mDrawnImeBuffer = "";
+    private int mDrawnSelX1 = -1;
+    private int mDrawnSelY1 = -1;
+    private int mDrawnSelX2 = -1;
+    private int mDrawnSelY2 = -1;
+    
     /**
      * Accept links that start with http[s]:
      */
@@ -485,6 +518,43 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
         return lineCount;
     }
     
+    /**
+     * Find the links of the wrapped line starting at this row, unless none
+     * of its rows changed since they were last found.
+     *
+     * @param row The number of the row to check for links
+     * @return The number of lines in a multi-line-wrap set of links
+     */
+    private int findLinks(int row) {
+        TranscriptScreen transcriptScreen = emulator.getScreen();
+        int first = row - mTopRow;
+        int lineCount = 1;
+        boolean stale = mStaleLinks[first];
+        
+        while (transcriptScreen.getScriptLineWrap(row + lineCount - 1)) {
+            if (first + lineCount >= mRows) {
+                // Continues below the view, don't know whether it changed
+                stale = true;
+                break;
+            }
+            stale |= mStaleLinks[first + lineCount];
+            ++lineCount;
+        }
+        
+        if (!stale) {
+            return lineCount;
+        }
+        
+        for (int i = 0; i < lineCount; ++i) {
+            mLinkLayer.remove(first + i);
+            if (first + i < mRows) {
+                mStaleLinks[first + i] = false;
+            }
+        }
+        
+        return createLinks(row);
+    }
+    
     /**
      * Create an <code>EmulatorView</code> for a {@link TermSession}.
      *
@@ -595,6 +665,9 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
         if (cursorBlink) {
             mHandler.removeCallbacks(mBlinkCursor);
         }
+        if (mRowCache != null) {
+            mRowCache.discard();
+        }
         if (keyListener != null) {
             keyListener.onPause();
         }
@@ -1476,6 +1549,7 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
         mTopRow = 0;
         mLeftColumn = 0;
         
+        mDrawnScreen = null;
         invalidate();
     }
     
@@ -1486,13 +1560,13 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
      *              view's size has not changed.
      */
     public void updateSize(boolean force) {
-        //Need to clear saved links on each display refresh
-        mLinkLayer.clear();
         if (mKnownSize) {
             int w = getWidth();
             int h = getHeight();
             // Log.w("Term", "(" + w + ", " + h + ")");
             if (force || w != mVisibleWidth || h != mVisibleHeight) {
+                //Saved links are only good for the old size
+                mLinkLayer.clear();
                 mVisibleWidth = w;
                 mVisibleHeight = h;
                 updateSize(mVisibleWidth, mVisibleHeight);
@@ -1524,7 +1598,6 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
                 reverseVideo ? mForegroundPaint : mBackgroundPaint;
         canvas.drawRect(0, 0, w, h, backgroundPaint);
         float x = -mLeftColumn * mCharacterWidth;
-        float y = mCharacterHeight + mTopOfScreenMargin;
         int endLine = mTopRow + mRows;
         int cx = emulator.getCursorCol();
         int cy = emulator.getCursorRow();
@@ -1536,9 +1609,23 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
         }
         int cursorStyle = keyListener.getCursorMode();
     
+        RowRenderCache rowCache = null;
+        if (RowRenderCache.isSupported(canvas)) {
+            if (mRowCache == null) {
+                mRowCache = new RowRenderCache();
+            }
+            rowCache = mRowCache;
+        }
+        findStaleRows(rowCache, reverseVideo, cursorVisible ? cx : -1, cy, effectiveImeBuffer, cursorStyle);
+        
+        // Software canvases are clipped to what was invalidated
+        canvas.getClipBounds(mClipBounds);
+        
         int linkLinesToSkip = 0; //for multi-line links
     
         for (int i = mTopRow; i < endLine; i++) {
+            int row = i - mTopRow;
+            int top = mTopOfScreenMargin + row * mCharacterHeight;
             int cursorX = -1;
             if (i == cy && cursorVisible) {
                 cursorX = cx;
@@ -1555,18 +1642,160 @@ public class EmulatorView extends View implements GestureDetector.OnGestureListe
                     selx2 = mColumns;
                 }
             }
-            emulator.getScreen().drawText(i, canvas, x, y, mTextRenderer, cursorX, selx1, selx2, effectiveImeBuffer, cursorStyle);
-            y += mCharacterHeight;
-            //if no lines to skip, create links for the line being drawn
+            
+            if (rowCache != null) {
+                if (mStaleRows[row] || !rowCache.isRecorded(row)) {
+                    Canvas rowCanvas = rowCache.beginRecording(row);
+                    try {
+                        emulator.getScreen().drawText(i, rowCanvas, x, mCharacterHeight, mTextRenderer, cursorX, selx1, selx2, effectiveImeBuffer, cursorStyle);
+                    } finally {
+                        rowCache.endRecording(row);
+                    }
+                }
+                rowCache.draw(canvas, row, top);
+            } else if (top < mClipBounds.bottom && top + mCharacterHeight > mClipBounds.top) {
+                emulator.getScreen().drawText(i, canvas, x, top + mCharacterHeight, mTextRenderer, cursorX, selx1, selx2, effectiveImeBuffer, cursorStyle);
+            }
+            mStaleRows[row] = false;
+            
+            //if no lines to skip, find links for the line being drawn
             if (linkLinesToSkip == 0) {
-                linkLinesToSkip = createLinks(i);
+                linkLinesToSkip = findLinks(i);
             }
             
-            //createLinks always returns at least 1
+            //findLinks always returns at least 1
             --linkLinesToSkip;
         }
     }
     
+    /**
+     * Mark the rows of the view which have to be drawn again, from the rows
+     * the screen says were damaged and from what changed in the view since
+     * the last frame.  Rows the screen scrolled up are moved along with
+     * their links instead.
+     */
+    private void findStaleRows(RowRenderCache rowCache, boolean reverseVideo, int cursorCol, int cursorRow,
+            String imeBuffer, int cursorStyle) {
+        int rows = mRows;
+        boolean all = false;
+        if (mStaleRows.length != rows) {
+            mStaleRows = new boolean[rows];
+            mStaleLinks = new boolean[rows];
+            mDamagedRows = new boolean[rows];
+            all = true;
+        }
+        
+        if (rowCache != null && rowCache.setSize(rows, getWidth(), mCharacterHeight)) {
+            all = true;
+        }
+        
+        TranscriptScreen screen = emulator.getScreen();
+        int scrolled = screen.getDamage().collect(mDamagedRows);
+        int shift = scrolled + mTopRow - mDrawnTopRow;
+        
+        all |= scrolled < 0 || Math.abs(shift) >= rows
+                || screen != mDrawnScreen
+                || mTextRenderer != mDrawnRenderer
+                || (rowCache != null) != mDrawnWithRowCache
+                || reverseVideo != mDrawnReverseVideo
+                || mLeftColumn != mDrawnLeftColumn
+                || cursorStyle != mDrawnCursorStyle
+                || mSelX1 != mDrawnSelX1 || mSelY1 != mDrawnSelY1
+                || mSelX2 != mDrawnSelX2 || mSelY2 != mDrawnSelY2;
+        
+        if (all) {
+            Arrays.fill(mStaleRows, true);
+            Arrays.fill(mStaleLinks, true);
+            mLinkLayer.clear();
+        } else {
+            if (shift != 0) {
+                shiftRows(rowCache, shift);
+            }
+            
+            for (int i = 0; i < rows; ++i) {
+                int screenRow = mTopRow + i;
+                if (screenRow >= 0 && mDamagedRows[screenRow]) {
+                    mStaleRows[i] = true;
+                    mStaleLinks[i] = true;
+                }
+            }
+            
+            if (cursorCol != mDrawnCursorCol || cursorRow != mDrawnCursorRow || shift != 0
+                    || !imeBuffer.equals(mDrawnImeBuffer)) {
+                // The cursor's old row moved up with the scroll
+                markStaleRow(mDrawnCursorRow - scrolled - mTopRow);
+                markStaleRow(cursorRow - mTopRow);
+            }
+        }
+        
+        mDrawnScreen = screen;
+        mDrawnRenderer = mTextRenderer;
+        mDrawnWithRowCache = rowCache != null;
+        mDrawnReverseVideo = reverseVideo;
+        mDrawnTopRow = mTopRow;
+        mDrawnLeftColumn = mLeftColumn;
+        mDrawnCursorRow = cursorRow;
+        mDrawnCursorCol = cursorCol;
+        mDrawnCursorStyle = cursorStyle;
+        mDrawnImeBuffer = imeBuffer;
+        mDrawnSelX1 = mSelX1;
+        mDrawnSelY1 = mSelY1;
+        mDrawnSelX2 = mSelX2;
+        mDrawnSelY2 = mSelY2;
+    }
+    
+    private void markStaleRow(int row) {
+        if (row >= 0 && row < mStaleRows.length) {
+            mStaleRows[row] = true;
+        }
+    }
+    
+    /**
+     * Move the drawn rows and their links up by count rows, or down if count
+     * is negative.  Rows which come in have to be drawn again.
+     */
+    private void shiftRows(RowRenderCache rowCache, int count) {
+        shiftRows(mStaleRows, count);
+        shiftRows(mStaleLinks, count);
+        if (rowCache != null) {
+            rowCache.shift(count);
+        }
+        
+        Hashtable <Integer, URLSpan[]> links = new Hashtable <Integer, URLSpan[]>();
+        for (Integer row : mLinkLayer.keySet()) {
+            int shifted = row - count;
+            if (shifted >= 0 && shifted < mRows) {
+                links.put(shifted, mLinkLayer.get(row));
+            }
+        }
+        mLinkLayer.clear();
+        mLinkLayer.putAll(links);
+    }
+    
+    private static void shiftRows(boolean[] rows, int count) {
+        int length = rows.length;
+        if (count > 0) {
+            System.arraycopy(rows, count, rows, 0, length - count);
+            Arrays.fill(rows, length - count, length, true);
+        } else {
+            System.arraycopy(rows, 0, rows, -count, length + count);
+            Arrays.fill(rows, 0, -count, true);
+        }
+    }
+    
+    /**
+     * Only the cursor's row changes when it blinks
+     */
+    private void invalidateCursorRow() {
+        if (emulator == null) {
+            invalidate();
+            return;
+        }
+        
+        int top = mTopOfScreenMargin + (emulator.getCursorRow() - mTopRow) * mCharacterHeight;
+        invalidate(0, top, getWidth(), top + mCharacterHeight);
+    }
+    
     private void ensureCursorVisible() {
         mTopRow = 0;
         if (mVisibleColumns > 0) {
@@ -0,0 +1,94 @@
+package app.simple.inure.decorations.emulatorview;
+
+import android.annotation.SuppressLint;
+import android.graphics.Canvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+/**
+ * The rows EmulatorView drew last, one RenderNode per row of the view.
+ * Rows which didn't change are drawn again from their display list without
+ * going through the transcript and the text renderer, rows which moved
+ * only get a new position.
+ * <p>
+ * RenderNode is only public since Q, the cache is only used for canvases
+ * {@link #isSupported(Canvas)} accepts.
+ */
+@SuppressLint ("NewApi")
+class RowRenderCache {
+    private RenderNode[] mNodes = new RenderNode[0];
+    private int mWidth;
+    private int mRowHeight;
+    
+    static boolean isSupported(Canvas canvas) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated();
+    }
+    
+    /**
+     * Size the cache for the view, everything is recorded again if
+     * anything changed.
+     *
+     * @return true if the cached rows were dropped
+     */
+    boolean setSize(int rows, int width, int rowHeight) {
+        if (rows == mNodes.length && width == mWidth && rowHeight == mRowHeight) {
+            return false;
+        }
+        
+        discard();
+        mNodes = new RenderNode[rows];
+        for (int i = 0; i < rows; ++i) {
+            mNodes[i] = new RenderNode("TerminalRow");
+        }
+        mWidth = width;
+        mRowHeight = rowHeight;
+        return true;
+    }
+    
+    /**
+     * Move the rows up by count rows, or down if count is negative.  The
+     * rows which come in are the ones which went out and have to be recorded
+     * again.
+     */
+    void shift(int count) {
+        int rows = mNodes.length;
+        if (count == 0 || rows == 0) {
+            return;
+        }
+        
+        RenderNode[] shifted = new RenderNode[rows];
+        for (int i = 0; i < rows; ++i) {
+            shifted[i] = mNodes[Math.floorMod(i + count, rows)];
+        }
+        mNodes = shifted;
+    }
+    
+    boolean isRecorded(int row) {
+        return mNodes[row].hasDisplayList();
+    }
+    
+    /**
+     * Start recording a row, 0, 0 is the top left of the row.
+     */
+    Canvas beginRecording(int row) {
+        RenderNode node = mNodes[row];
+        node.setPosition(0, 0, mWidth, mRowHeight);
+        return node.beginRecording(mWidth, mRowHeight);
+    }
+    
+    void endRecording(int row) {
+        mNodes[row].endRecording();
+    }
+    
+    void draw(Canvas canvas, int row, int top) {
+        RenderNode node = mNodes[row];
+        node.setPosition(0, top, mWidth, top + mRowHeight);
+        canvas.drawRenderNode(node);
+    }
+    
+    void discard() {
+        for (RenderNode node : mNodes) {
+            node.discardDisplayList();
+        }
+    }
+}
@@ -49,6 +49,18 @@ interface Screen {
      */
     void set(int x, int y, byte b, int style);
     
+    /**
+     * Store characters into consecutive columns of row y, starting at x
+     *
+     * @param x      X coordinate of the first character
+     * @param y      Y coordinate (also known as row)
+     * @param chars  characters one column wide, all in the BMP
+     * @param offset index of the first character in chars
+     * @param count  number of characters to store, they must fit in the row
+     * @param style  the text style
+     */
+    void set(int x, int y, char[] chars, int offset, int count, int style);
+    
     /**
      * Scroll the screen down one line. To scroll the whole screen of a 24 line
      * screen, the arguments would be (0, 24).
@@ -0,0 +1,422 @@
+package app.simple.inure.decorations.emulatorview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Packed storage for the rows of a UnicodeTranscript which scrolled off the
+ * screen.
+ * <p>
+ * Rows are appended to large chunks shared by many rows; a row is identified
+ * by a handle made of its chunk and its offset in the chunk.  A packed row
+ * keeps its text without trailing blanks, as one byte per character when
+ * every character fits, and its style as runs of (length, style).  Once
+ * all rows of a chunk are older than the last {@link #RAW_ROWS} it is
+ * deflated, and only inflated again when one of its rows is unpacked.  The
+ * rows of a short transcript are dropped before that and never deflated.
+ * <p>
+ * Rows leave the transcript in about the order they were added, so chunks
+ * are dropped as soon as none of their rows are used anymore.
+ */
+class ScrollbackStore {
+    private static final int CHUNK_SIZE = 32 * 1024;
+    
+    /**
+     * Number of inflated chunks kept around, reading the transcript in order
+     * inflates each chunk once
+     */
+    private static final int INFLATED_CHUNKS = 2;
+    
+    /**
+     * Number of the most recently packed rows which aren't deflated
+     */
+    private static final int RAW_ROWS = 2048;
+    
+    private static final int FLAG_BLANK = 1;
+    private static final int FLAG_FULL = 2;
+    private static final int FLAG_WIDE_TEXT = 4;
+    
+    private final int mColumns;
+    
+    private final ArrayList <Chunk> mChunks = new ArrayList <>();
+    
+    /**
+     * Id of the first chunk in mChunks, ids start at 1 so no handle is 0
+     */
+    private int mFirstChunkId = 1;
+    private Chunk mCurrent;
+    private int mPackedRows;
+    
+    private final byte[][] mInflated = new byte[INFLATED_CHUNKS][];
+    private final int[] mInflatedIds = new int[INFLATED_CHUNKS];
+    private int mNextInflated;
+    
+    private byte[] mScratch;
+    private int mScratchLength;
+    private int mPosition;
+    
+    private static class Chunk {
+        /**
+         * The rows as they were packed, null once deflated
+         */
+        byte[] mRaw;
+        byte[] mDeflated;
+        int mLength;
+        int mLiveRows;
+        
+        /**
+         * mPackedRows after its last row, 0 while it is the current chunk
+         */
+        int mEndRow;
+        boolean mSealed;
+    }
+    
+    ScrollbackStore(int columns) {
+        mColumns = columns;
+        mScratch = new byte[columns * 4 + 64];
+    }
+    
+    /**
+     * Pack a row.
+     *
+     * @param line  the row's text, a char[], a FullUnicodeLine or null if blank
+     * @param color the row's style
+     * @return a handle for the row, never 0
+     */
+    long pack(Object line, StyleRow color) {
+        mScratchLength = 0;
+        
+        if (line == null) {
+            writeByte(FLAG_BLANK);
+        } else if (line instanceof char[]) {
+            char[] text = (char[]) line;
+            int length = text.length;
+            while (length > 0 && text[length - 1] == ' ') {
+                --length;
+            }
+            
+            boolean wide = isWide(text, length);
+            writeByte(wide ? FLAG_WIDE_TEXT : 0);
+            writeText(text, length, wide);
+        } else {
+            FullUnicodeLine fullLine = (FullUnicodeLine) line;
+            char[] text = fullLine.getLine();
+            int length = fullLine.getSpaceUsed();
+            
+            boolean wide = isWide(text, length);
+            writeByte(FLAG_FULL | (wide ? FLAG_WIDE_TEXT : 0));
+            writeText(text, length, wide);
+            
+            short[] offset = fullLine.getOffsets();
+            for (int i = 1; i < mColumns; ++i) {
+                writeVarInt(offset[i] << 1 ^ offset[i] >> 31);
+            }
+        }
+        
+        writeStyle(color);
+        
+        Chunk chunk = mCurrent;
+        if (chunk == null || chunk.mLength + mScratchLength > chunk.mRaw.length) {
+            if (chunk != null) {
+                chunk.mEndRow = mPackedRows;
+            }
+            sealOldChunks();
+            chunk = new Chunk();
+            chunk.mRaw = new byte[Math.max(CHUNK_SIZE, mScratchLength)];
+            mChunks.add(chunk);
+            mCurrent = chunk;
+        }
+        
+        int offset = chunk.mLength;
+        System.arraycopy(mScratch, 0, chunk.mRaw, offset, mScratchLength);
+        chunk.mLength += mScratchLength;
+        chunk.mLiveRows++;
+        mPackedRows++;
+        
+        int id = mFirstChunkId + mChunks.size() - 1;
+        return (long) id << 32 | offset;
+    }
+    
+    /**
+     * Unpack a row into lines[row] and colors[row].
+     */
+    void unpack(long handle, Object[] lines, StyleRow[] colors, int row) {
+        byte[] data = getData((int) (handle >>> 32));
+        mPosition = (int) handle;
+        
+        int flags = data[mPosition++];
+        int columns = mColumns;
+        
+        if ((flags & FLAG_BLANK) != 0) {
+            lines[row] = null;
+        } else if ((flags & FLAG_FULL) == 0) {
+            char[] text = new char[columns];
+            int length = readVarInt(data);
+            readText(data, text, length, (flags & FLAG_WIDE_TEXT) != 0);
+            Arrays.fill(text, length, columns, ' ');
+            lines[row] = text;
+        } else {
+            int length = readVarInt(data);
+            char[] text = new char[Math.max(length, (int) (1.5f * columns))];
+            readText(data, text, length, (flags & FLAG_WIDE_TEXT) != 0);
+            
+            short[] offset = new short[columns];
+            offset[0] = (short) length;
+            for (int i = 1; i < columns; ++i) {
+                int value = readVarInt(data);
+                offset[i] = (short) (value >>> 1 ^ -(value & 1));
+            }
+            lines[row] = new FullUnicodeLine(text, offset);
+        }
+        
+        colors[row] = readStyle(data);
+    }
+    
+    /**
+     * Forget a row, its chunk is dropped once none of its rows are left.
+     */
+    void release(long handle) {
+        int id = (int) (handle >>> 32);
+        Chunk chunk = mChunks.get(id - mFirstChunkId);
+        
+        if (--chunk.mLiveRows > 0 || chunk == mCurrent) {
+            return;
+        }
+        
+        chunk.mRaw = null;
+        chunk.mDeflated = null;
+        for (int i = 0; i < INFLATED_CHUNKS; ++i) {
+            if (mInflatedIds[i] == id) {
+                mInflated[i] = null;
+                mInflatedIds[i] = 0;
+            }
+        }
+        
+        while (!mChunks.isEmpty() && mChunks.get(0).mLiveRows == 0 && mChunks.get(0) != mCurrent) {
+            mChunks.remove(0);
+            mFirstChunkId++;
+        }
+    }
+    
+    /**
+     * Bytes held by the chunks and the inflated copies of them
+     */
+    int getSize() {
+        int size = 0;
+        
+        for (Chunk chunk : mChunks) {
+            if (chunk.mRaw != null) {
+                size += chunk.mRaw.length;
+            } else if (chunk.mDeflated != null) {
+                size += chunk.mDeflated.length;
+            }
+        }
+        
+        for (byte[] inflated : mInflated) {
+            if (inflated != null) {
+                size += inflated.length;
+            }
+        }
+        
+        return size;
+    }
+    
+    private byte[] getData(int id) {
+        Chunk chunk = mChunks.get(id - mFirstChunkId);
+        if (chunk.mRaw != null) {
+            return chunk.mRaw;
+        }
+        
+        for (int i = 0; i < INFLATED_CHUNKS; ++i) {
+            if (mInflatedIds[i] == id) {
+                return mInflated[i];
+            }
+        }
+        
+        byte[] data = new byte[chunk.mLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(chunk.mDeflated);
+            int length = 0;
+            while (length < data.length && !inflater.finished()) {
+                length += inflater.inflate(data, length, data.length - length);
+            }
+        } catch (DataFormatException e) {
+            // Written by seal() in this process, can't be corrupt
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+        
+        mInflated[mNextInflated] = data;
+        mInflatedIds[mNextInflated] = id;
+        mNextInflated = (mNextInflated + 1) % INFLATED_CHUNKS;
+        return data;
+    }
+    
+    /**
+     * Seal the full chunks which have no rows among the last RAW_ROWS
+     */
+    private void sealOldChunks() {
+        for (int i = 0; i < mChunks.size(); ++i) {
+            Chunk chunk = mChunks.get(i);
+            if (chunk == mCurrent || mPackedRows - chunk.mEndRow < RAW_ROWS) {
+                break;
+            }
+            if (!chunk.mSealed) {
+                seal(chunk);
+            }
+        }
+    }
+    
+    /**
+     * Deflate a full chunk, unless that doesn't make it smaller
+     */
+    private void seal(Chunk chunk) {
+        chunk.mSealed = true;
+        if (chunk.mLiveRows == 0) {
+            // Its rows were all released while it was the current chunk
+            chunk.mRaw = null;
+            return;
+        }
+        
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] out = new byte[chunk.mLength / 2];
+        int length = 0;
+        
+        try {
+            deflater.setInput(chunk.mRaw, 0, chunk.mLength);
+            deflater.finish();
+            while (!deflater.finished() && length < out.length) {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+        } finally {
+            deflater.end();
+        }
+        
+        if (length < out.length) {
+            chunk.mDeflated = Arrays.copyOf(out, length);
+            chunk.mRaw = null;
+        } else {
+            chunk.mRaw = Arrays.copyOf(chunk.mRaw, chunk.mLength);
+        }
+    }
+    
+    private static boolean isWide(char[] text, int length) {
+        for (int i = 0; i < length; ++i) {
+            if (text[i] > 0xff) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void writeText(char[] text, int length, boolean wide) {
+        writeVarInt(length);
+        ensureScratch(length * 2);
+        byte[] scratch = mScratch;
+        int position = mScratchLength;
+        
+        if (wide) {
+            for (int i = 0; i < length; ++i) {
+                scratch[position++] = (byte) (text[i] >> 8);
+                scratch[position++] = (byte) text[i];
+            }
+        } else {
+            for (int i = 0; i < length; ++i) {
+                scratch[position++] = (byte) text[i];
+            }
+        }
+        
+        mScratchLength = position;
+    }
+    
+    private void readText(byte[] data, char[] text, int length, boolean wide) {
+        int position = mPosition;
+        
+        if (wide) {
+            for (int i = 0; i < length; ++i) {
+                text[i] = (char) ((data[position] & 0xff) << 8 | data[position + 1] & 0xff);
+                position += 2;
+            }
+        } else {
+            for (int i = 0; i < length; ++i) {
+                text[i] = (char) (data[position++] & 0xff);
+            }
+        }
+        
+        mPosition = position;
+    }
+    
+    /**
+     * Style runs as (length, style) until the lengths add up to the columns
+     */
+    private void writeStyle(StyleRow color) {
+        int columns = mColumns;
+        for (int column = 0; column < columns; ) {
+            int length = color.getRunLength(column);
+            writeVarInt(length);
+            writeStyleValue(color.get(column));
+            column += length;
+        }
+    }
+    
+    private StyleRow readStyle(byte[] data) {
+        int columns = mColumns;
+        int length = readVarInt(data);
+        StyleRow color = new StyleRow(readStyleValue(data), columns);
+        
+        for (int column = length; column < columns; column += length) {
+            length = readVarInt(data);
+            color.set(column, length, readStyleValue(data));
+        }
+        
+        return color;
+    }
+    
+    private void writeStyleValue(int style) {
+        writeByte(style);
+        writeByte(style >> 8);
+        writeByte(style >> 16);
+    }
+    
+    private int readStyleValue(byte[] data) {
+        int position = mPosition;
+        mPosition += 3;
+        return data[position] & 0xff | (data[position + 1] & 0xff) << 8 | (data[position + 2] & 0xff) << 16;
+    }
+    
+    private void writeByte(int b) {
+        ensureScratch(1);
+        mScratch[mScratchLength++] = (byte) b;
+    }
+    
+    private void writeVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            writeByte(value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+    
+    private int readVarInt(byte[] data) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[mPosition++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+    
+    private void ensureScratch(int count) {
+        if (mScratchLength + count > mScratch.length) {
+            mScratch = Arrays.copyOf(mScratch, Math.max(mScratch.length * 2, mScratchLength + count));
+        }
+    }
+}
@@ -21,6 +21,11 @@ final class StyleRow {
      */
     private byte[] mData;
     
+    /**
+     * Columns from here on still have the style the row started with
+     */
+    private int mEnd;
+    
     StyleRow(int style, int columns) {
         mStyle = style;
         mColumns = columns;
@@ -32,6 +37,18 @@ final class StyleRow {
         }
         ensureData();
         setStyle(column, style);
+        extend(column + 1);
+    }
+    
+    void set(int column, int count, int style) {
+        if (style == mStyle && mData == null) {
+            return;
+        }
+        ensureData();
+        for (int i = column; i < column + count; i++) {
+            setStyle(i, style);
+        }
+        extend(column + count);
     }
     
     int get(int column) {
@@ -41,6 +58,27 @@ final class StyleRow {
         return getStyle(column);
     }
     
+    /**
+     * Number of columns from column on which have the same style as column
+     */
+    int getRunLength(int column) {
+        if (mData == null || column >= mEnd) {
+            return mColumns - column;
+        }
+        // The run goes on as long as every byte is the one a style before it
+        byte[] line = mData;
+        int start = 3 * column;
+        int end = 3 * mEnd;
+        int index = start + 3;
+        while (index < end && line[index] == line[index - 3]) {
+            index++;
+        }
+        if (index >= end && getStyle(column) == mStyle) {
+            return mColumns - column;
+        }
+        return (index - start) / 3;
+    }
+    
     boolean isSolidStyle() {
         return mData == null;
     }
@@ -64,7 +102,13 @@ final class StyleRow {
         ensureData();
         dst.ensureData();
         System.arraycopy(mData, 3 * start, dst.mData, 3 * offset, 3 * len);
-        
+        dst.extend(offset + len);
+    }
+    
+    private void extend(int end) {
+        if (end > mEnd) {
+            mEnd = end;
+        }
     }
     
     void ensureData() {
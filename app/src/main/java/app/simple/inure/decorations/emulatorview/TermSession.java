@@ -16,10 +16,10 @@
 
 package app.simple.inure.decorations.emulatorview;
 
-import android.annotation.SuppressLint;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.view.Choreographer;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,6 +29,7 @@ import java.nio.CharBuffer;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A terminal session, consisting of a VT100 terminal emulator and its
@@ -41,6 +42,8 @@ import java.nio.charset.StandardCharsets;
  * spawned to do I/O to these streams.  All other operations, including
  * processing of input and output in {@link #processInput processInput} and
  * {@link #write(byte[], int, int) write}, will be performed on the main thread.
+ * Input is processed at most once per frame, whatever the reader thread
+ * read since the last frame is processed in one go.
  * <p>
  * Call {@link #setTermIn} and {@link #setTermOut} to connect the input and
  * output streams to the emulator.  When all of your initialization is
@@ -55,10 +58,18 @@ import java.nio.charset.StandardCharsets;
  * This frees emulator data from memory, stops the reader and writer threads,
  * and closes the attached I/O streams.
  */
-public class TermSession {
+public class TermSession implements TerminalHost {
+    static {
+        // Wherever a session runs the emulator core, it logs to logcat
+        EmulatorPlatform.set(new AndroidPlatform());
+    }
+    
     private final Thread readerThread;
-    private final ByteQueue byteQueue;
-    private final byte[] receiverBuffer;
+    private final ByteRing inputRing;
+    private final AtomicBoolean isInputScheduled = new AtomicBoolean();
+    private volatile boolean isInputFinished;
+    private final boolean exitOnEOF;
+    private Choreographer choreographer;
     private final Thread writerThread;
     private final ByteQueue writeQueue;
     private final CharBuffer writeCharBuffer;
@@ -79,10 +90,14 @@ public class TermSession {
     // Number of rows in the transcript
     private static final int TRANSCRIPT_ROWS = 10000;
     
-    private static final int NEW_INPUT = 1;
+    // Size of the ring the reader thread reads into
+    private static final int INPUT_RING_SIZE = 64 * 1024;
+    
+    // Time input may take per frame, what's left is processed next frame
+    private static final long INPUT_BUDGET_NANOS = 8_000_000L;
+    
     private static final int NEW_OUTPUT = 2;
     private static final int FINISH = 3;
-    private static final int EOF = 4;
     
     /**
      * Callback to be invoked when a {@link TermSession} finishes.
@@ -99,59 +114,54 @@ public class TermSession {
     }
     
     private boolean isRunning = false;
-    @SuppressLint ("HandlerLeak")
-    private final Handler messageHandler = new Handler(Looper.getMainLooper()) {
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    
+    /**
+     * Processes the input read since the last frame, on the main thread
+     */
+    private final Choreographer.FrameCallback inputCallback = new Choreographer.FrameCallback() {
         @Override
-        public void handleMessage(Message msg) {
-            if (!isRunning) {
-                return;
-            }
-            if (msg.what == NEW_INPUT) {
+        public void doFrame(long frameTimeNanos) {
+            // Cleared first, input read from here on schedules another frame
+            isInputScheduled.set(false);
+            if (isRunning) {
                 readFromProcess();
-            } else if (msg.what == EOF) {
-                new Handler(Looper.getMainLooper()).post(() -> onProcessExit());
             }
         }
     };
     
     public TermSession(final boolean exitOnEOF) {
+        this.exitOnEOF = exitOnEOF;
         writeCharBuffer = CharBuffer.allocate(2);
         writeByteBuffer = ByteBuffer.allocate(4);
         utf8Encoder = StandardCharsets.UTF_8.newEncoder();
         utf8Encoder.onMalformedInput(CodingErrorAction.REPLACE);
         utf8Encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
     
-        receiverBuffer = new byte[4 * 1024];
-        byteQueue = new ByteQueue(4 * 1024);
+        inputRing = new ByteRing(INPUT_RING_SIZE);
     
         readerThread = new Thread() {
-            private final byte[] buffer = new byte[4096];
-        
             @Override
             public void run() {
+                ByteRing ring = inputRing;
                 try {
                     while (true) {
-                        int read = termIn.read(buffer);
+                        ring.awaitSpace();
+                        
+                        // Straight into the ring, the main thread reads it from there
+                        int read = termIn.read(ring.array(), ring.writeOffset(), ring.writableRun());
                         if (read == -1) {
                             // EOF -- process exited
                             break;
                         }
-                        int offset = 0;
-                        while (read > 0) {
-                            int written = byteQueue.write(buffer,
-                                    offset, read);
-                            offset += written;
-                            read -= written;
-                            messageHandler.sendMessage(
-                                    messageHandler.obtainMessage(NEW_INPUT));
-                        }
+                        ring.publish(read);
+                        scheduleInput();
                     }
                 } catch (IOException | InterruptedException ignored) {
                 }
             
-                if (exitOnEOF) {
-                    messageHandler.sendMessage(messageHandler.obtainMessage(EOF));
-                }
+                isInputFinished = true;
+                scheduleInput();
             }
         };
         readerThread.setName("TermSession input reader");
@@ -218,6 +228,13 @@ public class TermSession {
         keyListener = l;
     }
     
+    @Override
+    public void setCursorKeysApplicationMode(boolean isApplicationMode) {
+        if (keyListener != null) {
+            keyListener.setCursorKeysApplicationMode(isApplicationMode);
+        }
+    }
+    
     protected void onProcessExit() {
         finish();
     }
@@ -229,10 +246,10 @@ public class TermSession {
      * @param rows    The number of rows in the terminal window.
      */
     public void initializeEmulator(int columns, int rows) {
+        choreographer = Choreographer.getInstance();
         transcriptScreen = new TranscriptScreen(columns, TRANSCRIPT_ROWS, rows, colorScheme);
         terminalEmulator = new TerminalEmulator(this, transcriptScreen, columns, rows, colorScheme);
         terminalEmulator.setDefaultUTF8Mode(defaultUTF8Mode);
-        terminalEmulator.setKeyListener(keyListener);
     
         isRunning = true;
         readerThread.start();
@@ -255,6 +272,7 @@ public class TermSession {
      * @param offset The offset into the array at which the data starts.
      * @param count  The number of bytes to be written.
      */
+    @Override
     public void write(byte[] data, int offset, int count) {
         try {
             while (count > 0) {
@@ -412,6 +430,7 @@ public class TermSession {
     /**
      * Change the terminal session's title.
      */
+    @Override
     public void setTitle(String title) {
         this.title = title;
         notifyTitleChanged();
@@ -470,27 +489,55 @@ public class TermSession {
     }
     
     /**
-     * Look for new input from the ptty, send it to the terminal emulator.
+     * Have the input processed on the next frame, unless it already will be.
+     * Called on the reader thread.
      */
-    private void readFromProcess() {
-        int bytesAvailable = byteQueue.getBytesAvailable();
-        int bytesToRead = Math.min(bytesAvailable, receiverBuffer.length);
-        int bytesRead;
-        try {
-            bytesRead = byteQueue.read(receiverBuffer, 0, bytesToRead);
-        } catch (InterruptedException e) {
-            return;
+    private void scheduleInput() {
+        if (isInputScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(inputCallback);
         }
+    }
     
-        // Give subclasses a chance to process the read data
-        processInput(receiverBuffer, 0, bytesRead);
-        notifyUpdate();
+    /**
+     * Send the input from the ptty to the terminal emulator, for as long as
+     * the frame's budget allows, and update the screen once.
+     */
+    private void readFromProcess() {
+        ByteRing ring = inputRing;
+        long start = System.nanoTime();
+        int bytesRead = 0;
+        int run;
+        
+        while ((run = ring.readableRun()) > 0) {
+            // Give subclasses a chance to process the read data
+            processInput(ring.array(), ring.readOffset(), run);
+            ring.consume(run);
+            bytesRead += run;
+            
+            if (System.nanoTime() - start > INPUT_BUDGET_NANOS) {
+                break;
+            }
+        }
+        
+        if (bytesRead > 0) {
+            notifyUpdate();
+        }
+        
+        if (ring.getBytesAvailable() > 0) {
+            // Let the frame draw and input events through, the rest is next frame's
+            scheduleInput();
+        } else if (isInputFinished && exitOnEOF) {
+            // Only once, the reader thread is done with the flag
+            isInputFinished = false;
+            mainHandler.post(this::onProcessExit);
+        }
     }
     
     /**
      * Process input and send it to the terminal emulator.  This method is
-     * invoked on the main thread whenever new data is read from the
-     * InputStream.
+     * invoked on the main thread once per frame for the data read from the
+     * InputStream since the last frame.  The data is only valid until this
+     * method returns.
      * <p>
      * The default implementation sends the data straight to the terminal
      * emulator without modifying it in any way.  Subclasses can override it to
@@ -608,6 +655,7 @@ public class TermSession {
     public void finish() {
         try {
             isRunning = false;
+            readerThread.interrupt();
             try {
                 terminalEmulator.finish();
             } catch (Exception e) {
@@ -16,8 +16,6 @@
 
 package app.simple.inure.decorations.emulatorview;
 
-import android.util.Log;
-
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetDecoder;
@@ -33,11 +31,6 @@ import java.util.Locale;
  * video, color) alternate screen cursor key and keypad escape sequences.
  */
 class TerminalEmulator {
-    public void setKeyListener(TermKeyListener l) {
-        mKeyListener = l;
-    }
-    
-    private TermKeyListener mKeyListener;
     /**
      * The cursor row. Numbered 0..mRows-1.
      */
@@ -68,7 +61,7 @@ class TerminalEmulator {
     /**
      * The terminal session this emulator is bound to.
      */
-    private final TermSession mSession;
+    private final TerminalHost mSession;
     
     /**
      * Keeps track of the current argument of the current escape sequence.
@@ -398,6 +391,18 @@ class TerminalEmulator {
     private final ByteBuffer mUTF8ByteBuffer;
     private final CharBuffer mInputCharBuffer;
     private final CharsetDecoder mUTF8Decoder;
+    
+    /**
+     * Printable characters decoded by {@link #appendRun}, written to the
+     * screen a row at a time
+     */
+    private final char[] mRunChars = new char[RUN_BUFFER_SIZE];
+    private static final int RUN_BUFFER_SIZE = 4096;
+    
+    /**
+     * Only turned off to compare against the byte at a time path
+     */
+    boolean mFastPathEnabled = true;
     private UpdateCallback mUTF8ModeNotify;
     
     /**
@@ -415,7 +420,7 @@ class TerminalEmulator {
      * @param rows    the number of rows to emulate
      * @param scheme  the default color scheme of this emulator
      */
-    public TerminalEmulator(TermSession session, TranscriptScreen screen, int columns, int rows, ColorScheme scheme) {
+    public TerminalEmulator(TerminalHost session, TranscriptScreen screen, int columns, int rows, ColorScheme scheme) {
         mSession = session;
         mMainBuffer = screen;
         this.screen = mMainBuffer;
@@ -668,21 +673,111 @@ class TerminalEmulator {
      */
     public void append(byte[] buffer, int base, int length) {
         if (EmulatorDebug.LOG_CHARACTERS_FLAG) {
-            Log.d(EmulatorDebug.LOG_TAG, "In: '" + EmulatorDebug.bytesToString(buffer, base, length) + "'");
-        }
-        for (int i = 0; i < length; i++) {
-            byte b = buffer[base + i];
+            EmulatorPlatform.log(EmulatorPlatform.DEBUG, EmulatorDebug.LOG_TAG, "In: '" + EmulatorDebug.bytesToString(buffer, base, length) + "'");
+        }
+        int end = base + length;
+        int i = base;
+        while (i < end) {
+            if (canAppendRun()) {
+                int count = appendRun(buffer, i, end);
+                if (count > 0) {
+                    i += count;
+                    mProcessedCharCount += count;
+                    continue;
+                }
+            }
+            
+            byte b = buffer[i++];
             try {
                 process(b);
                 mProcessedCharCount++;
             } catch (Exception e) {
-                Log.e(EmulatorDebug.LOG_TAG, "Exception while processing character "
+                EmulatorPlatform.log(EmulatorPlatform.ERROR, EmulatorDebug.LOG_TAG, "Exception while processing character "
                         + mProcessedCharCount + " code "
                         + Integer.toString(b), e);
             }
         }
     }
     
+    /**
+     * Whether the next printable bytes would only be emitted one after the
+     * other, no escape sequence, partial UTF-8 sequence, alternate character
+     * set or insert mode in the way
+     */
+    private boolean canAppendRun() {
+        return mFastPathEnabled && mEscapeState == ESC_NONE && mUTF8ToFollow == 0
+                && !mUseAlternateCharSet && !mInsertMode;
+    }
+    
+    /**
+     * Decode the run of printable characters starting at base and write it
+     * to the screen like {@link #emit(int, int)} would, one character at a
+     * time. Only characters one column wide in the BMP are part of a run,
+     * anything else is left to {@link #process(byte)}.
+     *
+     * @return the number of bytes consumed, 0 if the first byte doesn't
+     * start a run
+     */
+    private int appendRun(byte[] buffer, int base, int end) {
+        char[] chars = mRunChars;
+        int count = 0;
+        int i = base;
+        
+        while (i < end && count < chars.length) {
+            int b = buffer[i] & 0xff;
+            if (b >= 32 && b < 127) {
+                chars[count++] = (char) b;
+                i++;
+                continue;
+            }
+            
+            if (!mUTF8Mode) {
+                break;
+            }
+            
+            int c;
+            int size;
+            if ((b & 0xe0) == 0xc0 && i + 1 < end && isUTF8Continuation(buffer[i + 1])) {
+                c = (b & 0x1f) << 6 | buffer[i + 1] & 0x3f;
+                size = 2;
+            } else if ((b & 0xf0) == 0xe0 && i + 2 < end
+                    && isUTF8Continuation(buffer[i + 1]) && isUTF8Continuation(buffer[i + 2])) {
+                c = (b & 0x0f) << 12 | (buffer[i + 1] & 0x3f) << 6 | buffer[i + 2] & 0x3f;
+                size = 3;
+                if (c < 0x800 || Character.isSurrogate((char) c)) {
+                    break;
+                }
+            } else {
+                break;
+            }
+            
+            // C1 controls, overlong forms and anything not one column wide
+            if (c < 0xa0 || UnicodeTranscript.charWidth(c) != 1) {
+                break;
+            }
+            
+            chars[count++] = (char) c;
+            i += size;
+        }
+        
+        if (count == 0) {
+            return 0;
+        }
+        
+        try {
+            emitRun(chars, count, getStyle());
+        } catch (Exception e) {
+            EmulatorPlatform.log(EmulatorPlatform.ERROR, EmulatorDebug.LOG_TAG, "Exception while processing characters "
+                    + mProcessedCharCount + " to " + (mProcessedCharCount + i - base), e);
+        }
+        
+        return i - base;
+    }
+    
+    private static boolean isUTF8Continuation(byte b) {
+        return (b & 0xc0) == 0x80;
+    }
+    
     private void process(byte b) {
         process(b, true);
     }
@@ -930,7 +1025,7 @@ class TerminalEmulator {
                 mDecFlags |= mask;
                 switch (arg) {
                     case 1:
-                        mKeyListener.setCursorKeysApplicationMode(true);
+                        mSession.setCursorKeysApplicationMode(true);
                         break;
                     case 47:
                     case 1047:
@@ -949,7 +1044,7 @@ class TerminalEmulator {
                 mDecFlags &= ~mask;
                 switch (arg) {
                     case 1:
-                        mKeyListener.setCursorKeysApplicationMode(false);
+                        mSession.setCursorKeysApplicationMode(false);
                         break;
                     case 47:
                     case 1047:
@@ -1467,7 +1562,7 @@ class TerminalEmulator {
                 mBackColor = code - 100 + 8;
             } else {
                 if (EmulatorDebug.LOG_UNKNOWN_ESCAPE_SEQUENCES) {
-                    Log.w(EmulatorDebug.LOG_TAG, String.format("SGR unknown code %d", code));
+                    EmulatorPlatform.log(EmulatorPlatform.WARN, EmulatorDebug.LOG_TAG, String.format("SGR unknown code %d", code));
                 }
             }
         }
@@ -1477,7 +1572,7 @@ class TerminalEmulator {
         boolean result = isValidColor(color);
         if (!result) {
             if (EmulatorDebug.LOG_UNKNOWN_ESCAPE_SEQUENCES) {
-                Log.w(EmulatorDebug.LOG_TAG,
+                EmulatorPlatform.log(EmulatorPlatform.WARN, EmulatorDebug.LOG_TAG,
                         String.format("Invalid color %d", color));
             }
         }
@@ -1769,7 +1864,7 @@ class TerminalEmulator {
     
     private void logError(String error) {
         if (EmulatorDebug.LOG_UNKNOWN_ESCAPE_SEQUENCES) {
-            Log.e(EmulatorDebug.LOG_TAG, error);
+            EmulatorPlatform.log(EmulatorPlatform.ERROR, EmulatorDebug.LOG_TAG, error);
         }
         finishSequence();
     }
@@ -1841,6 +1936,59 @@ class TerminalEmulator {
         }
     }
     
+    /**
+     * Send characters one column wide to the screen, a row at a time. The
+     * cursor, wrap and scroll state end up the same as after calling
+     * {@link #emit(int, int)} for every character.
+     *
+     * @param c     the characters, none of them wider or narrower than one column
+     * @param count the number of characters to send
+     * @param style the style of all the characters
+     */
+    private void emitRun(char[] c, int count, int style) {
+        boolean autoWrap = autoWrapEnabled();
+        int offset = 0;
+        
+        while (offset < count) {
+            if (autoWrap && mCursorCol == mColumns - 1 && mAboutToAutoWrap) {
+                screen.setLineWrap(mCursorRow);
+                mCursorCol = 0;
+                if (mCursorRow + 1 < mBottomMargin) {
+                    mCursorRow++;
+                } else {
+                    scroll();
+                }
+            }
+            
+            int length = Math.min(count - offset, mColumns - mCursorCol);
+            if (!autoWrap && length < count - offset) {
+                // Without wrapping, everything past the edge lands on the last column
+                screen.set(mCursorCol, mCursorRow, c, offset, length - 1, style);
+                screen.set(mColumns - 1, mCursorRow, c[count - 1], style);
+                mCursorCol = mColumns - 1;
+                break;
+            }
+            
+            screen.set(mCursorCol, mCursorRow, c, offset, length, style);
+            offset += length;
+            
+            int lastCol = mCursorCol + length - 1;
+            if (autoWrap) {
+                mAboutToAutoWrap = (lastCol == mColumns - 1);
+                
+                //Force line-wrap flag to trigger even for lines being typed
+                if (mAboutToAutoWrap) {
+                    screen.setLineWrap(mCursorRow);
+                }
+            }
+            
+            mCursorCol = Math.min(lastCol + 1, mColumns - 1);
+        }
+        
+        mJustWrapped = false;
+        mLastEmittedCharWidth = 1;
+    }
+    
     private void emit(int c) {
         emit(c, getStyle());
     }
@@ -0,0 +1,24 @@
+package app.simple.inure.decorations.emulatorview;
+
+/**
+ * What a TerminalEmulator needs from the session it runs in.  TermSession
+ * is the host on a device, tests replay output against a host of their own.
+ */
+interface TerminalHost {
+    /**
+     * Send bytes back to the process, answers to status requests and the
+     * like.
+     */
+    void write(byte[] data, int offset, int count);
+    
+    /**
+     * The process changed the window title.
+     */
+    void setTitle(String title);
+    
+    /**
+     * The process switched the cursor keys to application mode (DECCKM) or
+     * back, the keyboard has to send other sequences for them.
+     */
+    void setCursorKeysApplicationMode(boolean isApplicationMode);
+}
@@ -22,7 +22,7 @@ import android.graphics.Canvas;
  * Text renderer interface
  */
 
-interface TextRenderer {
+interface TextRenderer extends TextRunSink <Canvas> {
     int MODE_OFF = 0;
     int MODE_ON = 1;
     int MODE_LOCKED = 2;
@@ -63,6 +63,7 @@ interface TextRenderer {
      * @param cursorWidth    The width of the cursor in screen columns (1 or 2)
      * @param cursorMode     The cursor mode (used to show state of shift/control/alt/fn locks.
      */
+    @Override
     void drawTextRun(Canvas canvas, float x, float y,
             int lineOffset, int runWidth, char[] text,
             int index, int count, boolean selectionStyle, int textStyle,
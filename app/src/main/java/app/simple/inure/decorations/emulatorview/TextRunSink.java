@@ -0,0 +1,19 @@
+package app.simple.inure.decorations.emulatorview;
+
+/**
+ * Where TranscriptScreen.drawText() hands the runs of a row to, with the
+ * target the runs are drawn into.  TextRenderer draws them onto a Canvas,
+ * tests collect them off-device.
+ *
+ * @param <T> what the runs are drawn into
+ */
+interface TextRunSink <T> {
+    /**
+     * Draw a run of text, see {@link TextRenderer#drawTextRun} for the
+     * arguments.
+     */
+    void drawTextRun(T target, float x, float y,
+            int lineOffset, int runWidth, char[] text,
+            int index, int count, boolean selectionStyle, int textStyle,
+            int cursorOffset, int cursorIndex, int cursorIncr, int cursorWidth, int cursorMode);
+}
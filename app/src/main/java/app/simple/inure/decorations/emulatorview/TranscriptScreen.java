@@ -16,8 +16,6 @@
 
 package app.simple.inure.decorations.emulatorview;
 
-import android.graphics.Canvas;
-
 import java.util.Arrays;
 
 /**
@@ -45,6 +43,11 @@ class TranscriptScreen implements Screen {
     
     private UnicodeTranscript mData;
     
+    /**
+     * Rows changed since the view last drew this screen
+     */
+    private DamageTracker mDamage;
+    
     /**
      * Create a transcript screen.
      *
@@ -66,10 +69,12 @@ class TranscriptScreen implements Screen {
         
         mData = new UnicodeTranscript(columns, totalRows, screenRows, style);
         mData.blockSet(0, 0, mColumns, mScreenRows, ' ', style);
+        mDamage = new DamageTracker(screenRows);
     }
     
     public void setColorScheme(ColorScheme scheme) {
         mData.setDefaultStyle(TextStyle.kNormalTextStyle);
+        mDamage.damageAll();
     }
     
     public void finish() {
@@ -85,6 +90,7 @@ class TranscriptScreen implements Screen {
     
     public void setLineWrap(int row) {
         mData.setLineWrap(row);
+        mDamage.damage(row);
     }
     
     /**
@@ -98,10 +104,17 @@ class TranscriptScreen implements Screen {
      */
     public void set(int x, int y, int codePoint, int style) {
         mData.setChar(x, y, codePoint, style);
+        mDamage.damage(y);
     }
     
     public void set(int x, int y, byte b, int style) {
         mData.setChar(x, y, b, style);
+        mDamage.damage(y);
+    }
+    
+    public void set(int x, int y, char[] chars, int offset, int count, int style) {
+        mData.setChars(x, y, chars, offset, count, style);
+        mDamage.damage(y);
     }
     
     /**
@@ -114,6 +127,7 @@ class TranscriptScreen implements Screen {
      */
     public void scroll(int topMargin, int bottomMargin, int style) {
         mData.scroll(topMargin, bottomMargin, style);
+        mDamage.scroll(topMargin, bottomMargin);
     }
     
     /**
@@ -131,6 +145,7 @@ class TranscriptScreen implements Screen {
      */
     public void blockCopy(int sx, int sy, int w, int h, int dx, int dy) {
         mData.blockCopy(sx, sy, w, h, dx, dy);
+        mDamage.damage(dy, h);
     }
     
     /**
@@ -148,13 +163,14 @@ class TranscriptScreen implements Screen {
     public void blockSet(int sx, int sy, int w, int h, int val,
             int style) {
         mData.blockSet(sx, sy, w, h, val, style);
+        mDamage.damage(sy, h);
     }
     
     /**
      * Draw a row of text. Out-of-bounds rows are blank, not errors.
      *
      * @param row        The row of text to draw.
-     * @param canvas     The canvas to draw to.
+     * @param target     What the renderer draws into, a Canvas on a device.
      * @param x          The x coordinate origin of the drawing
      * @param y          The y coordinate origin of the drawing
      * @param renderer   The renderer to use to draw the text
@@ -164,8 +180,8 @@ class TranscriptScreen implements Screen {
      * @param imeText    current IME text, to be rendered at cursor
      * @param cursorMode the cursor mode. See TextRenderer.
      */
-    public final void drawText(int row, Canvas canvas, float x, float y,
-            TextRenderer renderer, int cx, int selx1, int selx2, String imeText, int cursorMode) {
+    public final <T> void drawText(int row, T target, float x, float y,
+            TextRunSink <T> renderer, int cx, int selx1, int selx2, String imeText, int cursorMode) {
         char[] line;
         StyleRow color;
         int cursorWidth = 1;
@@ -188,7 +204,7 @@ class TranscriptScreen implements Screen {
                 // We need to draw a selection
                 char[] blank = new char[selx2 - selx1];
                 Arrays.fill(blank, ' ');
-                renderer.drawTextRun(canvas, x, y, selx1, selx2 - selx1,
+                renderer.drawTextRun(target, x, y, selx1, selx2 - selx1,
                         blank, 0, 1, true, defaultStyle,
                         cx, 0, 1, 1, cursorMode);
             }
@@ -196,7 +212,7 @@ class TranscriptScreen implements Screen {
                 char[] blank = new char[1];
                 Arrays.fill(blank, ' ');
                 // We need to draw the cursor
-                renderer.drawTextRun(canvas, x, y, cx, 1,
+                renderer.drawTextRun(target, x, y, cx, 1,
                         blank, 0, 1, true, defaultStyle,
                         cx, 0, 1, 1, cursorMode);
             }
@@ -240,7 +256,7 @@ class TranscriptScreen implements Screen {
                     || selectionStyle != lastSelectionStyle
                     || (width > 0 && forceFlushRun)) {
                 if (lastRunStart >= 0) {
-                    renderer.drawTextRun(canvas, x, y, lastRunStart, runWidth,
+                    renderer.drawTextRun(target, x, y, lastRunStart, runWidth,
                             line,
                             lastRunStartIndex, index - lastRunStartIndex,
                             lastSelectionStyle, lastStyle,
@@ -275,7 +291,7 @@ class TranscriptScreen implements Screen {
             }
         }
         if (lastRunStart >= 0) {
-            renderer.drawTextRun(canvas, x, y, lastRunStart, runWidth,
+            renderer.drawTextRun(target, x, y, lastRunStart, runWidth,
                     line,
                     lastRunStartIndex, index - lastRunStartIndex,
                     lastSelectionStyle, lastStyle,
@@ -286,7 +302,7 @@ class TranscriptScreen implements Screen {
             int imeLength = Math.min(columns, imeText.length());
             int imeOffset = imeText.length() - imeLength;
             int imePosition = Math.min(cx, columns - imeLength);
-            renderer.drawTextRun(canvas, x, y, imePosition, imeLength, imeText.toCharArray(),
+            renderer.drawTextRun(target, x, y, imePosition, imeLength, imeText.toCharArray(),
                     imeOffset, imeLength, true, TextStyle.encode(0x0f, 0x00, TextStyle.fxNormal),
                     -1, 0, 0, 0, 0);
         }
@@ -436,6 +452,7 @@ class TranscriptScreen implements Screen {
         if (mData.resize(columns, rows, cursor)) {
             mColumns = columns;
             mScreenRows = rows;
+            mDamage.resize(rows);
             return true;
         } else {
             return false;
@@ -450,6 +467,14 @@ class TranscriptScreen implements Screen {
         init(columns, mTotalRows, rows, style);
     }
     
+    /**
+     * Rows changed since the view last drew this screen, only to be used on
+     * the thread which changes the screen.
+     */
+    DamageTracker getDamage() {
+        return mDamage;
+    }
+    
     /**
      * Return the UnicodeTranscript line at this row index.
      *
@@ -16,10 +16,7 @@
 
 package app.simple.inure.decorations.emulatorview;
 
-import android.util.Log;
-
-import app.simple.inure.decorations.emulatorview.compat.AndroidCharacterCompat;
-import app.simple.inure.decorations.emulatorview.compat.AndroidCompat;
+import java.util.Arrays;
 
 /**
  * A backing store for a TranscriptScreen.
@@ -59,6 +56,23 @@ class UnicodeTranscript {
     private char[] tmpLine;
     private final StyleRow tmpColor;
     
+    /**
+     * Rows in the transcript are packed into mScrollback, mPacked holds
+     * their handles (0 for rows which aren't packed).  A packed row is
+     * unpacked into mLines and mColor when it is read, the last
+     * UNPACKED_ROWS of those are kept unpacked.
+     */
+    private final ScrollbackStore mScrollback;
+    private final long[] mPacked;
+    private final int[] mUnpackedRows = new int[UNPACKED_ROWS];
+    private int mNextUnpackedRow;
+    static final int UNPACKED_ROWS = 256;
+    
+    /**
+     * Only turned off to compare against rows which are never packed
+     */
+    boolean mPackingEnabled = true;
+    
     public UnicodeTranscript(int columns, int totalRows, int screenRows, int defaultStyle) {
         mColumns = columns;
         mTotalRows = totalRows;
@@ -67,6 +81,9 @@ class UnicodeTranscript {
         mColor = new StyleRow[totalRows];
         mLineWrap = new boolean[totalRows];
         tmpColor = new StyleRow(defaultStyle, mColumns);
+        mScrollback = new ScrollbackStore(columns);
+        mPacked = new long[totalRows];
+        Arrays.fill(mUnpackedRows, -1);
         
         mDefaultStyle = defaultStyle;
     }
@@ -106,7 +123,7 @@ class UnicodeTranscript {
         if (extRow < -mActiveTranscriptRows || extRow > mScreenRows) {
             String errorMessage = "externalToInternalRow " + extRow +
                     " " + mScreenRows + " " + mActiveTranscriptRows;
-            Log.e(TAG, errorMessage);
+            EmulatorPlatform.log(EmulatorPlatform.ERROR, TAG, errorMessage);
             throw new IllegalArgumentException(errorMessage);
         }
         
@@ -121,6 +138,61 @@ class UnicodeTranscript {
         }
     }
     
+    /**
+     * Pack a row which just became part of the transcript.
+     */
+    private void pack(int row) {
+        if (!mPackingEnabled || mPacked[row] != 0 || mColor[row] == null) {
+            return;
+        }
+        
+        mPacked[row] = mScrollback.pack(mLines[row], mColor[row]);
+        mLines[row] = null;
+        mColor[row] = null;
+    }
+    
+    /**
+     * Make a packed row readable, it stays packed and may be dropped from
+     * mLines and mColor again later.
+     */
+    private void unpack(int row) {
+        if (mPacked[row] == 0 || mColor[row] != null) {
+            return;
+        }
+        
+        mScrollback.unpack(mPacked[row], mLines, mColor, row);
+        
+        int oldRow = mUnpackedRows[mNextUnpackedRow];
+        if (oldRow >= 0 && oldRow != row && mPacked[oldRow] != 0) {
+            mLines[oldRow] = null;
+            mColor[oldRow] = null;
+        }
+        mUnpackedRows[mNextUnpackedRow] = row;
+        mNextUnpackedRow = (mNextUnpackedRow + 1) % UNPACKED_ROWS;
+    }
+    
+    /**
+     * Unpack a row for good, before it is written to or shown on the screen.
+     */
+    private void unpackForWriting(int row) {
+        if (mPacked[row] == 0) {
+            return;
+        }
+        
+        unpack(row);
+        release(row);
+    }
+    
+    /**
+     * Drop the packed copy of a row.
+     */
+    private void release(int row) {
+        if (mPacked[row] != 0) {
+            mScrollback.release(mPacked[row]);
+            mPacked[row] = 0;
+        }
+    }
+    
     public void setLineWrap(int row) {
         mLineWrap[externalToInternalRow(row)] = true;
     }
@@ -160,6 +232,7 @@ class UnicodeTranscript {
             int totalRows = mTotalRows;
             for (int i = 0; i < activeTranscriptRows - shift; ++i) {
                 int index = (screenFirstRow + screenRows + i) % totalRows;
+                release(index);
                 lines[index] = null;
                 color[index] = null;
                 lineWrap[index] = false;
@@ -234,6 +307,14 @@ class UnicodeTranscript {
         }
         mScreenRows = newRows;
         
+        // Rows may have moved between the screen and the transcript
+        for (int i = -mActiveTranscriptRows; i < 0; ++i) {
+            pack(externalToInternalRow(i));
+        }
+        for (int i = 0; i < newRows; ++i) {
+            unpackForWriting(externalToInternalRow(i));
+        }
+        
         return true;
     }
     
@@ -306,8 +387,12 @@ class UnicodeTranscript {
         int screenRows = mScreenRows;
         int totalRows = mTotalRows;
         
+        // The oldest transcript row, or an unused one, becomes the new blank row
+        release((mScreenFirstRow + screenRows) % totalRows);
+        
         if (topMargin == 0 && bottomMargin == screenRows) {
             // Fast path -- scroll the entire screen
+            int scrolledRow = mScreenFirstRow;
             mScreenFirstRow = (mScreenFirstRow + 1) % totalRows;
             if (mActiveTranscriptRows < totalRows - screenRows) {
                 ++mActiveTranscriptRows;
@@ -319,6 +404,10 @@ class UnicodeTranscript {
             mColor[blankRow] = new StyleRow(style, mColumns);
             mLineWrap[blankRow] = false;
             
+            if (totalRows > screenRows) {
+                pack(scrolledRow);
+            }
+            
             return;
         }
         
@@ -353,7 +442,9 @@ class UnicodeTranscript {
         color[blankRow] = new StyleRow(style, mColumns);
         lineWrap[blankRow] = false;
         
-        return;
+        if (totalRows > screenRows) {
+            pack(screenFirstRow);
+        }
     }
     
     /**
@@ -470,11 +561,25 @@ class UnicodeTranscript {
      */
     public void blockSet(int sx, int sy, int w, int h, int val, int style) {
         if (sx < 0 || sx + w > mColumns || sy < 0 || sy + h > mScreenRows) {
-            Log.e(TAG, "illegal arguments! " + sx + " " + sy + " " + w + " " + h + " " + val + " " + mColumns + " " + mScreenRows);
+            EmulatorPlatform.log(EmulatorPlatform.ERROR, TAG, "illegal arguments! " + sx + " " + sy + " " + w + " " + h + " " + val + " " + mColumns + " " + mScreenRows);
             throw new IllegalArgumentException();
         }
         
+        boolean isBasic = isBasicChar(val);
         for (int y = 0; y < h; y++) {
+            int row = externalToInternalRow(sy + y);
+            unpackForWriting(row);
+            
+            // A basic row takes a basic character with a single fill
+            if (isBasic && (mLines[row] == null || mLines[row] instanceof char[])) {
+                if (mLines[row] == null) {
+                    allocateBasicLine(row, mColumns);
+                }
+                Arrays.fill((char[]) mLines[row], sx, sx + w, (char) val);
+                mColor[row].set(sx, w, style);
+                continue;
+            }
+            
             for (int x = 0; x < w; x++) {
                 setChar(sx + x, sy + y, val, style);
             }
@@ -532,7 +637,7 @@ class UnicodeTranscript {
         
         if ((codePoint >= 0x1160 && codePoint <= 0x11FF) ||
                 (codePoint >= 0xD7B0 && codePoint <= 0xD7FF)) {
-            if (AndroidCompat.SDK >= HANGUL_CONJOINING_MIN_SDK) {
+            if (EmulatorPlatform.get().composesHangulJamo()) {
                 /* Treat Hangul jamo medial vowels and final consonants as
                  * combining characters with width 0 to make jamo composition
                  * work correctly.
@@ -552,11 +657,9 @@ class UnicodeTranscript {
             }
         }
         if (Character.charCount(codePoint) == 1) {
-            // Android's getEastAsianWidth() only works for BMP characters
-            switch (AndroidCharacterCompat.getEastAsianWidth((char) codePoint)) {
-                case AndroidCharacterCompat.EAST_ASIAN_WIDTH_FULL_WIDTH:
-                case AndroidCharacterCompat.EAST_ASIAN_WIDTH_WIDE:
-                    return 2;
+            // East Asian widths are only looked up for BMP characters
+            if (EmulatorPlatform.get().isWide((char) codePoint)) {
+                return 2;
             }
         } else {
             // Outside the BMP, only the ideographic planes contain wide chars
@@ -623,6 +726,7 @@ class UnicodeTranscript {
         
         int columns = mColumns;
         row = externalToInternalRow(row);
+        unpack(row);
         if (mLines[row] == null) {
             // Line is blank
             return null;
@@ -700,6 +804,7 @@ class UnicodeTranscript {
         }
         
         row = externalToInternalRow(row);
+        unpack(row);
         StyleRow color = mColor[row];
         StyleRow tmp = tmpColor;
         if (color != null) {
@@ -732,7 +837,9 @@ class UnicodeTranscript {
             throw new IllegalArgumentException();
         }
         
-        return (mLines[externalToInternalRow(row)] instanceof char[]);
+        row = externalToInternalRow(row);
+        unpack(row);
+        return (mLines[row] instanceof char[]);
     }
     
     public boolean getChar(int row, int column) {
@@ -759,6 +866,7 @@ class UnicodeTranscript {
             throw new IllegalArgumentException();
         }
         row = externalToInternalRow(row);
+        unpack(row);
         
         if (mLines[row] instanceof char[]) {
             // Fast path: all regular-width BMP chars in the row
@@ -811,12 +919,45 @@ class UnicodeTranscript {
         return true;
     }
     
+    /**
+     * Store a run of characters into consecutive columns of one row.  The
+     * characters must all be regular-width BMP characters, which lets a
+     * basic row take them with a single copy.
+     */
+    public void setChars(int column, int row, char[] chars, int offset, int count, int style) {
+        if (row >= mScreenRows || column < 0 || column + count > mColumns) {
+            EmulatorPlatform.log(EmulatorPlatform.ERROR, TAG, "illegal arguments! " + row + " " + column + " " + count + " " + mScreenRows + " " + mColumns);
+            throw new IllegalArgumentException();
+        }
+        if (count == 0) {
+            return;
+        }
+        row = externalToInternalRow(row);
+        unpackForWriting(row);
+        
+        if (mLines[row] == null) {
+            allocateBasicLine(row, mColumns);
+        }
+        
+        if (mLines[row] instanceof char[]) {
+            System.arraycopy(chars, offset, (char[]) mLines[row], column, count);
+        } else {
+            FullUnicodeLine line = (FullUnicodeLine) mLines[row];
+            for (int i = 0; i < count; ++i) {
+                line.setChar(column + i, chars[offset + i]);
+            }
+        }
+        
+        mColor[row].set(column, count, style);
+    }
+    
     public boolean setChar(int column, int row, int codePoint) {
         if (row >= mScreenRows || column >= mColumns) {
-            Log.e(TAG, "illegal arguments! " + row + " " + column + " " + mScreenRows + " " + mColumns);
+            EmulatorPlatform.log(EmulatorPlatform.ERROR, TAG, "illegal arguments! " + row + " " + column + " " + mScreenRows + " " + mColumns);
             throw new IllegalArgumentException();
         }
         row = externalToInternalRow(row);
+        unpackForWriting(row);
         
         /*
          * Whether data contains non-BMP or characters with charWidth != 1
@@ -861,281 +1002,3 @@ class UnicodeTranscript {
         return true;
     }
 }
-
-/*
- * A representation of a line that's capable of handling non-BMP characters,
- * East Asian wide characters, and combining characters.
- *
- * The text of the line is stored in an array of char[], allowing easy
- * conversion to a String and/or reuse by other string-handling functions.
- * An array of short[] is used to keep track of the difference between a column
- * and the starting index corresponding to its contents in the char[] array (so
- * if column 42 starts at index 45 in the char[] array, the offset stored is 3).
- * Column 0 always starts at index 0 in the char[] array, so we use that
- * element of the array to keep track of how much of the char[] array we're
- * using at the moment.
- */
-class FullUnicodeLine {
-    private static final float SPARE_CAPACITY_FACTOR = 1.5f;
-    
-    private char[] mText;
-    private short[] mOffset;
-    private int mColumns;
-    
-    public FullUnicodeLine(int columns) {
-        commonConstructor(columns);
-        char[] text = mText;
-        // Fill in the line with blanks
-        for (int i = 0; i < columns; ++i) {
-            text[i] = ' ';
-        }
-        // Store the space used
-        mOffset[0] = (short) columns;
-    }
-    
-    public FullUnicodeLine(char[] basicLine) {
-        commonConstructor(basicLine.length);
-        System.arraycopy(basicLine, 0, mText, 0, mColumns);
-        // Store the space used
-        mOffset[0] = (short) basicLine.length;
-    }
-    
-    private void commonConstructor(int columns) {
-        mColumns = columns;
-        mOffset = new short[columns];
-        mText = new char[(int) (SPARE_CAPACITY_FACTOR * columns)];
-    }
-    
-    public int getSpaceUsed() {
-        return mOffset[0];
-    }
-    
-    public char[] getLine() {
-        return mText;
-    }
-    
-    public int findStartOfColumn(int column) {
-        if (column == 0) {
-            return 0;
-        } else {
-            return column + mOffset[column];
-        }
-    }
-    
-    public boolean getChar(int column, int charIndex, char[] out, int offset) {
-        int pos = findStartOfColumn(column);
-        int length;
-        if (column + 1 < mColumns) {
-            length = findStartOfColumn(column + 1) - pos;
-        } else {
-            length = getSpaceUsed() - pos;
-        }
-        if (charIndex >= length) {
-            throw new IllegalArgumentException();
-        }
-        out[offset] = mText[pos + charIndex];
-        return (charIndex + 1 < length);
-    }
-    
-    public void setChar(int column, int codePoint) {
-        int columns = mColumns;
-        if (column < 0 || column >= columns) {
-            throw new IllegalArgumentException();
-        }
-        
-        char[] text = mText;
-        short[] offset = mOffset;
-        int spaceUsed = offset[0];
-        
-        int pos = findStartOfColumn(column);
-        
-        int charWidth = UnicodeTranscript.charWidth(codePoint);
-        int oldCharWidth = UnicodeTranscript.charWidth(text, pos);
-        
-        if (charWidth == 2 && column == columns - 1) {
-            // A width 2 character doesn't fit in the last column.
-            codePoint = ' ';
-            charWidth = 1;
-        }
-        
-        boolean wasExtraColForWideChar = false;
-        if (oldCharWidth == 2 && column > 0) {
-            /* If the previous screen column starts at the same offset in the
-             * array as this one, this column must be the second column used
-             * by an East Asian wide character */
-            wasExtraColForWideChar = (findStartOfColumn(column - 1) == pos);
-        }
-        
-        // Get the number of elements in the mText array this column uses now
-        int oldLen;
-        if (wasExtraColForWideChar && column + 1 < columns) {
-            oldLen = findStartOfColumn(column + 1) - pos;
-        } else if (column + oldCharWidth < columns) {
-            oldLen = findStartOfColumn(column + oldCharWidth) - pos;
-        } else {
-            oldLen = spaceUsed - pos;
-        }
-        
-        // Find how much space this column will need
-        int newLen = Character.charCount(codePoint);
-        if (charWidth == 0) {
-            /* Combining characters are added to the contents of the column
-               instead of overwriting them, so that they modify the existing
-               contents */
-            newLen += oldLen;
-        }
-        int shift = newLen - oldLen;
-        
-        // Shift the rest of the line right to make room if necessary
-        if (shift > 0) {
-            if (spaceUsed + shift > text.length) {
-                // We need to grow the array
-                char[] newText = new char[text.length + columns];
-                System.arraycopy(text, 0, newText, 0, pos);
-                System.arraycopy(text, pos + oldLen, newText, pos + newLen, spaceUsed - pos - oldLen);
-                mText = text = newText;
-            } else {
-                System.arraycopy(text, pos + oldLen, text, pos + newLen, spaceUsed - pos - oldLen);
-            }
-        }
-        
-        // Store the character
-        if (charWidth > 0) {
-            Character.toChars(codePoint, text, pos);
-        } else {
-            /* Store a combining character at the end of the existing contents,
-               so that it modifies them */
-            Character.toChars(codePoint, text, pos + oldLen);
-        }
-        
-        // Shift the rest of the line left to eliminate gaps if necessary
-        if (shift < 0) {
-            System.arraycopy(text, pos + oldLen, text, pos + newLen, spaceUsed - pos - oldLen);
-        }
-        
-        // Update space used
-        if (shift != 0) {
-            spaceUsed += shift;
-            offset[0] = (short) spaceUsed;
-        }
-        
-        /*
-         * Handle cases where we need to pad with spaces to preserve column
-         * alignment
-         *
-         * width 2 -> width 1: pad with a space before or after the new
-         * character, depending on which of the two previously-occupied columns
-         * we wrote into
-         *
-         * inserting width 2 character into the second column of an existing
-         * width 2 character: pad with a space before the new character
-         */
-        if (oldCharWidth == 2 && charWidth == 1 || wasExtraColForWideChar && charWidth == 2) {
-            int nextPos = pos + newLen;
-            char[] newText = text;
-            if (spaceUsed + 1 > text.length) {
-                // Array needs growing
-                newText = new char[text.length + columns];
-                System.arraycopy(text, 0, newText, 0, wasExtraColForWideChar ? pos : nextPos);
-            }
-            
-            if (wasExtraColForWideChar) {
-                // Padding goes before the new character
-                System.arraycopy(text, pos, newText, pos + 1, spaceUsed - pos);
-                newText[pos] = ' ';
-            } else {
-                // Padding goes after the new character
-                System.arraycopy(text, nextPos, newText, nextPos + 1, spaceUsed - nextPos);
-                newText[nextPos] = ' ';
-            }
-            
-            if (newText != text) {
-                // Update mText to point to the newly grown array
-                mText = text = newText;
-            }
-            
-            // Update space used
-            spaceUsed = ++offset[0];
-            
-            // Correct the offset for the just-modified column to reflect
-            // width change
-            if (wasExtraColForWideChar) {
-                ++offset[column];
-                ++pos;
-            } else {
-                if (column == 0) {
-                    offset[1] = (short) (newLen - 1);
-                } else if (column + 1 < columns) {
-                    offset[column + 1] = (short) (offset[column] + newLen - 1);
-                }
-                ++column;
-            }
-            
-            ++shift;
-        }
-        
-        /*
-         * Handle cases where we need to clobber the contents of the next
-         * column in order to preserve column alignment
-         *
-         * width 1 -> width 2: should clobber the contents of the next
-         * column (if next column contains wide char, need to pad with a space)
-         *
-         * inserting width 2 character into the second column of an existing
-         * width 2 character: same
-         */
-        if (oldCharWidth == 1 && charWidth == 2 || wasExtraColForWideChar && charWidth == 2) {
-            if (column == columns - 2) {
-                // Correct offset for the next column to reflect width change
-                offset[column + 1] = (short) (offset[column] - 1);
-                
-                // Truncate the line after this character.
-                offset[0] = (short) (pos + newLen);
-                shift = 0;
-            } else {
-                // Overwrite the contents of the next column.
-                int nextPos = pos + newLen;
-                int nextWidth = UnicodeTranscript.charWidth(text, nextPos);
-                int nextLen;
-                if (column + nextWidth + 1 < columns) {
-                    nextLen = findStartOfColumn(column + nextWidth + 1) + shift - nextPos;
-                } else {
-                    nextLen = spaceUsed - nextPos;
-                }
-                
-                if (nextWidth == 2) {
-                    text[nextPos] = ' ';
-                    // Shift the array to match
-                    if (nextLen > 1) {
-                        System.arraycopy(text, nextPos + nextLen, text, nextPos + 1, spaceUsed - nextPos - nextLen);
-                        shift -= nextLen - 1;
-                        offset[0] -= nextLen - 1;
-                    }
-                } else {
-                    // Shift the array leftwards
-                    System.arraycopy(text, nextPos + nextLen, text, nextPos, spaceUsed - nextPos - nextLen);
-                    shift -= nextLen;
-                    
-                    // Truncate the line
-                    offset[0] -= nextLen;
-                }
-                
-                // Correct the offset for the next column to reflect width change
-                if (column == 0) {
-                    offset[1] = -1;
-                } else {
-                    offset[column + 1] = (short) (offset[column] - 1);
-                }
-                ++column;
-            }
-        }
-        
-        // Update offset table
-        if (shift != 0) {
-            for (int i = column + 1; i < columns; ++i) {
-                offset[i] += shift;
-            }
-        }
-    }
-}
-
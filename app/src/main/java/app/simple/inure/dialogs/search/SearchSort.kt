@@ -166,6 +166,10 @@ class SearchSort : ScopedBottomSheetFragment() {
             filterChipGroup.check(R.id.uninstalled)
         }
 
+        if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.TRACKERS)) {
+            filterChipGroup.check(R.id.trackers)
+        }
+
         if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.COMBINE_FLAGS)) {
             filterChipGroup.check(R.id.combine_flags)
         }
@@ -203,6 +207,12 @@ class SearchSort : ScopedBottomSheetFragment() {
                 FlagUtils.unsetFlag(sourceFlags, SortConstant.UNINSTALLED)
             }
 
+            sourceFlags = if (checkedIds.contains(R.id.trackers)) {
+                FlagUtils.setFlag(sourceFlags, SortConstant.TRACKERS)
+            } else {
+                FlagUtils.unsetFlag(sourceFlags, SortConstant.TRACKERS)
+            }
+
             sourceFlags = if (checkedIds.contains(R.id.combine_flags)) {
                 FlagUtils.setFlag(sourceFlags, SortConstant.COMBINE_FLAGS)
             } else {
@@ -10,16 +10,20 @@ import android.os.Build
 import android.os.DeadObjectException
 import android.os.IBinder
 import android.util.Log
+import androidx.lifecycle.viewModelScope
 import androidx.localbroadcastmanager.content.LocalBroadcastManager
 import app.simple.inure.R
 import app.simple.inure.apk.utils.PackageUtils
+import app.simple.inure.models.PackageSnapshot
 import app.simple.inure.services.DataLoaderService
-import app.simple.inure.util.ArrayUtils
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
 
 abstract class PackageUtilsViewModel(application: Application) : WrappedViewModel(application) {
 
-    private var apps: ArrayList<PackageInfo> = arrayListOf()
-    private var uninstalledApps: ArrayList<PackageInfo> = arrayListOf()
+    private var snapshot: PackageSnapshot = PackageSnapshot.EMPTY
+    private var previousSnapshot: PackageSnapshot? = null
+    private var snapshotJob: Job? = null
 
     private var serviceConnection: ServiceConnection? = null
 
@@ -29,53 +33,33 @@ abstract class PackageUtilsViewModel(application: Application) : WrappedViewMode
     private var intentFilter: IntentFilter = IntentFilter()
 
     init {
-        intentFilter.addAction(DataLoaderService.APPS_LOADED)
-        intentFilter.addAction(DataLoaderService.UNINSTALLED_APPS_LOADED)
-        intentFilter.addAction(DataLoaderService.INSTALLED_APPS_LOADED)
         intentFilter.addAction(DataLoaderService.RELOAD_APPS)
 
-        @Suppress("UNCHECKED_CAST")
         serviceConnection = object : ServiceConnection {
             override fun onServiceConnected(name: ComponentName?, service: IBinder?) {
                 dataLoaderService = (service as DataLoaderService.LoaderBinder).getService()
-                if (dataLoaderService!!.hasDataLoaded()) {
-                    apps = dataLoaderService!!.getInstalledApps()
-                    uninstalledApps = dataLoaderService!!.getUninstalledApps()
 
-                    onAppsLoaded(apps)
-                    onUninstalledAppsLoaded(uninstalledApps)
-                } else {
+                if (dataLoaderService!!.hasDataLoaded().not()) {
                     dataLoaderService!!.startLoading()
                 }
+
+                snapshotJob?.cancel()
+                snapshotJob = viewModelScope.launch {
+                    dataLoaderService!!.getSnapshot().collect {
+                        onSnapshot(it)
+                    }
+                }
             }
 
             override fun onServiceDisconnected(name: ComponentName?) {
+                snapshotJob?.cancel()
                 dataLoaderService = null
             }
         }
 
-        @Suppress("UNCHECKED_CAST")
         broadcastReceiver = object : BroadcastReceiver() {
             override fun onReceive(context: Context?, intent: Intent?) {
                 when (intent?.action) {
-                    DataLoaderService.APPS_LOADED -> {
-                        apps = dataLoaderService!!.getInstalledApps().clone() as ArrayList<PackageInfo>
-                        uninstalledApps = dataLoaderService!!.getUninstalledApps().clone() as ArrayList<PackageInfo>
-
-                        onAppsLoaded(apps)
-                        onUninstalledAppsLoaded(uninstalledApps)
-                    }
-
-                    DataLoaderService.UNINSTALLED_APPS_LOADED -> {
-                        uninstalledApps = dataLoaderService!!.getUninstalledApps().clone() as ArrayList<PackageInfo>
-                        onUninstalledAppsLoaded(uninstalledApps)
-                    }
-
-                    DataLoaderService.INSTALLED_APPS_LOADED -> {
-                        apps = dataLoaderService!!.getInstalledApps().clone() as ArrayList<PackageInfo>
-                        onAppsLoaded(apps)
-                    }
-
                     DataLoaderService.RELOAD_APPS -> {
                         Log.d("DataLoaderService", "Reloading apps")
                         dataLoaderService!!.refresh()
@@ -89,14 +73,67 @@ abstract class PackageUtilsViewModel(application: Application) : WrappedViewMode
                 Intent(applicationContext(), DataLoaderService::class.java), serviceConnection!!, Context.BIND_AUTO_CREATE)
     }
 
-    fun getInstalledApps(): ArrayList<PackageInfo> {
+    /**
+     * Only the parts of the snapshot that changed are passed on, a refresh
+     * of the uninstalled apps doesn't reload the panels of installed apps
+     * and labels coming in don't reload any of them
+     */
+    private fun onSnapshot(snapshot: PackageSnapshot) {
+        val previous = this.snapshot
+
+        if (snapshot.version == previous.version) {
+            return
+        }
+
+        previousSnapshot = previous
+        this.snapshot = snapshot
+
+        if (snapshot.installedVersion != previous.installedVersion) {
+            onAppsLoaded(snapshot.installed)
+        } else if (snapshot.installed !== previous.installed) {
+            onAppsRelabelled(snapshot.installed)
+        }
+
+        if (snapshot.uninstalledVersion != previous.uninstalledVersion) {
+            onUninstalledAppsLoaded(snapshot.uninstalled)
+        } else if (snapshot.uninstalled !== previous.uninstalled) {
+            onUninstalledAppsRelabelled(snapshot.uninstalled)
+        }
+    }
+
+    /**
+     * The shared snapshot of the loaded packages, never modify its lists
+     */
+    fun getPackageSnapshot(): PackageSnapshot {
+        return dataLoaderService?.getSnapshot()?.value ?: snapshot
+    }
+
+    /**
+     * Packages added, removed and changed by the last snapshot this
+     * view model has seen, to skip work the new snapshot didn't change
+     */
+    fun getPackageDiff(): PackageSnapshot.Diff {
+        return snapshot.diff(previousSnapshot)
+    }
+
+    fun getInstalledApps(): List<PackageInfo> {
         return dataLoaderService!!.getInstalledApps()
     }
 
-    fun getUninstalledApps(): ArrayList<PackageInfo> {
+    fun getUninstalledApps(): List<PackageInfo> {
         return dataLoaderService!!.getUninstalledApps()
     }
 
+    /**
+     * Installed apps followed by the uninstalled ones, shared by every
+     * view model
+     */
+    fun getAllApps(): List<PackageInfo> {
+        getInstalledApps()
+        getUninstalledApps()
+        return getPackageSnapshot().all
+    }
+
     fun refreshPackageData() {
         dataLoaderService!!.refresh()
     }
@@ -149,7 +186,7 @@ abstract class PackageUtilsViewModel(application: Application) : WrappedViewMode
             @Suppress("DEPRECATION")
             packageInfoList.addAll(getInstalledPackages(flags.toInt()))
         }
-        return ArrayUtils.deepCopy(packageInfoList)
+        return packageInfoList
     }
 
     protected fun PackageManager.getPackageInfo(packageName: String): PackageInfo? {
@@ -215,14 +252,38 @@ abstract class PackageUtilsViewModel(application: Application) : WrappedViewMode
         return this
     }
 
-    open fun onUninstalledAppsLoaded(uninstalledApps: ArrayList<PackageInfo>) {
+    open fun onUninstalledAppsLoaded(uninstalledApps: List<PackageInfo>) {
         // Log.d("PackageUtilsViewModel", "onUninstalledAppsLoaded: ${uninstalledApps.size}")
     }
 
-    open fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    open fun onAppsLoaded(apps: List<PackageInfo>) {
         // Log.d("PackageUtilsViewModel", "onAppsLoaded: ${apps.size}")
     }
 
+    /**
+     * Labels came in for some of [apps], nothing else changed. Panels
+     * showing labels swap in the relabelled packages with [relabel], they
+     * must not filter, search or load again.
+     */
+    open fun onAppsRelabelled(apps: List<PackageInfo>) {
+        // Log.d("PackageUtilsViewModel", "onAppsRelabelled: ${apps.size}")
+    }
+
+    open fun onUninstalledAppsRelabelled(uninstalledApps: List<PackageInfo>) {
+        // Log.d("PackageUtilsViewModel", "onUninstalledAppsRelabelled: ${uninstalledApps.size}")
+    }
+
+    /**
+     * [packages] with each package replaced by its copy in the latest
+     * snapshot, the order is kept
+     */
+    protected fun relabel(packages: List<PackageInfo>): ArrayList<PackageInfo> {
+        val byPackageName = snapshot.byPackageName
+        return packages.mapTo(ArrayList(packages.size)) {
+            byPackageName[it.packageName] ?: it
+        }
+    }
+
     override fun onCleared() {
         super.onCleared()
         try {
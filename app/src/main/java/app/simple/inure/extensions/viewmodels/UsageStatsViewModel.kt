@@ -102,7 +102,7 @@ open class UsageStatsViewModel(application: Application) : PackageUtilsViewModel
         // FIXME: 24/4/21 Consider using Binder to fetch subscriber info
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
 
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package app.simple.inure.logs.collections
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Bounded ring buffer for exactly one producer thread and one consumer
+ * thread. Neither side ever takes a lock or waits for the other, the
+ * producer only publishes its tail and the consumer only publishes its
+ * head, both with ordered stores.
+ *
+ * [offer] fails instead of blocking when the ring is full, what to do
+ * with the element is up to the producer.
+ */
+class SpscRingBuffer<E>(capacity: Int) {
+
+    val capacity: Int
+
+    private val mask: Int
+    private val buffer: Array<Any?>
+
+    /**
+     * Next slot to read, only written by the consumer
+     */
+    private val head = AtomicLong()
+
+    /**
+     * Next slot to write, only written by the producer
+     */
+    private val tail = AtomicLong()
+
+    init {
+        if (capacity <= 0) {
+            throw IllegalStateException("capacity (= $capacity) must be > 0")
+        }
+
+        // Rounded up to a power of two so a slot is a mask away
+        var size = 1
+        while (size < capacity) {
+            size = size shl 1
+        }
+
+        this.capacity = size
+        mask = size - 1
+        buffer = arrayOfNulls(this.capacity)
+    }
+
+    val size: Int
+        get() = (tail.get() - head.get()).toInt()
+
+    fun isEmpty() = size == 0
+
+    /**
+     * Producer side, add [e] to the ring
+     *
+     * @return false if the ring is full
+     */
+    fun offer(e: E): Boolean {
+        val tail = this.tail.get()
+
+        if (tail - head.get() == capacity.toLong()) {
+            return false
+        }
+
+        buffer[(tail and mask.toLong()).toInt()] = e
+        this.tail.lazySet(tail + 1)
+        return true
+    }
+
+    /**
+     * Consumer side, move up to [max] elements in order to [target]
+     *
+     * @return number of elements moved
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun drainTo(target: MutableCollection<in E>, max: Int = Int.MAX_VALUE): Int {
+        val head = this.head.get()
+        val count = minOf(tail.get() - head, max.toLong()).toInt()
+
+        for (i in 0 until count) {
+            val index = ((head + i) and mask.toLong()).toInt()
+            target.add(buffer[index] as E)
+            buffer[index] = null
+        }
+
+        this.head.lazySet(head + count)
+        return count
+    }
+}
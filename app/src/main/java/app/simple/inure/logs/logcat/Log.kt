@@ -1,6 +1,68 @@
 package app.simple.inure.logs.logcat
 
-data class Log(val id: Int, val date: String, val time: String, val pid: String, val tid: String, val priority: String, val tag: String, val msg: String) {
+/**
+ * One logcat record. Numbers are kept as primitives, the tag is shared
+ * with every other log of the same tag and the message is a slice of a
+ * chunk the reader shares between many logs, it is only decoded when
+ * someone asks for [msg].
+ *
+ * @param timestamp local time packed by [packTimestamp]
+ * @param priorityCode single letter priority, see [LogPriority]
+ */
+class Log(val id: Int,
+          val timestamp: Long,
+          val pid: Int,
+          val tid: Int,
+          val priorityCode: Char,
+          val tag: String,
+          private val chunk: ByteArray,
+          private val offset: Int,
+          private val length: Int) {
+
+    /**
+     * MM-dd
+     */
+    val date: String
+        get() = String(charArrayOf(
+                digit(month / 10), digit(month % 10), '-',
+                digit(day / 10), digit(day % 10)))
+
+    /**
+     * HH:mm:ss.SSS
+     */
+    val time: String
+        get() = String(charArrayOf(
+                digit(hour / 10), digit(hour % 10), ':',
+                digit(minute / 10), digit(minute % 10), ':',
+                digit(second / 10), digit(second % 10), '.',
+                digit(millis / 100), digit(millis / 10 % 10), digit(millis % 10)))
+
+    val priority: String
+        get() = priorityOf(priorityCode)
+
+    val msg: String
+        get() = String(chunk, offset, length, Charsets.UTF_8)
+
+    val msgLength: Int
+        get() = length
+
+    val month: Int
+        get() = (timestamp shr 37 and 0xF).toInt()
+
+    val day: Int
+        get() = (timestamp shr 32 and 0x1F).toInt()
+
+    val hour: Int
+        get() = (timestamp shr 27 and 0x1F).toInt()
+
+    val minute: Int
+        get() = (timestamp shr 21 and 0x3F).toInt()
+
+    val second: Int
+        get() = (timestamp shr 15 and 0x3F).toInt()
+
+    val millis: Int
+        get() = (timestamp and 0x3FF).toInt()
 
     fun metadataToString() = "[$date $time $pid:$tid $priority/$tag]"
 
@@ -9,50 +71,50 @@ data class Log(val id: Int, val date: String, val time: String, val pid: String,
     companion object {
         private var logCounter = 0
 
-        fun parse(metadata: String, msg: String): Log {
-            val date: String
-            val time: String
-            val pid: String
-            val tid: String
-            val priority: String
-            val tag: String
-
-            val trimmed = metadata.substring(1, metadata.length - 1).trim()
-            var startIndex = 0
-
-            var index = trimmed.indexOf(' ', startIndex)
-            date = trimmed.substring(startIndex, index)
-            startIndex = index + 1
-
-            index = trimmed.indexOf(' ', startIndex)
-            time = trimmed.substring(startIndex, index)
-            startIndex = index + 1
-
-            // NOTE(dparajuli): skip spaces
-            while (trimmed[startIndex] == ' ') {
-                startIndex++
-            }
+        private val PRIORITIES = arrayOf(LogPriority.ASSERT, LogPriority.DEBUG, LogPriority.ERROR, LogPriority.FATAL,
+                                         LogPriority.INFO, LogPriority.VERBOSE, LogPriority.WARNING)
 
-            index = trimmed.indexOf(':', startIndex)
-            pid = trimmed.substring(startIndex, index)
-            startIndex = index + 1
+        fun nextId() = logCounter++
 
-            // NOTE(dparajuli): skip spaces
-            while (trimmed[startIndex] == ' ') {
-                startIndex++
-            }
+        /**
+         * Packs a local time in one long, the fields keep their order so
+         * packed timestamps of the same year compare like the times do
+         */
+        fun packTimestamp(month: Int, day: Int, hour: Int, minute: Int, second: Int, millis: Int): Long {
+            return (month.toLong() and 0xF shl 37) or
+                    (day.toLong() and 0x1F shl 32) or
+                    (hour.toLong() and 0x1F shl 27) or
+                    (minute.toLong() and 0x3F shl 21) or
+                    (second.toLong() and 0x3F shl 15) or
+                    (millis.toLong() and 0x3FF)
+        }
 
-            index = trimmed.indexOf(' ', startIndex)
-            tid = trimmed.substring(startIndex, index)
-            startIndex = index + 1
+        /**
+         * Same letters as [LogPriority] without allocating a string per
+         * log
+         */
+        fun priorityOf(code: Char): String {
+            for (priority in PRIORITIES) {
+                if (priority[0] == code) {
+                    return priority
+                }
+            }
 
-            index = trimmed.indexOf('/', startIndex)
-            priority = trimmed.substring(startIndex, index)
-            startIndex = index + 1
+            return code.toString()
+        }
 
-            tag = trimmed.substring(startIndex, trimmed.length).trim()
+        /**
+         * Parses a `-v long` header like `[ 10-18 09:41:02.114  1523: 1601 I/ActivityManager ]`
+         * and its message, mostly for logs that were saved as text
+         */
+        fun parse(metadata: String, msg: String): Log {
+            val header = metadata.toByteArray(Charsets.UTF_8)
+            val message = msg.toByteArray(Charsets.UTF_8)
 
-            return Log(logCounter++, date, time, pid, tid, priority, tag, msg)
+            return LogHeaderParser(TagPool()).parse(header, 0, header.size, message, 0, message.size)
+                ?: throw IllegalArgumentException("Not a log header: $metadata")
         }
+
+        private fun digit(value: Int) = '0' + value
     }
 }
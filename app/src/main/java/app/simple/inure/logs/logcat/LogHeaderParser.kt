@@ -0,0 +1,140 @@
+package app.simple.inure.logs.logcat
+
+/**
+ * Parses `-v long` headers like `[ 10-18 09:41:02.114  1523: 1601 I/ActivityManager ]`
+ * straight from bytes. Nothing but the [Log] itself is allocated, tags
+ * come from the [TagPool].
+ */
+class LogHeaderParser(private val tags: TagPool) {
+
+    private lateinit var bytes: ByteArray
+    private var index = 0
+    private var end = 0
+
+    /**
+     * @return the log, or null if the header is not one logcat writes
+     */
+    fun parse(header: ByteArray, start: Int, end: Int, chunk: ByteArray, offset: Int, length: Int): Log? {
+        var first = start
+        var last = end - 1
+
+        while (first <= last && isSpace(header[first])) first++
+        while (last >= first && isSpace(header[last])) last--
+
+        if (first >= last || header[first] != '['.code.toByte() || header[last] != ']'.code.toByte()) {
+            return null
+        }
+
+        bytes = header
+        index = first + 1
+        this.end = last
+
+        skipSpaces()
+
+        // -v year prints the year too, only month and day are kept
+        var month = number()
+        var day = if (expect('-')) number() else return null
+        if (expect('-')) {
+            month = day
+            day = number()
+        }
+
+        skipSpaces()
+
+        val hour = number()
+        val minute = if (expect(':')) number() else return null
+        val second = if (expect(':')) number() else return null
+        val millis = if (expect('.')) fraction() else 0
+
+        skipSpaces()
+
+        val pid = number()
+        if (!expect(':')) return null
+
+        skipSpaces()
+
+        val tid = number()
+        if (pid < 0 || tid < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null
+        }
+
+        skipSpaces()
+
+        if (index + 1 >= this.end || bytes[index + 1] != '/'.code.toByte()) {
+            return null
+        }
+
+        val priority = (bytes[index].toInt() and 0xFF).toChar()
+        index += 2
+
+        var tagEnd = this.end
+        while (tagEnd > index && isSpace(bytes[tagEnd - 1])) tagEnd--
+
+        val tag = tags.intern(bytes, index, tagEnd - index)
+        val timestamp = Log.packTimestamp(month, day, hour, minute, second, millis)
+
+        return Log(Log.nextId(), timestamp, pid, tid, priority, tag, chunk, offset, length)
+    }
+
+    private fun skipSpaces() {
+        while (index < end && isSpace(bytes[index])) index++
+    }
+
+    private fun expect(c: Char): Boolean {
+        if (index < end && bytes[index] == c.code.toByte()) {
+            index++
+            return true
+        }
+
+        return false
+    }
+
+    /**
+     * @return -1 if there is no digit
+     */
+    private fun number(): Int {
+        val start = index
+        var value = 0
+
+        while (index < end && bytes[index] in ZERO..NINE) {
+            value = value * 10 + (bytes[index] - ZERO)
+            index++
+        }
+
+        return if (index == start) -1 else value
+    }
+
+    /**
+     * Milliseconds of a fraction with any number of digits, -v usec
+     * prints six of them
+     */
+    private fun fraction(): Int {
+        var value = 0
+        var digits = 0
+
+        while (index < end && bytes[index] in ZERO..NINE) {
+            if (digits < 3) {
+                value = value * 10 + (bytes[index] - ZERO)
+                digits++
+            }
+
+            index++
+        }
+
+        while (digits < 3) {
+            value *= 10
+            digits++
+        }
+
+        return value
+    }
+
+    companion object {
+        private const val ZERO = '0'.code.toByte()
+        private const val NINE = '9'.code.toByte()
+
+        fun isSpace(b: Byte): Boolean {
+            return b == ' '.code.toByte() || b == '\t'.code.toByte() || b == '\r'.code.toByte()
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package app.simple.inure.logs.logcat
+
+import app.simple.inure.logs.collections.FixedCircularArray
+import app.simple.inure.logs.collections.SpscRingBuffer
+import java.util.Collections
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Carries logs from the reader thread to the listeners. The reader
+ * [offer]s every parsed log into a single producer, single consumer
+ * ring and never waits, if the ring is full the log is dropped and
+ * counted. A second thread calls [flush] once per frame, it drains the
+ * ring, runs the filters on the drained batch without holding any lock
+ * and appends it to the history in one short critical section.
+ *
+ * Logs that passed the filters are handed to [deliver] in one batch
+ * per flush, a new batch is only handed over once the previous one was
+ * reported done, so a slow UI gets fewer and larger batches instead of
+ * a growing queue of them. Undelivered logs are kept up to the history
+ * capacity, older ones are still in the history.
+ *
+ * @param capacity        size of the ring between reader and flusher
+ * @param historyCapacity number of logs kept for [getLogsFiltered] and
+ *                        recordings
+ * @param deliver         hands a batch to the listeners, the batch must
+ *                        not be modified and done has to be called once
+ *                        the listeners got it
+ */
+class LogPipeline(capacity: Int,
+                  historyCapacity: Int,
+                  private val deliver: (logs: List<Log>, done: () -> Unit) -> Unit) {
+
+    private val ring = SpscRingBuffer<Log>(capacity)
+    private val dropped = AtomicLong()
+
+    // Everything below history is only touched by the flushing thread
+    private val batch = ArrayList<Log>()
+    private val undelivered = ArrayDeque<Log>()
+    private val isDelivering = AtomicBoolean()
+
+    @Volatile
+    private var isClearRequested = false
+
+    private val historyLock = ReentrantLock()
+    private var history = FixedCircularArray<Log>(historyCapacity, INITIAL_HISTORY_SIZE)
+    private var recordStartIndex = -1
+
+    /**
+     * Replaced as a whole on every change, a flush works on the
+     * instance it read first
+     */
+    @Volatile
+    private var filterSet = FilterSet(emptyMap(), emptyMap())
+
+    /**
+     * Reader side, never blocks
+     *
+     * @return false if the ring was full and [log] was dropped
+     */
+    fun offer(log: Log): Boolean {
+        if (ring.offer(log)) {
+            return true
+        }
+
+        dropped.incrementAndGet()
+        return false
+    }
+
+    /**
+     * Logs the reader had to drop because the flusher fell behind
+     */
+    fun getDroppedCount(): Long {
+        return dropped.get()
+    }
+
+    /**
+     * Flusher side, move what the reader produced since the last call
+     * to the history and, if [canDeliver], hand a batch to [deliver]
+     *
+     * @return number of logs taken from the ring
+     */
+    fun flush(canDeliver: Boolean): Int {
+        if (isClearRequested) {
+            isClearRequested = false
+            ring.drainTo(ArrayList())
+            undelivered.clear()
+        }
+
+        batch.clear()
+        val count = ring.drainTo(batch)
+
+        if (count > 0) {
+            val filterSet = this.filterSet
+
+            for (log in batch) {
+                if (filterSet.accepts(log)) {
+                    undelivered.addLast(log)
+                }
+            }
+
+            historyLock.withLock {
+                history.add(batch)
+            }
+
+            while (undelivered.size > history.capacity) {
+                undelivered.removeFirst()
+            }
+        }
+
+        if (canDeliver && undelivered.isNotEmpty() && isDelivering.compareAndSet(false, true)) {
+            val logs = Collections.unmodifiableList(ArrayList(undelivered))
+            undelivered.clear()
+
+            deliver(logs) {
+                isDelivering.set(false)
+            }
+        }
+
+        return count
+    }
+
+    /**
+     * Drop the history now and everything still on its way at the
+     * next flush
+     */
+    fun clear() {
+        isClearRequested = true
+
+        historyLock.withLock {
+            history.clear()
+            recordStartIndex = -1
+        }
+    }
+
+    fun setHistoryCapacity(capacity: Int) {
+        historyLock.withLock {
+            history = FixedCircularArray(capacity, INITIAL_HISTORY_SIZE)
+            recordStartIndex = -1
+        }
+    }
+
+    /**
+     * History as the current filters see it, copied under the lock and
+     * filtered after
+     */
+    fun getLogsFiltered(): List<Log> {
+        val filterSet = this.filterSet
+        val logs = getHistory()
+
+        return if (filterSet.isEmpty()) {
+            logs
+        } else {
+            logs.filter { filterSet.accepts(it) }
+        }
+    }
+
+    fun getHistory(): List<Log> {
+        historyLock.withLock {
+            val logs = ArrayList<Log>(history.size)
+            history.forEach { logs.add(it) }
+            return logs
+        }
+    }
+
+    fun startRecording() {
+        historyLock.withLock {
+            recordStartIndex = history.size - 1
+        }
+    }
+
+    fun stopRecording(): List<Log> {
+        val filterSet = this.filterSet
+        val result = mutableListOf<Log>()
+
+        historyLock.withLock {
+            if (recordStartIndex >= 0) {
+                for (i in recordStartIndex until history.size) {
+                    result += history[i]
+                }
+            }
+
+            recordStartIndex = -1
+        }
+
+        return result.filter { filterSet.matchesFilters(it) }
+    }
+
+    @Synchronized
+    fun addFilter(name: String, filter: Filter) {
+        filterSet = FilterSet(filterSet.filters + (name to filter), filterSet.exclusions)
+    }
+
+    @Synchronized
+    fun removeFilter(name: String) {
+        filterSet = FilterSet(filterSet.filters - name, filterSet.exclusions)
+    }
+
+    @Synchronized
+    fun clearFilters(exclude: String? = null) {
+        filterSet = FilterSet(filterSet.filters.filterKeys { it == exclude }, filterSet.exclusions)
+    }
+
+    @Synchronized
+    fun addExclusion(name: String, filter: Filter) {
+        filterSet = FilterSet(filterSet.filters, filterSet.exclusions + (name to filter))
+    }
+
+    @Synchronized
+    fun removeExclusion(name: String) {
+        filterSet = FilterSet(filterSet.filters, filterSet.exclusions - name)
+    }
+
+    @Synchronized
+    fun clearExclusions() {
+        filterSet = FilterSet(filterSet.filters, emptyMap())
+    }
+
+    /**
+     * Filters and exclusions at one point in time, never modified
+     */
+    private class FilterSet(val filters: Map<String, Filter>, val exclusions: Map<String, Filter>) {
+
+        private val filterArray = filters.values.toTypedArray()
+        private val exclusionArray = exclusions.values.toTypedArray()
+
+        fun isEmpty(): Boolean {
+            return filterArray.isEmpty() && exclusionArray.isEmpty()
+        }
+
+        fun accepts(log: Log): Boolean {
+            return exclusionArray.none { it.apply(log) } && matchesFilters(log)
+        }
+
+        fun matchesFilters(log: Log): Boolean {
+            return filterArray.all { it.apply(log) }
+        }
+    }
+
+    companion object {
+        private const val INITIAL_HISTORY_SIZE = 1_000
+    }
+}
@@ -9,106 +9,71 @@ import androidx.appcompat.app.AppCompatActivity
 import androidx.documentfile.provider.DocumentFile
 import androidx.lifecycle.DefaultLifecycleObserver
 import androidx.lifecycle.LifecycleOwner
-import app.simple.inure.logs.collections.FixedCircularArray
 import app.simple.inure.logs.logger.Logger
 import java.io.*
 import java.util.*
-import java.util.concurrent.locks.ReentrantLock
 import kotlin.concurrent.thread
-import kotlin.concurrent.withLock
 
+/**
+ * Runs `logcat -v long` and feeds its logs through a [LogPipeline].
+ * The stdout thread only parses and offers, it never waits for the UI,
+ * the post thread flushes the pipeline once per [pollInterval] and the
+ * main thread gets the filtered logs in one batch per flush.
+ */
 class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
     var logcatBuffers = DEFAULT_BUFFERS
     private val logcatCmd = arrayOf("logcat", "-v", "long")
-    private var pollInterval: Long = 250L // in ms
+    private var pollInterval: Long = FRAME_INTERVAL // in ms
     private var threadLogcat: Thread? = null
     private var logcatProcess: Process? = null
     private val handler: Handler = Handler(Looper.getMainLooper())
 
-    private var recordStartIndex = -1
-
     private val listeners = Collections.newSetFromMap(WeakHashMap<LogsReceivedListener, Boolean>())
 
     private var pollCondition = ConditionVariable()
 
     private var exitCode: Int = -1
 
-    private var _pausedLock = Any()
+    @Volatile
     private var paused: Boolean = false
-        get() = synchronized(_pausedLock) {
-            field
-        }
-        set(value) = synchronized(_pausedLock) {
-            field = value
-        }
-    private val pausePostLogsCondition = ConditionVariable()
 
-    // must be synchronized
-    private val logsLock = ReentrantLock()
-    private val pendingLogsFullCondition = logsLock.newCondition()
-    private var logs = FixedCircularArray<Log>(initialCapacity, INITIAL_LOG_SIZE)
-    private var pendingLogs = FixedCircularArray<Log>(initialCapacity, INITIAL_LOG_SIZE)
-    private val filters = mutableMapOf<String, Filter>()
-    private val exclusions = mutableMapOf<String, Filter>()
-
-    private var _activityInBackgroundLock = Any()
+    @Volatile
     private var activityInBackground: Boolean = true
-        get() = synchronized(_activityInBackgroundLock) {
-            field
-        }
-        set(value) = synchronized(_activityInBackgroundLock) {
-            field = value
-        }
 
-    private val activityInBackgroundCondition = ConditionVariable()
+    private val pipeline = LogPipeline(PENDING_LOG_CAPACITY, initialCapacity) { logs, done ->
+        handler.post {
+            try {
+                synchronized(listeners) {
+                    listeners.toList()
+                }.forEach {
+                    it.onReceivedLogs(logs)
+                }
+            } finally {
+                done()
+            }
+        }
+    }
 
     private val lifeCycleObserver = object : DefaultLifecycleObserver {
         override fun onResume(owner: LifecycleOwner) {
             Logger.debug(Logcat::class, "onActivityInForeground")
+            activityInBackground = false
 
             if (!paused) {
                 Logger.debug(Logcat::class, "Posting pending logs")
-                postPendingLogs()
-            }
-
-            logsLock.withLock {
-                activityInBackground = false
+                pollCondition.open()
             }
-            activityInBackgroundCondition.open()
         }
 
         override fun onPause(owner: LifecycleOwner) {
             Logger.debug(Logcat::class, "onActivityInBackground")
-            logsLock.withLock {
-                activityInBackground = true
-            }
+            activityInBackground = true
         }
     }
 
     @Volatile
     private var isProcessAlive = false
 
-    private fun postPendingLogs() {
-        logsLock.withLock {
-            if (pendingLogs.isNotEmpty()) {
-                logs.add(pendingLogs)
-
-                val filteredLogs = pendingLogs.filter { e ->
-                    !exclusions.values.any { it.apply(e) }
-                }.filter { e ->
-                    filters.values.all { it.apply(e) }
-                }
-
-                if (filteredLogs.isNotEmpty()) {
-                    handler.post { listeners.forEach { it.onReceivedLogs(filteredLogs) } }
-                }
-
-                pendingLogs.clear()
-                pendingLogsFullCondition.signal()
-            }
-        }
-    }
-
     fun start() {
         if (logcatProcess == null) {
             paused = false
@@ -130,18 +95,11 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
         threadLogcat = null
         logcatProcess = null
 
-        logsLock.withLock {
-            logs.clear()
-            pendingLogs.clear()
-        }
+        pipeline.clear()
     }
 
     fun clearLogs(onClear: (() -> Unit)? = null) = withPaused {
-        logsLock.withLock {
-            logs.clear()
-            pendingLogs.clear()
-        }
-
+        pipeline.clear()
         onClear?.invoke()
     }
 
@@ -168,80 +126,55 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
     }
 
     fun addEventListener(listener: LogsReceivedListener) = withPaused {
-        logsLock.withLock {
+        synchronized(listeners) {
             listeners += listener
         }
     }
 
     fun removeEventListener(listener: LogsReceivedListener) = withPaused {
-        logsLock.withLock {
+        synchronized(listeners) {
             listeners -= listener
         }
     }
 
     fun clearEventListeners() = withPaused {
-        logsLock.withLock {
+        synchronized(listeners) {
             listeners.clear()
         }
     }
 
     fun getLogsFiltered(): List<Log> {
-        logsLock.withLock {
-            return if (exclusions.isEmpty() && filters.isEmpty()) {
-                logs.toList()
-            } else {
-                logs.filter { log ->
-                    !exclusions.values.any { it.apply(log) } && filters.values.all { it.apply(log) }
-                }
-            }
-        }
+        return pipeline.getLogsFiltered()
     }
 
     fun addExclusion(
             name: String,
             filter: Filter
     ) {
-        logsLock.withLock {
-            exclusions[name] = filter
-        }
+        pipeline.addExclusion(name, filter)
     }
 
     fun removeExclusion(name: String) {
-        logsLock.withLock {
-            exclusions.remove(name)
-        }
+        pipeline.removeExclusion(name)
     }
 
     fun clearExclusions() {
-        logsLock.withLock {
-            exclusions.clear()
-        }
+        pipeline.clearExclusions()
     }
 
     fun addFilter(
             name: String,
             filter: Filter
     ) {
-        logsLock.withLock {
-            filters[name] = filter
-        }
+        pipeline.addFilter(name, filter)
     }
 
     fun removeFilter(name: String) {
-        logsLock.withLock {
-            filters.remove(name)
-        }
+        pipeline.removeFilter(name)
     }
 
     fun clearFilters(exclude: String? = null) {
-        logsLock.withLock {
-            val it = filters.iterator()
-            while (it.hasNext()) {
-                if (it.next().key != exclude) {
-                    it.remove()
-                }
-            }
-        }
+        pipeline.clearFilters(exclude)
     }
 
     fun pause() {
@@ -251,28 +184,16 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
     fun resume() {
         if (paused) {
             paused = false
-            pausePostLogsCondition.open()
             pollCondition.open()
         }
     }
 
     fun startRecording() {
-        logsLock.withLock {
-            recordStartIndex = logs.size - 1
-        }
+        pipeline.startRecording()
     }
 
     fun stopRecording(): List<Log> {
-        logsLock.withLock {
-            val result = mutableListOf<Log>()
-            if (recordStartIndex >= 0) {
-                for (i in recordStartIndex until logs.size) {
-                    result += logs[i]
-                }
-            }
-            recordStartIndex = -1
-            return result.filter { log -> filters.values.all { it.apply(log) } }
-        }
+        return pipeline.stopRecording()
     }
 
     fun bind(activity: AppCompatActivity?) {
@@ -285,13 +206,17 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
 
     override fun close() {
         stop()
-        logsLock.withLock {
+        synchronized(listeners) {
             listeners.clear()
         }
     }
 
+    /**
+     * Time between two batches for the listeners, never shorter than a
+     * frame
+     */
     fun setPollInterval(interval: Long) {
-        this.pollInterval = interval
+        this.pollInterval = interval.coerceAtLeast(FRAME_INTERVAL)
         pollCondition.open()
     }
 
@@ -328,7 +253,6 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
         isProcessAlive = false
 
         pollCondition.open()
-        activityInBackgroundCondition.open()
 
         logcatProcess = null
 
@@ -348,17 +272,12 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
     }
 
     fun setMaxLogsCount(maxLogsCount: Int) {
-        logsLock.withLock {
-            logs = FixedCircularArray(maxLogsCount, INITIAL_LOG_SIZE)
-            pendingLogs = FixedCircularArray(maxLogsCount, INITIAL_LOG_SIZE)
-        }
+        pipeline.setHistoryCapacity(maxLogsCount)
     }
 
     override fun toString(): String {
         val stringBuilder = StringBuilder()
-        logsLock.withLock {
-            logs.forEach { log -> stringBuilder.append(log) }
-        }
+        pipeline.getHistory().forEach { log -> stringBuilder.append(log) }
         return stringBuilder.toString()
     }
 
@@ -374,53 +293,42 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
         }
     }
 
+    /**
+     * Keeps draining the pipeline while paused or in the background so
+     * the reader never stalls, only less often and without posting
+     */
     private fun postLogsPeriodically() {
         while (isProcessAlive) {
-            if (paused) {
-                pausePostLogsCondition.block()
-                pausePostLogsCondition.close()
-                if (!isProcessAlive) {
-                    break
-                }
-            }
-
-            if (activityInBackground) {
-                activityInBackgroundCondition.block()
-                activityInBackgroundCondition.close()
-                if (!isProcessAlive) {
-                    break
-                }
-            }
-
+            val canPost = !paused && !activityInBackground
             val t0 = System.currentTimeMillis()
 
-            postPendingLogs()
+            pipeline.flush(canPost)
 
             val diff = System.currentTimeMillis() - t0
-            val sleepTime = pollInterval - diff
+            val sleepTime = (if (canPost) pollInterval else BACKGROUND_INTERVAL) - diff
             if (sleepTime > 0) {
                 pollCondition.block(sleepTime)
                 pollCondition.close()
             }
         }
+
+        pipeline.flush(!paused && !activityInBackground)
     }
 
     private fun processStdout(inputStream: InputStream?) {
         try {
             LogcatStreamReader(inputStream!!).use {
                 for (log in it) {
-                    logsLock.withLock {
-                        pendingLogs.add(log)
-
-                        if (pendingLogs.isFull()) {
-                            pendingLogsFullCondition.awaitUninterruptibly()
-                        }
-                    }
+                    pipeline.offer(log)
                 }
             }
         } catch (e: Exception) {
             // do nothing
         }
+
+        if (pipeline.getDroppedCount() > 0) {
+            Logger.warning(Logcat::class, "Dropped ${pipeline.getDroppedCount()} logs")
+        }
     }
 
     companion object {
@@ -428,6 +336,14 @@ class Logcat(initialCapacity: Int = INITIAL_LOG_CAPACITY) : Closeable {
         val AVAILABLE_BUFFERS: Array<String>
         const val INITIAL_LOG_CAPACITY = 250_000
         const val INITIAL_LOG_SIZE = 1_000
+
+        /**
+         * Logs the reader can get ahead of the post thread, a second of a
+         * logcat flood at the background interval
+         */
+        private const val PENDING_LOG_CAPACITY = 32_768
+        private const val FRAME_INTERVAL = 16L
+        private const val BACKGROUND_INTERVAL = 250L
         private const val LOG_FILE_HEADER_FMT = "<<< log_count = %d >>>"
 
         init {
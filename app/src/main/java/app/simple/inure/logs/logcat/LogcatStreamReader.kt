@@ -1,46 +1,327 @@
 package app.simple.inure.logs.logcat
 
 import java.io.*
+import java.util.TimeZone
 
-class LogcatStreamReader(inputStream: InputStream) : Iterator<Log>, Closeable {
-    private val reader: BufferedReader = BufferedReader(InputStreamReader(inputStream))
-    private val msgBuffer = StringBuilder()
-    private lateinit var log: Log
+/**
+ * Reads logs straight from the bytes `logcat -v long`, or `logcat -B`
+ * if [isBinary], writes. Lines are never turned into strings, headers
+ * are parsed in place and messages are copied into chunks shared by
+ * many logs, see [Log].
+ */
+class LogcatStreamReader(private val inputStream: InputStream, private val isBinary: Boolean = false) : Iterator<Log>, Closeable {
+
+    private var buffer = ByteArray(BUFFER_SIZE)
+    private var position = 0
+    private var limit = 0
+    private var isEndOfStream = false
+
+    private var lineStart = 0
+    private var lineEnd = 0
+
+    private var header = ByteArray(256)
+    private var headerLength = 0
+
+    private var chunk = ByteArray(CHUNK_SIZE)
+    private var chunkPosition = 0
+    private var messageStart = 0
+
+    private val tags = TagPool()
+    private val headerParser = LogHeaderParser(tags)
+    private val timeZone by lazy { TimeZone.getDefault() }
+
+    private var log: Log? = null
 
     override fun hasNext(): Boolean {
+        if (log == null) {
+            log = if (isBinary) readBinary() else readLong()
+        }
+
+        return log != null
+    }
+
+    override fun next(): Log {
+        if (!hasNext()) {
+            throw NoSuchElementException()
+        }
+
+        val log = this.log!!
+        this.log = null
+        return log
+    }
+
+    override fun close() {
+        try {
+            inputStream.close()
+        } catch (ignored: IOException) {
+        }
+    }
+
+    private fun readLong(): Log? {
         while (true) {
-            val metadata = reader.readLine()?.trim() ?: return false
-            if (metadata.startsWith("[")) {
-                var msg = reader.readLine() ?: return false
-                msgBuffer.append(msg)
+            if (!nextLine()) return null
+            if (!isHeader()) continue
+
+            // The line buffer moves while the message is read
+            headerLength = lineEnd - lineStart
+            if (header.size < headerLength) {
+                header = ByteArray(headerLength * 2)
+            }
+            System.arraycopy(buffer, lineStart, header, 0, headerLength)
+
+            // First line belongs to the message even if it is empty
+            if (!nextLine()) return null
+            startMessage()
+            appendLine()
+
+            while (true) {
+                if (!nextLine()) return null
+                if (lineStart == lineEnd) break
 
-                msg = reader.readLine() ?: return false
-                while (msg.isNotEmpty()) {
-                    msgBuffer.append("\n")
-                        .append(msg)
+                appendByte('\n'.code.toByte())
+                appendLine()
+            }
+
+            val log = headerParser.parse(header, 0, headerLength, chunk, messageStart, chunkPosition - messageStart)
+            if (log != null) {
+                return log
+            }
+
+            // Malformed header, the space can be used for the next message
+            chunkPosition = messageStart
+        }
+    }
 
-                    msg = reader.readLine() ?: return false
+    private fun isHeader(): Boolean {
+        var i = lineStart
+        while (i < lineEnd && LogHeaderParser.isSpace(buffer[i])) i++
+        return i < lineEnd && buffer[i] == '['.code.toByte()
+    }
+
+    /**
+     * Moves [lineStart] and [lineEnd] to the next line without its line
+     * break, like [BufferedReader.readLine] does
+     *
+     * @return false at the end of the stream
+     */
+    private fun nextLine(): Boolean {
+        var scan = position
+
+        while (true) {
+            for (i in scan until limit) {
+                if (buffer[i] == '\n'.code.toByte()) {
+                    lineStart = position
+                    lineEnd = if (i > position && buffer[i - 1] == '\r'.code.toByte()) i - 1 else i
+                    position = i + 1
+                    return true
                 }
+            }
 
-                return try {
-                    log = Log.parse(metadata, msgBuffer.toString())
-                    true
-                } catch (e: Exception) {
-                    //                    Logger.debug(Logcat::class, "${e.message}: $metadata")
-                    false
-                } finally {
-                    msgBuffer.setLength(0)
+            if (isEndOfStream) {
+                if (position == limit) {
+                    return false
                 }
+
+                lineStart = position
+                lineEnd = limit
+                position = limit
+                return true
             }
+
+            scan = limit - position
+            fill()
+            scan += position
         }
     }
 
-    override fun next() = log
+    /**
+     * Keeps the unread bytes, moved to the start of the buffer, and
+     * reads as many new bytes as fit
+     */
+    private fun fill() {
+        val remaining = limit - position
 
-    override fun close() {
-        try {
-            reader.close()
-        } catch (ignored: IOException) {
+        if (remaining == buffer.size) {
+            buffer = buffer.copyOf(buffer.size * 2)
+        }
+
+        System.arraycopy(buffer, position, buffer, 0, remaining)
+        position = 0
+        limit = remaining
+
+        val read = inputStream.read(buffer, limit, buffer.size - limit)
+        if (read < 0) {
+            isEndOfStream = true
+        } else {
+            limit += read
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return false if the stream ended before [count] bytes
+     */
+    private fun require(count: Int): Boolean {
+        while (limit - position < count) {
+            if (isEndOfStream) {
+                return false
+            }
+
+            if (buffer.size < count) {
+                buffer = buffer.copyOf(count * 2)
+            }
+
+            fill()
+        }
+
+        return true
+    }
+
+    private fun startMessage() {
+        messageStart = chunkPosition
+    }
+
+    private fun appendLine() {
+        append(buffer, lineStart, lineEnd - lineStart)
+    }
+
+    private fun appendByte(b: Byte) {
+        ensureChunk(1)
+        chunk[chunkPosition++] = b
+    }
+
+    private fun append(bytes: ByteArray, offset: Int, length: Int) {
+        ensureChunk(length)
+        System.arraycopy(bytes, offset, chunk, chunkPosition, length)
+        chunkPosition += length
+    }
+
+    /**
+     * Starts a new chunk if the message would not fit anymore, the part
+     * of the message already read moves along. The old chunk stays with
+     * the logs that point into it.
+     */
+    private fun ensureChunk(count: Int) {
+        if (chunkPosition + count <= chunk.size) {
+            return
+        }
+
+        val messageLength = chunkPosition - messageStart
+        val next = ByteArray(maxOf(CHUNK_SIZE, (messageLength + count) * 2))
+
+        System.arraycopy(chunk, messageStart, next, 0, messageLength)
+        chunk = next
+        messageStart = 0
+        chunkPosition = messageLength
+    }
+
+    /**
+     * One `struct logger_entry` per log, a little endian header of
+     * [BINARY_HEADER_SIZE] or hdr_size bytes followed by the priority,
+     * the tag and the message, both null terminated
+     */
+    private fun readBinary(): Log? {
+        while (true) {
+            if (!require(BINARY_HEADER_SIZE)) return null
+
+            val length = readShort(position)
+            val headerSize = readShort(position + 2).let { if (it == 0) BINARY_HEADER_SIZE else it }
+
+            if (headerSize < BINARY_HEADER_SIZE || headerSize > MAX_BINARY_HEADER_SIZE) {
+                // Not a log entry, nothing after it can be trusted
+                return null
+            }
+
+            if (!require(headerSize + length)) return null
+
+            val pid = readInt(position + 4)
+            val tid = readInt(position + 8)
+            val seconds = readInt(position + 12).toLong() and 0xFFFFFFFFL
+            val nanos = readInt(position + 16)
+            val bufferId = if (headerSize >= 24) readInt(position + 20) else 0
+
+            val payload = position + headerSize
+            val payloadEnd = payload + length
+            position = payloadEnd
+
+            // Event buffers carry binary payloads instead of text
+            if (bufferId in BINARY_BUFFERS || length < 2) {
+                continue
+            }
+
+            val priority = PRIORITY_LETTERS.getOrElse(buffer[payload].toInt()) { '?' }
+
+            var tagEnd = payload + 1
+            while (tagEnd < payloadEnd && buffer[tagEnd] != 0.toByte()) tagEnd++
+
+            var messageEnd = minOf(tagEnd + 1, payloadEnd)
+            val messageBegin = messageEnd
+            while (messageEnd < payloadEnd && buffer[messageEnd] != 0.toByte()) messageEnd++
+            while (messageEnd > messageBegin && buffer[messageEnd - 1] == '\n'.code.toByte()) messageEnd--
+
+            val tag = tags.intern(buffer, payload + 1, tagEnd - payload - 1)
+
+            startMessage()
+            append(buffer, messageBegin, messageEnd - messageBegin)
+
+            val timestamp = toTimestamp(seconds * 1000L + nanos / 1_000_000)
+
+            return Log(Log.nextId(), timestamp, pid, tid, priority, tag, chunk, messageStart, chunkPosition - messageStart)
+        }
+    }
+
+    private fun readShort(index: Int): Int {
+        return (buffer[index].toInt() and 0xFF) or (buffer[index + 1].toInt() and 0xFF shl 8)
+    }
+
+    private fun readInt(index: Int): Int {
+        return (buffer[index].toInt() and 0xFF) or
+                (buffer[index + 1].toInt() and 0xFF shl 8) or
+                (buffer[index + 2].toInt() and 0xFF shl 16) or
+                (buffer[index + 3].toInt() and 0xFF shl 24)
+    }
+
+    /**
+     * Local month, day and time of [epochMillis] without going through
+     * a calendar for every log
+     */
+    private fun toTimestamp(epochMillis: Long): Long {
+        val local = epochMillis + timeZone.getOffset(epochMillis)
+        val days = Math.floorDiv(local, DAY_MILLIS)
+        val millisOfDay = Math.floorMod(local, DAY_MILLIS).toInt()
+
+        // Civil date from days since the epoch, see
+        // http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        val z = days + 719468
+        val era = Math.floorDiv(z, 146097L)
+        val dayOfEra = z - era * 146097
+        val yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+        val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+        val mp = (5 * dayOfYear + 2) / 153
+        val day = (dayOfYear - (153 * mp + 2) / 5 + 1).toInt()
+        val month = (if (mp < 10) mp + 3 else mp - 9).toInt()
+
+        return Log.packTimestamp(month, day,
+                                 millisOfDay / 3_600_000,
+                                 millisOfDay / 60_000 % 60,
+                                 millisOfDay / 1000 % 60,
+                                 millisOfDay % 1000)
+    }
+
+    companion object {
+        private const val BUFFER_SIZE = 64 * 1024
+        private const val CHUNK_SIZE = 64 * 1024
+        private const val BINARY_HEADER_SIZE = 20
+        private const val MAX_BINARY_HEADER_SIZE = 100
+        private const val DAY_MILLIS = 86_400_000L
+
+        /**
+         * events, stats and security
+         */
+        private val BINARY_BUFFERS = intArrayOf(2, 5, 6)
+
+        /**
+         * android_LogPriority to the letters -v long prints
+         */
+        private val PRIORITY_LETTERS = charArrayOf('?', '?', 'V', 'D', 'I', 'W', 'E', 'F', 'S')
+    }
+}
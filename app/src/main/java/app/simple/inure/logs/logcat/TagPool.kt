@@ -0,0 +1,106 @@
+package app.simple.inure.logs.logcat
+
+/**
+ * Interns tags straight from the bytes they were read from, a tag that
+ * was seen before costs a hash and a compare instead of a new string.
+ * Only meant for one reader thread.
+ */
+class TagPool(private val maxSize: Int = MAX_SIZE) {
+
+    private var keys = arrayOfNulls<ByteArray>(INITIAL_CAPACITY)
+    private var values = arrayOfNulls<String>(INITIAL_CAPACITY)
+    private var hashes = IntArray(INITIAL_CAPACITY)
+    private var size = 0
+
+    fun intern(bytes: ByteArray, offset: Int, length: Int): String {
+        val hash = hash(bytes, offset, length)
+        val mask = keys.size - 1
+        var index = hash and mask
+
+        while (true) {
+            val key = keys[index] ?: break
+
+            if (hashes[index] == hash && equals(key, bytes, offset, length)) {
+                return values[index]!!
+            }
+
+            index = (index + 1) and mask
+        }
+
+        val tag = String(bytes, offset, length, Charsets.UTF_8)
+
+        if (size >= maxSize) {
+            // Some processes log with a new tag every time, don't keep them all
+            clear()
+        } else if ((size + 1) * 2 > keys.size) {
+            grow()
+        }
+
+        put(bytes.copyOfRange(offset, offset + length), tag, hash)
+        return tag
+    }
+
+    fun clear() {
+        keys.fill(null)
+        values.fill(null)
+        size = 0
+    }
+
+    private fun put(key: ByteArray, value: String, hash: Int) {
+        val mask = keys.size - 1
+        var index = hash and mask
+
+        while (keys[index] != null) {
+            index = (index + 1) and mask
+        }
+
+        keys[index] = key
+        values[index] = value
+        hashes[index] = hash
+        size++
+    }
+
+    private fun grow() {
+        val oldKeys = keys
+        val oldValues = values
+        val oldHashes = hashes
+
+        keys = arrayOfNulls(oldKeys.size * 2)
+        values = arrayOfNulls(oldKeys.size * 2)
+        hashes = IntArray(oldKeys.size * 2)
+        size = 0
+
+        for (i in oldKeys.indices) {
+            put(oldKeys[i] ?: continue, oldValues[i]!!, oldHashes[i])
+        }
+    }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 256
+        private const val MAX_SIZE = 4096
+
+        private fun hash(bytes: ByteArray, offset: Int, length: Int): Int {
+            var hash = 1
+            for (i in offset until offset + length) {
+                hash = 31 * hash + bytes[i]
+            }
+
+            // Spread the low bits, the table is indexed with a mask
+            return hash xor (hash ushr 16)
+        }
+
+        private fun equals(key: ByteArray, bytes: ByteArray, offset: Int, length: Int): Boolean {
+            if (key.size != length) {
+                return false
+            }
+
+            for (i in 0 until length) {
+                if (key[i] != bytes[offset + i]) {
+                    return false
+                }
+            }
+
+            return true
+        }
+    }
+}
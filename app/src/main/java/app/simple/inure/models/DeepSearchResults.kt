@@ -0,0 +1,11 @@
+package app.simple.inure.models
+
+/**
+ * Results of a deep search streamed so far, tagged with the keywords
+ * they were searched for so chunks of an older search are never taken
+ * for the next chunk of the current one
+ */
+class DeepSearchResults(val keywords: String, val results: ArrayList<SearchModel>) {
+    val size: Int
+        get() = results.size
+}
@@ -0,0 +1,279 @@
+package app.simple.inure.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * One package as last seen by the data loader, enough to show the app
+ * lists on a cold start before the PackageManager is queried. A row is
+ * current as long as its {@link #versionCode} and {@link #lastUpdateTime}
+ * match the package, otherwise it is replaced.
+ */
+@Entity (tableName = "packages")
+public class PackageRecord {
+    
+    /**
+     * The package name
+     */
+    @PrimaryKey
+    @ColumnInfo (name = "package_name")
+    @NonNull
+    private String packageName;
+    
+    @ColumnInfo (name = "label")
+    @NonNull
+    private String label;
+    
+    /**
+     * Locale the {@link #label} was resolved in
+     */
+    @ColumnInfo (name = "label_locale")
+    @NonNull
+    private String labelLocale;
+    
+    @ColumnInfo (name = "version_name")
+    @Nullable
+    private String versionName;
+    
+    @ColumnInfo (name = "version_code")
+    private long versionCode;
+    
+    /**
+     * {@link android.content.pm.ApplicationInfo#flags}
+     */
+    @ColumnInfo (name = "flags")
+    private int flags;
+    
+    @ColumnInfo (name = "enabled")
+    private boolean enabled;
+    
+    @ColumnInfo (name = "uid")
+    private int uid;
+    
+    @ColumnInfo (name = "category")
+    private int category;
+    
+    @ColumnInfo (name = "install_location")
+    private int installLocation;
+    
+    @ColumnInfo (name = "min_sdk")
+    private int minSdk;
+    
+    @ColumnInfo (name = "target_sdk")
+    private int targetSdk;
+    
+    @ColumnInfo (name = "first_install_time")
+    private long firstInstallTime;
+    
+    @ColumnInfo (name = "last_update_time")
+    private long lastUpdateTime;
+    
+    @ColumnInfo (name = "source_dir")
+    @Nullable
+    private String sourceDir;
+    
+    /**
+     * Newline separated split APK paths, null for single APK packages
+     */
+    @ColumnInfo (name = "split_source_dirs")
+    @Nullable
+    private String splitSourceDirs;
+    
+    @ColumnInfo (name = "data_dir")
+    @Nullable
+    private String dataDir;
+    
+    @ColumnInfo (name = "native_library_dir")
+    @Nullable
+    private String nativeLibraryDir;
+    
+    /**
+     * Combined size of the base and split APKs in bytes
+     */
+    @ColumnInfo (name = "size")
+    private long size;
+    
+    public PackageRecord() {
+        packageName = "";
+        label = "";
+        labelLocale = "";
+    }
+    
+    @NonNull
+    public String getPackageName() {
+        return packageName;
+    }
+    
+    public void setPackageName(@NonNull String packageName) {
+        this.packageName = packageName;
+    }
+    
+    @NonNull
+    public String getLabel() {
+        return label;
+    }
+    
+    public void setLabel(@NonNull String label) {
+        this.label = label;
+    }
+    
+    @NonNull
+    public String getLabelLocale() {
+        return labelLocale;
+    }
+    
+    public void setLabelLocale(@NonNull String labelLocale) {
+        this.labelLocale = labelLocale;
+    }
+    
+    @Nullable
+    public String getVersionName() {
+        return versionName;
+    }
+    
+    public void setVersionName(@Nullable String versionName) {
+        this.versionName = versionName;
+    }
+    
+    public long getVersionCode() {
+        return versionCode;
+    }
+    
+    public void setVersionCode(long versionCode) {
+        this.versionCode = versionCode;
+    }
+    
+    public int getFlags() {
+        return flags;
+    }
+    
+    public void setFlags(int flags) {
+        this.flags = flags;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getUid() {
+        return uid;
+    }
+    
+    public void setUid(int uid) {
+        this.uid = uid;
+    }
+    
+    public int getCategory() {
+        return category;
+    }
+    
+    public void setCategory(int category) {
+        this.category = category;
+    }
+    
+    public int getInstallLocation() {
+        return installLocation;
+    }
+    
+    public void setInstallLocation(int installLocation) {
+        this.installLocation = installLocation;
+    }
+    
+    public int getMinSdk() {
+        return minSdk;
+    }
+    
+    public void setMinSdk(int minSdk) {
+        this.minSdk = minSdk;
+    }
+    
+    public int getTargetSdk() {
+        return targetSdk;
+    }
+    
+    public void setTargetSdk(int targetSdk) {
+        this.targetSdk = targetSdk;
+    }
+    
+    public long getFirstInstallTime() {
+        return firstInstallTime;
+    }
+    
+    public void setFirstInstallTime(long firstInstallTime) {
+        this.firstInstallTime = firstInstallTime;
+    }
+    
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+    
+    public void setLastUpdateTime(long lastUpdateTime) {
+        this.lastUpdateTime = lastUpdateTime;
+    }
+    
+    @Nullable
+    public String getSourceDir() {
+        return sourceDir;
+    }
+    
+    public void setSourceDir(@Nullable String sourceDir) {
+        this.sourceDir = sourceDir;
+    }
+    
+    @Nullable
+    public String getSplitSourceDirs() {
+        return splitSourceDirs;
+    }
+    
+    public void setSplitSourceDirs(@Nullable String splitSourceDirs) {
+        this.splitSourceDirs = splitSourceDirs;
+    }
+    
+    @Nullable
+    public String getDataDir() {
+        return dataDir;
+    }
+    
+    public void setDataDir(@Nullable String dataDir) {
+        this.dataDir = dataDir;
+    }
+    
+    @Nullable
+    public String getNativeLibraryDir() {
+        return nativeLibraryDir;
+    }
+    
+    public void setNativeLibraryDir(@Nullable String nativeLibraryDir) {
+        this.nativeLibraryDir = nativeLibraryDir;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public void setSize(long size) {
+        this.size = size;
+    }
+    
+    public boolean isSameVersion(long versionCode, long lastUpdateTime) {
+        return this.versionCode == versionCode && this.lastUpdateTime == lastUpdateTime;
+    }
+    
+    @NonNull
+    @Override
+    public String toString() {
+        return "PackageRecord{" +
+                "packageName='" + packageName + '\'' +
+                ", label='" + label + '\'' +
+                ", versionCode=" + versionCode +
+                ", lastUpdateTime=" + lastUpdateTime +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+package app.simple.inure.models
+
+import android.content.pm.PackageInfo
+import androidx.core.content.pm.PackageInfoCompat
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * One immutable version of the installed and uninstalled package lists
+ * loaded by the data loader. Every panel reads the same instance, the
+ * lists are never copied or changed after the snapshot is published,
+ * a reload publishes a new snapshot with a higher [version] instead.
+ *
+ * The [PackageInfo] objects themselves are shared too, they must be
+ * treated as read-only. Nothing writes to them once they are published,
+ * a label resolved later comes in a copy of the package in the next
+ * snapshot.
+ *
+ * [installedVersion] and [uninstalledVersion] only change when their
+ * list is loaded again. A snapshot made by [withLabels] keeps them, its
+ * lists hold the same packages in the same order with some relabelled.
+ */
+class PackageSnapshot private constructor(val version: Long,
+                                          val installedVersion: Long,
+                                          val uninstalledVersion: Long,
+                                          val installed: List<PackageInfo>,
+                                          val uninstalled: List<PackageInfo>) {
+
+    val all: List<PackageInfo> by lazy {
+        Collections.unmodifiableList(this.installed + this.uninstalled)
+    }
+
+    val byPackageName: Map<String, PackageInfo> by lazy {
+        HashMap<String, PackageInfo>(all.size * 2).apply {
+            // Installed packages win over uninstalled ones with the same name
+            for (i in all.indices.reversed()) {
+                put(all[i].packageName, all[i])
+            }
+        }
+    }
+
+    private val derived = ConcurrentHashMap<String, Any>()
+
+    /**
+     * Derive a view of this snapshot once and share it with every caller
+     * asking for the same [key], the result must not be modified
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <T : Any> derive(key: String, compute: (PackageSnapshot) -> T): T {
+        return derived.getOrPut(key) { compute(this) } as T
+    }
+
+    /**
+     * Snapshot with [installed] replaced, uninstalled list is shared
+     */
+    fun withInstalled(installed: List<PackageInfo>): PackageSnapshot {
+        return PackageSnapshot(version + 1, version + 1, uninstalledVersion, freeze(installed), uninstalled)
+    }
+
+    /**
+     * Snapshot with [uninstalled] replaced, installed list is shared
+     */
+    fun withUninstalled(uninstalled: List<PackageInfo>): PackageSnapshot {
+        return PackageSnapshot(version + 1, installedVersion, version + 1, installed, freeze(uninstalled))
+    }
+
+    /**
+     * Snapshot with relabelled copies of the lists, a list not passed is
+     * shared. Only the labels may differ, the list versions are kept.
+     */
+    fun withLabels(installed: List<PackageInfo>?, uninstalled: List<PackageInfo>?): PackageSnapshot {
+        return PackageSnapshot(version + 1, installedVersion, uninstalledVersion,
+                               installed?.let { freeze(it) } ?: this.installed,
+                               uninstalled?.let { freeze(it) } ?: this.uninstalled)
+    }
+
+    /**
+     * Packages added, removed and changed since [previous], a package has
+     * changed if its version, update time, label, flags or enabled state
+     * differ
+     */
+    fun diff(previous: PackageSnapshot?): Diff {
+        if (previous == null) {
+            return Diff(all.map { it.packageName }.toSet(), emptySet(), emptySet())
+        }
+
+        val added = HashSet<String>()
+        val changed = HashSet<String>()
+        val removed = HashSet<String>(previous.byPackageName.keys)
+
+        for ((packageName, packageInfo) in byPackageName) {
+            val old = previous.byPackageName[packageName]
+
+            if (old == null) {
+                added.add(packageName)
+            } else {
+                removed.remove(packageName)
+                if (isChanged(old, packageInfo)) {
+                    changed.add(packageName)
+                }
+            }
+        }
+
+        return Diff(added, removed, changed)
+    }
+
+    class Diff(val added: Set<String>, val removed: Set<String>, val changed: Set<String>) {
+
+        fun isEmpty(): Boolean {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty()
+        }
+
+        /**
+         * Whether the row of [packageName] has to be bound again
+         */
+        /**
+         * Whether a row showing [old] has to be bound again for [new], it
+         * has if the version, update time, label, flags or enabled state
+         * differ
+         */
+        fun isChanged(packageName: String): Boolean {
+            return packageName in changed || packageName in added
+        }
+    }
+
+    companion object {
+        val EMPTY = PackageSnapshot(0L, 0L, 0L, emptyList(), emptyList())
+
+        fun of(version: Long, installed: List<PackageInfo>, uninstalled: List<PackageInfo>): PackageSnapshot {
+            return PackageSnapshot(version, version, version, freeze(installed), freeze(uninstalled))
+        }
+
+        private fun freeze(list: List<PackageInfo>): List<PackageInfo> {
+            return Collections.unmodifiableList(ArrayList(list))
+        }
+
+        fun isChanged(old: PackageInfo, new: PackageInfo): Boolean {
+            return old !== new && (old.lastUpdateTime != new.lastUpdateTime ||
+                    PackageInfoCompat.getLongVersionCode(old) != PackageInfoCompat.getLongVersionCode(new) ||
+                    old.applicationInfo.name != new.applicationInfo.name ||
+                    old.applicationInfo.flags != new.applicationInfo.flags ||
+                    old.applicationInfo.enabled != new.applicationInfo.enabled)
+        }
+    }
+}
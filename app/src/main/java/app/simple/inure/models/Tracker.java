@@ -117,6 +117,14 @@ public class Tracker implements Parcelable {
         isReceiver = receiver;
     }
     
+    /**
+     * Trackers found in the dex classes alone have no component, so
+     * there is nothing to block or enable
+     */
+    public boolean isComponent() {
+        return isActivity || isService || isReceiver;
+    }
+    
     public boolean isBlocked() {
         return isBlocked;
     }
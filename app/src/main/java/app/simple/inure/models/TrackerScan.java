@@ -0,0 +1,102 @@
+package app.simple.inure.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Result of a tracker scan for a single package. A row is valid for
+ * as long as the package's {@link #versionCode} and {@link #lastUpdateTime}
+ * match the installed package, otherwise it has to be rescanned.
+ */
+@Entity (tableName = "tracker_scans")
+public class TrackerScan {
+    
+    @PrimaryKey
+    @ColumnInfo (name = "package_name")
+    @NonNull
+    private String packageName;
+    
+    @ColumnInfo (name = "version_code")
+    private long versionCode;
+    
+    @ColumnInfo (name = "last_update_time")
+    private long lastUpdateTime;
+    
+    @ColumnInfo (name = "tracker_count")
+    private int trackerCount;
+    
+    /**
+     * Newline separated list of the component names
+     * that matched a tracker signature
+     */
+    @ColumnInfo (name = "trackers")
+    @NonNull
+    private String trackers;
+    
+    public TrackerScan(@NonNull String packageName, long versionCode, long lastUpdateTime, int trackerCount, @NonNull String trackers) {
+        this.packageName = packageName;
+        this.versionCode = versionCode;
+        this.lastUpdateTime = lastUpdateTime;
+        this.trackerCount = trackerCount;
+        this.trackers = trackers;
+    }
+    
+    @NonNull
+    public String getPackageName() {
+        return packageName;
+    }
+    
+    public void setPackageName(@NonNull String packageName) {
+        this.packageName = packageName;
+    }
+    
+    public long getVersionCode() {
+        return versionCode;
+    }
+    
+    public void setVersionCode(long versionCode) {
+        this.versionCode = versionCode;
+    }
+    
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+    
+    public void setLastUpdateTime(long lastUpdateTime) {
+        this.lastUpdateTime = lastUpdateTime;
+    }
+    
+    public int getTrackerCount() {
+        return trackerCount;
+    }
+    
+    public void setTrackerCount(int trackerCount) {
+        this.trackerCount = trackerCount;
+    }
+    
+    @NonNull
+    public String getTrackers() {
+        return trackers;
+    }
+    
+    public void setTrackers(@NonNull String trackers) {
+        this.trackers = trackers;
+    }
+    
+    public boolean isSameVersion(long versionCode, long lastUpdateTime) {
+        return this.versionCode == versionCode && this.lastUpdateTime == lastUpdateTime;
+    }
+    
+    @NonNull
+    @Override
+    public String toString() {
+        return "TrackerScan{" +
+                "packageName='" + packageName + '\'' +
+                ", versionCode=" + versionCode +
+                ", lastUpdateTime=" + lastUpdateTime +
+                ", trackerCount=" + trackerCount +
+                '}';
+    }
+}
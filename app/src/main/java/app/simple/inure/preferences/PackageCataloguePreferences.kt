@@ -0,0 +1,40 @@
+package app.simple.inure.preferences
+
+import app.simple.inure.preferences.SharedPreferences.getSharedPreferences
+
+/**
+ * Sync state of the package catalogue, not shown to the user
+ */
+object PackageCataloguePreferences {
+
+    private const val sequenceNumber = "package_catalogue_sequence_number"
+    private const val bootCount = "package_catalogue_boot_count"
+
+    // ---------------------------------------------------------------------------------------------------------- //
+
+    /**
+     * PackageManager change sequence number the catalogue was last
+     * synced at, -1 if it never was
+     */
+    fun setSequenceNumber(value: Int) {
+        getSharedPreferences().edit().putInt(sequenceNumber, value).apply()
+    }
+
+    fun getSequenceNumber(): Int {
+        return getSharedPreferences().getInt(sequenceNumber, -1)
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- //
+
+    /**
+     * Sequence numbers restart on every boot, the boot count tells if
+     * the stored one still means anything
+     */
+    fun setBootCount(value: Int) {
+        getSharedPreferences().edit().putInt(bootCount, value).apply()
+    }
+
+    fun getBootCount(): Int {
+        return getSharedPreferences().getInt(bootCount, -1)
+    }
+}
@@ -11,16 +11,28 @@ import android.content.pm.PackageManager
 import android.os.Binder
 import android.os.Build
 import android.os.IBinder
+import android.os.SystemClock
 import android.util.Log
+import androidx.core.os.ConfigurationCompat
 import androidx.localbroadcastmanager.content.LocalBroadcastManager
 import app.simple.inure.R
-import app.simple.inure.util.ArrayUtils.clone
+import app.simple.inure.models.PackageRecord
+import app.simple.inure.models.PackageSnapshot
 import app.simple.inure.util.ArrayUtils.toArrayList
 import app.simple.inure.util.ConditionUtils.invert
-import app.simple.inure.util.NullSafety.isNotNull
+import app.simple.inure.util.LabelResolver
+import app.simple.inure.util.PackageCatalogue
+import app.simple.inure.util.PackageSizeCache
+import app.simple.inure.util.TrackerCensus
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withContext
 import java.util.stream.Collectors
 
@@ -33,17 +45,41 @@ class DataLoaderService : Service() {
         const val RELOAD_APPS = "reload_apps"
         const val RELOAD_QUICK_APPS = "reload_quick_apps"
         const val REFRESH = "refresh"
+
+        /**
+         * Minimum time between two snapshots published while labels
+         * are being resolved
+         */
+        private const val LABEL_PUBLISH_INTERVAL = 300L
     }
 
     private val tag: String = "DataLoaderService"
     private var apps: ArrayList<PackageInfo> = arrayListOf()
     private var uninstalledApps: ArrayList<PackageInfo> = arrayListOf()
     private var downloaderThread: Thread? = null
+    private val snapshot = MutableStateFlow(PackageSnapshot.EMPTY)
+
+    /**
+     * Loads, refreshes and package changes run here, cancelled with the
+     * service
+     */
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    /**
+     * Catalogue as read at the start of the last full load
+     */
+    @Volatile
+    private var records: Map<String, PackageRecord> = emptyMap()
+
+    private val labelResolver = LabelResolver({
+                                                  getApplicationName(applicationContext, it)
+                                              }, LabelResolver.DEFAULT_PARALLELISM)
 
     private var isLoading = false
     private var flags = PackageManager.GET_META_DATA
 
     private var broadcastReceiver: BroadcastReceiver? = null
+    private var packageReceiver: BroadcastReceiver? = null
     private var intentFilter: IntentFilter = IntentFilter()
 
     inner class LoaderBinder : Binder() {
@@ -73,6 +109,31 @@ class DataLoaderService : Service() {
         intentFilter.addAction(REFRESH)
 
         LocalBroadcastManager.getInstance(applicationContext).registerReceiver(broadcastReceiver!!, intentFilter)
+
+        packageReceiver = object : BroadcastReceiver() {
+            override fun onReceive(context: Context?, intent: Intent?) {
+                val packageName = intent?.data?.schemeSpecificPart ?: return
+
+                if (intent.action == Intent.ACTION_PACKAGE_REMOVED && intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) {
+                    return // An update, ACTION_PACKAGE_REPLACED follows
+                }
+
+                if (isLoading || snapshot.value.version == 0L) {
+                    return // The running load sees it, or the next refresh through the sequence number
+                }
+
+                scope.launch {
+                    applyChanges(setOf(packageName))
+                }
+            }
+        }
+
+        registerReceiver(packageReceiver, IntentFilter().apply {
+            addAction(Intent.ACTION_PACKAGE_ADDED)
+            addAction(Intent.ACTION_PACKAGE_REMOVED)
+            addAction(Intent.ACTION_PACKAGE_REPLACED)
+            addDataScheme("package")
+        })
     }
 
     override fun onStartCommand(intent: Intent, flags: Int, startId: Int): Int {
@@ -84,6 +145,8 @@ class DataLoaderService : Service() {
         super.onDestroy()
         Log.d(tag, "onDestroy: Dataloader service destroyed")
         LocalBroadcastManager.getInstance(applicationContext).unregisterReceiver(broadcastReceiver!!)
+        unregisterReceiver(packageReceiver)
+        scope.cancel()
 
         try {
             downloaderThread?.interrupt()
@@ -92,23 +155,54 @@ class DataLoaderService : Service() {
         }
     }
 
-    fun getInstalledApps(): ArrayList<PackageInfo> {
-        if (apps.isNotNull() && apps.isNotEmpty()) {
-            @Suppress("UNCHECKED_CAST")
-            return apps.clone() as ArrayList<PackageInfo>
-        } else {
-            apps = loadInstalledApps() as ArrayList<PackageInfo>
-            return getInstalledApps()
+    /**
+     * Latest loaded packages, shared by every consumer. A new snapshot is
+     * published after every load and refresh.
+     */
+    fun getSnapshot(): StateFlow<PackageSnapshot> {
+        return snapshot.asStateFlow()
+    }
+
+    fun getInstalledApps(): List<PackageInfo> {
+        if (snapshot.value.installed.isEmpty()) {
+            synchronized(snapshot) {
+                if (apps.isEmpty()) {
+                    apps = queryInstalledApps()
+                    loadLabelsBlocking(apps)
+                }
+
+                publish(installed = apps)
+            }
         }
+
+        return snapshot.value.installed
     }
 
-    @Suppress("UNCHECKED_CAST")
-    fun getUninstalledApps(): ArrayList<PackageInfo> {
-        return if (uninstalledApps.isNotNull() && uninstalledApps.isNotEmpty()) {
-            uninstalledApps.clone() as ArrayList<PackageInfo>
-        } else {
-            loadUninstalledApps()
-            uninstalledApps.clone() as ArrayList<PackageInfo>
+    fun getUninstalledApps(): List<PackageInfo> {
+        if (snapshot.value.uninstalled.isEmpty()) {
+            synchronized(snapshot) {
+                if (uninstalledApps.isEmpty()) {
+                    uninstalledApps = queryUninstalledApps()
+                    loadLabelsBlocking(uninstalledApps)
+                }
+
+                publish(uninstalled = uninstalledApps)
+            }
+        }
+
+        return snapshot.value.uninstalled
+    }
+
+    /**
+     * Publish a new snapshot, lists not passed are carried over from the
+     * current one so their consumers see the same instances
+     */
+    private fun publish(installed: List<PackageInfo>? = null, uninstalled: List<PackageInfo>? = null) {
+        synchronized(snapshot) {
+            var next = snapshot.value
+            installed?.let { next = next.withInstalled(it) }
+            uninstalled?.let { next = next.withUninstalled(it) }
+            snapshot.value = next
         }
     }
 
@@ -116,62 +210,243 @@ class DataLoaderService : Service() {
         if (isLoading.invert()) {
             isLoading = true
 
-            CoroutineScope(Dispatchers.IO).launch {
-                if (apps.isEmpty()) {
-                    apps = loadInstalledApps().clone()
+            scope.launch {
+                records = PackageCatalogue.getRecords(applicationContext)
+                records.values.forEach {
+                    labelResolver.put(it.packageName, it.lastUpdateTime, it.labelLocale, it.label)
+                    PackageSizeCache.instance.put(it.packageName, it.lastUpdateTime, it.size)
                 }
 
-                if (uninstalledApps.isEmpty()) {
-                    loadUninstalledApps()
+                // Cold start, show the catalogue before the PackageManager is queried
+                val isFromCatalogue = snapshot.value.version == 0L && records.isNotEmpty()
+
+                if (isFromCatalogue) {
+                    val packages = PackageCatalogue.getPackages(records)
+
+                    publish(installed = packages.filter { it.isInstalled() },
+                            uninstalled = packages.filter { it.isInstalled().invert() })
+
+                    withContext(Dispatchers.Main) {
+                        LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(Intent(APPS_LOADED))
+                    }
                 }
 
-                // onAppsLoaded(apps.toArrayList())
-                // onUninstalledAppsLoaded(uninstalledApps.toArrayList())
+                val sequenceNumber = PackageCatalogue.getSequenceNumber(applicationContext)
+
+                val installed = if (apps.isEmpty()) {
+                    apps = queryInstalledApps()
+                    apps
+                } else null
+
+                val uninstalled = if (uninstalledApps.isEmpty()) {
+                    uninstalledApps = queryUninstalledApps()
+                    uninstalledApps
+                } else null
+
+                // Packages without a cached label show their package name until it's resolved
+                val unlabelled = labelResolver.applyCached(listOfNotNull(installed, uninstalled).flatten(), getLocale())
+
+                // Lists loaded earlier are already published
+                publish(installed, uninstalled)
+
+                if (isFromCatalogue.invert()) {
+                    withContext(Dispatchers.Main) {
+                        LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(Intent(APPS_LOADED))
+                    }
+                }
+
+                resolveLabels(unlabelled)
+                reconcileCatalogue(sequenceNumber)
 
                 withContext(Dispatchers.Main) {
-                    LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(Intent(APPS_LOADED))
+                    if (isFromCatalogue) {
+                        onAppsLoaded(snapshot.value.installed)
+                        onUninstalledAppsLoaded(snapshot.value.uninstalled)
+                    }
+
                     isLoading = false
                 }
+
+                kotlin.runCatching {
+                    TrackerCensus.scan(applicationContext, snapshot.value.installed)
+                }.onFailure {
+                    Log.e(tag, "startLoading: tracker census failed", it)
+                }
             }
         }
     }
 
+    /**
+     * Reload the packages, only the ones the PackageManager reports as
+     * changed since the last sync if it can tell. Asking it is a binder
+     * call, it's made off the main thread.
+     */
     fun refresh() {
+        if (isLoading || apps.isEmpty()) {
+            reload()
+            return
+        }
+
+        scope.launch {
+            val changed = PackageCatalogue.getChangedPackages(applicationContext)
+
+            if (changed != null) {
+                Log.d(tag, "refresh: ${changed.size} packages changed")
+                applyChanges(changed)
+
+                withContext(Dispatchers.Main) {
+                    LocalBroadcastManager.getInstance(applicationContext).sendBroadcast(Intent(APPS_LOADED))
+                }
+            } else {
+                withContext(Dispatchers.Main) {
+                    reload()
+                }
+            }
+        }
+    }
+
+    private fun reload() {
         isLoading = false
-        apps.clear()
-        uninstalledApps.clear()
+        apps = arrayListOf()
+        uninstalledApps = arrayListOf()
         startLoading()
     }
 
     fun hasDataLoaded(): Boolean {
-        return apps.isNotEmpty() && uninstalledApps.isNotEmpty()
+        return snapshot.value.version > 0L
     }
 
-    private fun loadInstalledApps(): MutableList<PackageInfo> {
-        return packageManager.getInstalledPackages(flags).loadPackageNames()
+    /**
+     * Query [packageNames] again and patch them into the loaded lists,
+     * a new snapshot is published even if nothing changed so waiting
+     * panels reload
+     */
+    private suspend fun applyChanges(packageNames: Set<String>) {
+        val sequenceNumber = PackageCatalogue.getSequenceNumber(applicationContext)
+        packageNames.forEach { PackageSizeCache.instance.invalidate(it) }
+        val updated = packageNames.mapNotNull { getPackage(it) }
+
+        loadLabels(updated)
+        val removed = packageNames - updated.mapTo(HashSet()) { it.packageName }
+
+        synchronized(snapshot) {
+            apps = ArrayList(apps.filter { it.packageName !in packageNames } + updated.filter { it.isInstalled() })
+            uninstalledApps = ArrayList(uninstalledApps.filter { it.packageName !in packageNames } +
+                                                updated.filter { it.isInstalled().invert() })
+
+            publish(installed = apps, uninstalled = uninstalledApps)
+        }
+
+        PackageCatalogue.update(applicationContext, updated, removed, getLocale())
+        PackageCatalogue.setSynced(applicationContext, sequenceNumber)
     }
 
-    private fun loadUninstalledApps() {
-        if (uninstalledApps.isEmpty()) {
-            val flags = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                PackageManager.GET_META_DATA or PackageManager.MATCH_UNINSTALLED_PACKAGES
-            } else {
-                @Suppress("DEPRECATION")
-                PackageManager.GET_META_DATA or PackageManager.GET_UNINSTALLED_PACKAGES
-            }
+    private fun reconcileCatalogue(sequenceNumber: Int) {
+        PackageCatalogue.reconcile(applicationContext, snapshot.value.all, records, getLocale())
+        PackageCatalogue.setSynced(applicationContext, sequenceNumber)
+    }
+
+    /**
+     * @return the package whether it's installed or only has its data
+     *         left behind, null if it's gone
+     */
+    private fun getPackage(packageName: String): PackageInfo? {
+        return try {
+            packageManager.getPackageInfo(packageName, getUninstalledFlags())
+        } catch (e: PackageManager.NameNotFoundException) {
+            null
+        }
+    }
+
+    private fun PackageInfo.isInstalled(): Boolean {
+        return applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+    }
+
+    private fun getLocale(): String {
+        return ConfigurationCompat.getLocales(resources.configuration)[0]?.toLanguageTag() ?: ""
+    }
+
+    private fun getUninstalledFlags(): Int {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            PackageManager.GET_META_DATA or PackageManager.MATCH_UNINSTALLED_PACKAGES
+        } else {
+            @Suppress("DEPRECATION")
+            PackageManager.GET_META_DATA or PackageManager.GET_UNINSTALLED_PACKAGES
+        }
+    }
 
-            uninstalledApps = packageManager.getInstalledPackages(flags).stream().filter { packageInfo: PackageInfo ->
-                packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0
-            }.collect(Collectors.toList()).loadPackageNames().toArrayList()
+    /**
+     * Installed packages without their labels, see [resolveLabels]
+     */
+    private fun queryInstalledApps(): ArrayList<PackageInfo> {
+        return ArrayList(packageManager.getInstalledPackages(flags))
+    }
+
+    private fun queryUninstalledApps(): ArrayList<PackageInfo> {
+        return packageManager.getInstalledPackages(getUninstalledFlags()).stream().filter { packageInfo: PackageInfo ->
+            packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0
+        }.collect(Collectors.toList()).toArrayList()
+    }
+
+    /**
+     * Resolve the labels of [packages] in parallel, the lists are
+     * published again every [LABEL_PUBLISH_INTERVAL] so the panels fill
+     * in the labels while the rest are still being resolved
+     */
+    private suspend fun resolveLabels(packages: List<PackageInfo>) {
+        if (packages.isEmpty()) {
+            return
         }
+
+        val start = SystemClock.elapsedRealtime()
+        var published = start
+
+        labelResolver.resolve(packages, getLocale()) { resolved ->
+            if (resolved < packages.size && SystemClock.elapsedRealtime() - published >= LABEL_PUBLISH_INTERVAL) {
+                republish()
+                published = SystemClock.elapsedRealtime()
+            }
+        }
+
+        republish()
+        Log.d(tag, "resolveLabels: ${packages.size} labels in ${SystemClock.elapsedRealtime() - start} ms")
+    }
+
+    /**
+     * Label packages just queried, before they are published
+     */
+    private suspend fun loadLabels(packages: List<PackageInfo>) {
+        labelResolver.resolve(labelResolver.applyCached(packages, getLocale()), getLocale())
+        labelResolver.applyCached(packages, getLocale())
     }
 
-    private fun MutableList<PackageInfo>.loadPackageNames(): MutableList<PackageInfo> {
-        forEach {
-            it.applicationInfo.name = getApplicationName(application.applicationContext, it.applicationInfo)
+    private fun loadLabelsBlocking(packages: List<PackageInfo>) {
+        runBlocking {
+            loadLabels(packages)
         }
+    }
+
+    /**
+     * Publish the lists again with the labels resolved so far, packages
+     * already published are never changed, the new snapshot gets copies
+     * of the ones whose label came in. It's published as a label change,
+     * the panels rebind those rows instead of loading again.
+     */
+    private fun republish() {
+        val locale = getLocale()
 
-        return this
+        synchronized(snapshot) {
+            val installed = labelResolver.relabel(apps, locale).takeIf { it !== apps }
+            val uninstalled = labelResolver.relabel(uninstalledApps, locale).takeIf { it !== uninstalledApps }
+
+            if (installed == null && uninstalled == null) {
+                return
+            }
+
+            installed?.let { apps = ArrayList(it) }
+            uninstalled?.let { uninstalledApps = ArrayList(it) }
+            snapshot.value = snapshot.value.withLabels(installed, uninstalled)
+        }
     }
 
     /**
@@ -189,29 +464,47 @@ class DataLoaderService : Service() {
         }
     }
 
-    private fun onUninstalledAppsLoaded(uninstalledApps: ArrayList<PackageInfo>) {
+    private fun onUninstalledAppsLoaded(uninstalledApps: List<PackageInfo>) {
         Log.d("DataLoaderService", "onUninstalledAppsLoaded: ${uninstalledApps.size}")
         LocalBroadcastManager.getInstance(applicationContext)
             .sendBroadcast(Intent(UNINSTALLED_APPS_LOADED))
     }
 
-    private fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    private fun onAppsLoaded(apps: List<PackageInfo>) {
         Log.d("DataLoaderService", "onAppsLoaded: ${apps.size}")
         LocalBroadcastManager.getInstance(applicationContext)
             .sendBroadcast(Intent(INSTALLED_APPS_LOADED))
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun refreshUninstalled() {
-        uninstalledApps.clear()
-        loadUninstalledApps()
-        onUninstalledAppsLoaded(uninstalledApps.clone() as ArrayList<PackageInfo>)
+        scope.launch {
+            val sequenceNumber = PackageCatalogue.getSequenceNumber(applicationContext)
+            val uninstalled = queryUninstalledApps()
+            loadLabels(uninstalled)
+
+            uninstalledApps = uninstalled
+            publish(uninstalled = uninstalledApps)
+            reconcileCatalogue(sequenceNumber)
+
+            withContext(Dispatchers.Main) {
+                onUninstalledAppsLoaded(snapshot.value.uninstalled)
+            }
+        }
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun refreshInstalled() {
-        apps.clear()
-        apps = loadInstalledApps() as ArrayList<PackageInfo>
-        onAppsLoaded(apps.clone() as ArrayList<PackageInfo>)
+        scope.launch {
+            val sequenceNumber = PackageCatalogue.getSequenceNumber(applicationContext)
+            val installed = queryInstalledApps()
+            loadLabels(installed)
+
+            apps = installed
+            publish(installed = apps)
+            reconcileCatalogue(sequenceNumber)
+
+            withContext(Dispatchers.Main) {
+                onAppsLoaded(snapshot.value.installed)
+            }
+        }
     }
 }
\ No newline at end of file
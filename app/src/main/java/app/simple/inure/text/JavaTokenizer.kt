@@ -0,0 +1,102 @@
+package app.simple.inure.text
+
+import app.simple.inure.text.SyntaxTokenizer.Companion.COMMENT
+import app.simple.inure.text.SyntaxTokenizer.Companion.KEYWORD
+import app.simple.inure.text.SyntaxTokenizer.Companion.NAME
+import app.simple.inure.text.SyntaxTokenizer.Companion.STATE_DEFAULT
+import app.simple.inure.text.SyntaxTokenizer.Companion.STRING
+import app.simple.inure.text.SyntaxTokenizer.Companion.indexOf
+import app.simple.inure.text.SyntaxTokenizer.Companion.stringEnd
+
+/**
+ * Keywords, comments, string and char literals, numbers and
+ * the names of called or declared methods
+ */
+object JavaTokenizer : SyntaxTokenizer {
+
+    private const val STATE_COMMENT = 1
+
+    private val keywords = hashSetOf(
+            "abstract", "continue", "for", "new", "switch", "assert", "default", "goto", "package",
+            "synchronized", "boolean", "do", "if", "private", "this", "break", "double", "implements",
+            "protected", "throw", "byte", "else", "import", "public", "throws", "case", "enum", "instanceof",
+            "return", "transient", "catch", "extends", "short", "try", "char", "final", "interface", "int",
+            "static", "void", "class", "finally", "long", "strictfp", "volatile", "const", "float", "native",
+            "super", "while", "String", "true", "false", "null")
+
+    override fun tokenize(text: CharSequence, start: Int, end: Int, state: Int, sink: SyntaxTokenizer.TokenSink?): Int {
+        var i = start
+
+        if (state == STATE_COMMENT) {
+            i = blockComment(text, i, i, end, sink) ?: return STATE_COMMENT
+        }
+
+        while (i < end) {
+            val c = text[i]
+            val next = if (i + 1 < end) text[i + 1] else '\u0000'
+
+            when {
+                c == '/' && next == '/' -> {
+                    var e = i
+                    while (e < end && text[e] != '\n') e++
+                    sink?.onToken(i, e, COMMENT)
+                    i = e
+                }
+                c == '/' && next == '*' -> {
+                    i = blockComment(text, i, i + 2, end, sink) ?: return STATE_COMMENT
+                }
+                c == '"' || c == '\'' -> {
+                    val e = stringEnd(text, i, end, c)
+                    sink?.onToken(i, e, STRING)
+                    i = e
+                }
+                c.isDigit() -> {
+                    var e = i + 1
+                    while (e < end && (text[e].isLetterOrDigit() || text[e] == '.' || text[e] == '_')) e++
+                    sink?.onToken(i, e, NAME)
+                    i = e
+                }
+                Character.isJavaIdentifierStart(c) -> {
+                    var e = i + 1
+                    while (e < end && Character.isJavaIdentifierPart(text[e])) e++
+
+                    // Keyword lookups are skipped when only the state is needed
+                    if (sink != null) {
+                        if (keywords.contains(text.substring(i, e))) {
+                            sink.onToken(i, e, KEYWORD)
+                        } else if (isFollowedByParenthesis(text, e, end)) {
+                            sink.onToken(i, e, NAME)
+                        }
+                    }
+
+                    i = e
+                }
+                else -> i++
+            }
+        }
+
+        return STATE_DEFAULT
+    }
+
+    /**
+     * @param from where to look for the end of the comment
+     * @return index after the comment or null if it isn't closed before [end]
+     */
+    private fun blockComment(text: CharSequence, start: Int, from: Int, end: Int, sink: SyntaxTokenizer.TokenSink?): Int? {
+        val close = indexOf(text, "*/", from, end)
+
+        return if (close == -1) {
+            sink?.onToken(start, end, COMMENT)
+            null
+        } else {
+            sink?.onToken(start, close + 2, COMMENT)
+            close + 2
+        }
+    }
+
+    private fun isFollowedByParenthesis(text: CharSequence, start: Int, end: Int): Boolean {
+        var i = start
+        while (i < end && (text[i] == ' ' || text[i] == '\t')) i++
+        return i < end && text[i] == '('
+    }
+}
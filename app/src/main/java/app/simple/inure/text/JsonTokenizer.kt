@@ -0,0 +1,40 @@
+package app.simple.inure.text
+
+import app.simple.inure.text.SyntaxTokenizer.Companion.NAME
+import app.simple.inure.text.SyntaxTokenizer.Companion.STATE_DEFAULT
+import app.simple.inure.text.SyntaxTokenizer.Companion.VALUE
+import app.simple.inure.text.SyntaxTokenizer.Companion.stringEnd
+
+/**
+ * Keys with their colon and string values, JSON has nothing that
+ * spans lines so the state is always [STATE_DEFAULT]
+ */
+object JsonTokenizer : SyntaxTokenizer {
+
+    override fun tokenize(text: CharSequence, start: Int, end: Int, state: Int, sink: SyntaxTokenizer.TokenSink?): Int {
+        sink ?: return STATE_DEFAULT
+
+        var i = start
+
+        while (i < end) {
+            if (text[i] != '"') {
+                i++
+                continue
+            }
+
+            val e = stringEnd(text, i, end, '"')
+            var colon = e
+            while (colon < end && (text[colon] == ' ' || text[colon] == '\t')) colon++
+
+            if (colon < end && text[colon] == ':') {
+                sink.onToken(i, colon + 1, NAME)
+            } else {
+                sink.onToken(i, e, VALUE)
+            }
+
+            i = e
+        }
+
+        return STATE_DEFAULT
+    }
+}
@@ -0,0 +1,283 @@
+package app.simple.inure.text
+
+import app.simple.inure.exceptions.LargeStringException
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Locale
+
+/**
+ * Read only text file split into rows without ever holding it as a
+ * string. The file is memory mapped and [index] records the offset of
+ * every [CHECKPOINT_ROWS]th row, any other row is found by scanning
+ * forward from the checkpoint before it. Rows end at a line break or
+ * after [MAX_ROW_BYTES] bytes so a minified file with one huge line
+ * still pages, heap use is only the checkpoints and the decoded rows.
+ *
+ * Text is expected to be UTF-8. Rows can be read while the index is
+ * still being built, [getRowCount] grows as the index advances.
+ */
+class MappedTextFile private constructor(private val buffer: ByteBuffer) : Closeable {
+
+    @Volatile
+    private var checkpoints = IntArray(INITIAL_CHECKPOINTS)
+
+    @Volatile
+    private var rowCount = 0
+
+    @Volatile
+    var isIndexed = false
+        private set
+
+    @Volatile
+    private var isClosed = false
+
+    val size: Int
+        get() = buffer.limit()
+
+    fun getRowCount(): Int {
+        return rowCount
+    }
+
+    /**
+     * Find every row, [onProgress] is called with the number of rows
+     * found so far after every [PROGRESS_BYTES] and once at the end
+     */
+    fun index(onProgress: ((Int) -> Unit)? = null) {
+        val limit = buffer.limit()
+        var offset = 0
+        var rows = 0
+        var reported = 0
+
+        while (offset < limit) {
+            if (rows % CHECKPOINT_ROWS == 0) {
+                if (isClosed) {
+                    return
+                }
+
+                addCheckpoint(rows / CHECKPOINT_ROWS, offset)
+            }
+
+            offset = rowEnd(offset)
+            rows++
+
+            if (offset - reported >= PROGRESS_BYTES) {
+                rowCount = rows
+                reported = offset
+                onProgress?.invoke(rows)
+            }
+        }
+
+        rowCount = rows
+        isIndexed = true
+        onProgress?.invoke(rows)
+    }
+
+    /**
+     * @return the row without its line break
+     */
+    fun getRow(row: Int): String {
+        return decode(getRowOffset(row))
+    }
+
+    /**
+     * Read [count] consecutive rows, cheaper than reading them one by one
+     */
+    fun getRows(from: Int, count: Int): List<String> {
+        val rows = ArrayList<String>(count)
+        var offset = getRowOffset(from)
+
+        for (i in 0 until minOf(count, rowCount - from)) {
+            rows.add(decode(offset))
+            offset = rowEnd(offset)
+        }
+
+        return rows
+    }
+
+    /**
+     * Case insensitive regex search, same as the search of the other
+     * viewers but row by row so matches can't span lines
+     *
+     * @param limit       stop after this many matches
+     * @param isCancelled checked after every row
+     */
+    fun find(keyword: String, limit: Int, isCancelled: () -> Boolean = { false }): ArrayList<Match> {
+        val matches = ArrayList<Match>()
+
+        if (keyword.isEmpty()) {
+            return matches
+        }
+
+        val matcher = keyword.lowercase().toPattern().matcher("")
+        var offset = 0
+
+        for (row in 0 until rowCount) {
+            if (isCancelled()) {
+                break
+            }
+
+            matcher.reset(decode(offset).lowercase(Locale.getDefault()))
+            while (matcher.find()) {
+                if (matcher.end() > matcher.start()) {
+                    matches.add(Match(row, matcher.start(), matcher.end()))
+                }
+
+                if (matches.size >= limit) {
+                    return matches
+                }
+            }
+
+            offset = rowEnd(offset)
+        }
+
+        return matches
+    }
+
+    /**
+     * Copy the whole file to [outputStream] without decoding it
+     */
+    @Throws(IOException::class)
+    fun writeTo(outputStream: OutputStream) {
+        val chunk = ByteArray(COPY_BUFFER_SIZE)
+        val source = buffer.duplicate()
+        source.position(0)
+
+        while (source.hasRemaining()) {
+            val length = minOf(chunk.size, source.remaining())
+            source.get(chunk, 0, length)
+            outputStream.write(chunk, 0, length)
+        }
+    }
+
+    /**
+     * Decode the whole file, only for callers that really need one string
+     */
+    fun readText(): String {
+        val bytes = ByteArray(size)
+        buffer.duplicate().apply { position(0) }.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    /**
+     * Stop indexing, mapped buffers are released by the garbage
+     * collector so the rows stay readable
+     */
+    override fun close() {
+        isClosed = true
+    }
+
+    private fun getRowOffset(row: Int): Int {
+        if (row < 0 || row >= rowCount) {
+            throw IndexOutOfBoundsException("Row $row of $rowCount")
+        }
+
+        var offset = checkpoints[row / CHECKPOINT_ROWS]
+        for (i in 0 until row % CHECKPOINT_ROWS) {
+            offset = rowEnd(offset)
+        }
+
+        return offset
+    }
+
+    /**
+     * @return offset of the row after the one starting at [start]
+     */
+    private fun rowEnd(start: Int): Int {
+        val end = minOf(buffer.limit(), start + MAX_ROW_BYTES)
+
+        for (i in start until end) {
+            if (buffer.get(i) == NEW_LINE) {
+                return i + 1
+            }
+        }
+
+        if (end == buffer.limit()) {
+            return end
+        }
+
+        // Don't split a UTF-8 sequence between two rows
+        var split = end
+        while (split > start + 1 && (buffer.get(split).toInt() and 0xC0) == 0x80) split--
+        return split
+    }
+
+    private fun decode(start: Int): String {
+        var end = rowEnd(start)
+
+        if (end > start && buffer.get(end - 1) == NEW_LINE) end--
+        if (end > start && buffer.get(end - 1) == CARRIAGE_RETURN) end--
+
+        val bytes = ByteArray(end - start)
+        for (i in bytes.indices) {
+            bytes[i] = buffer.get(start + i)
+        }
+
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private fun addCheckpoint(index: Int, offset: Int) {
+        var array = checkpoints
+        if (index == array.size) {
+            array = array.copyOf(array.size * 2)
+        }
+
+        array[index] = offset
+        checkpoints = array
+    }
+
+    class Match(val row: Int, val start: Int, val end: Int)
+
+    companion object {
+        const val CHECKPOINT_ROWS = 64
+        const val MAX_ROW_BYTES = 4096
+
+        private const val INITIAL_CHECKPOINTS = 1024
+        private const val PROGRESS_BYTES = 4 * 1024 * 1024
+        private const val COPY_BUFFER_SIZE = 64 * 1024
+        private const val NEW_LINE = '\n'.code.toByte()
+        private const val CARRIAGE_RETURN = '\r'.code.toByte()
+
+        /**
+         * Map [file], nothing is read until rows are requested
+         */
+        @Throws(IOException::class)
+        fun open(file: File): MappedTextFile {
+            RandomAccessFile(file, "r").use {
+                val size = it.length()
+                if (size > Int.MAX_VALUE) {
+                    throw LargeStringException("${file.name} is too large to map, $size bytes")
+                }
+
+                return MappedTextFile(it.channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+            }
+        }
+
+        /**
+         * Copy [inputStream] to a temporary file in [directory] and map it,
+         * for zip entries and generated text. The file is deleted as soon
+         * as it is mapped, the mapping stays valid until it is collected.
+         */
+        @Throws(IOException::class)
+        fun spool(inputStream: InputStream, directory: File): MappedTextFile {
+            val file = File.createTempFile("text_", ".tmp", directory)
+
+            try {
+                inputStream.use { input ->
+                    file.outputStream().use { output ->
+                        input.copyTo(output, COPY_BUFFER_SIZE)
+                    }
+                }
+
+                return open(file)
+            } finally {
+                file.delete()
+            }
+        }
+    }
+}
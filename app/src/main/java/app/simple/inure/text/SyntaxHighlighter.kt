@@ -0,0 +1,281 @@
+package app.simple.inure.text
+
+import android.text.Spannable
+import android.text.style.ForegroundColorSpan
+
+/**
+ * Highlights a [Spannable] in blocks of [BLOCK_LINES] lines instead of
+ * the whole document at once. Only the blocks asked for in [highlight]
+ * get spans and at most [MAX_HIGHLIGHTED_BLOCKS] keep them, the ones
+ * farthest away are cleared again so the span count stays the same no
+ * matter how large the document is.
+ *
+ * The tokenizer state at the start of every block is cached, an edit
+ * only invalidates the block it touches. Blocks after it are checked
+ * lazily and stay valid as soon as a block ends in the same state as
+ * before the edit.
+ */
+class SyntaxHighlighter(private val tokenizer: SyntaxTokenizer, private val colors: IntArray) {
+
+    private var text: Spannable? = null
+
+    private var blockCount = 0
+    private var starts = IntArray(0)
+    private var states = IntArray(0)
+    private var highlighted = BooleanArray(0)
+    private var highlightedCount = 0
+
+    /**
+     * Blocks before this one have a valid start state
+     */
+    private var validUpTo = 0
+
+    /**
+     * Last block edited since the states were computed up to the end,
+     * blocks after it only need to be checked until a state matches
+     */
+    private var dirtyUntil = 0
+
+    private val sink = SyntaxTokenizer.TokenSink { start, end, type ->
+        if (end > start) {
+            text?.setSpan(SyntaxSpan(colors[type]), start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE)
+        }
+    }
+
+    init {
+        require(colors.size == SyntaxTokenizer.TYPES) {
+            "Expected ${SyntaxTokenizer.TYPES} colors, got ${colors.size}"
+        }
+    }
+
+    /**
+     * Index the line blocks of [text], no span is set until [highlight]
+     */
+    fun setText(text: Spannable) {
+        this.text = text
+
+        blockCount = 0
+        starts = IntArray(text.length / (BLOCK_LINES * 32) + 1)
+        addBlock(0)
+
+        var lines = 0
+        for (i in 0 until text.length) {
+            if (text[i] == '\n' && ++lines % BLOCK_LINES == 0 && i + 1 < text.length) {
+                addBlock(i + 1)
+            }
+        }
+
+        states = IntArray(starts.size)
+        highlighted = BooleanArray(starts.size)
+        highlightedCount = 0
+        validUpTo = 1
+        dirtyUntil = blockCount - 1
+    }
+
+    fun getBlockCount(): Int {
+        return blockCount
+    }
+
+    fun getHighlightedBlockCount(): Int {
+        return highlightedCount
+    }
+
+    fun isHighlighted(block: Int): Boolean {
+        return highlighted[block]
+    }
+
+    /**
+     * Highlight the blocks between [start] and [end] and one block on
+     * either side so scrolling a little doesn't show plain text
+     */
+    fun highlight(start: Int, end: Int) {
+        if (blockCount == 0) {
+            return
+        }
+
+        val first = maxOf(blockAt(start) - 1, 0)
+        val last = minOf(blockAt(maxOf(start, end - 1)) + 1, blockCount - 1)
+
+        for (block in first..last) {
+            if (highlighted[block].not()) {
+                updateStates(block)
+                paint(block)
+            }
+        }
+
+        evict(first, last)
+    }
+
+    /**
+     * Update the index after [before] chars at [start] were replaced with
+     * [count] chars, same arguments as [android.text.TextWatcher.onTextChanged]
+     */
+    fun onTextChanged(start: Int, before: Int, count: Int) {
+        if (blockCount == 0) {
+            return
+        }
+
+        // Blocks starting in the replaced text may not start a line anymore
+        val first = blockAt(start) + 1
+        var last = first
+        while (last < blockCount && starts[last] <= start + before) last++
+        removeBlocks(first, last)
+
+        for (block in first until blockCount) {
+            starts[block] += count - before
+        }
+
+        val edited = first - 1
+        if (highlighted[edited]) {
+            highlighted[edited] = false
+            highlightedCount--
+        }
+
+        validUpTo = minOf(validUpTo, edited + 1)
+        dirtyUntil = maxOf(minOf(dirtyUntil, blockCount - 1), edited)
+    }
+
+    private fun paint(block: Int) {
+        clear(block)
+        tokenizer.tokenize(text!!, starts[block], blockEnd(block), states[block], sink)
+        highlighted[block] = true
+        highlightedCount++
+    }
+
+    /**
+     * Remove the spans set by this highlighter in [block], spans of the
+     * previous block ending at its start are left alone
+     */
+    private fun clear(block: Int) {
+        val text = text!!
+        val start = starts[block]
+        val end = blockEnd(block)
+
+        for (span in text.getSpans(start, end, SyntaxSpan::class.java)) {
+            val spanStart = text.getSpanStart(span)
+            if (spanStart >= start && (spanStart < end || end == start)) {
+                text.removeSpan(span)
+            }
+        }
+
+        if (highlighted[block]) {
+            highlighted[block] = false
+            highlightedCount--
+        }
+    }
+
+    /**
+     * Make sure the start state of [block] is known, states of the blocks
+     * before it are computed without setting any span
+     */
+    private fun updateStates(block: Int) {
+        while (validUpTo <= block) {
+            val previous = validUpTo - 1
+            val state = tokenizer.tokenize(text!!, starts[previous], blockEnd(previous), states[previous], null)
+
+            if (state != states[validUpTo]) {
+                states[validUpTo] = state
+                clear(validUpTo)
+            } else if (validUpTo > dirtyUntil) {
+                // Same state and unchanged text, every following block is still valid
+                validUpTo = blockCount
+                break
+            }
+
+            validUpTo++
+        }
+
+        if (validUpTo == blockCount) {
+            dirtyUntil = -1
+        }
+    }
+
+    /**
+     * Clear the blocks farthest from [first]..[last] until no more than
+     * [MAX_HIGHLIGHTED_BLOCKS] are left
+     */
+    private fun evict(first: Int, last: Int) {
+        while (highlightedCount > MAX_HIGHLIGHTED_BLOCKS) {
+            var farthest = -1
+            var distance = 0
+
+            for (block in 0 until blockCount) {
+                if (highlighted[block]) {
+                    val d = if (block < first) first - block else block - last
+                    if (d > distance) {
+                        distance = d
+                        farthest = block
+                    }
+                }
+            }
+
+            if (farthest == -1) {
+                // Everything left is in the requested range
+                return
+            }
+
+            clear(farthest)
+        }
+    }
+
+    private fun blockAt(offset: Int): Int {
+        var low = 0
+        var high = blockCount - 1
+
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (starts[mid] <= offset) {
+                low = mid
+            } else {
+                high = mid - 1
+            }
+        }
+
+        return low
+    }
+
+    private fun blockEnd(block: Int): Int {
+        return if (block + 1 < blockCount) starts[block + 1] else text!!.length
+    }
+
+    private fun addBlock(start: Int) {
+        if (blockCount == starts.size) {
+            starts = starts.copyOf(starts.size * 2)
+        }
+
+        starts[blockCount++] = start
+    }
+
+    private fun removeBlocks(first: Int, last: Int) {
+        if (first >= last) {
+            return
+        }
+
+        for (block in first until last) {
+            if (highlighted[block]) {
+                highlightedCount--
+            }
+        }
+
+        val removed = last - first
+        System.arraycopy(starts, last, starts, first, blockCount - last)
+        System.arraycopy(states, last, states, first, blockCount - last)
+        System.arraycopy(highlighted, last, highlighted, first, blockCount - last)
+        blockCount -= removed
+
+        if (validUpTo > first) {
+            validUpTo = maxOf(first, validUpTo - removed)
+        }
+    }
+
+    /**
+     * Own span type so spans set by others, search results for
+     * instance, are never removed
+     */
+    private class SyntaxSpan(color: Int) : ForegroundColorSpan(color)
+
+    companion object {
+        const val BLOCK_LINES = 64
+        const val MAX_HIGHLIGHTED_BLOCKS = 16
+    }
+}
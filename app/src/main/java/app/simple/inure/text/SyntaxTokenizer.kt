@@ -0,0 +1,83 @@
+package app.simple.inure.text
+
+/**
+ * Splits a range of text into highlighted tokens. Ranges always start
+ * at the beginning of a line, the state carries whatever is still open
+ * at the end of the range (a block comment for instance) over to the
+ * next one so a document can be tokenized in independent blocks.
+ */
+interface SyntaxTokenizer {
+
+    /**
+     * @param state state at [start], [STATE_DEFAULT] at the start of the document
+     * @param sink  receives the tokens, null if only the state is needed
+     * @return state at [end]
+     */
+    fun tokenize(text: CharSequence, start: Int, end: Int, state: Int, sink: TokenSink?): Int
+
+    fun interface TokenSink {
+        fun onToken(start: Int, end: Int, type: Int)
+    }
+
+    companion object {
+        const val STATE_DEFAULT = 0
+
+        const val KEYWORD = 0
+        const val COMMENT = 1
+        const val STRING = 2
+        const val NAME = 3
+        const val VALUE = 4
+
+        /**
+         * Number of token types, size of the color array of a highlighter
+         */
+        const val TYPES = 5
+
+        /**
+         * @return index after the closing [quote], or the end of the line
+         * if the literal is never closed
+         */
+        fun stringEnd(text: CharSequence, start: Int, end: Int, quote: Char): Int {
+            var i = start + 1
+            while (i < end) {
+                when (text[i]) {
+                    '\\' -> i += 2
+                    quote -> return i + 1
+                    '\n' -> return i
+                    else -> i++
+                }
+            }
+
+            return end
+        }
+
+        /**
+         * @return index of [string] in [start, end) or -1
+         */
+        fun indexOf(text: CharSequence, string: String, start: Int, end: Int): Int {
+            var i = start
+            while (i <= end - string.length) {
+                if (regionMatches(text, i, string)) {
+                    return i
+                }
+                i++
+            }
+
+            return -1
+        }
+
+        fun regionMatches(text: CharSequence, start: Int, string: String): Boolean {
+            if (start + string.length > text.length) {
+                return false
+            }
+
+            for (i in string.indices) {
+                if (text[start + i] != string[i]) {
+                    return false
+                }
+            }
+
+            return true
+        }
+    }
+}
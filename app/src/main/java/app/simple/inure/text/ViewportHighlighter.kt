@@ -0,0 +1,100 @@
+package app.simple.inure.text
+
+import android.graphics.Rect
+import android.text.Editable
+import android.text.Spannable
+import android.text.TextWatcher
+import android.view.View
+import android.view.ViewTreeObserver
+import android.widget.TextView
+
+/**
+ * Keeps the part of a [TextView] that is on screen highlighted. The
+ * text view usually sits in a scroll view and is as tall as its text,
+ * the visible part is worked out from its visible rect whenever the
+ * window scrolls or lays out again. Edits are forwarded to the
+ * [SyntaxHighlighter] so only the edited block is highlighted again.
+ */
+class ViewportHighlighter(private val textView: TextView, tokenizer: SyntaxTokenizer, colors: IntArray)
+    : TextWatcher, ViewTreeObserver.OnScrollChangedListener, ViewTreeObserver.OnGlobalLayoutListener, View.OnAttachStateChangeListener {
+
+    private val highlighter = SyntaxHighlighter(tokenizer, colors)
+    private val rect = Rect()
+    private var text: Spannable? = null
+
+    fun attach() {
+        textView.addTextChangedListener(this)
+        textView.addOnAttachStateChangeListener(this)
+
+        if (textView.isAttachedToWindow) {
+            onViewAttachedToWindow(textView)
+        }
+
+        setText(textView.text)
+    }
+
+    fun detach() {
+        textView.removeTextChangedListener(this)
+        textView.removeOnAttachStateChangeListener(this)
+        onViewDetachedFromWindow(textView)
+    }
+
+    override fun onViewAttachedToWindow(v: View) {
+        textView.viewTreeObserver.addOnScrollChangedListener(this)
+        textView.viewTreeObserver.addOnGlobalLayoutListener(this)
+    }
+
+    override fun onViewDetachedFromWindow(v: View) {
+        textView.viewTreeObserver.removeOnScrollChangedListener(this)
+        textView.viewTreeObserver.removeOnGlobalLayoutListener(this)
+    }
+
+    override fun onScrollChanged() {
+        highlightVisible()
+    }
+
+    override fun onGlobalLayout() {
+        highlightVisible()
+    }
+
+    override fun beforeTextChanged(s: CharSequence, start: Int, count: Int, after: Int) {
+        /* no-op */
+    }
+
+    override fun onTextChanged(s: CharSequence, start: Int, before: Int, count: Int) {
+        if (s === text) {
+            highlighter.onTextChanged(start, before, count)
+        } else {
+            // setText() replaces the whole buffer
+            setText(s)
+        }
+    }
+
+    override fun afterTextChanged(s: Editable) {
+        textView.post {
+            highlightVisible()
+        }
+    }
+
+    private fun setText(s: CharSequence) {
+        if (s is Spannable) {
+            text = s
+            highlighter.setText(s)
+        } else {
+            text = null
+        }
+    }
+
+    private fun highlightVisible() {
+        val layout = textView.layout ?: return
+
+        if (text == null || text !== textView.text || textView.getLocalVisibleRect(rect).not()) {
+            return
+        }
+
+        val top = layout.getLineForVertical(rect.top - textView.totalPaddingTop)
+        val bottom = layout.getLineForVertical(rect.bottom - textView.totalPaddingTop)
+
+        highlighter.highlight(layout.getLineStart(top), layout.getLineEnd(bottom))
+    }
+}
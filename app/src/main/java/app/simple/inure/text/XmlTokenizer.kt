@@ -0,0 +1,85 @@
+package app.simple.inure.text
+
+import app.simple.inure.text.SyntaxTokenizer.Companion.COMMENT
+import app.simple.inure.text.SyntaxTokenizer.Companion.NAME
+import app.simple.inure.text.SyntaxTokenizer.Companion.STATE_DEFAULT
+import app.simple.inure.text.SyntaxTokenizer.Companion.VALUE
+import app.simple.inure.text.SyntaxTokenizer.Companion.indexOf
+import app.simple.inure.text.SyntaxTokenizer.Companion.regionMatches
+import app.simple.inure.text.SyntaxTokenizer.Companion.stringEnd
+
+/**
+ * Tag names with their brackets, quoted attribute values and comments.
+ * Start tags may span several lines, the state remembers being inside
+ * one so values on the following lines are still highlighted.
+ */
+object XmlTokenizer : SyntaxTokenizer {
+
+    private const val STATE_COMMENT = 1
+    private const val STATE_TAG = 2
+
+    override fun tokenize(text: CharSequence, start: Int, end: Int, state: Int, sink: SyntaxTokenizer.TokenSink?): Int {
+        var i = start
+        var current = state
+
+        while (i < end) {
+            when (current) {
+                STATE_COMMENT -> {
+                    val close = indexOf(text, "-->", i, end)
+                    if (close == -1) {
+                        sink?.onToken(i, end, COMMENT)
+                        return STATE_COMMENT
+                    }
+
+                    sink?.onToken(i, close + 3, COMMENT)
+                    i = close + 3
+                    current = STATE_DEFAULT
+                }
+                STATE_TAG -> {
+                    val c = text[i]
+                    val next = if (i + 1 < end) text[i + 1] else '\u0000'
+
+                    when {
+                        c == '"' || c == '\'' -> {
+                            val e = stringEnd(text, i, end, c)
+                            sink?.onToken(i, e, VALUE)
+                            i = e
+                        }
+                        c == '>' -> {
+                            sink?.onToken(i, i + 1, NAME)
+                            i++
+                            current = STATE_DEFAULT
+                        }
+                        (c == '/' || c == '?') && next == '>' -> {
+                            sink?.onToken(i, i + 2, NAME)
+                            i += 2
+                            current = STATE_DEFAULT
+                        }
+                        else -> i++
+                    }
+                }
+                else -> {
+                    if (text[i] != '<') {
+                        i++
+                    } else if (regionMatches(text, i, "<!--")) {
+                        current = STATE_COMMENT
+                    } else {
+                        var e = i + 1
+                        if (e < end && (text[e] == '/' || text[e] == '?' || text[e] == '!')) e++
+                        while (e < end && isNameChar(text[e])) e++
+
+                        sink?.onToken(i, e, NAME)
+                        i = e
+                        current = STATE_TAG
+                    }
+                }
+            }
+        }
+
+        return current
+    }
+
+    private fun isNameChar(c: Char): Boolean {
+        return c.isLetterOrDigit() || c == ':' || c == '_' || c == '-' || c == '.'
+    }
+}
@@ -50,9 +50,15 @@ class Apps : ScopedFragment() {
         postponeEnterTransition()
 
         appsViewModel.getAppData().observe(viewLifecycleOwner) { it ->
-            postponeEnterTransition()
             hideLoader()
 
+            if (::adapter.isInitialized && appsListRecyclerView.adapter === adapter) {
+                adapter.updateApps(it)
+                return@observe
+            }
+
+            postponeEnterTransition()
+
             adapter = AdapterApps()
             adapter.apps = it
 
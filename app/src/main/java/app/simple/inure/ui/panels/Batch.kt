@@ -70,6 +70,14 @@ class Batch : ScopedFragment() {
         showLoader()
 
         batchViewModel.getBatchData().observe(viewLifecycleOwner) {
+            if (adapterBatch.isNotNull() && recyclerView.adapter === adapterBatch) {
+                hideLoader()
+                adapterBatch?.updateList(it) {
+                    setupBottomMenu()
+                }
+                return@observe
+            }
+
             adapterBatch = AdapterBatch(it)
 
             hideLoader()
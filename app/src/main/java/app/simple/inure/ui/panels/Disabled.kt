@@ -15,6 +15,7 @@ import app.simple.inure.decorations.overscroll.CustomVerticalRecyclerView
 import app.simple.inure.dialogs.menus.AppsMenu
 import app.simple.inure.extensions.fragments.ScopedFragment
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
+import app.simple.inure.util.NullSafety.isNotNull
 import app.simple.inure.viewmodels.panels.HomeViewModel
 
 class Disabled : ScopedFragment() {
@@ -38,6 +39,12 @@ class Disabled : ScopedFragment() {
         super.onViewCreated(view, savedInstanceState)
 
         homeViewModel.getDisabledApps().observe(viewLifecycleOwner) {
+            if (adapterDisabled.isNotNull() && recyclerView.adapter === adapterDisabled) {
+                hideLoader()
+                adapterDisabled?.updateApps(it)
+                return@observe
+            }
+
             postponeEnterTransition()
             hideLoader()
 
@@ -15,6 +15,7 @@ import app.simple.inure.decorations.overscroll.CustomVerticalRecyclerView
 import app.simple.inure.dialogs.menus.AppsMenu
 import app.simple.inure.extensions.fragments.ScopedFragment
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
+import app.simple.inure.util.NullSafety.isNotNull
 import app.simple.inure.viewmodels.panels.HomeViewModel
 
 class FOSS : ScopedFragment() {
@@ -38,6 +39,12 @@ class FOSS : ScopedFragment() {
         super.onViewCreated(view, savedInstanceState)
 
         homeViewModel.getFossApps().observe(viewLifecycleOwner) {
+            if (adapterFOSS.isNotNull() && recyclerView.adapter === adapterFOSS) {
+                hideLoader()
+                adapterFOSS?.updateApps(it)
+                return@observe
+            }
+
             hideLoader()
             postponeEnterTransition()
 
@@ -35,6 +35,11 @@ class Hidden : ScopedFragment() {
         super.onViewCreated(view, savedInstanceState)
 
         homeViewModel.getHiddenApps().observe(viewLifecycleOwner) {
+            (recyclerView.adapter as? AdapterHidden)?.let { adapter ->
+                adapter.updateApps(it)
+                return@observe
+            }
+
             val adapterHidden = AdapterHidden(it)
 
             adapterHidden.setOnItemClickListener(object : AdapterCallbacks {
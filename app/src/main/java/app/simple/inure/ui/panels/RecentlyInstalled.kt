@@ -16,6 +16,7 @@ import app.simple.inure.decorations.overscroll.CustomVerticalRecyclerView
 import app.simple.inure.dialogs.menus.AppsMenu
 import app.simple.inure.extensions.fragments.ScopedFragment
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
+import app.simple.inure.util.NullSafety.isNotNull
 import app.simple.inure.viewmodels.panels.HomeViewModel
 
 class RecentlyInstalled : ScopedFragment() {
@@ -41,6 +42,12 @@ class RecentlyInstalled : ScopedFragment() {
         showLoader()
 
         homeViewModel.getRecentlyInstalled().observe(viewLifecycleOwner) {
+            if (adapterRecentlyInstalled.isNotNull() && recyclerView.adapter === adapterRecentlyInstalled) {
+                hideLoader()
+                adapterRecentlyInstalled?.updateApps(it)
+                return@observe
+            }
+
             postponeEnterTransition()
             hideLoader()
 
@@ -42,6 +42,12 @@ class RecentlyUpdated : ScopedFragment() {
         showLoader()
 
         homeViewModel.getRecentlyUpdated().observe(viewLifecycleOwner) {
+            if (recyclerView.adapter === adapterRecentlyUpdated) {
+                hideLoader()
+                adapterRecentlyUpdated.updateApps(it)
+                return@observe
+            }
+
             postponeEnterTransition()
             hideLoader()
 
@@ -76,10 +76,15 @@ class Search : KeyboardScopedFragment(), SharedPreferences.OnSharedPreferenceCha
         searchViewModel.getSearchData().observe(viewLifecycleOwner) {
             hideLoader()
             if (!SearchPreferences.isDeepSearchEnabled()) {
-                postponeEnterTransition()
                 searchView.hideLoader()
                 searchView.setNewNumber(it.size)
 
+                if (::appsAdapterSearchSmall.isInitialized && recyclerView.adapter === appsAdapterSearchSmall) {
+                    appsAdapterSearchSmall.updateApps(it, searchViewModel.getSearchKeywords().value ?: "")
+                    return@observe
+                }
+
+                postponeEnterTransition()
                 appsAdapterSearchSmall = AdapterSearch(it, searchViewModel.getSearchKeywords().value ?: "")
                 recyclerView.adapter = appsAdapterSearchSmall
 
@@ -107,12 +112,17 @@ class Search : KeyboardScopedFragment(), SharedPreferences.OnSharedPreferenceCha
         searchViewModel.getDeepSearchData().observe(viewLifecycleOwner) {
             hideLoader()
             if (SearchPreferences.isDeepSearchEnabled()) {
-                postponeEnterTransition()
-
                 searchView.setNewNumber(it.size)
                 searchView.hideLoader()
 
-                adapterDeepSearch = AdapterDeepSearch(it, searchViewModel.getSearchKeywords().value ?: "")
+                if (::adapterDeepSearch.isInitialized && recyclerView.adapter === adapterDeepSearch && adapterDeepSearch.appendResults(it)) {
+                    // Next chunk of the same search
+                    return@observe
+                }
+
+                postponeEnterTransition()
+
+                adapterDeepSearch = AdapterDeepSearch(it.results, it.keywords)
                 recyclerView.adapter = adapterDeepSearch
 
                 adapterDeepSearch.setOnItemClickListener(object : AdapterDeepSearch.Companion.AdapterDeepSearchCallbacks {
@@ -219,12 +229,9 @@ class Search : KeyboardScopedFragment(), SharedPreferences.OnSharedPreferenceCha
             }
 
             override fun onSearchTextChanged(keywords: String, count: Int) {
-                removeHandlerCallbacks()
-
                 if (keywords.isNotEmpty()) {
-                    postDelayed(1000L) {
-                        searchViewModel.initiateSearch(keywords)
-                    }
+                    // Debounced by the view model
+                    searchViewModel.initiateSearch(keywords)
                 } else {
                     searchViewModel.clearSearch()
                 }
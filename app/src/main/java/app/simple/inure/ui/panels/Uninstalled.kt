@@ -16,6 +16,7 @@ import app.simple.inure.dialogs.menus.AppsMenu
 import app.simple.inure.dialogs.miscellaneous.UninstallInfo
 import app.simple.inure.extensions.fragments.ScopedFragment
 import app.simple.inure.interfaces.adapters.AdapterCallbacks
+import app.simple.inure.util.NullSafety.isNotNull
 import app.simple.inure.viewmodels.panels.HomeViewModel
 
 class Uninstalled : ScopedFragment() {
@@ -39,6 +40,12 @@ class Uninstalled : ScopedFragment() {
         super.onViewCreated(view, savedInstanceState)
 
         homeViewModel.getUninstalledPackages().observe(viewLifecycleOwner) {
+            if (adapterUninstalled.isNotNull() && recyclerView.adapter === adapterUninstalled) {
+                hideLoader()
+                adapterUninstalled?.updateApps(it)
+                return@observe
+            }
+
             hideLoader()
             postponeEnterTransition()
 
@@ -69,6 +69,12 @@ class AnalyticsMinimumSDK : ScopedFragment() {
 
         analyticsDataViewModel.getAnalyticsData().observe(viewLifecycleOwner) {
             loader.gone(animate = true)
+
+            (recyclerView.adapter as? AnalyticsDataAdapter)?.let { adapter ->
+                adapter.updateApps(it)
+                return@observe
+            }
+
             val adapterAnalyticsSDK = AnalyticsDataAdapter(it)
 
             adapterAnalyticsSDK.setOnAdapterCallbacks(object : AdapterCallbacks {
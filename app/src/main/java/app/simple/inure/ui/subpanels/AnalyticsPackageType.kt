@@ -63,6 +63,12 @@ class AnalyticsPackageType : ScopedFragment() {
 
         analyticsDataViewModel.getAnalyticsData().observe(viewLifecycleOwner) {
             loader.gone(animate = true)
+
+            (recyclerView.adapter as? AnalyticsDataAdapter)?.let { adapter ->
+                adapter.updateApps(it)
+                return@observe
+            }
+
             val analyticsDataAdapter = AnalyticsDataAdapter(it)
 
             analyticsDataAdapter.setOnAdapterCallbacks(object : AdapterCallbacks {
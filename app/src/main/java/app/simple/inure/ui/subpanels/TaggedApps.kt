@@ -67,6 +67,12 @@ class TaggedApps : ScopedFragment() {
 
         tagsListViewModel.getTaggedApps().observe(viewLifecycleOwner) {
             loader.gone(animate = true)
+
+            (recyclerView.adapter as? AnalyticsDataAdapter)?.let { adapter ->
+                adapter.updateApps(it)
+                return@observe
+            }
+
             val taggedAppsAdapter = AnalyticsDataAdapter(it)
 
             taggedAppsAdapter.setOnAdapterCallbacks(object : AdapterCallbacks {
@@ -21,6 +21,7 @@ import app.simple.inure.decorations.typeface.TypeFaceTextView
 import app.simple.inure.extensions.fragments.ScopedFragment
 import app.simple.inure.factories.subpanels.ClassSourceViewModelFactory
 import app.simple.inure.popups.viewers.PopupXmlViewer
+import app.simple.inure.util.JavaSyntaxUtils.highlightJava
 import app.simple.inure.viewmodels.subviewers.ClassSourceViewModel
 import java.io.IOException
 
@@ -68,6 +69,8 @@ class ClassSourceViewer : ScopedFragment() {
         super.onViewCreated(view, savedInstanceState)
         startPostponedEnterTransition()
 
+        text.highlightJava()
+
         name.text = requireArguments().getString(BundleConstants.className) ?: getString(R.string.not_available)
 
         classSourceViewModel.getSourceData().observe(viewLifecycleOwner) {
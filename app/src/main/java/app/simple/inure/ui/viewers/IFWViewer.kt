@@ -31,6 +31,7 @@ import app.simple.inure.interfaces.fragments.SureCallbacks
 import app.simple.inure.popups.viewers.PopupSharedPrefsViewer
 import app.simple.inure.util.ViewUtils.gone
 import app.simple.inure.util.ViewUtils.visible
+import app.simple.inure.util.XMLUtils.highlightXml
 import app.simple.inure.viewmodels.viewers.IFWViewerViewModel
 import java.io.IOException
 
@@ -91,6 +92,8 @@ class IFWViewer : KeyboardScopedFragment() {
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
 
+        text.highlightXml()
+
         if (requireArguments().getBoolean(BundleConstants.isManifest)) {
             icon.setImageResource(R.drawable.ic_android)
         } else {
@@ -4,6 +4,7 @@ import android.content.ClipData
 import android.content.ClipboardManager
 import android.content.Context
 import android.content.pm.PackageInfo
+import android.graphics.Color
 import android.net.Uri
 import android.os.Bundle
 import android.view.LayoutInflater
@@ -26,6 +27,8 @@ import app.simple.inure.extensions.fragments.KeyboardScopedFragment
 import app.simple.inure.factories.panels.CodeViewModelFactory
 import app.simple.inure.popups.viewers.PopupXmlViewer
 import app.simple.inure.preferences.FormattingPreferences
+import app.simple.inure.text.JsonTokenizer
+import app.simple.inure.text.ViewportHighlighter
 import app.simple.inure.util.ColorUtils.resolveAttrColor
 import app.simple.inure.util.ViewUtils.gone
 import app.simple.inure.util.ViewUtils.visible
@@ -90,6 +93,14 @@ class JSON : KeyboardScopedFragment() {
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
 
+        ViewportHighlighter(json, JsonTokenizer, intArrayOf(
+                jsonViewerViewModel.accentColor,
+                Color.GRAY,
+                jsonViewerViewModel.accentColor,
+                Color.parseColor("#2980B9"), // keys
+                jsonViewerViewModel.accentColor // values
+        )).attach()
+
         name.text = path
 
         jsonViewerViewModel.getSpanned().observe(viewLifecycleOwner) {
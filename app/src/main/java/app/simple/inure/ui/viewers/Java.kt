@@ -27,6 +27,7 @@ import app.simple.inure.factories.panels.CodeViewModelFactory
 import app.simple.inure.popups.viewers.PopupXmlViewer
 import app.simple.inure.preferences.FormattingPreferences
 import app.simple.inure.util.ColorUtils.resolveAttrColor
+import app.simple.inure.util.JavaSyntaxUtils.highlightJava
 import app.simple.inure.util.ViewUtils.gone
 import app.simple.inure.util.ViewUtils.visible
 import app.simple.inure.viewmodels.viewers.JavaViewModel
@@ -89,6 +90,8 @@ class Java : KeyboardScopedFragment() {
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
 
+        java.highlightJava()
+
         name.text = path
 
         javaViewModel.getSpanned().observe(viewLifecycleOwner) {
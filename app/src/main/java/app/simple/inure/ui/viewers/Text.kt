@@ -4,11 +4,8 @@ import android.content.ClipData
 import android.content.ClipboardManager
 import android.content.Context
 import android.content.pm.PackageInfo
-import android.graphics.Color
 import android.net.Uri
 import android.os.Bundle
-import android.text.Spannable
-import android.text.style.BackgroundColorSpan
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -17,20 +14,22 @@ import androidx.activity.result.contract.ActivityResultContracts
 import androidx.core.view.isVisible
 import androidx.core.widget.doOnTextChanged
 import androidx.lifecycle.ViewModelProvider
+import androidx.recyclerview.widget.LinearLayoutManager
 import app.simple.inure.R
+import app.simple.inure.adapters.viewers.AdapterText
 import app.simple.inure.constants.BundleConstants
 import app.simple.inure.constants.MimeConstants
-import app.simple.inure.constants.Misc
-import app.simple.inure.decorations.fastscroll.FastScrollerBuilder
-import app.simple.inure.decorations.padding.PaddingAwareNestedScrollView
+import app.simple.inure.decorations.overscroll.CustomVerticalRecyclerView
 import app.simple.inure.decorations.ripple.DynamicRippleImageButton
 import app.simple.inure.decorations.theme.ThemeLinearLayout
 import app.simple.inure.decorations.typeface.TypeFaceEditText
 import app.simple.inure.decorations.typeface.TypeFaceTextView
+import app.simple.inure.dialogs.miscellaneous.LargeString.Companion.showLargeStringDialog
 import app.simple.inure.extensions.fragments.KeyboardScopedFragment
 import app.simple.inure.factories.panels.TextViewViewModelFactory
 import app.simple.inure.popups.viewers.PopupXmlViewer
-import app.simple.inure.text.EditTextHelper.findMatches
+import app.simple.inure.preferences.FormattingPreferences
+import app.simple.inure.text.MappedTextFile
 import app.simple.inure.util.ViewUtils.gone
 import app.simple.inure.util.ViewUtils.visible
 import app.simple.inure.viewmodels.viewers.TextViewerViewModel
@@ -38,10 +37,9 @@ import java.io.IOException
 
 class Text : KeyboardScopedFragment() {
 
-    private lateinit var text: TypeFaceEditText
+    private lateinit var text: CustomVerticalRecyclerView
     private lateinit var path: TypeFaceTextView
     private lateinit var options: DynamicRippleImageButton
-    private lateinit var scrollView: PaddingAwareNestedScrollView
     private lateinit var search: DynamicRippleImageButton
     private lateinit var searchContainer: ThemeLinearLayout
     private lateinit var searchInput: TypeFaceEditText
@@ -53,7 +51,9 @@ class Text : KeyboardScopedFragment() {
     private lateinit var textViewerViewModel: TextViewerViewModel
     private lateinit var textViewViewModelFactory: TextViewViewModelFactory
 
-    private var matches: ArrayList<Pair<Int, Int>>? = null
+    private var textFile: MappedTextFile? = null
+    private var adapterText: AdapterText? = null
+    private var matches: ArrayList<MappedTextFile.Match>? = null
     private var position = -1
 
     private val exportText = registerForActivityResult(ActivityResultContracts.CreateDocument(MimeConstants.textType)) { uri: Uri? ->
@@ -64,7 +64,7 @@ class Text : KeyboardScopedFragment() {
         try {
             requireContext().contentResolver.openOutputStream(uri).use { outputStream ->
                 if (outputStream == null) throw IOException()
-                outputStream.write(text.text.toString().toByteArray())
+                textFile?.writeTo(outputStream)
                 outputStream.flush()
                 Toast.makeText(requireContext(), R.string.saved_successfully, Toast.LENGTH_SHORT).show()
             }
@@ -75,19 +75,11 @@ class Text : KeyboardScopedFragment() {
     }
 
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
-        val view = inflater.inflate(R.layout.fragment_text_viewer, container, false)
+        val view = inflater.inflate(R.layout.fragment_paged_text_viewer, container, false)
 
         text = view.findViewById(R.id.text_viewer)
         path = view.findViewById(R.id.txt_name)
         options = view.findViewById(R.id.txt_viewer_options)
-        scrollView = view.findViewById(R.id.text_viewer_scroll_view)
-        search = view.findViewById(R.id.search)
-        searchContainer = view.findViewById(R.id.search_container)
-        searchInput = view.findViewById(R.id.input)
-        previous = view.findViewById(R.id.previous)
-        next = view.findViewById(R.id.next)
-        clear = view.findViewById(R.id.clear)
-        count = view.findViewById(R.id.count)
         search = view.findViewById(R.id.search)
         searchContainer = view.findViewById(R.id.search_container)
         searchInput = view.findViewById(R.id.input)
@@ -103,8 +95,6 @@ class Text : KeyboardScopedFragment() {
 
         path.text = requireArguments().getString(BundleConstants.path)!!
 
-        FastScrollerBuilder(scrollView).setupAesthetics().build()
-
         return view
     }
 
@@ -113,23 +103,40 @@ class Text : KeyboardScopedFragment() {
 
         startPostponedEnterTransition()
 
-        textViewerViewModel.getText().observe(viewLifecycleOwner) {
-            runCatching {
-                text.setText(it)
-            }.getOrElse {
-                text.setText(it.stackTraceToString())
-                text.setTextColor(Color.RED)
+        textViewerViewModel.getTextFile().observe(viewLifecycleOwner) {
+            textFile = it
+        }
+
+        textViewerViewModel.getRowCount().observe(viewLifecycleOwner) {
+            if (text.adapter == null) {
+                // Set once the first rows are indexed so the fast scroller is added for long files
+                adapterText = AdapterText(textFile ?: return@observe)
+                text.adapter = adapterText
+            } else {
+                adapterText?.updateRowCount()
             }
         }
 
+        textViewerViewModel.getMatches().observe(viewLifecycleOwner) {
+            matches = it
+            position = if (it.isNotEmpty()) 0 else -1
+            jumpToMatch(position)
+        }
+
         options.setOnClickListener {
             PopupXmlViewer(it).setOnPopupClickedListener(object : PopupXmlViewer.PopupXmlCallbacks {
                 override fun onPopupItemClicked(source: String) {
                     when (source) {
                         getString(R.string.copy) -> {
-                            val clipboard: ClipboardManager? = requireContext().getSystemService(Context.CLIPBOARD_SERVICE) as ClipboardManager?
-                            val clip = ClipData.newPlainText("xml", text.text.toString())
-                            clipboard?.setPrimaryClip(clip)
+                            val textFile = textFile ?: return
+
+                            if (textFile.size > FormattingPreferences.getLargeStringLimit()) {
+                                childFragmentManager.showLargeStringDialog(textFile.size) {
+                                    copy(textFile)
+                                }
+                            } else {
+                                copy(textFile)
+                            }
                         }
                         getString(R.string.export) -> {
                             val name = with(path.text.toString()) {
@@ -155,17 +162,12 @@ class Text : KeyboardScopedFragment() {
         }
 
         searchInput.doOnTextChanged { text, _, _, _ ->
-            matches?.clear()
-            matches = this.text.findMatches(text.toString())
-
-            if (matches?.isNotEmpty() == true) position = 0
-            jumpToMatch(position)
+            textViewerViewModel.search(text.toString())
         }
 
         next.setOnClickListener {
             if (position < (matches?.size?.minus(1) ?: 0)) {
                 jumpToMatch(++position)
-
             }
         }
 
@@ -186,6 +188,12 @@ class Text : KeyboardScopedFragment() {
         }
     }
 
+    private fun copy(textFile: MappedTextFile) {
+        val clipboard: ClipboardManager? = requireContext().getSystemService(Context.CLIPBOARD_SERVICE) as ClipboardManager?
+        val clip = ClipData.newPlainText("xml", textFile.readText())
+        clipboard?.setPrimaryClip(clip)
+    }
+
     private fun jumpToMatch(position: Int) {
         matches?.let {
             if (it.isNotEmpty()) {
@@ -196,35 +204,12 @@ class Text : KeyboardScopedFragment() {
                         append(it.size)
                     }
 
-                    val layout = this.text.layout
-                    scrollView.scrollTo(0, layout.getLineTop(layout.getLineForOffset(it[position].first)))
-                    updateTextHighlight()
+                    adapterText?.setMatches(it, position)
+                    (text.layoutManager as LinearLayoutManager).scrollToPositionWithOffset(it[position].row, 0)
                 }
             } else {
                 count.text = "0"
-                updateTextHighlight()
-            }
-        }
-    }
-
-    private fun updateTextHighlight() {
-        kotlin.runCatching {
-            matches?.let {
-                val spans: Array<BackgroundColorSpan> = text.text?.getSpans(0, text.text!!.length, BackgroundColorSpan::class.java)!!
-
-                for (span in spans) {
-                    text.text?.removeSpan(span)
-                }
-
-                for (i in matches?.indices!!) {
-                    if (i == position) {
-                        text.text?.setSpan(BackgroundColorSpan(Misc.textHighlightFocused),
-                                           it[i].first, it[i].second, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE)
-                    } else {
-                        text.text?.setSpan(BackgroundColorSpan(Misc.textHighlightUnfocused),
-                                           it[i].first, it[i].second, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE)
-                    }
-                }
+                adapterText?.setMatches(it, -1)
             }
         }
     }
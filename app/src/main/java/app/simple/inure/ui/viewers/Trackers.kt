@@ -83,8 +83,11 @@ class Trackers : SearchBarScopedFragment() {
 
             recyclerView.adapter = adapterTrackers
 
+            // Trackers found in the dex classes alone have no component to block
+            val blockable = trackers.filterTo(ArrayList()) { it.isComponent }
+
             checklist.setOnClickListener {
-                childFragmentManager.showTrackerSelector(trackers, object : TrackerSelector.Companion.TrackerSelectorCallbacks {
+                childFragmentManager.showTrackerSelector(blockable, object : TrackerSelector.Companion.TrackerSelectorCallbacks {
                     override fun onEnableSelected(paths: ArrayList<Tracker>) {
                         progress.visible(animate = true)
                         trackersViewModel.unblockTrackers(paths)
@@ -107,7 +110,7 @@ class Trackers : SearchBarScopedFragment() {
                 ifwButton.gone(true)
             }
 
-            if (trackers.size > 0) {
+            if (blockable.size > 0) {
                 if (ConfigurationPreferences.isUsingRoot()) {
                     checklist.visible(animate = true)
                 }
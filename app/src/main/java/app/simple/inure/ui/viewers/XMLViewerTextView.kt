@@ -37,6 +37,7 @@ import app.simple.inure.preferences.FormattingPreferences
 import app.simple.inure.text.EditTextHelper.findMatches
 import app.simple.inure.util.ViewUtils.gone
 import app.simple.inure.util.ViewUtils.visible
+import app.simple.inure.util.XMLUtils.highlightXml
 import app.simple.inure.viewmodels.viewers.XMLViewerViewModel
 import java.io.IOException
 
@@ -116,6 +117,8 @@ class XMLViewerTextView : KeyboardScopedFragment() {
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
 
+        text.highlightXml()
+
         if (requireArguments().getBoolean(BundleConstants.isManifest)) {
             icon.setImageResource(R.drawable.ic_android)
         } else {
@@ -0,0 +1,178 @@
+package app.simple.inure.util
+
+import android.content.pm.PackageInfo
+import androidx.core.content.pm.PackageInfoCompat
+import app.simple.inure.models.SearchModel
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.ensureActive
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Everything deep search matches a keyword against, kept per package
+ * until its version changes. Building an [Entry] resolves the labels
+ * of the requested permissions and lists the xml files of the APK,
+ * a query after that is only string matching.
+ *
+ * Permission labels are shared between packages, every permission is
+ * resolved once no matter how many packages request it.
+ *
+ * @param permissionLabel label of a permission, null if it isn't defined
+ * @param xmlFiles        xml entries of the APK at the given path
+ */
+class DeepSearchCache(private val permissionLabel: (String) -> String?,
+                      private val xmlFiles: (String) -> List<String>) {
+
+    private val entries = ConcurrentHashMap<String, Entry>()
+    private val labels = ConcurrentHashMap<String, String>()
+
+    private val parallelism: Int
+        get() = Runtime.getRuntime().availableProcessors().coerceIn(2, 4)
+
+    fun getEntry(packageInfo: PackageInfo): Entry {
+        val versionCode = PackageInfoCompat.getLongVersionCode(packageInfo)
+        val entry = entries[packageInfo.packageName]
+
+        if (entry != null && entry.versionCode == versionCode && entry.lastUpdateTime == packageInfo.lastUpdateTime) {
+            return entry
+        }
+
+        return createEntry(packageInfo, versionCode).also {
+            entries[packageInfo.packageName] = it
+        }
+    }
+
+    /**
+     * Drop the entries of packages not in [packageNames]
+     */
+    fun retainAll(packageNames: Collection<String>) {
+        entries.keys.retainAll(packageNames.toHashSet())
+    }
+
+    fun clear() {
+        entries.clear()
+        labels.clear()
+    }
+
+    /**
+     * Match [keywords] against [packages] on up to [parallelism] threads.
+     * Results keep the order of [packages], [onChunk] gets the results
+     * found so far after every [chunkSize] packages.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    suspend fun search(packages: List<PackageInfo>, keywords: String, ignoreCase: Boolean, chunkSize: Int,
+                       onChunk: (ArrayList<SearchModel>) -> Unit): ArrayList<SearchModel> {
+        val list = arrayListOf<SearchModel>()
+        val dispatcher = Dispatchers.IO.limitedParallelism(parallelism)
+        val keyword = keywords.lowercase()
+
+        for (chunk in packages.chunked(chunkSize)) {
+            val results = coroutineScope {
+                chunk.map { packageInfo ->
+                    async(dispatcher) {
+                        ensureActive()
+                        getEntry(packageInfo).match(packageInfo, keywords, keyword, ignoreCase)
+                    }
+                }.awaitAll()
+            }
+
+            list.addAll(results.filterNotNull())
+            onChunk(ArrayList(list))
+        }
+
+        return list
+    }
+
+    private fun createEntry(packageInfo: PackageInfo, versionCode: Long): Entry {
+        val permissions = packageInfo.requestedPermissions ?: arrayOf()
+
+        return Entry(
+                versionCode = versionCode,
+                lastUpdateTime = packageInfo.lastUpdateTime,
+                permissions = Array(permissions.size) { permissions[it].lowercase() },
+                permissionLabels = Array(permissions.size) { getLabel(permissions[it]) },
+                activities = packageInfo.activities?.map { it.name.lowercase() }?.toTypedArray() ?: arrayOf(),
+                services = packageInfo.services?.map { it.name.lowercase() }?.toTypedArray() ?: arrayOf(),
+                receivers = packageInfo.receivers?.map { it.name.lowercase() }?.toTypedArray() ?: arrayOf(),
+                providers = packageInfo.providers?.map { it.name.lowercase() }?.toTypedArray() ?: arrayOf(),
+                xmlFiles = kotlin.runCatching {
+                    xmlFiles(packageInfo.applicationInfo.sourceDir).joinToString("\n")
+                }.getOrElse {
+                    ""
+                })
+    }
+
+    /**
+     * @return lowercase label or an empty string if there is none
+     */
+    private fun getLabel(permission: String): String {
+        return labels.getOrPut(permission) {
+            kotlin.runCatching { permissionLabel(permission) }.getOrNull()?.lowercase() ?: ""
+        }
+    }
+
+    class Entry(val versionCode: Long,
+                val lastUpdateTime: Long,
+                private val permissions: Array<String>,
+                private val permissionLabels: Array<String>,
+                private val activities: Array<String>,
+                private val services: Array<String>,
+                private val receivers: Array<String>,
+                private val providers: Array<String>,
+                private val xmlFiles: String) {
+
+        /**
+         * @param keyword [keywords] in lowercase, components are matched
+         *                case-insensitively and resources case-sensitively
+         *                the same way the counts always worked
+         * @return null if nothing in the package matches
+         */
+        fun match(packageInfo: PackageInfo, keywords: String, keyword: String, ignoreCase: Boolean): SearchModel? {
+            val searchModel = SearchModel()
+
+            searchModel.packageInfo = packageInfo
+            searchModel.permissions = permissions.indices.count {
+                permissions[it].contains(keyword) || permissionLabels[it].contains(keyword)
+            }
+            searchModel.activities = activities.count { it.contains(keyword) }
+            searchModel.services = services.count { it.contains(keyword) }
+            searchModel.receivers = receivers.count { it.contains(keyword) }
+            searchModel.providers = providers.count { it.contains(keyword) }
+            searchModel.resources = countLines(xmlFiles, keywords)
+
+            return if (searchModel.permissions > 0 || searchModel.activities > 0 || searchModel.services > 0 ||
+                searchModel.receivers > 0 || searchModel.providers > 0 || searchModel.resources > 0 ||
+                packageInfo.applicationInfo.name.contains(keywords, ignoreCase) ||
+                packageInfo.packageName.contains(keywords, ignoreCase)) {
+                searchModel
+            } else {
+                null
+            }
+        }
+
+        /**
+         * Count the lines of [lines] containing [keyword], the xml files
+         * are kept as one string since an APK can have thousands
+         */
+        private fun countLines(lines: String, keyword: String): Int {
+            if (keyword.isEmpty() || lines.isEmpty()) {
+                return 0
+            }
+
+            var count = 0
+            var index = lines.indexOf(keyword)
+
+            while (index >= 0) {
+                count++
+                val next = lines.indexOf('\n', index)
+                if (next == -1) break
+                index = lines.indexOf(keyword, next + 1)
+            }
+
+            return count
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import android.os.Parcel
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.ensureActive
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Resolves app labels on several threads. Every label is a resource
+ * table lookup in its APK, on a device with hundreds of packages doing
+ * them one after another is most of the loading time.
+ *
+ * Labels are cached by package name, last update time and locale, a
+ * package only needs its label resolved again after an update or a
+ * change of the language.
+ *
+ * Resolved labels only go into the cache, the packages passed in are
+ * never changed as they may already be in a published
+ * [app.simple.inure.models.PackageSnapshot]. [relabel] hands out copies
+ * carrying the resolved labels instead.
+ *
+ * @param resolve     label of the application, null if it has none
+ * @param parallelism number of labels resolved at the same time
+ */
+class LabelResolver(private val resolve: (ApplicationInfo) -> String?,
+                    private val parallelism: Int = DEFAULT_PARALLELISM) {
+
+    private val cache = ConcurrentHashMap<Key, String>()
+
+    fun put(packageName: String, lastUpdateTime: Long, locale: String, label: String) {
+        cache[Key(packageName, lastUpdateTime, locale)] = label
+    }
+
+    fun getCached(packageInfo: PackageInfo, locale: String): String? {
+        return cache[Key(packageInfo.packageName, packageInfo.lastUpdateTime, locale)]
+    }
+
+    /**
+     * Cached label of [packageInfo], its package name until [resolve] got
+     * to it
+     */
+    fun getLabel(packageInfo: PackageInfo, locale: String): String {
+        return getCached(packageInfo, locale) ?: packageInfo.packageName
+    }
+
+    /**
+     * Give every package of [packages] its cached label, the others are
+     * named after their package until [resolve] gets to them. Only for
+     * packages just queried, which nothing else has seen yet.
+     *
+     * @return the packages without a cached label
+     */
+    fun applyCached(packages: List<PackageInfo>, locale: String): List<PackageInfo> {
+        val missing = ArrayList<PackageInfo>()
+
+        for (packageInfo in packages) {
+            val label = getCached(packageInfo, locale)
+
+            if (label == null) {
+                missing.add(packageInfo)
+            }
+
+            packageInfo.applicationInfo.name = label ?: packageInfo.packageName
+        }
+
+        return missing
+    }
+
+    /**
+     * [packages] with every package whose label differs from its cached
+     * one replaced by a copy made by [copy] carrying that label
+     *
+     * @return [packages] itself if no label changed
+     */
+    fun relabel(packages: List<PackageInfo>, locale: String,
+                copy: (PackageInfo) -> PackageInfo = ::copyOf): List<PackageInfo> {
+        var relabelled: ArrayList<PackageInfo>? = null
+
+        for (i in packages.indices) {
+            val label = getLabel(packages[i], locale)
+
+            if (packages[i].applicationInfo.name != label) {
+                if (relabelled == null) {
+                    relabelled = ArrayList(packages)
+                }
+
+                relabelled[i] = copy(packages[i]).apply {
+                    applicationInfo.name = label
+                }
+            }
+        }
+
+        return relabelled ?: packages
+    }
+
+    /**
+     * Resolve the labels of [packages] in chunks of [chunkSize], the
+     * packages of a chunk are spread over [parallelism] threads. [onChunk]
+     * is called with the number of labels resolved so far after every
+     * chunk, the labels of those packages are already cached.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    suspend fun resolve(packages: List<PackageInfo>, locale: String, chunkSize: Int = CHUNK_SIZE,
+                        onChunk: (Int) -> Unit = {}) {
+        val dispatcher = Dispatchers.IO.limitedParallelism(parallelism)
+        var resolved = 0
+
+        for (chunk in packages.chunked(chunkSize)) {
+            coroutineScope {
+                chunk.map { packageInfo ->
+                    async(dispatcher) {
+                        ensureActive()
+
+                        val label = kotlin.runCatching {
+                            resolve(packageInfo.applicationInfo)
+                        }.getOrNull() ?: packageInfo.packageName
+
+                        put(packageInfo.packageName, packageInfo.lastUpdateTime, locale, label)
+                    }
+                }.awaitAll()
+            }
+
+            resolved += chunk.size
+            onChunk(resolved)
+        }
+    }
+
+    fun clear() {
+        cache.clear()
+    }
+
+    private data class Key(val packageName: String, val lastUpdateTime: Long, val locale: String)
+
+    companion object {
+        const val CHUNK_SIZE = 32
+
+        val DEFAULT_PARALLELISM: Int
+            get() = Runtime.getRuntime().availableProcessors().coerceIn(2, 4)
+
+        /**
+         * [PackageInfo] has no copy constructor, a parcel round trip
+         * copies every field including the hidden ones
+         */
+        fun copyOf(packageInfo: PackageInfo): PackageInfo {
+            val parcel = Parcel.obtain()
+
+            try {
+                packageInfo.writeToParcel(parcel, 0)
+                parcel.setDataPosition(0)
+                return PackageInfo.CREATOR.createFromParcel(parcel)
+            } finally {
+                parcel.recycle()
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package app.simple.inure.util
+
+import android.content.Context
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import android.os.Build
+import android.provider.Settings
+import android.util.Log
+import androidx.core.content.pm.PackageInfoCompat
+import app.simple.inure.database.dao.PackageRecordDao
+import app.simple.inure.database.instances.PackageCatalogueDatabase
+import app.simple.inure.models.PackageRecord
+import app.simple.inure.preferences.PackageCataloguePreferences
+
+/**
+ * Persistent copy of the package lists in [PackageCatalogueDatabase].
+ * A cold start reads the whole catalogue in one query and shows it
+ * before the PackageManager is asked for anything, the loader then
+ * reconciles it with the real packages in the background. Stored
+ * labels seed the loader's label cache, resolving them is the most
+ * expensive part of a load.
+ *
+ * Changes between loads come from the package broadcasts and from
+ * [android.content.pm.PackageManager.getChangedPackages] so a refresh
+ * only queries the packages that actually changed.
+ */
+object PackageCatalogue {
+
+    private const val TAG = "PackageCatalogue"
+
+    /**
+     * SQLite can't bind more than 999 arguments in a single query
+     */
+    private const val MAX_QUERY_ARGUMENTS = 900
+
+    /**
+     * @return every stored package by name in one query, empty if the
+     *         catalogue was never written or can't be read
+     */
+    fun getRecords(context: Context): Map<String, PackageRecord> {
+        return kotlin.runCatching {
+            PackageCatalogueDatabase.getInstance(context)?.getPackageRecordDao()
+                ?.getAllPackages()?.associateBy { it.packageName }
+        }.onFailure {
+            Log.e(TAG, "getRecords: ", it)
+        }.getOrNull() ?: emptyMap()
+    }
+
+    /**
+     * Packages of [records] as far as the catalogue knows them
+     */
+    fun getPackages(records: Map<String, PackageRecord>): List<PackageInfo> {
+        return records.values.map { it.toPackageInfo() }
+    }
+
+    /**
+     * Make the catalogue hold exactly [packages], only packages missing
+     * from [stored] or changed since are written
+     */
+    fun reconcile(context: Context, packages: List<PackageInfo>, stored: Map<String, PackageRecord>, locale: String) {
+        kotlin.runCatching {
+            val dao = PackageCatalogueDatabase.getInstance(context)?.getPackageRecordDao() ?: return
+            val (written, removed) = reconcile(dao, packages, stored, locale)
+
+            Log.d(TAG, "Reconciled ${packages.size} packages, $written written, $removed removed")
+        }.onFailure {
+            Log.e(TAG, "reconcile: ", it)
+        }
+    }
+
+    /**
+     * @return the number of packages written and removed
+     */
+    internal fun reconcile(dao: PackageRecordDao, packages: List<PackageInfo>, stored: Map<String, PackageRecord>, locale: String): Pair<Int, Int> {
+        val changed = packages.filter {
+            stored[it.packageName]?.isSameAs(it, locale) != true
+        }
+
+        if (changed.isNotEmpty()) {
+            dao.insertPackages(changed.map { it.toRecord(locale) })
+        }
+
+        val current = packages.mapTo(HashSet(packages.size)) { it.packageName }
+        val removed = stored.keys.filter { it !in current }
+
+        for (chunk in removed.chunked(MAX_QUERY_ARGUMENTS)) {
+            dao.deletePackages(chunk)
+        }
+
+        return changed.size to removed.size
+    }
+
+    /**
+     * Write [updated] and drop [removed] after single packages changed
+     */
+    fun update(context: Context, updated: List<PackageInfo>, removed: Collection<String>, locale: String) {
+        kotlin.runCatching {
+            val dao = PackageCatalogueDatabase.getInstance(context)?.getPackageRecordDao() ?: return
+
+            if (updated.isNotEmpty()) {
+                dao.insertPackages(updated.map { it.toRecord(locale) })
+            }
+
+            for (chunk in removed.toList().chunked(MAX_QUERY_ARGUMENTS)) {
+                dao.deletePackages(chunk)
+            }
+        }.onFailure {
+            Log.e(TAG, "update: ", it)
+        }
+    }
+
+    /**
+     * Current change sequence number of the PackageManager, take it
+     * before querying the packages and pass it to [setSynced] after the
+     * catalogue was written so no change in between is lost
+     *
+     * @return -1 if the platform doesn't keep one
+     */
+    fun getSequenceNumber(context: Context): Int {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            kotlin.runCatching {
+                context.packageManager.getChangedPackages(0)?.sequenceNumber ?: 0
+            }.getOrDefault(-1)
+        } else {
+            -1
+        }
+    }
+
+    fun setSynced(context: Context, sequenceNumber: Int) {
+        PackageCataloguePreferences.setSequenceNumber(sequenceNumber)
+        PackageCataloguePreferences.setBootCount(getBootCount(context))
+    }
+
+    /**
+     * Packages installed, updated or removed since the catalogue was
+     * last synced
+     *
+     * @return the changed package names, empty if nothing changed, or
+     *         null if it can't be told and everything has to be loaded
+     */
+    fun getChangedPackages(context: Context): Set<String>? {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return null
+        }
+
+        val sequenceNumber = PackageCataloguePreferences.getSequenceNumber()
+        val bootCount = getBootCount(context)
+
+        if (sequenceNumber < 0 || bootCount < 0 || bootCount != PackageCataloguePreferences.getBootCount()) {
+            return null
+        }
+
+        return kotlin.runCatching {
+            context.packageManager.getChangedPackages(sequenceNumber)?.packageNames?.toHashSet() ?: emptySet()
+        }.getOrNull()
+    }
+
+    private fun getBootCount(context: Context): Int {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            Settings.Global.getInt(context.contentResolver, Settings.Global.BOOT_COUNT, -1)
+        } else {
+            -1
+        }
+    }
+
+    private fun PackageRecord.isSameAs(packageInfo: PackageInfo, locale: String): Boolean {
+        return isSameVersion(PackageInfoCompat.getLongVersionCode(packageInfo), packageInfo.lastUpdateTime) &&
+                labelLocale == locale &&
+                label == packageInfo.applicationInfo.name &&
+                flags == packageInfo.applicationInfo.flags &&
+                isEnabled == packageInfo.applicationInfo.enabled
+    }
+
+    private fun PackageInfo.toRecord(locale: String): PackageRecord {
+        val packageInfo = this
+        val applicationInfo = packageInfo.applicationInfo
+
+        return PackageRecord().apply {
+            packageName = packageInfo.packageName
+            label = applicationInfo.name ?: packageInfo.packageName
+            labelLocale = locale
+            versionName = packageInfo.versionName
+            versionCode = PackageInfoCompat.getLongVersionCode(packageInfo)
+            installLocation = packageInfo.installLocation
+            firstInstallTime = packageInfo.firstInstallTime
+            lastUpdateTime = packageInfo.lastUpdateTime
+            flags = applicationInfo.flags
+            isEnabled = applicationInfo.enabled
+            uid = applicationInfo.uid
+            targetSdk = applicationInfo.targetSdkVersion
+            sourceDir = applicationInfo.sourceDir
+            splitSourceDirs = applicationInfo.splitSourceDirs?.joinToString("\n")
+            dataDir = applicationInfo.dataDir
+            nativeLibraryDir = applicationInfo.nativeLibraryDir
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                minSdk = applicationInfo.minSdkVersion
+            }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                category = applicationInfo.category
+            }
+
+            size = PackageSizeCache.instance.getSize(packageInfo)
+        }
+    }
+
+    /**
+     * Rebuild the parts of a [PackageInfo] the app lists read, anything
+     * else is filled in once the loader has queried the real package
+     */
+    private fun PackageRecord.toPackageInfo(): PackageInfo {
+        val record = this
+
+        return PackageInfo().apply {
+            packageName = record.packageName
+            versionName = record.versionName
+            installLocation = record.installLocation
+            firstInstallTime = record.firstInstallTime
+            lastUpdateTime = record.lastUpdateTime
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                longVersionCode = record.versionCode
+            } else {
+                @Suppress("DEPRECATION")
+                versionCode = record.versionCode.toInt()
+            }
+
+            applicationInfo = ApplicationInfo().apply {
+                packageName = record.packageName
+                name = record.label
+                flags = record.flags
+                enabled = record.isEnabled
+                uid = record.uid
+                targetSdkVersion = record.targetSdk
+                sourceDir = record.sourceDir
+                publicSourceDir = record.sourceDir
+                splitSourceDirs = record.splitSourceDirs?.split("\n")?.toTypedArray()
+                splitPublicSourceDirs = splitSourceDirs
+                dataDir = record.dataDir
+                nativeLibraryDir = record.nativeLibraryDir
+
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                    minSdkVersion = record.minSdk
+                }
+
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    category = record.category
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package app.simple.inure.util
+
+import android.content.pm.PackageInfo
+import androidx.recyclerview.widget.DiffUtil
+import app.simple.inure.models.PackageSnapshot
+
+/**
+ * Compares two lists of rows by package name, a row is bound again only
+ * if its package changed between the two [PackageSnapshot]s
+ *
+ * @param packageOf          package shown by a row
+ * @param areContentsTheSame whether a row of the same package can be kept
+ *                           as it is, compares the packages by default
+ */
+class PackageDiffCallback<T>(private val oldList: List<T>,
+                             private val newList: List<T>,
+                             private val packageOf: (T) -> PackageInfo,
+                             private val areContentsTheSame: (T, T) -> Boolean = { old, new ->
+                                 PackageSnapshot.isChanged(packageOf(old), packageOf(new)).not()
+                             }) : DiffUtil.Callback() {
+
+    override fun getOldListSize(): Int {
+        return oldList.size
+    }
+
+    override fun getNewListSize(): Int {
+        return newList.size
+    }
+
+    override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
+        return packageOf(oldList[oldItemPosition]).packageName == packageOf(newList[newItemPosition]).packageName
+    }
+
+    override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
+        return areContentsTheSame(oldList[oldItemPosition], newList[newItemPosition])
+    }
+}
@@ -0,0 +1,176 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import android.os.Build
+import app.simple.inure.constants.SortConstant
+
+/**
+ * The app filters of the panels, [SortConstant.DISABLED],
+ * [SortConstant.ENABLED], [SortConstant.APK], [SortConstant.SPLIT] and
+ * [SortConstant.UNINSTALLED], with or without [SortConstant.COMBINE_FLAGS],
+ * compiled once per load and applied in a single pass over the list.
+ *
+ * Every package is reduced to its states, an int with the same bits as
+ * the filter flags. Without [SortConstant.COMBINE_FLAGS] a package
+ * passes if it has any of the checked states. With it the flags form
+ * groups, enabled and disabled, apk and split, and uninstalled, and a
+ * package has to have one of the checked states of every group that has
+ * a checked flag, so checking both flags of a group cancels it out.
+ *
+ * @param type       one of [SortConstant.SYSTEM], [SortConstant.USER]
+ *                   or [SortConstant.BOTH]
+ * @param filter     filter flags of [SortConstant], flags outside of
+ *                   [STATES] like [SortConstant.TRACKERS] are ignored
+ * @param categories [SortConstant] category flags the app category has
+ *                   to be one of, null to not filter by category
+ * @param isUninstalledSeparate whether uninstalled packages count as
+ *                              neither enabled nor disabled, the apps
+ *                              panel treats them that way
+ */
+class PackageFilter(private val type: String,
+                    private val filter: Int,
+                    private val categories: Long? = null,
+                    private val isUninstalledSeparate: Boolean = false) {
+
+    fun matches(packageInfo: PackageInfo): Boolean {
+        if (isOfType(packageInfo, type).not()) {
+            return false
+        }
+
+        if (categories != null && categories and getCategory(packageInfo) == 0L) {
+            return false
+        }
+
+        return matches(getStates(packageInfo, isUninstalledSeparate), filter)
+    }
+
+    /**
+     * Items of [items] whose package passes, in their order
+     */
+    fun <T> filter(items: List<T>, packageInfo: (T) -> PackageInfo): ArrayList<T> {
+        val filtered = ArrayList<T>(items.size)
+
+        for (item in items) {
+            if (matches(packageInfo(item))) {
+                filtered.add(item)
+            }
+        }
+
+        return filtered
+    }
+
+    fun filter(packages: List<PackageInfo>): ArrayList<PackageInfo> {
+        return filter(packages) { it }
+    }
+
+    companion object {
+
+        /**
+         * Flags of [SortConstant] that are states of a package
+         */
+        const val STATES = SortConstant.DISABLED or SortConstant.ENABLED or
+                SortConstant.APK or SortConstant.SPLIT or SortConstant.UNINSTALLED
+
+        private val GROUPS = intArrayOf(SortConstant.DISABLED or SortConstant.ENABLED,
+                                        SortConstant.APK or SortConstant.SPLIT,
+                                        SortConstant.UNINSTALLED)
+
+        /**
+         * Whether [packageInfo] is a system app for [SortConstant.SYSTEM],
+         * a user app for [SortConstant.USER], always for anything else
+         */
+        fun isOfType(packageInfo: PackageInfo, type: String): Boolean {
+            return when (type) {
+                SortConstant.SYSTEM -> packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0
+                SortConstant.USER -> packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM == 0
+                else -> true
+            }
+        }
+
+        /**
+         * @return the [STATES] flags [packageInfo] has
+         */
+        fun getStates(packageInfo: PackageInfo, isUninstalledSeparate: Boolean): Int {
+            val applicationInfo = packageInfo.applicationInfo
+            val isInstalled = applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+            var states = 0
+
+            if (isInstalled || isUninstalledSeparate.not()) {
+                states = states or if (applicationInfo.enabled) SortConstant.ENABLED else SortConstant.DISABLED
+            }
+
+            states = states or if (applicationInfo.splitSourceDirs.isNullOrEmpty()) SortConstant.APK else SortConstant.SPLIT
+
+            if (isInstalled.not()) {
+                states = states or SortConstant.UNINSTALLED
+            }
+
+            return states
+        }
+
+        /**
+         * Whether a package with [states] passes [filter]
+         */
+        fun matches(states: Int, filter: Int): Boolean {
+            if (FlagUtils.isFlagSet(filter, SortConstant.COMBINE_FLAGS)) {
+                for (group in GROUPS) {
+                    val checked = filter and group
+                    if (checked != 0 && states and checked == 0) {
+                        return false
+                    }
+                }
+
+                return true
+            } else {
+                return states and filter and STATES != 0
+            }
+        }
+
+        /**
+         * Items of [items] with any of the flags in [filter], for panels
+         * with their own flags like batch and boot manager
+         */
+        fun <T> anyOf(items: List<T>, filter: Int, states: (T) -> Int): ArrayList<T> {
+            val filtered = ArrayList<T>(items.size)
+
+            for (item in items) {
+                if (states(item) and filter != 0) {
+                    filtered.add(item)
+                }
+            }
+
+            return filtered
+        }
+
+        /**
+         * @return the [SortConstant] category flag of the package, 0 if
+         *         its category has none
+         */
+        fun getCategory(packageInfo: PackageInfo): Long {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+                return 0L
+            }
+
+            return when (packageInfo.applicationInfo.category) {
+                ApplicationInfo.CATEGORY_UNDEFINED -> SortConstant.CATEGORY_UNSPECIFIED
+                ApplicationInfo.CATEGORY_GAME -> SortConstant.CATEGORY_GAME
+                ApplicationInfo.CATEGORY_AUDIO -> SortConstant.CATEGORY_AUDIO
+                ApplicationInfo.CATEGORY_VIDEO -> SortConstant.CATEGORY_VIDEO
+                ApplicationInfo.CATEGORY_IMAGE -> SortConstant.CATEGORY_IMAGE
+                ApplicationInfo.CATEGORY_SOCIAL -> SortConstant.CATEGORY_SOCIAL
+                ApplicationInfo.CATEGORY_NEWS -> SortConstant.CATEGORY_NEWS
+                ApplicationInfo.CATEGORY_MAPS -> SortConstant.CATEGORY_MAPS
+                ApplicationInfo.CATEGORY_PRODUCTIVITY -> SortConstant.CATEGORY_PRODUCTIVITY
+                else -> {
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S &&
+                        packageInfo.applicationInfo.category == ApplicationInfo.CATEGORY_ACCESSIBILITY) {
+                        SortConstant.CATEGORY_ACCESSIBILITY
+                    } else {
+                        0L
+                    }
+                }
+            }
+        }
+    }
+}
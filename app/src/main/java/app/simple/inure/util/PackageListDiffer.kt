@@ -0,0 +1,90 @@
+package app.simple.inure.util
+
+import android.annotation.SuppressLint
+import android.content.pm.PackageInfo
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.recyclerview.widget.RecyclerView
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/**
+ * Swaps the rows of [adapter] for a newer list. The diff is calculated
+ * by [PackageDiffCallback] off the main thread, only the rows whose
+ * packages were added, removed, moved or changed are bound again once
+ * it's done.
+ *
+ * The adapter keeps showing its current list until then. A list
+ * submitted while the previous one is still being compared replaces
+ * it, the older diff is dropped.
+ *
+ * @param offset position of the first package row, rows above it like
+ *               headers stay untouched
+ */
+class PackageListDiffer<T>(private val adapter: RecyclerView.Adapter<*>,
+                           private val offset: Int = 0,
+                           private val packageOf: (T) -> PackageInfo,
+                           private val areContentsTheSame: ((T, T) -> Boolean)? = null) {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main)
+    private var job: Job? = null
+
+    /**
+     * Must be called on the main thread, [swap] replaces the adapter's
+     * list with [newList] right before the changes are dispatched
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    fun submit(oldList: List<T>, newList: List<T>, swap: () -> Unit) {
+        job?.cancel()
+
+        if (oldList === newList || oldList.isEmpty() || newList.isEmpty()) {
+            // Changed in place or nothing to compare
+            swap()
+            adapter.notifyDataSetChanged()
+            return
+        }
+
+        // The adapter may still change its own list while this runs
+        val old = ArrayList(oldList)
+
+        job = scope.launch {
+            val result = withContext(Dispatchers.Default) {
+                DiffUtil.calculateDiff(if (areContentsTheSame == null) {
+                    PackageDiffCallback(old, newList, packageOf)
+                } else {
+                    PackageDiffCallback(old, newList, packageOf, areContentsTheSame)
+                })
+            }
+
+            swap()
+            result.dispatchUpdatesTo(object : ListUpdateCallback {
+                override fun onInserted(position: Int, count: Int) {
+                    adapter.notifyItemRangeInserted(position + offset, count)
+                }
+
+                override fun onRemoved(position: Int, count: Int) {
+                    adapter.notifyItemRangeRemoved(position + offset, count)
+                }
+
+                override fun onMoved(fromPosition: Int, toPosition: Int) {
+                    adapter.notifyItemMoved(fromPosition + offset, toPosition + offset)
+                }
+
+                override fun onChanged(position: Int, count: Int, payload: Any?) {
+                    adapter.notifyItemRangeChanged(position + offset, count, payload)
+                }
+            })
+        }
+    }
+
+    /**
+     * Drop a diff still being calculated, for when the adapter is done
+     */
+    fun cancel() {
+        job?.cancel()
+    }
+}
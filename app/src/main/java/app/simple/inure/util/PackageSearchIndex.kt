@@ -0,0 +1,277 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import app.simple.inure.constants.SortConstant
+import java.util.Arrays
+import java.util.BitSet
+
+/**
+ * Search index over the app labels and package names of the search
+ * panel. Every package gets an id, the trigrams of its normalized label
+ * and package name point to sorted id lists and its filter states are
+ * kept next to it. A query intersects the id lists of its own trigrams,
+ * checks the category and filter flags of what is left and only then
+ * compares strings, so a keystroke never walks every package.
+ *
+ * Queries shorter than a trigram scan the normalized strings directly,
+ * they are cheap and match too many packages for a list to help.
+ *
+ * [update] diffs against the packages already indexed, only new and
+ * changed ones touch the trigram lists. Ids of removed packages are
+ * left behind until more than half of them are dead.
+ */
+class PackageSearchIndex {
+
+    private var packages = ArrayList<PackageInfo?>()
+    private var labels = ArrayList<String>()
+    private var names = ArrayList<String>()
+    private var signatures = ArrayList<Signature?>()
+    private var states = ArrayList<Int>()
+    private val ids = HashMap<String, Int>()
+    private val trigrams = HashMap<Long, Postings>()
+
+    private val live = BitSet()
+    private val system = BitSet()
+
+    @Synchronized
+    fun size(): Int {
+        return ids.size
+    }
+
+    /**
+     * Make the index hold exactly [packages], unchanged packages only
+     * get their [PackageInfo] swapped for the newer instance
+     */
+    @Synchronized
+    fun update(packages: List<PackageInfo>) {
+        val current = HashSet<String>(packages.size * 2)
+
+        for (packageInfo in packages) {
+            if (current.add(packageInfo.packageName).not()) {
+                continue // Listed as installed and uninstalled, the first one wins
+            }
+
+            val id = ids[packageInfo.packageName]
+            val signature = Signature(packageInfo)
+
+            if (id != null && signatures[id] == signature) {
+                this.packages[id] = packageInfo
+            } else {
+                if (id != null) remove(id)
+                add(packageInfo, signature)
+            }
+        }
+
+        ids.keys.filter { it !in current }.forEach {
+            remove(ids[it]!!)
+        }
+
+        if (this.packages.size > MIN_COMPACT_SIZE && ids.size < this.packages.size / 2) {
+            compact()
+        }
+    }
+
+    @Synchronized
+    fun remove(packageName: String) {
+        ids[packageName]?.let {
+            remove(it)
+        }
+    }
+
+    /**
+     * Packages whose label or package name contain [keyword] and that
+     * pass [category] and [filter], in no particular order
+     *
+     * @param category one of [SortConstant.SYSTEM], [SortConstant.USER]
+     *                 or [SortConstant.BOTH]
+     * @param filter   flags of [SortConstant], [SortConstant.TRACKERS]
+     *                 is not handled here
+     */
+    @Synchronized
+    fun search(keyword: String, ignoreCase: Boolean, category: String, filter: Int): ArrayList<PackageInfo> {
+        val results = ArrayList<PackageInfo>()
+
+        if (keyword.isEmpty()) {
+            return results
+        }
+
+        val normalized = normalize(keyword)
+
+        val matches: (Int) -> Boolean = if (ignoreCase) {
+            { labels[it].contains(normalized) || names[it].contains(normalized) }
+        } else {
+            { packages[it]!!.applicationInfo.name?.contains(keyword) == true || packages[it]!!.packageName.contains(keyword) }
+        }
+
+        if (normalized.length < TRIGRAM) {
+            var id = live.nextSetBit(0)
+            while (id >= 0) {
+                if (passes(id, category, filter) && matches(id)) results.add(packages[id]!!)
+                id = live.nextSetBit(id + 1)
+            }
+
+            return results
+        }
+
+        val lists = ArrayList<Postings>()
+        for (i in 0..normalized.length - TRIGRAM) {
+            lists.add(trigrams[trigram(normalized, i)] ?: return results)
+        }
+
+        lists.sortBy { it.size }
+        val shortest = lists[0]
+
+        for (i in 0 until shortest.size) {
+            val id = shortest.ids[i]
+            if (passes(id, category, filter) && (1 until lists.size).all { lists[it].contains(id) } && matches(id)) {
+                results.add(packages[id]!!)
+            }
+        }
+
+        return results
+    }
+
+    /**
+     * Packages named in [packageNames] that pass [category] and [filter],
+     * used for tag searches
+     */
+    @Synchronized
+    fun filter(packageNames: Collection<String>, category: String, filter: Int): ArrayList<PackageInfo> {
+        val results = ArrayList<PackageInfo>()
+
+        for (packageName in packageNames) {
+            val id = ids[packageName] ?: continue
+            if (passes(id, category, filter)) results.add(packages[id]!!)
+        }
+
+        return results
+    }
+
+    /**
+     * Whether [id] is live and allowed by the category and filter flags,
+     * same rules as every other panel through [PackageFilter]
+     */
+    private fun passes(id: Int, category: String, filter: Int): Boolean {
+        if (live[id].not()) return false
+
+        when (category) {
+            SortConstant.SYSTEM -> if (system[id].not()) return false
+            SortConstant.USER -> if (system[id]) return false
+        }
+
+        return PackageFilter.matches(states[id], filter)
+    }
+
+    private fun add(packageInfo: PackageInfo, signature: Signature) {
+        val id = packages.size
+        val label = normalize(packageInfo.applicationInfo.name ?: "")
+        val name = normalize(packageInfo.packageName)
+
+        packages.add(packageInfo)
+        labels.add(label)
+        names.add(name)
+        signatures.add(signature)
+        states.add(PackageFilter.getStates(packageInfo, false))
+        ids[packageInfo.packageName] = id
+
+        addTrigrams(label, id)
+        addTrigrams(name, id)
+
+        live.set(id)
+        system[id] = packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0
+    }
+
+    /**
+     * Dead ids stay in the trigram lists, [live] keeps them out of
+     * every result
+     */
+    private fun remove(id: Int) {
+        ids.remove(packages[id]!!.packageName)
+        packages[id] = null
+        signatures[id] = null
+        live.clear(id)
+    }
+
+    private fun compact() {
+        val packages = this.packages.filterNotNull()
+
+        this.packages = ArrayList(packages.size)
+        labels = ArrayList(packages.size)
+        names = ArrayList(packages.size)
+        signatures = ArrayList(packages.size)
+        states = ArrayList(packages.size)
+        ids.clear()
+        trigrams.clear()
+        live.clear()
+        system.clear()
+
+        for (packageInfo in packages) {
+            add(packageInfo, Signature(packageInfo))
+        }
+    }
+
+    private fun addTrigrams(string: String, id: Int) {
+        for (i in 0..string.length - TRIGRAM) {
+            trigrams.getOrPut(trigram(string, i)) { Postings() }.add(id)
+        }
+    }
+
+    /**
+     * Sorted ids, ids only ever grow so adding is an append
+     */
+    private class Postings {
+        var ids = IntArray(4)
+        var size = 0
+
+        fun add(id: Int) {
+            if (size > 0 && ids[size - 1] == id) {
+                return // Label and package name share the trigram
+            }
+
+            if (size == ids.size) {
+                ids = ids.copyOf(size * 2)
+            }
+
+            ids[size++] = id
+        }
+
+        fun contains(id: Int): Boolean {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0
+        }
+    }
+
+    /**
+     * What the index depends on, a package is indexed again only if
+     * one of these changed
+     */
+    private data class Signature(val label: String?, val lastUpdateTime: Long, val flags: Int,
+                                 val enabled: Boolean, val splits: Int) {
+        constructor(packageInfo: PackageInfo) : this(packageInfo.applicationInfo.name, packageInfo.lastUpdateTime,
+                                                     packageInfo.applicationInfo.flags, packageInfo.applicationInfo.enabled,
+                                                     packageInfo.applicationInfo.splitSourceDirs?.size ?: 0)
+    }
+
+    companion object {
+        private const val TRIGRAM = 3
+        private const val MIN_COMPACT_SIZE = 64
+
+        /**
+         * Fold the case the same way [String.contains] with ignoreCase
+         * compares chars, so both always agree
+         */
+        fun normalize(string: String): String {
+            val chars = CharArray(string.length)
+            for (i in chars.indices) {
+                chars[i] = Character.toLowerCase(Character.toUpperCase(string[i]))
+            }
+            return String(chars)
+        }
+
+        private fun trigram(string: String, index: Int): Long {
+            return string[index].code.toLong() shl 32 or
+                    (string[index + 1].code.toLong() shl 16) or
+                    string[index + 2].code.toLong()
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package app.simple.inure.util
+
+import android.content.pm.PackageInfo
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Size of the APKs of a package, the base APK and every split. Getting
+ * it is a file system stat per APK, the sizes are cached by package
+ * name and last update time so sorting and listing the apps stats every
+ * APK only once after it was installed or updated.
+ *
+ * @param length size of the file at the given path
+ */
+class PackageSizeCache(private val length: (String) -> Long = { File(it).length() }) {
+
+    private val cache = ConcurrentHashMap<String, Entry>()
+
+    fun getSize(packageInfo: PackageInfo): Long {
+        val entry = cache[packageInfo.packageName]
+
+        if (entry != null && entry.lastUpdateTime == packageInfo.lastUpdateTime) {
+            return entry.size
+        }
+
+        var size = packageInfo.applicationInfo.sourceDir?.let { length(it) } ?: 0L
+
+        packageInfo.applicationInfo.splitSourceDirs?.forEach {
+            size += length(it)
+        }
+
+        cache[packageInfo.packageName] = Entry(packageInfo.lastUpdateTime, size)
+        return size
+    }
+
+    /**
+     * Store a size known from elsewhere, like the package catalogue
+     */
+    fun put(packageName: String, lastUpdateTime: Long, size: Long) {
+        cache[packageName] = Entry(lastUpdateTime, size)
+    }
+
+    /**
+     * Forget the size of [packageName] after it was updated or removed
+     */
+    fun invalidate(packageName: String) {
+        cache.remove(packageName)
+    }
+
+    fun clear() {
+        cache.clear()
+    }
+
+    private class Entry(val lastUpdateTime: Long, val size: Long)
+
+    companion object {
+        val instance = PackageSizeCache()
+    }
+}
@@ -4,9 +4,9 @@ import android.content.pm.ApplicationInfo
 import android.content.pm.PackageInfo
 import android.os.Build
 import androidx.annotation.RequiresApi
-import app.simple.inure.util.FileSizeHelper.getDirectoryLength
-import app.simple.inure.util.FileSizeHelper.toLength
-import java.util.*
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
+import app.simple.inure.util.SortKeys.sortByPackageSize
 
 object Sort {
 
@@ -136,14 +136,8 @@ object Sort {
      * sort application list name
      */
     private fun ArrayList<PackageInfo>.sortByName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.applicationInfo.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.applicationInfo.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.applicationInfo.name
         }
     }
 
@@ -151,22 +145,8 @@ object Sort {
      * sort application list package name
      */
     private fun ArrayList<PackageInfo>.sortBySize(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                if (it.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                    it.applicationInfo.sourceDir.toLength()
-                } else {
-                    it.applicationInfo.sourceDir.getDirectoryLength() + it.applicationInfo.sourceDir.toLength()
-                }
-            }
-        } else {
-            this.sortBy {
-                if (it.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                    it.applicationInfo.sourceDir.toLength()
-                } else {
-                    it.applicationInfo.sourceDir.getDirectoryLength() + it.applicationInfo.sourceDir.toLength()
-                }
-            }
+        sortByPackageSize(reverse) {
+            it
         }
     }
 
@@ -174,14 +154,8 @@ object Sort {
      * sort application list size
      */
     private fun ArrayList<PackageInfo>.sortByPackageName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageName.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageName.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageName
         }
     }
 
@@ -189,14 +163,8 @@ object Sort {
      * sort application list by install date
      */
     private fun ArrayList<PackageInfo>.sortByInstallDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.firstInstallTime
-            }
-        } else {
-            this.sortBy {
-                it.firstInstallTime
-            }
+        sortByLongKey(reverse) {
+            it.firstInstallTime
         }
     }
 
@@ -204,14 +172,8 @@ object Sort {
      * sort application list by update date
      */
     private fun ArrayList<PackageInfo>.sortByUpdateDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.lastUpdateTime
-            }
-        } else {
-            this.sortBy {
-                it.lastUpdateTime
-            }
+        sortByLongKey(reverse) {
+            it.lastUpdateTime
         }
     }
 
@@ -219,14 +181,8 @@ object Sort {
      * sort application list by target sdk
      */
     private fun ArrayList<PackageInfo>.sortByTargetSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.applicationInfo.targetSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.applicationInfo.targetSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.applicationInfo.targetSdkVersion.toLong()
         }
     }
 
@@ -235,14 +191,8 @@ object Sort {
      */
     @RequiresApi(Build.VERSION_CODES.N)
     private fun ArrayList<PackageInfo>.sortByMinSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.applicationInfo.minSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.applicationInfo.minSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.applicationInfo.minSdkVersion.toLong()
         }
     }
 }
\ No newline at end of file
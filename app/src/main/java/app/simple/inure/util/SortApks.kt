@@ -1,8 +1,9 @@
 package app.simple.inure.util
 
 import app.simple.inure.models.ApkFile
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
 import java.io.File
-import java.util.*
 
 object SortApks {
 
@@ -77,14 +78,8 @@ object SortApks {
      * sort application list name
      */
     private fun ArrayList<ApkFile>.sortByName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.file.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.file.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.file.name
         }
     }
 
@@ -92,14 +87,8 @@ object SortApks {
      * sort application list package name
      */
     private fun ArrayList<ApkFile>.sortBySize(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.file.length()
-            }
-        } else {
-            this.sortBy {
-                it.file.length()
-            }
+        sortByLongKey(reverse) {
+            it.file.length()
         }
     }
 
@@ -107,28 +96,15 @@ object SortApks {
      * Sort by created on date
      */
     private fun ArrayList<ApkFile>.sortByCreatedOn(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                //                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                //                    val basicFileAttributes = Files.readAttributes(it.toPath(), BasicFileAttributes::class.java)
-                //                    basicFileAttributes.creationTime().toMillis()
-                //                } else {
-                //                    it.lastModified()
-                //                }
+        sortByLongKey(reverse) {
+            //                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            //                    val basicFileAttributes = Files.readAttributes(it.toPath(), BasicFileAttributes::class.java)
+            //                    basicFileAttributes.creationTime().toMillis()
+            //                } else {
+            //                    it.lastModified()
+            //                }
 
-                it.file.lastModified()
-            }
-        } else {
-            this.sortBy {
-                //                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                //                    val basicFileAttributes = Files.readAttributes(it.toPath(), BasicFileAttributes::class.java)
-                //                    basicFileAttributes.creationTime().toMillis()
-                //                } else {
-                //                    it.lastModified()
-                //                }
-
-                it.file.lastModified()
-            }
+            it.file.lastModified()
         }
     }
 }
\ No newline at end of file
@@ -5,9 +5,9 @@ import android.content.pm.PackageInfo
 import android.os.Build
 import androidx.annotation.RequiresApi
 import app.simple.inure.models.BatchPackageInfo
-import app.simple.inure.util.FileSizeHelper.getDirectoryLength
-import app.simple.inure.util.FileSizeHelper.toLength
-import java.util.*
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
+import app.simple.inure.util.SortKeys.sortByPackageSize
 
 object SortBatch {
 
@@ -151,14 +151,8 @@ object SortBatch {
      * sort application list name
      */
     private fun ArrayList<BatchPackageInfo>.sortByName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageInfo.applicationInfo.name
         }
     }
 
@@ -166,22 +160,8 @@ object SortBatch {
      * sort application list package name
      */
     private fun ArrayList<BatchPackageInfo>.sortBySize(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                if (it.packageInfo.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                    it.packageInfo.applicationInfo.sourceDir.toLength()
-                } else {
-                    it.packageInfo.applicationInfo.sourceDir.getDirectoryLength() + it.packageInfo.applicationInfo.sourceDir.toLength()
-                }
-            }
-        } else {
-            this.sortBy {
-                if (it.packageInfo.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                    it.packageInfo.applicationInfo.sourceDir.toLength()
-                } else {
-                    it.packageInfo.applicationInfo.sourceDir.getDirectoryLength() + it.packageInfo.applicationInfo.sourceDir.toLength()
-                }
-            }
+        sortByPackageSize(reverse) {
+            it.packageInfo
         }
     }
 
@@ -189,14 +169,8 @@ object SortBatch {
      * sort application list size
      */
     private fun ArrayList<BatchPackageInfo>.sortByPackageName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.packageName.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.packageName.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageInfo.packageName
         }
     }
 
@@ -204,14 +178,8 @@ object SortBatch {
      * sort application list by install date
      */
     private fun ArrayList<BatchPackageInfo>.sortByInstallDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.firstInstallTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.firstInstallTime
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.firstInstallTime
         }
     }
 
@@ -219,14 +187,8 @@ object SortBatch {
      * sort application list by update date
      */
     private fun ArrayList<BatchPackageInfo>.sortByUpdateDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.lastUpdateTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.lastUpdateTime
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.lastUpdateTime
         }
     }
 
@@ -234,14 +196,8 @@ object SortBatch {
      * sort application list by target sdk
      */
     private fun ArrayList<BatchPackageInfo>.sortByTargetSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.targetSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.targetSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.applicationInfo.targetSdkVersion.toLong()
         }
     }
 
@@ -250,14 +206,8 @@ object SortBatch {
      */
     @RequiresApi(Build.VERSION_CODES.N)
     private fun ArrayList<BatchPackageInfo>.sortByMinSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.minSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.minSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.applicationInfo.minSdkVersion.toLong()
         }
     }
 }
\ No newline at end of file
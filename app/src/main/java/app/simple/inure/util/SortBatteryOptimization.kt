@@ -6,9 +6,9 @@ import android.os.Build
 import androidx.annotation.RequiresApi
 import app.simple.inure.models.BatteryOptimizationModel
 import app.simple.inure.preferences.BatteryOptimizationPreferences
-import app.simple.inure.util.FileSizeHelper.getDirectoryLength
-import app.simple.inure.util.FileSizeHelper.toLength
-import java.util.*
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
+import app.simple.inure.util.SortKeys.sortByPackageSize
 
 object SortBatteryOptimization {
 
@@ -128,14 +128,8 @@ object SortBatteryOptimization {
      * sort application list name
      */
     private fun ArrayList<BatteryOptimizationModel>.sortByName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageInfo.applicationInfo.name
         }
     }
 
@@ -143,22 +137,8 @@ object SortBatteryOptimization {
      * sort application list package name
      */
     private fun ArrayList<BatteryOptimizationModel>.sortBySize(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                if (it.packageInfo.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                    it.packageInfo.applicationInfo.sourceDir.toLength()
-                } else {
-                    it.packageInfo.applicationInfo.sourceDir.getDirectoryLength() + it.packageInfo.applicationInfo.sourceDir.toLength()
-                }
-            }
-        } else {
-            this.sortBy {
-                if (it.packageInfo.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                    it.packageInfo.applicationInfo.sourceDir.toLength()
-                } else {
-                    it.packageInfo.applicationInfo.sourceDir.getDirectoryLength() + it.packageInfo.applicationInfo.sourceDir.toLength()
-                }
-            }
+        sortByPackageSize(reverse) {
+            it.packageInfo
         }
     }
 
@@ -166,14 +146,8 @@ object SortBatteryOptimization {
      * sort application list size
      */
     private fun ArrayList<BatteryOptimizationModel>.sortByPackageName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.packageName.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.packageName.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageInfo.packageName
         }
     }
 
@@ -181,14 +155,8 @@ object SortBatteryOptimization {
      * sort application list alphabetically
      */
     private fun ArrayList<BatteryOptimizationModel>.sortByInstallDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.firstInstallTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.firstInstallTime
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.firstInstallTime
         }
     }
 
@@ -196,14 +164,8 @@ object SortBatteryOptimization {
      * sort application list by update date
      */
     private fun ArrayList<BatteryOptimizationModel>.sortByUpdateDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.lastUpdateTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.lastUpdateTime
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.lastUpdateTime
         }
     }
 
@@ -211,14 +173,8 @@ object SortBatteryOptimization {
      * sort application list by target sdk
      */
     private fun ArrayList<BatteryOptimizationModel>.sortByTargetSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.targetSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.targetSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.applicationInfo.targetSdkVersion.toLong()
         }
     }
 
@@ -227,14 +183,8 @@ object SortBatteryOptimization {
      */
     @RequiresApi(Build.VERSION_CODES.N)
     private fun ArrayList<BatteryOptimizationModel>.sortByMinSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.minSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.minSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.applicationInfo.minSdkVersion.toLong()
         }
     }
 }
\ No newline at end of file
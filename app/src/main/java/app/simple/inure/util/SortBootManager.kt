@@ -6,8 +6,9 @@ import android.os.Build
 import androidx.annotation.RequiresApi
 import app.simple.inure.models.BootManagerModel
 import app.simple.inure.preferences.BootManagerPreferences
-import app.simple.inure.util.FileSizeHelper.getDirectoryLength
-import java.util.*
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
+import app.simple.inure.util.SortKeys.sortByPackageSize
 
 object SortBootManager {
 
@@ -135,14 +136,8 @@ object SortBootManager {
      * sort application list name
      */
     private fun ArrayList<BootManagerModel>.sortByName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageInfo.applicationInfo.name
         }
     }
 
@@ -150,14 +145,8 @@ object SortBootManager {
      * sort application list package name
      */
     private fun ArrayList<BootManagerModel>.sortBySize(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.sourceDir.getDirectoryLength()
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.sourceDir.getDirectoryLength()
-            }
+        sortByPackageSize(reverse) {
+            it.packageInfo
         }
     }
 
@@ -165,14 +154,8 @@ object SortBootManager {
      * sort application list size
      */
     private fun ArrayList<BootManagerModel>.sortByPackageName(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.packageName.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.packageName.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(reverse) {
+            it.packageInfo.packageName
         }
     }
 
@@ -180,14 +163,8 @@ object SortBootManager {
      * sort application list by install date
      */
     private fun ArrayList<BootManagerModel>.sortByInstallDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.firstInstallTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.firstInstallTime
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.firstInstallTime
         }
     }
 
@@ -195,14 +172,8 @@ object SortBootManager {
      * sort application list by update date
      */
     private fun ArrayList<BootManagerModel>.sortByUpdateDate(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.lastUpdateTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.lastUpdateTime
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.lastUpdateTime
         }
     }
 
@@ -210,14 +181,8 @@ object SortBootManager {
      * sort application list by target sdk
      */
     private fun ArrayList<BootManagerModel>.sortByTargetSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.targetSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.targetSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.applicationInfo.targetSdkVersion.toLong()
         }
     }
 
@@ -226,14 +191,8 @@ object SortBootManager {
      */
     @RequiresApi(Build.VERSION_CODES.N)
     private fun ArrayList<BootManagerModel>.sortByMinSdk(reverse: Boolean) {
-        return if (reverse) {
-            this.sortByDescending {
-                it.packageInfo.applicationInfo.minSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo.applicationInfo.minSdkVersion
-            }
+        sortByLongKey(reverse) {
+            it.packageInfo.applicationInfo.minSdkVersion.toLong()
         }
     }
 }
\ No newline at end of file
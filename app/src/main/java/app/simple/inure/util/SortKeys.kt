@@ -0,0 +1,84 @@
+package app.simple.inure.util
+
+import android.content.pm.PackageInfo
+import java.text.CollationKey
+import java.text.Collator
+import java.util.*
+
+/**
+ * Sorting shared by the Sort* helpers. A key selector passed to
+ * [sortBy] runs twice for every comparison, which is a file stat or a
+ * lowercase copy of a label each time for most of our keys. Here every
+ * key is computed once per item, sorted along with it and dropped
+ * again once the list is in order.
+ *
+ * Names are compared with a [Collator] of the current locale, ignoring
+ * case, so accented and non latin labels land where the user expects
+ * them. Sorting is stable, items with equal keys keep their order.
+ */
+object SortKeys {
+
+    private val LONG_ASCENDING = Comparator<LongEntry<*>> { a, b -> a.key.compareTo(b.key) }
+    private val LONG_DESCENDING = Comparator<LongEntry<*>> { a, b -> b.key.compareTo(a.key) }
+    private val DOUBLE_ASCENDING = Comparator<DoubleEntry<*>> { a, b -> a.key.compareTo(b.key) }
+    private val DOUBLE_DESCENDING = Comparator<DoubleEntry<*>> { a, b -> b.key.compareTo(a.key) }
+    private val NAME_ASCENDING = Comparator<NameEntry<*>> { a, b -> a.key.compareTo(b.key) }
+    private val NAME_DESCENDING = Comparator<NameEntry<*>> { a, b -> b.key.compareTo(a.key) }
+
+    fun <T> MutableList<T>.sortByLongKey(reverse: Boolean, key: (T) -> Long) {
+        if (size < 2) return
+
+        val entries = Array(size) { LongEntry(key(this[it]), this[it]) }
+        entries.sortWith(if (reverse) LONG_DESCENDING else LONG_ASCENDING)
+
+        for (i in entries.indices) {
+            this[i] = entries[i].value
+        }
+    }
+
+    fun <T> MutableList<T>.sortByDoubleKey(reverse: Boolean, key: (T) -> Double) {
+        if (size < 2) return
+
+        val entries = Array(size) { DoubleEntry(key(this[it]), this[it]) }
+        entries.sortWith(if (reverse) DOUBLE_DESCENDING else DOUBLE_ASCENDING)
+
+        for (i in entries.indices) {
+            this[i] = entries[i].value
+        }
+    }
+
+    fun <T> MutableList<T>.sortByNameKey(reverse: Boolean, name: (T) -> String?) {
+        if (size < 2) return
+
+        // Collators aren't thread safe, every sort gets its own
+        val collator = getCollator()
+        val entries = Array(size) { NameEntry(collator.getCollationKey(name(this[it]) ?: ""), this[it]) }
+        entries.sortWith(if (reverse) NAME_DESCENDING else NAME_ASCENDING)
+
+        for (i in entries.indices) {
+            this[i] = entries[i].value
+        }
+    }
+
+    /**
+     * Sort by the size of every package's APKs, sizes come from [sizes]
+     * and are only read from the disk once per package version
+     */
+    fun <T> MutableList<T>.sortByPackageSize(reverse: Boolean,
+                                            sizes: PackageSizeCache = PackageSizeCache.instance,
+                                            packageInfo: (T) -> PackageInfo) {
+        sortByLongKey(reverse) { sizes.getSize(packageInfo(it)) }
+    }
+
+    fun getCollator(locale: Locale = Locale.getDefault()): Collator {
+        return Collator.getInstance(locale).apply {
+            strength = Collator.SECONDARY
+        }
+    }
+
+    private class LongEntry<T>(@JvmField val key: Long, @JvmField val value: T)
+
+    private class DoubleEntry<T>(@JvmField val key: Double, @JvmField val value: T)
+
+    private class NameEntry<T>(@JvmField val key: CollationKey, @JvmField val value: T)
+}
@@ -2,6 +2,8 @@ package app.simple.inure.util
 
 import app.simple.inure.models.AudioModel
 import app.simple.inure.preferences.MusicPreferences
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
 
 object SortMusic {
 
@@ -35,18 +37,10 @@ object SortMusic {
     }
 
     private fun ArrayList<AudioModel>.sortByName(reverse: Boolean) {
-        if (reverse) {
-            this.sortByDescending { it.name }
-        } else {
-            this.sortBy { it.name }
-        }
+        sortByNameKey(reverse) { it.name }
     }
 
     private fun ArrayList<AudioModel>.sortByDate(reverse: Boolean) {
-        if (reverse) {
-            this.sortByDescending { it.dateAdded }
-        } else {
-            this.sortBy { it.dateAdded }
-        }
+        sortByLongKey(reverse) { it.dateAdded }
     }
 }
\ No newline at end of file
@@ -2,7 +2,8 @@ package app.simple.inure.util
 
 import android.hardware.Sensor
 import app.simple.inure.preferences.SensorsPreferences
-import java.util.*
+import app.simple.inure.util.SortKeys.sortByDoubleKey
+import app.simple.inure.util.SortKeys.sortByNameKey
 
 object SortSensors {
 
@@ -44,14 +45,8 @@ object SortSensors {
      * sort [Sensor] by [Sensor.getName]
      */
     private fun MutableList<Sensor>.sortByName() {
-        return if (SensorsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(SensorsPreferences.isReverseSorting()) {
+            it.name
         }
     }
 
@@ -59,14 +54,8 @@ object SortSensors {
      * sort [Sensor] by [Sensor.getPower]
      */
     private fun MutableList<Sensor>.sortByPower() {
-        return if (SensorsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.power
-            }
-        } else {
-            this.sortBy {
-                it.power
-            }
+        sortByDoubleKey(SensorsPreferences.isReverseSorting()) {
+            it.power.toDouble()
         }
     }
 
@@ -74,14 +63,8 @@ object SortSensors {
      * sort [Sensor] by [Sensor.getMaximumRange]
      */
     private fun MutableList<Sensor>.sortByMaximumRange() {
-        return if (SensorsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.maximumRange
-            }
-        } else {
-            this.sortBy {
-                it.maximumRange
-            }
+        sortByDoubleKey(SensorsPreferences.isReverseSorting()) {
+            it.maximumRange.toDouble()
         }
     }
 
@@ -89,14 +72,8 @@ object SortSensors {
      * sort [Sensor] by [Sensor.getResolution]
      */
     private fun MutableList<Sensor>.sortByResolution() {
-        return if (SensorsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.resolution
-            }
-        } else {
-            this.sortBy {
-                it.resolution
-            }
+        sortByDoubleKey(SensorsPreferences.isReverseSorting()) {
+            it.resolution.toDouble()
         }
     }
 }
\ No newline at end of file
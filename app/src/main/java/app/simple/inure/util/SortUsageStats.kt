@@ -4,7 +4,8 @@ import android.os.Build
 import androidx.annotation.RequiresApi
 import app.simple.inure.models.PackageStats
 import app.simple.inure.preferences.StatisticsPreferences
-import java.util.*
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
 
 object SortUsageStats {
     const val TIME_USED = "time"
@@ -67,147 +68,75 @@ object SortUsageStats {
     }
 
     private fun ArrayList<PackageStats>.sortByName() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.packageInfo!!.applicationInfo.name.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo!!.applicationInfo.name.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(StatisticsPreferences.isReverseSorting()) {
+            it.packageInfo!!.applicationInfo.name
         }
     }
 
     private fun ArrayList<PackageStats>.sortByTime() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.totalTimeUsed
-            }
-        } else {
-            this.sortBy {
-                it.totalTimeUsed
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.totalTimeUsed
         }
     }
 
     private fun ArrayList<PackageStats>.sortByDataSent() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.mobileData?.tx
-            }
-        } else {
-            this.sortBy {
-                it.mobileData?.tx
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.mobileData?.tx ?: Long.MIN_VALUE
         }
     }
 
     private fun ArrayList<PackageStats>.sortByDataReceived() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.mobileData?.rx
-            }
-        } else {
-            this.sortBy {
-                it.mobileData?.rx
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.mobileData?.rx ?: Long.MIN_VALUE
         }
     }
 
     private fun ArrayList<PackageStats>.sortByWifiSent() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.wifiData?.tx
-            }
-        } else {
-            this.sortBy {
-                it.wifiData?.tx
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.wifiData?.tx ?: Long.MIN_VALUE
         }
     }
 
     private fun ArrayList<PackageStats>.sortByWifiReceived() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.wifiData?.rx
-            }
-        } else {
-            this.sortBy {
-                it.wifiData?.rx
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.wifiData?.rx ?: Long.MIN_VALUE
         }
     }
 
     private fun ArrayList<PackageStats>.sortByPackageName() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.packageInfo!!.packageName.lowercase(Locale.getDefault())
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo!!.packageName.lowercase(Locale.getDefault())
-            }
+        sortByNameKey(StatisticsPreferences.isReverseSorting()) {
+            it.packageInfo!!.packageName
         }
     }
 
     private fun ArrayList<PackageStats>.sortBySize() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.appSize
-            }
-        } else {
-            this.sortBy {
-                it.appSize
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.appSize
         }
     }
 
     private fun ArrayList<PackageStats>.sortByInstallDate() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.packageInfo!!.firstInstallTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo!!.firstInstallTime
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.packageInfo!!.firstInstallTime
         }
     }
 
     private fun ArrayList<PackageStats>.sortByUpdateDate() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.packageInfo!!.lastUpdateTime
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo!!.lastUpdateTime
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.packageInfo!!.lastUpdateTime
         }
     }
 
     private fun ArrayList<PackageStats>.sortByTargetSdk() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.packageInfo!!.applicationInfo.targetSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo!!.applicationInfo.targetSdkVersion
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.packageInfo!!.applicationInfo.targetSdkVersion.toLong()
         }
     }
 
     @RequiresApi(Build.VERSION_CODES.N)
     private fun ArrayList<PackageStats>.sortByMinimumSdk() {
-        return if (StatisticsPreferences.isReverseSorting()) {
-            this.sortByDescending {
-                it.packageInfo!!.applicationInfo.minSdkVersion
-            }
-        } else {
-            this.sortBy {
-                it.packageInfo!!.applicationInfo.minSdkVersion
-            }
+        sortByLongKey(StatisticsPreferences.isReverseSorting()) {
+            it.packageInfo!!.applicationInfo.minSdkVersion.toLong()
         }
     }
 }
\ No newline at end of file
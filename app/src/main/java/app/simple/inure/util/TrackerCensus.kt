@@ -0,0 +1,164 @@
+package app.simple.inure.util
+
+import android.content.Context
+import android.content.pm.PackageInfo
+import android.content.pm.PackageManager
+import android.os.Build
+import android.util.Log
+import androidx.core.content.pm.PackageInfoCompat
+import app.simple.inure.apk.utils.PackageUtils.getPackageInfo
+import app.simple.inure.database.instances.TrackerScanDatabase
+import app.simple.inure.models.TrackerScan
+import app.simple.inure.util.ConditionUtils.invert
+import app.simple.inure.util.TrackerUtils.getTrackerMatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.withContext
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Background tracker scan of every installed package. Results are
+ * persisted in [TrackerScanDatabase] keyed by package name, version
+ * code and last update time so subsequent runs only rescan packages
+ * that were installed or updated since the last census.
+ */
+object TrackerCensus {
+
+    private const val TAG = "TrackerCensus"
+    private const val BATCH_SIZE = 64
+
+    /**
+     * SQLite can't bind more than 999 arguments in a single query
+     */
+    private const val MAX_QUERY_ARGUMENTS = 900
+
+    private val isRunning = AtomicBoolean(false)
+
+    @Volatile
+    private var packagesWithTrackers: Set<String>? = null
+
+    @Suppress("DEPRECATION")
+    private val componentFlags = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+        PackageManager.GET_ACTIVITIES or
+                PackageManager.GET_SERVICES or
+                PackageManager.GET_RECEIVERS or
+                PackageManager.MATCH_DISABLED_COMPONENTS
+    } else {
+        PackageManager.GET_ACTIVITIES or
+                PackageManager.GET_SERVICES or
+                PackageManager.GET_RECEIVERS or
+                PackageManager.GET_DISABLED_COMPONENTS
+    }
+
+    private val parallelism: Int
+        get() = Runtime.getRuntime().availableProcessors().coerceIn(2, 4)
+
+    /**
+     * Scan all [packages] whose stored result is missing or stale and
+     * drop the results of packages that aren't in the list anymore.
+     * Concurrent calls are ignored while a census is already running.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    suspend fun scan(context: Context, packages: List<PackageInfo>) {
+        if (isRunning.compareAndSet(false, true).invert()) {
+            return
+        }
+
+        try {
+            withContext(Dispatchers.IO) {
+                val dao = TrackerScanDatabase.getInstance(context)?.getTrackerScanDao() ?: return@withContext
+                val stored = dao.getAllScans().associateBy { it.packageName }
+                val matcher = context.getTrackerMatcher()
+                val dispatcher = Dispatchers.IO.limitedParallelism(parallelism)
+
+                val changed = packages.filter {
+                    stored[it.packageName]?.isSameVersion(it.getVersionCode(), it.lastUpdateTime) != true
+                }
+
+                Log.d(TAG, "Scanning ${changed.size} of ${packages.size} packages")
+
+                for (chunk in changed.chunked(BATCH_SIZE)) {
+                    ensureActive()
+
+                    val results = coroutineScope {
+                        chunk.map { packageInfo ->
+                            async(dispatcher) {
+                                scanPackage(context, matcher, packageInfo)
+                            }
+                        }.awaitAll()
+                    }
+
+                    dao.insertScans(results.filterNotNull())
+                }
+
+                val installed = packages.mapTo(HashSet(packages.size)) { it.packageName }
+                val removed = stored.keys.filter { it !in installed }
+
+                for (chunk in removed.chunked(MAX_QUERY_ARGUMENTS)) {
+                    dao.deleteScans(chunk)
+                }
+
+                packagesWithTrackers = dao.getPackagesWithTrackers().toHashSet()
+            }
+        } finally {
+            isRunning.set(false)
+        }
+    }
+
+    /**
+     * @return the package names that had at least one tracker in the
+     *         last census, read from the database only once
+     */
+    fun getPackagesWithTrackers(context: Context): Set<String> {
+        return packagesWithTrackers ?: kotlin.runCatching {
+            TrackerScanDatabase.getInstance(context)?.getTrackerScanDao()
+                ?.getPackagesWithTrackers()?.toHashSet()
+        }.getOrNull().also {
+            packagesWithTrackers = it
+        } ?: emptySet()
+    }
+
+    /**
+     * @return the tracker components stored for [packageInfo] or null if
+     *         the package hasn't been scanned in its current version
+     */
+    fun getStoredTrackers(context: Context, packageInfo: PackageInfo): List<String>? {
+        return kotlin.runCatching {
+            val scan = TrackerScanDatabase.getInstance(context)?.getTrackerScanDao()?.getScan(packageInfo.packageName)
+
+            if (scan != null && scan.isSameVersion(packageInfo.getVersionCode(), packageInfo.lastUpdateTime)) {
+                scan.trackers.split("\n").filter { it.isNotEmpty() }
+            } else {
+                null
+            }
+        }.getOrNull()
+    }
+
+    private fun scanPackage(context: Context, matcher: TrackerMatcher, packageInfo: PackageInfo): TrackerScan? {
+        val info = context.packageManager.getPackageInfo(packageInfo.packageName, componentFlags) ?: return null
+        val trackers = arrayListOf<String>()
+
+        info.activities?.forEach {
+            if (matcher.hasMatch(it.name)) trackers.add(it.name)
+        }
+
+        info.services?.forEach {
+            if (matcher.hasMatch(it.name)) trackers.add(it.name)
+        }
+
+        info.receivers?.forEach {
+            if (matcher.hasMatch(it.name)) trackers.add(it.name)
+        }
+
+        return TrackerScan(info.packageName, info.getVersionCode(), info.lastUpdateTime,
+                           trackers.size, trackers.joinToString("\n"))
+    }
+
+    private fun PackageInfo.getVersionCode(): Long {
+        return PackageInfoCompat.getLongVersionCode(this)
+    }
+}
@@ -0,0 +1,356 @@
+package app.simple.inure.util
+
+import java.util.BitSet
+
+/**
+ * Aho–Corasick automaton over the tracker signatures. It is built
+ * once, matches case-insensitively and scans every class name in a
+ * single pass no matter how many signatures are loaded.
+ *
+ * Signatures keep their original order, [firstMatch] returns the
+ * one with the lowest index so results are identical to the old
+ * nested `contains()` loops.
+ */
+class TrackerMatcher(signatures: List<String>) {
+
+    val signatures: List<String> = signatures.filter { it.isNotEmpty() }.distinct()
+
+    private var nodeCount = 1
+
+    // Trie structure, first-child/next-sibling lists used only for the BFS
+    private var firstChild = IntArray(INITIAL_CAPACITY) { NONE }
+    private var nextSibling = IntArray(INITIAL_CAPACITY) { NONE }
+    private var fail = IntArray(INITIAL_CAPACITY)
+    private var label = CharArray(INITIAL_CAPACITY)
+
+    /**
+     * Lowest signature index ending at this node or any of its
+     * suffixes, [NONE] if there is none
+     */
+    private var output = IntArray(INITIAL_CAPACITY) { NONE }
+
+    /**
+     * Signature index ending exactly at this node, [NONE] if none
+     */
+    private var terminal = IntArray(INITIAL_CAPACITY) { NONE }
+
+    /**
+     * Nearest proper suffix node that is terminal, [NONE] if none
+     */
+    private var dictionaryLink = IntArray(INITIAL_CAPACITY) { NONE }
+
+    // Open addressing table of (state, char) -> state
+    private var edgeKeys = LongArray(INITIAL_CAPACITY * 2) { EMPTY }
+    private var edgeValues = IntArray(INITIAL_CAPACITY * 2)
+    private var edgeCount = 0
+
+    init {
+        for ((index, signature) in this.signatures.withIndex()) {
+            insert(signature, index)
+        }
+
+        buildFailureLinks()
+    }
+
+    /**
+     * @return true if [name] contains any of the signatures
+     */
+    fun hasMatch(name: String): Boolean {
+        return firstMatchIndex(name) != NONE
+    }
+
+    /**
+     * @return the signature with the lowest index contained in [name]
+     *         or null if there is none
+     */
+    fun firstMatch(name: String): String? {
+        val index = firstMatchIndex(name)
+        return if (index == NONE) null else signatures[index]
+    }
+
+    /**
+     * Same as [firstMatch] but only for names containing [keyword],
+     * any matched signature is a substring of the name so checking
+     * the signature for the keyword as well is never needed.
+     * [keyword] must already be lowercase.
+     */
+    fun firstMatch(name: String, keyword: String): String? {
+        if (keyword.isEmpty() || name.lowercase().contains(keyword)) {
+            return firstMatch(name)
+        }
+
+        return null
+    }
+
+    /**
+     * @return every signature contained in [name] ordered by their
+     *         index in [signatures]
+     */
+    fun allMatches(name: String): List<String> {
+        var matched: BitSet? = null
+        var state = 0
+
+        for (c in name) {
+            state = step(state, Character.toLowerCase(c))
+
+            if (output[state] != NONE) {
+                val bits = matched ?: BitSet(signatures.size).also { matched = it }
+                var node = if (terminal[state] != NONE) state else dictionaryLink[state]
+
+                while (node != NONE) {
+                    bits.set(terminal[node])
+                    node = dictionaryLink[node]
+                }
+            }
+        }
+
+        val bits = matched ?: return emptyList()
+        val list = ArrayList<String>(bits.cardinality())
+        var i = bits.nextSetBit(0)
+
+        while (i >= 0) {
+            list.add(signatures[i])
+            i = bits.nextSetBit(i + 1)
+        }
+
+        return list
+    }
+
+    /**
+     * Match a dex type descriptor such as `Lcom/example/Foo;` as if
+     * it was the class name `com.example.Foo` without allocating it.
+     * Every matched signature index is set in [found], indices that
+     * weren't set before are also set in [newlyFound].
+     *
+     * @return number of newly found signatures
+     */
+    fun matchDescriptor(descriptor: CharSequence, found: BitSet, newlyFound: BitSet): Int {
+        var start = 0
+        var end = descriptor.length
+        var count = 0
+        var state = 0
+
+        if (end > 0 && descriptor[0] == 'L') start++
+        if (end > start && descriptor[end - 1] == ';') end--
+
+        for (i in start until end) {
+            val c = descriptor[i]
+            state = step(state, if (c == '/') '.' else Character.toLowerCase(c))
+
+            if (output[state] != NONE) {
+                var node = if (terminal[state] != NONE) state else dictionaryLink[state]
+
+                while (node != NONE) {
+                    val index = terminal[node]
+
+                    if (found[index].not()) {
+                        found.set(index)
+                        newlyFound.set(index)
+                        count++
+                    }
+
+                    node = dictionaryLink[node]
+                }
+            }
+        }
+
+        return count
+    }
+
+    private fun firstMatchIndex(name: String): Int {
+        var best = NONE
+        var state = 0
+
+        for (c in name) {
+            state = step(state, Character.toLowerCase(c))
+            val found = output[state]
+
+            if (found != NONE && (best == NONE || found < best)) {
+                best = found
+
+                if (best == 0) {
+                    return best
+                }
+            }
+        }
+
+        return best
+    }
+
+    private fun step(from: Int, c: Char): Int {
+        var state = from
+
+        while (true) {
+            val next = getEdge(state, c)
+
+            if (next != NONE) {
+                return next
+            }
+
+            if (state == 0) {
+                return 0
+            }
+
+            state = fail[state]
+        }
+    }
+
+    private fun insert(signature: String, index: Int) {
+        var state = 0
+
+        for (c in signature) {
+            val lower = Character.toLowerCase(c)
+            var next = getEdge(state, lower)
+
+            if (next == NONE) {
+                next = newNode()
+                putEdge(state, lower, next)
+                label[next] = lower
+                nextSibling[next] = firstChild[state]
+                firstChild[state] = next
+            }
+
+            state = next
+        }
+
+        if (terminal[state] == NONE || index < terminal[state]) {
+            terminal[state] = index
+        }
+    }
+
+    private fun buildFailureLinks() {
+        val queue = IntArray(nodeCount)
+        var head = 0
+        var tail = 0
+
+        output[0] = terminal[0]
+        var child = firstChild[0]
+
+        while (child != NONE) {
+            fail[child] = 0
+            output[child] = terminal[child]
+            queue[tail++] = child
+            child = nextSibling[child]
+        }
+
+        while (head < tail) {
+            val state = queue[head++]
+            child = firstChild[state]
+
+            while (child != NONE) {
+                val c = label[child]
+                var f = fail[state]
+
+                while (f != 0 && getEdge(f, c) == NONE) {
+                    f = fail[f]
+                }
+
+                val target = getEdge(f, c)
+                fail[child] = if (target == NONE || target == child) 0 else target
+
+                val suffix = fail[child]
+                dictionaryLink[child] = if (terminal[suffix] != NONE) suffix else dictionaryLink[suffix]
+
+                output[child] = when {
+                    terminal[child] == NONE -> output[suffix]
+                    output[suffix] == NONE -> terminal[child]
+                    else -> minOf(terminal[child], output[suffix])
+                }
+
+                queue[tail++] = child
+                child = nextSibling[child]
+            }
+        }
+    }
+
+    private fun newNode(): Int {
+        if (nodeCount == fail.size) {
+            val capacity = fail.size * 2
+            firstChild = firstChild.grow(capacity)
+            nextSibling = nextSibling.grow(capacity)
+            fail = fail.copyOf(capacity)
+            label = label.copyOf(capacity)
+            output = output.grow(capacity)
+            terminal = terminal.grow(capacity)
+            dictionaryLink = dictionaryLink.grow(capacity)
+        }
+
+        return nodeCount++
+    }
+
+    private fun getEdge(state: Int, c: Char): Int {
+        val key = key(state, c)
+        val mask = edgeKeys.size - 1
+        var slot = hash(key) and mask
+
+        while (true) {
+            val existing = edgeKeys[slot]
+
+            if (existing == EMPTY) {
+                return NONE
+            }
+
+            if (existing == key) {
+                return edgeValues[slot]
+            }
+
+            slot = (slot + 1) and mask
+        }
+    }
+
+    private fun putEdge(state: Int, c: Char, target: Int) {
+        if ((edgeCount + 1) * 2 > edgeKeys.size) {
+            rehash(edgeKeys.size * 2)
+        }
+
+        insertEdge(key(state, c), target)
+        edgeCount++
+    }
+
+    private fun insertEdge(key: Long, target: Int) {
+        val mask = edgeKeys.size - 1
+        var slot = hash(key) and mask
+
+        while (edgeKeys[slot] != EMPTY) {
+            slot = (slot + 1) and mask
+        }
+
+        edgeKeys[slot] = key
+        edgeValues[slot] = target
+    }
+
+    private fun rehash(capacity: Int) {
+        val oldKeys = edgeKeys
+        val oldValues = edgeValues
+
+        edgeKeys = LongArray(capacity) { EMPTY }
+        edgeValues = IntArray(capacity)
+
+        for (i in oldKeys.indices) {
+            if (oldKeys[i] != EMPTY) {
+                insertEdge(oldKeys[i], oldValues[i])
+            }
+        }
+    }
+
+    private fun IntArray.grow(capacity: Int): IntArray {
+        val array = copyOf(capacity)
+        array.fill(NONE, size, capacity)
+        return array
+    }
+
+    companion object {
+        private const val NONE = -1
+        private const val EMPTY = -1L
+        private const val INITIAL_CAPACITY = 1024
+
+        private fun key(state: Int, c: Char): Long {
+            return (state.toLong() shl 16) or c.code.toLong()
+        }
+
+        private fun hash(key: Long): Int {
+            val h = key * -0x61c8864680b583ebL
+            return (h xor (h ushr 32)).toInt()
+        }
+    }
+}
@@ -5,6 +5,10 @@ import app.simple.inure.R
 import app.simple.inure.util.ConditionUtils.invert
 
 object TrackerUtils {
+
+    @Volatile
+    private var trackerMatcher: TrackerMatcher? = null
+
     fun Context.getTrackerSignatures(): List<String> {
         val trackers = resources.getStringArray(R.array.trackers).filter {
             it.isNullOrEmpty().invert()
@@ -16,4 +20,16 @@ object TrackerUtils {
 
         return (trackers + oldTrackers).distinct()
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the process-wide [TrackerMatcher] built from [getTrackerSignatures],
+     * the automaton is compiled only on the first call
+     */
+    fun Context.getTrackerMatcher(): TrackerMatcher {
+        return trackerMatcher ?: synchronized(this@TrackerUtils) {
+            trackerMatcher ?: TrackerMatcher(applicationContext.getTrackerSignatures()).also {
+                trackerMatcher = it
+            }
+        }
+    }
+}
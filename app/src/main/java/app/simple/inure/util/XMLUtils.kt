@@ -1,16 +1,14 @@
 package app.simple.inure.util
 
 import android.graphics.Color
-import android.text.Spannable
-import android.text.SpannableString
-import android.text.style.ForegroundColorSpan
+import android.widget.TextView
 import app.simple.inure.preferences.AppearancePreferences
+import app.simple.inure.text.ViewportHighlighter
+import app.simple.inure.text.XmlTokenizer
 import org.w3c.dom.NodeList
 import org.xml.sax.InputSource
 import java.io.ByteArrayInputStream
 import java.io.StringWriter
-import java.util.regex.Matcher
-import java.util.regex.Pattern
 import javax.xml.parsers.DocumentBuilderFactory
 import javax.xml.transform.OutputKeys
 import javax.xml.transform.TransformerFactory
@@ -21,24 +19,7 @@ import javax.xml.xpath.XPathFactory
 
 object XMLUtils {
 
-    private val quotations: Pattern = Pattern.compile("\"([^\"]*)\"", Pattern.MULTILINE)
-
-    @Suppress("RegExpDuplicateAlternationBranch")
-    private val tags = Pattern.compile("" /*Only for indentation */ +
-                                               "<\\w+\\.+\\S+" + // <xml.yml.zml>
-                                               "|<\\w+\\.+\\S+" + // <xml.yml.zml...nthml
-                                               "|</\\w+.+>" + // </xml.yml.zml>
-                                               "|</\\w+-+\\S+>" + // </xml-yml>
-                                               "|<\\w+-+\\S+" + // <xml-yml-zml...nthml
-                                               "|</\\w+>" + // </xml>
-                                               "|</\\w+" + // </xml
-                                               "|<\\w+/>" + // <xml/>
-                                               "|<\\w+>" +  // <xml>
-                                               "|<\\w+" +  // <xml
-                                               "|<.\\w+" + // <?xml
-                                               "|\\?>" + // ?>
-                                               "|/>", // />
-                                       Pattern.MULTILINE or Pattern.CASE_INSENSITIVE)
+    private const val TAG_COLOR = "#2980B9"
 
     /**
      * Format xml file to correct indentation ...
@@ -71,22 +52,21 @@ object XMLUtils {
         }
     }
 
-    fun String.getPrettyXML(): SpannableString {
-        val formattedContent = SpannableString(this)
-        val matcher: Matcher = tags.matcher(this)
-        while (matcher.find()) {
-            formattedContent.setSpan(ForegroundColorSpan(Color.parseColor("#2980B9")), matcher.start(),
-                                     matcher.end(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE)
-        }
+    /**
+     * Highlight the xml shown in this view, only the lines around
+     * the visible part get spans
+     */
+    fun TextView.highlightXml(): ViewportHighlighter {
+        val colors = intArrayOf(
+                AppearancePreferences.getAccentColor(),
+                Color.GRAY, // comments
+                AppearancePreferences.getAccentColor(),
+                Color.parseColor(TAG_COLOR), // tags
+                AppearancePreferences.getAccentColor()) // attribute values
 
-        matcher.usePattern(quotations)
-        while (matcher.find()) {
-            formattedContent.setSpan(ForegroundColorSpan(AppearancePreferences.getAccentColor()),
-                                     matcher.start(), matcher.end(),
-                                     Spannable.SPAN_EXCLUSIVE_EXCLUSIVE)
+        return ViewportHighlighter(this, XmlTokenizer, colors).also {
+            it.attach()
         }
-
-        return formattedContent
     }
 
     fun String.formatXML(): String {
@@ -10,7 +10,7 @@ import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.R
 import app.simple.inure.apk.parsers.APKParser.getApkArchitecture
-import app.simple.inure.apk.parsers.APKParser.getDexData
+import app.simple.inure.apk.parsers.APKParser.getDexMethodCount
 import app.simple.inure.apk.parsers.APKParser.getGlEsVersion
 import app.simple.inure.apk.parsers.APKParser.getMinSDK
 import app.simple.inure.apk.parsers.APKParser.getNativeLibraries
@@ -28,7 +28,6 @@ import app.simple.inure.util.StringUtils.applyAccentColor
 import app.simple.inure.util.StringUtils.applySecondaryTextColor
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
-import net.dongliu.apk.parser.bean.DexClass
 import java.io.File
 import java.text.NumberFormat
 
@@ -177,14 +176,9 @@ class InstallerInformationViewModel(application: Application, private val file:
 
     private fun getMethodCount(): Pair<Int, Spannable> {
         val method = kotlin.runCatching {
-            var count = 0
-            val dexClasses: Array<DexClass> = file.getDexData()
+            val (dexCount, count) = file.getDexMethodCount()
 
-            for (i in dexClasses) {
-                count += i.javaClass.methods.size
-            }
-
-            if (dexClasses.size > 1) {
+            if (dexCount > 1) {
                 String.format(getString(R.string.multi_dex), NumberFormat.getNumberInstance().format(count))
             } else {
                 String.format(getString(R.string.single_dex), NumberFormat.getNumberInstance().format(count))
@@ -17,6 +17,7 @@ import app.simple.inure.preferences.ConfigurationPreferences
 import app.simple.inure.util.ActivityUtils
 import app.simple.inure.util.ConditionUtils.invert
 import app.simple.inure.util.ConditionUtils.isZero
+import app.simple.inure.util.TrackerUtils.getTrackerMatcher
 import com.topjohnwu.superuser.nio.ExtendedFile
 import com.topjohnwu.superuser.nio.FileSystemManager
 import kotlinx.coroutines.Dispatchers
@@ -116,32 +117,28 @@ class InstallerTrackersViewModel(application: Application, private val apkFile:
     }
 
     private fun getActivityTrackers(): ArrayList<Tracker> {
-        val trackerSignatures = getTrackerSignatures()
+        val trackerMatcher = applicationContext().getTrackerMatcher()
         val activities = packageInfo?.activities
         val trackersList = arrayListOf<Tracker>()
 
         if (activities != null) {
             for (activity in activities) {
-                for (signature in trackerSignatures) {
-                    if (activity.name.contains(signature)) {
-                        val tracker = Tracker()
+                trackerMatcher.firstMatch(activity.name)?.let { signature ->
+                    val tracker = Tracker()
 
-                        tracker.activityInfo = activity
-                        tracker.name = activity.name
+                    tracker.activityInfo = activity
+                    tracker.name = activity.name
 
-                        kotlin.runCatching {
-                            tracker.isEnabled = ActivityUtils.isEnabled(applicationContext(), packageInfo?.packageName!!, activity.name)
-                        }
-
-                        tracker.trackerId = signature
-                        tracker.isReceiver = false
-                        tracker.isService = false
-                        tracker.isActivity = true
+                    kotlin.runCatching {
+                        tracker.isEnabled = ActivityUtils.isEnabled(applicationContext(), packageInfo?.packageName!!, activity.name)
+                    }
 
-                        trackersList.add(tracker)
+                    tracker.trackerId = signature
+                    tracker.isReceiver = false
+                    tracker.isService = false
+                    tracker.isActivity = true
 
-                        break
-                    }
+                    trackersList.add(tracker)
                 }
             }
         }
@@ -150,32 +147,28 @@ class InstallerTrackersViewModel(application: Application, private val apkFile:
     }
 
     private fun getServicesTrackers(): ArrayList<Tracker> {
-        val trackerSignatures = getTrackerSignatures()
+        val trackerMatcher = applicationContext().getTrackerMatcher()
         val services = packageInfo?.services
         val trackersList = arrayListOf<Tracker>()
 
         if (services != null) {
             for (service in services) {
-                for (signature in trackerSignatures) {
-                    if (service.name.contains(signature)) {
-                        val tracker = Tracker()
+                trackerMatcher.firstMatch(service.name)?.let { signature ->
+                    val tracker = Tracker()
 
-                        tracker.serviceInfo = service
-                        tracker.name = service.name
+                    tracker.serviceInfo = service
+                    tracker.name = service.name
 
-                        kotlin.runCatching {
-                            tracker.isEnabled = ActivityUtils.isEnabled(applicationContext(), packageInfo?.packageName!!, service.name)
-                        }
-
-                        tracker.trackerId = signature
-                        tracker.isReceiver = false
-                        tracker.isService = true
-                        tracker.isActivity = false
+                    kotlin.runCatching {
+                        tracker.isEnabled = ActivityUtils.isEnabled(applicationContext(), packageInfo?.packageName!!, service.name)
+                    }
 
-                        trackersList.add(tracker)
+                    tracker.trackerId = signature
+                    tracker.isReceiver = false
+                    tracker.isService = true
+                    tracker.isActivity = false
 
-                        break
-                    }
+                    trackersList.add(tracker)
                 }
             }
         }
@@ -184,32 +177,28 @@ class InstallerTrackersViewModel(application: Application, private val apkFile:
     }
 
     private fun getReceiversTrackers(): ArrayList<Tracker> {
-        val trackerSignatures = getTrackerSignatures()
+        val trackerMatcher = applicationContext().getTrackerMatcher()
         val receivers = packageInfo?.receivers
         val trackersList = arrayListOf<Tracker>()
 
         if (receivers != null) {
             for (receiver in receivers) {
-                for (signature in trackerSignatures) {
-                    if (receiver.name.contains(signature)) {
-                        val tracker = Tracker()
-
-                        tracker.activityInfo = receiver
-                        tracker.name = receiver.name
+                trackerMatcher.firstMatch(receiver.name)?.let { signature ->
+                    val tracker = Tracker()
 
-                        kotlin.runCatching {
-                            tracker.isEnabled = ActivityUtils.isEnabled(applicationContext(), packageInfo?.packageName!!, receiver.name)
-                        }
+                    tracker.activityInfo = receiver
+                    tracker.name = receiver.name
 
-                        tracker.trackerId = signature
-                        tracker.isReceiver = true
-                        tracker.isService = false
-                        tracker.isActivity = false
+                    kotlin.runCatching {
+                        tracker.isEnabled = ActivityUtils.isEnabled(applicationContext(), packageInfo?.packageName!!, receiver.name)
+                    }
 
-                        trackersList.add(tracker)
+                    tracker.trackerId = signature
+                    tracker.isReceiver = true
+                    tracker.isService = false
+                    tracker.isActivity = false
 
-                        break
-                    }
+                    trackersList.add(tracker)
                 }
             }
         }
@@ -217,10 +206,6 @@ class InstallerTrackersViewModel(application: Application, private val apkFile:
         return trackersList
     }
 
-    private fun getTrackerSignatures(): List<String> {
-        return applicationContext().resources.getStringArray(R.array.trackers).filter { it.isNullOrEmpty().invert() }
-    }
-
     override fun runRootProcess(fileSystemManager: FileSystemManager?) {
         scanTrackers()
     }
@@ -50,7 +50,7 @@ class AnalyticsViewModel(application: Application) : PackageUtilsViewModel(appli
     }
 
     @RequiresApi(Build.VERSION_CODES.N)
-    private fun loadMinimumOsData(apps: ArrayList<PackageInfo>) {
+    private fun loadMinimumOsData(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             val data = arrayListOf<PieEntry>()
             val colors = arrayListOf<Int>()
@@ -75,7 +75,7 @@ class AnalyticsViewModel(application: Application) : PackageUtilsViewModel(appli
         }
     }
 
-    private fun loadTargetOsData(apps: ArrayList<PackageInfo>) {
+    private fun loadTargetOsData(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             val data = arrayListOf<PieEntry>()
             val colors = arrayListOf<Int>()
@@ -100,7 +100,7 @@ class AnalyticsViewModel(application: Application) : PackageUtilsViewModel(appli
         }
     }
 
-    private fun loadInstallLocationData(apps: ArrayList<PackageInfo>) {
+    private fun loadInstallLocationData(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             val data = arrayListOf<PieEntry>()
             val colors = arrayListOf<Int>()
@@ -128,7 +128,7 @@ class AnalyticsViewModel(application: Application) : PackageUtilsViewModel(appli
         }
     }
 
-    private fun loadPackageTypeData(apps: ArrayList<PackageInfo>) {
+    private fun loadPackageTypeData(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             val data = arrayListOf<PieEntry>()
             val colors = arrayListOf<Int>()
@@ -151,7 +151,12 @@ class AnalyticsViewModel(application: Application) : PackageUtilsViewModel(appli
         }
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
+        if (getPackageDiff().isEmpty()) {
+            // Same packages, the charts would come out the same
+            return
+        }
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             loadMinimumOsData(apps)
         }
@@ -27,7 +27,7 @@ import app.simple.inure.util.ArrayUtils.toArrayList
 import app.simple.inure.util.ConditionUtils.invert
 import app.simple.inure.util.FileUtils.toFile
 import app.simple.inure.util.FlagUtils
-import app.simple.inure.util.TrackerUtils.getTrackerSignatures
+import app.simple.inure.util.TrackerUtils.getTrackerMatcher
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 
@@ -333,38 +333,29 @@ class AppInfoMenuViewModel(application: Application, val packageInfo: PackageInf
                     }
                 }
 
-                val trackers = application.getTrackerSignatures()
+                val trackerMatcher = application.getTrackerMatcher()
                 var count = 0
 
                 if (packageInfo.activities != null) {
                     for (activity in packageInfo.activities) {
-                        for (tracker in trackers) {
-                            if (activity.name.lowercase().contains(tracker.lowercase())) {
-                                count++
-                                break
-                            }
+                        if (trackerMatcher.hasMatch(activity.name)) {
+                            count++
                         }
                     }
                 }
 
                 if (packageInfo.services != null) {
                     for (service in packageInfo.services) {
-                        for (tracker in trackers) {
-                            if (service.name.lowercase().contains(tracker.lowercase())) {
-                                count++
-                                break
-                            }
+                        if (trackerMatcher.hasMatch(service.name)) {
+                            count++
                         }
                     }
                 }
 
                 if (packageInfo.receivers != null) {
                     for (receiver in packageInfo.receivers) {
-                        for (tracker in trackers) {
-                            if (receiver.name.lowercase().contains(tracker.lowercase())) {
-                                count++
-                                break
-                            }
+                        if (trackerMatcher.hasMatch(receiver.name)) {
+                            count++
                         }
                     }
                 }
@@ -1,21 +1,18 @@
 package app.simple.inure.viewmodels.panels
 
 import android.app.Application
-import android.content.pm.ApplicationInfo
 import android.content.pm.PackageInfo
 import android.os.Build
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
-import app.simple.inure.apk.utils.PackageUtils
 import app.simple.inure.constants.SortConstant
 import app.simple.inure.database.instances.BatchDatabase
 import app.simple.inure.extensions.viewmodels.DataGeneratorViewModel
 import app.simple.inure.models.BatchModel
 import app.simple.inure.models.BatchPackageInfo
 import app.simple.inure.preferences.BatchPreferences
-import app.simple.inure.util.ArrayUtils.toArrayList
-import app.simple.inure.util.FlagUtils
+import app.simple.inure.util.PackageFilter
 import app.simple.inure.util.Sort.getSortedList
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -46,7 +43,7 @@ class BatchViewModel(application: Application) : DataGeneratorViewModel(applicat
     @Suppress("UNCHECKED_CAST")
     private fun loadAppData() {
         viewModelScope.launch(Dispatchers.Default) {
-            var apps = (getInstalledApps() + getUninstalledApps()).toArrayList()
+            var apps = ArrayList(getAllApps())
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
                 apps.removeIf { it.packageName == applicationContext().packageName }
@@ -54,60 +51,16 @@ class BatchViewModel(application: Application) : DataGeneratorViewModel(applicat
                 apps = apps.filter { it.packageName != applicationContext().packageName } as ArrayList<PackageInfo>
             }
 
-            when (BatchPreferences.getAppsCategory()) {
-                SortConstant.SYSTEM -> {
-                    apps = apps.stream().filter { p ->
-                        p.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0
-                    }.collect(Collectors.toList()) as ArrayList<PackageInfo>
-                }
-                SortConstant.USER -> {
-                    apps = apps.stream().filter { p ->
-                        p.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM == 0
-                    }.collect(Collectors.toList()) as ArrayList<PackageInfo>
-                }
-            }
+            apps = apps.filter { PackageFilter.isOfType(it, BatchPreferences.getAppsCategory()) } as ArrayList<PackageInfo>
 
             apps.getSortedList(BatchPreferences.getSortStyle(), BatchPreferences.isReverseSorting())
 
             val list = getBatchStateData(apps.clone() as ArrayList<PackageInfo>)
-            var filtered = arrayListOf<BatchPackageInfo>()
-
-            for (item in list) {
-                if (FlagUtils.isFlagSet(BatchPreferences.getAppsFilter(), SortConstant.BATCH_SELECTED)) {
-                    if (item.isSelected) {
-                        if (!filtered.contains(item)) {
-                            filtered.add(item)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(BatchPreferences.getAppsFilter(), SortConstant.BATCH_NOT_SELECTED)) {
-                    if (!item.isSelected) {
-                        if (!filtered.contains(item)) {
-                            filtered.add(item)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(BatchPreferences.getAppsFilter(), SortConstant.BATCH_ENABLED)) {
-                    if (item.packageInfo.applicationInfo.enabled) {
-                        if (!filtered.contains(item)) {
-                            filtered.add(item)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(BatchPreferences.getAppsFilter(), SortConstant.BATCH_DISABLED)) {
-                    if (!item.packageInfo.applicationInfo.enabled) {
-                        if (!filtered.contains(item)) {
-                            filtered.add(item)
-                        }
-                    }
-                }
+            val filtered = PackageFilter.anyOf(list, BatchPreferences.getAppsFilter()) {
+                (if (it.isSelected) SortConstant.BATCH_SELECTED else SortConstant.BATCH_NOT_SELECTED) or
+                        if (it.packageInfo.applicationInfo.enabled) SortConstant.BATCH_ENABLED else SortConstant.BATCH_DISABLED
             }
 
-            filtered = filtered.stream().distinct().collect(Collectors.toList()) as ArrayList<BatchPackageInfo>
-
             batchData.postValue(filtered)
         }
     }
@@ -152,7 +105,7 @@ class BatchViewModel(application: Application) : DataGeneratorViewModel(applicat
         return list
     }
 
-    private fun getSelectedBatchStateData(apps: ArrayList<PackageInfo>): ArrayList<BatchPackageInfo> {
+    private fun getSelectedBatchStateData(apps: List<PackageInfo>): ArrayList<BatchPackageInfo> {
         batchDatabase = BatchDatabase.getInstance(context)
 
         var list = arrayListOf<BatchPackageInfo>()
@@ -179,11 +132,6 @@ class BatchViewModel(application: Application) : DataGeneratorViewModel(applicat
 
         list = list.stream().filter { p -> p.isSelected }.collect(Collectors.toList()) as ArrayList<BatchPackageInfo>
 
-        for (i in list.indices) {
-            list[i].packageInfo.applicationInfo.name = PackageUtils.getApplicationName(
-                    application.applicationContext, list[i].packageInfo.applicationInfo)
-        }
-
         if (BatchPreferences.isSelectionOnTop()) {
             list.sortByDescending {
                 it.isSelected
@@ -220,10 +168,33 @@ class BatchViewModel(application: Application) : DataGeneratorViewModel(applicat
         loadAppData()
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         loadAppData()
     }
 
+    override fun onAppsRelabelled(apps: List<PackageInfo>) {
+        relabelBatchData()
+    }
+
+    override fun onUninstalledAppsRelabelled(uninstalledApps: List<PackageInfo>) {
+        relabelBatchData()
+    }
+
+    /**
+     * Swap the relabelled apps into the batch, selections and order are
+     * kept. Set on the main thread so a list [loadAppData] is still
+     * posting replaces this one.
+     */
+    private fun relabelBatchData() {
+        batchData.value?.let { list ->
+            val packages = relabel(list.map { it.packageInfo })
+
+            batchData.value = list.indices.mapTo(ArrayList(list.size)) {
+                BatchPackageInfo(packages[it], list[it].isSelected, list[it].dateSelected)
+            }
+        }
+    }
+
     override fun onCleared() {
         super.onCleared()
         batchDatabase?.close()
@@ -8,7 +8,6 @@ import android.util.Log
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
-import app.simple.inure.apk.utils.PackageUtils
 import app.simple.inure.constants.SortConstant
 import app.simple.inure.extensions.viewmodels.RootShizukuViewModel
 import app.simple.inure.models.BatteryOptimizationModel
@@ -118,12 +117,6 @@ class BatteryOptimizationViewModel(application: Application) : RootShizukuViewMo
 
                         filtered = filtered.distinct() as ArrayList<BatteryOptimizationModel>
 
-                        for (app in filtered) {
-                            kotlin.runCatching {
-                                app.packageInfo.applicationInfo.name = PackageUtils.getApplicationName(applicationContext(), app.packageInfo.packageName)
-                            }
-                        }
-
                         filtered.getSortedList()
                         batteryOptimizationData.postValue(filtered)
                     }
@@ -208,12 +201,6 @@ class BatteryOptimizationViewModel(application: Application) : RootShizukuViewMo
 
                     filtered = filtered.distinct() as ArrayList<BatteryOptimizationModel>
 
-                    for (app in filtered) {
-                        kotlin.runCatching {
-                            app.packageInfo.applicationInfo.name = PackageUtils.getApplicationName(applicationContext(), app.packageInfo.packageName)
-                        }
-                    }
-
                     filtered.getSortedList()
                     batteryOptimizationData.postValue(filtered)
                 }
@@ -293,7 +280,7 @@ class BatteryOptimizationViewModel(application: Application) : RootShizukuViewMo
         loadBatteryOptimizationShizuku()
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         super.onAppsLoaded(apps)
         initializeCoreFramework()
     }
@@ -1,7 +1,6 @@
 package app.simple.inure.viewmodels.panels
 
 import android.app.Application
-import android.content.pm.ApplicationInfo
 import android.content.pm.PackageInfo
 import android.content.pm.PackageManager
 import android.content.pm.ResolveInfo
@@ -18,7 +17,7 @@ import app.simple.inure.constants.Warnings
 import app.simple.inure.extensions.viewmodels.RootShizukuViewModel
 import app.simple.inure.models.BootManagerModel
 import app.simple.inure.preferences.BootManagerPreferences
-import app.simple.inure.util.FlagUtils
+import app.simple.inure.util.PackageFilter
 import app.simple.inure.util.SortBootManager.getSortedList
 import com.topjohnwu.superuser.Shell
 import kotlinx.coroutines.Dispatchers
@@ -101,43 +100,20 @@ class BootManagerViewModel(application: Application) : RootShizukuViewModel(appl
                 bootManagerModelArrayList.add(bootManagerModel)
             }
 
-            when (BootManagerPreferences.getAppsCategory()) {
-                SortConstant.SYSTEM -> {
-                    bootManagerModelArrayList = bootManagerModelArrayList.stream().filter { p ->
-                        p.packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0
-                    }.collect(Collectors.toList()) as ArrayList<BootManagerModel>
-                }
-                SortConstant.USER -> {
-                    bootManagerModelArrayList = bootManagerModelArrayList.stream().filter { p ->
-                        p.packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM == 0
-                    }.collect(Collectors.toList()) as ArrayList<BootManagerModel>
-                }
-            }
+            bootManagerModelArrayList = bootManagerModelArrayList.filter {
+                PackageFilter.isOfType(it.packageInfo, BootManagerPreferences.getAppsCategory())
+            } as ArrayList<BootManagerModel>
 
             bootManagerModelArrayList.getSortedList()
 
-            var filteredList = ArrayList<BootManagerModel>()
-
-            for (app in bootManagerModelArrayList) {
-                if (FlagUtils.isFlagSet(BootManagerPreferences.getFilter(), SortConstant.BOOT_ENABLED)) {
-                    if (app.enabledComponents.isNotEmpty() && app.disabledComponents.isEmpty()) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(BootManagerPreferences.getFilter(), SortConstant.BOOT_DISABLED)) {
-                    if (app.disabledComponents.isNotEmpty() && app.enabledComponents.isEmpty()) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
+            val filteredList = PackageFilter.anyOf(bootManagerModelArrayList, BootManagerPreferences.getFilter()) {
+                when {
+                    it.enabledComponents.isNotEmpty() && it.disabledComponents.isEmpty() -> SortConstant.BOOT_ENABLED
+                    it.disabledComponents.isNotEmpty() && it.enabledComponents.isEmpty() -> SortConstant.BOOT_DISABLED
+                    else -> 0
                 }
             }
 
-            filteredList = filteredList.stream().distinct().collect(Collectors.toList()) as ArrayList<BootManagerModel>
-
             bootComponentData.postValue(filteredList)
 
             // This method is also valid but it's not as efficient as the above method
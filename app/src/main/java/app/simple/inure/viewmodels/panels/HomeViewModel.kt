@@ -181,14 +181,11 @@ class HomeViewModel(application: Application) :
         }
     }
 
-    private fun loadDeletedApps(uninstalledApps: ArrayList<PackageInfo>) {
+    private fun loadDeletedApps(uninstalledApps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
-
-            uninstalledApps.sortBy {
+            uninstalled.postValue(ArrayList(uninstalledApps.sortedBy {
                 it.applicationInfo.name
-            }
-
-            uninstalled.postValue(uninstalledApps)
+            }))
         }
     }
 
@@ -354,7 +351,7 @@ class HomeViewModel(application: Application) :
         super.onAppUninstalled(packageName)
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         loadRecentlyInstalledAppData()
         loadMostUsed()
         loadRecentlyUpdatedAppData()
@@ -363,10 +360,35 @@ class HomeViewModel(application: Application) :
         loadFossApps()
     }
 
-    override fun onUninstalledAppsLoaded(uninstalledApps: ArrayList<PackageInfo>) {
+    override fun onUninstalledAppsLoaded(uninstalledApps: List<PackageInfo>) {
         loadDeletedApps(uninstalledApps)
     }
 
+    /**
+     * Swap the relabelled apps into the lists already loaded, the lists
+     * sorted by name are sorted again. Set on the main thread so lists a
+     * load is still posting replace these.
+     */
+    override fun onAppsRelabelled(apps: List<PackageInfo>) {
+        recentlyInstalledAppData.value?.let { recentlyInstalledAppData.value = relabel(it) }
+        recentlyUpdatedAppData.value?.let { recentlyUpdatedAppData.value = relabel(it) }
+        disabled.value?.let { disabled.value = relabelByName(it) }
+        foss.value?.let { foss.value = relabelByName(it) }
+        hidden.value?.let { hidden.value = relabelByName(it) }
+    }
+
+    override fun onUninstalledAppsRelabelled(uninstalledApps: List<PackageInfo>) {
+        uninstalled.value?.let { uninstalled.value = relabelByName(it) }
+    }
+
+    private fun relabelByName(apps: List<PackageInfo>): ArrayList<PackageInfo> {
+        return relabel(apps).apply {
+            sortBy {
+                it.applicationInfo.name
+            }
+        }
+    }
+
     fun refreshMostUsed() {
         loadMostUsed()
     }
@@ -67,7 +67,7 @@ class NotesViewModel(application: Application) : PackageUtilsViewModel(applicati
         }
     }
 
-    private suspend fun getNotesData(apps: ArrayList<PackageInfo>): ArrayList<NotesPackageInfo> {
+    private suspend fun getNotesData(apps: List<PackageInfo>): ArrayList<NotesPackageInfo> {
         notesDatabase = NotesDatabase.getInstance(context)
 
         val list = arrayListOf<NotesPackageInfo>()
@@ -114,7 +114,7 @@ class NotesViewModel(application: Application) : PackageUtilsViewModel(applicati
         loadNotesData()
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         super.onAppsLoaded(apps)
         loadNotesData()
     }
@@ -1,34 +1,70 @@
 package app.simple.inure.viewmodels.panels
 
 import android.app.Application
-import android.content.pm.ApplicationInfo
 import android.content.pm.PackageInfo
 import android.content.pm.PackageManager
 import android.os.Build
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
-import app.simple.inure.apk.parsers.APKParser
+import app.simple.inure.apk.parsers.ApkIndex
 import app.simple.inure.apk.utils.PermissionUtils.getPermissionInfo
 import app.simple.inure.constants.SortConstant
 import app.simple.inure.database.instances.TagsDatabase
 import app.simple.inure.extensions.viewmodels.PackageUtilsViewModel
-import app.simple.inure.models.SearchModel
+import app.simple.inure.models.DeepSearchResults
 import app.simple.inure.preferences.SearchPreferences
 import app.simple.inure.util.ArrayUtils.toArrayList
-import app.simple.inure.util.ConditionUtils.invert
+import app.simple.inure.util.DeepSearchCache
 import app.simple.inure.util.FlagUtils
+import app.simple.inure.util.PackageFilter
+import app.simple.inure.util.PackageSearchIndex
 import app.simple.inure.util.Sort.getSortedList
+import app.simple.inure.util.TrackerCensus
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.mapLatest
 import kotlinx.coroutines.launch
-import java.util.stream.Collectors
-import kotlin.concurrent.thread
 
 class SearchViewModel(application: Application) : PackageUtilsViewModel(application) {
 
-    private var apps: ArrayList<PackageInfo> = arrayListOf()
     private var deepApps: ArrayList<PackageInfo> = arrayListOf()
-    private var thread: Thread? = null
+
+    /**
+     * Every search goes through this, a new request cancels the search
+     * still running for the previous one
+     */
+    private val searchRequests = MutableStateFlow<SearchRequest?>(null)
+
+    /**
+     * Built from the loaded apps on the first search after they change,
+     * a keystroke is only a lookup in it
+     */
+    private val searchIndex = PackageSearchIndex()
+
+    @Volatile
+    private var isIndexStale = true
+
+    /**
+     * Permission labels, component names and xml files of every package
+     * deep search went through, rebuilt only when a package is updated
+     */
+    private val deepSearchCache = DeepSearchCache(
+            permissionLabel = {
+                it.getPermissionInfo(application)?.loadLabel(application.packageManager)?.toString()
+            },
+            xmlFiles = { path ->
+                ApkIndex.of(path).filterNames(ApkIndex.KIND_XML) { name ->
+                    name != "AndroidManifest.xml"
+                }
+            })
 
     @Suppress("DEPRECATION")
     private var flags = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
@@ -61,8 +97,8 @@ class SearchViewModel(application: Application) : PackageUtilsViewModel(applicat
         MutableLiveData<ArrayList<PackageInfo>>()
     }
 
-    private val deepSearchData: MutableLiveData<ArrayList<SearchModel>> by lazy {
-        MutableLiveData<ArrayList<SearchModel>>()
+    private val deepSearchData: MutableLiveData<DeepSearchResults> by lazy {
+        MutableLiveData<DeepSearchResults>()
     }
 
     private val tags: MutableLiveData<ArrayList<String>> by lazy {
@@ -71,6 +107,10 @@ class SearchViewModel(application: Application) : PackageUtilsViewModel(applicat
         }
     }
 
+    init {
+        startSearchPipeline()
+    }
+
     fun getSearchKeywords(): LiveData<String> {
         return searchKeywords
     }
@@ -85,7 +125,7 @@ class SearchViewModel(application: Application) : PackageUtilsViewModel(applicat
         return searchData
     }
 
-    fun getDeepSearchData(): LiveData<ArrayList<SearchModel>> {
+    fun getDeepSearchData(): LiveData<DeepSearchResults> {
         return deepSearchData
     }
 
@@ -94,307 +134,115 @@ class SearchViewModel(application: Application) : PackageUtilsViewModel(applicat
     }
 
     fun initiateSearch(keywords: String) {
-        thread?.interrupt()
-        thread = thread(priority = 10, name = keywords) {
-            try {
-                if (SearchPreferences.isDeepSearchEnabled()) {
-                    loadDeepSearchData(keywords)
-                } else {
-                    loadSearchData(keywords)
+        searchRequests.value = SearchRequest(keywords)
+    }
+
+    /**
+     * Requests are debounced while typing and [mapLatest] cancels the
+     * running search as soon as a newer one arrives, the loops below
+     * check for it after every package
+     */
+    @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+    private fun startSearchPipeline() {
+        viewModelScope.launch(Dispatchers.IO) {
+            searchRequests
+                .filterNotNull()
+                .debounce {
+                    if (it.keywords.isEmpty()) 0L else SEARCH_DEBOUNCE
                 }
-            } catch (e: IllegalStateException) {
-                e.printStackTrace()
-            }
+                .mapLatest {
+                    try {
+                        if (SearchPreferences.isDeepSearchEnabled()) {
+                            loadDeepSearchData(it.keywords)
+                        } else {
+                            loadSearchData(it.keywords)
+                        }
+                    } catch (e: IllegalStateException) {
+                        e.printStackTrace()
+                    }
+                }
+                .collect()
         }
     }
 
-    fun reload() { // These two fun already runs in their own threads
-        apps.clear()
+    fun reload() {
         deepApps.clear()
+        isIndexStale = true
         refreshPackageData()
         initiateSearch(searchKeywords.value ?: "")
     }
 
-    @Suppress("UNCHECKED_CAST")
-    private fun loadSearchData(keywords: String) {
-        var apps = (getInstalledApps() + getUninstalledApps()).toArrayList()
-
+    private suspend fun loadSearchData(keywords: String) {
         if (keywords.isEmpty()) {
             searchData.postValue(arrayListOf())
             return
         }
 
-        apps = if (keywords.startsWith("#")) {
+        if (isIndexStale) {
+            isIndexStale = false
+            searchIndex.update(getAllApps())
+        }
+
+        val filteredList = if (keywords.startsWith("#")) {
             val tagsDatabase = TagsDatabase.getInstance(application.applicationContext)
             val tag = keywords.substring(1)
             val tagApps = tagsDatabase?.getTagDao()?.getTag(tag)?.packages?.split(",")
 
-            apps.stream().filter { p ->
-                tagApps?.contains(p.packageName) ?: false
-            }.collect(Collectors.toList()) as ArrayList<PackageInfo>
+            searchIndex.filter(tagApps ?: listOf(), SearchPreferences.getAppsCategory(), SearchPreferences.getAppsFilter())
         } else {
-            apps.stream().filter { p ->
-                p.applicationInfo.name.contains(keywords, SearchPreferences.isCasingIgnored())
-                        || p.packageName.contains(keywords, SearchPreferences.isCasingIgnored())
-            }.collect(Collectors.toList()) as ArrayList<PackageInfo>
+            searchIndex.search(keywords, SearchPreferences.isCasingIgnored(),
+                               SearchPreferences.getAppsCategory(), SearchPreferences.getAppsFilter())
         }
 
-        when (SearchPreferences.getAppsCategory()) {
-            SortConstant.SYSTEM -> {
-                apps = apps.stream().filter { p ->
-                    p.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0
-                }.collect(Collectors.toList()) as ArrayList<PackageInfo>
-            }
-            SortConstant.USER -> {
-                apps = apps.stream().filter { p ->
-                    p.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM == 0
-                }.collect(Collectors.toList()) as ArrayList<PackageInfo>
-            }
-        }
-
-        var filteredList = arrayListOf<PackageInfo>()
-
-        if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.COMBINE_FLAGS)) { // Pretty special case, even I don't know what I did here
-            filteredList.addAll((apps.clone() as ArrayList<PackageInfo>).stream().filter { p ->
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.DISABLED)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.ENABLED)) {
-                        true
-                    } else {
-                        p.applicationInfo.enabled.invert()
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.ENABLED)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.DISABLED)) {
-                        true
-                    } else {
-                        p.applicationInfo.enabled
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.APK)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.SPLIT)) {
-                        true
-                    } else {
-                        p.applicationInfo.splitSourceDirs.isNullOrEmpty()
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.SPLIT)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.APK)) {
-                        true
-                    } else {
-                        p.applicationInfo.splitSourceDirs?.isNotEmpty() ?: false
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.UNINSTALLED)) {
-                    p.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0
-                } else {
-                    true
-                }
-            }.collect(Collectors.toList()) as ArrayList<PackageInfo>)
-        } else {
-            for (app in apps) {
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.DISABLED)) {
-                    if (app.applicationInfo.enabled.invert()) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.ENABLED)) {
-                    if (app.applicationInfo.enabled) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.APK)) {
-                    if (app.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.SPLIT)) {
-                    if (app.applicationInfo.splitSourceDirs?.isNotEmpty() == true) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.UNINSTALLED)) {
-                    if (app.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-            }
-
-            // Remove duplicate elements
-            filteredList = filteredList.stream().distinct().collect(Collectors.toList()) as ArrayList<PackageInfo>
+        if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.TRACKERS)) {
+            val trackerPackages = TrackerCensus.getPackagesWithTrackers(applicationContext())
+            filteredList.retainAll { it.packageName in trackerPackages }
         }
 
         filteredList.getSortedList(SearchPreferences.getSortStyle(), SearchPreferences.isReverseSorting())
 
-        if (Thread.currentThread().name == thread?.name) {
-            searchData.postValue(filteredList)
-        }
+        currentCoroutineContext().ensureActive()
+        searchData.postValue(filteredList)
     }
 
-    private fun loadDeepSearchData(keywords: String) {
-        var list = arrayListOf<SearchModel>()
-        var apps: ArrayList<PackageInfo>
-
+    private suspend fun loadDeepSearchData(keywords: String) {
         if (keywords.isEmpty()) {
-            deepSearchData.postValue(arrayListOf())
+            deepSearchData.postValue(DeepSearchResults(keywords, arrayListOf()))
             return
         }
 
         if (deepApps.isEmpty()) {
             deepApps = packageManager.getInstalledPackages(flags.toLong()).loadPackageNames()
+            deepSearchCache.retainAll(deepApps.map { it.packageName })
         }
 
-        @Suppress("UNCHECKED_CAST")
-        apps = deepApps.clone() as ArrayList<PackageInfo>
+        currentCoroutineContext().ensureActive()
 
-        when (SearchPreferences.getAppsCategory()) {
-            SortConstant.SYSTEM -> {
-                apps = apps.stream().filter { p ->
-                    p.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0
-                }.collect(Collectors.toList()) as ArrayList<PackageInfo>
-            }
-            SortConstant.USER -> {
-                apps = apps.stream().filter { p ->
-                    p.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM == 0
-                }.collect(Collectors.toList()) as ArrayList<PackageInfo>
-            }
-        }
+        val filteredList = PackageFilter(SearchPreferences.getAppsCategory(), SearchPreferences.getAppsFilter()).filter(deepApps)
 
-        var filteredList = arrayListOf<PackageInfo>()
-
-        if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.COMBINE_FLAGS)) { // Pretty special case, even I don't know what I did here
-            @Suppress("UNCHECKED_CAST")
-            filteredList.addAll((apps.clone() as ArrayList<PackageInfo>).stream().filter { p ->
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.DISABLED)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.ENABLED)) {
-                        true
-                    } else {
-                        p.applicationInfo.enabled.invert()
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.ENABLED)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.DISABLED)) {
-                        true
-                    } else {
-                        p.applicationInfo.enabled
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.APK)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.SPLIT)) {
-                        true
-                    } else {
-                        p.applicationInfo.splitSourceDirs.isNullOrEmpty()
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.SPLIT)) {
-                    if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.APK)) {
-                        true
-                    } else {
-                        p.applicationInfo.splitSourceDirs?.isNotEmpty() ?: false
-                    }
-                } else {
-                    true
-                } && if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.UNINSTALLED)) {
-                    p.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0
-                } else {
-                    true
-                }
-            }.collect(Collectors.toList()) as ArrayList<PackageInfo>)
-        } else {
-            for (app in apps) {
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.DISABLED)) {
-                    if (app.applicationInfo.enabled.invert()) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.ENABLED)) {
-                    if (app.applicationInfo.enabled) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.APK)) {
-                    if (app.applicationInfo.splitSourceDirs.isNullOrEmpty()) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.SPLIT)) {
-                    if (app.applicationInfo.splitSourceDirs?.isNotEmpty() == true) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-
-                if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.UNINSTALLED)) {
-                    if (app.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0) {
-                        if (!filteredList.contains(app)) {
-                            filteredList.add(app)
-                        }
-                    }
-                }
-            }
-
-            // Remove duplicate elements
-            filteredList = filteredList.stream().distinct().collect(Collectors.toList()) as ArrayList<PackageInfo>
+        if (FlagUtils.isFlagSet(SearchPreferences.getAppsFilter(), SortConstant.TRACKERS)) {
+            val trackerPackages = TrackerCensus.getPackagesWithTrackers(applicationContext())
+            filteredList.retainAll { it.packageName in trackerPackages }
         }
 
         filteredList.getSortedList(SearchPreferences.getSortStyle(), SearchPreferences.isReverseSorting())
 
-        for (app in filteredList) {
-            val searchModel = SearchModel()
-
-            searchModel.packageInfo = app
-            searchModel.permissions = getPermissionCount(keywords, app)
-            searchModel.activities = getActivitiesCount(keywords, app)
-            searchModel.services = getServicesCount(keywords, app)
-            searchModel.receivers = getReceiversCount(keywords, app)
-            searchModel.providers = getProvidersCount(keywords, app)
-            searchModel.resources = getResourcesCount(keywords, app)
-
-            list.add(searchModel)
+        var posted = -1
+
+        val list = deepSearchCache.search(filteredList, keywords, SearchPreferences.isCasingIgnored(), DEEP_SEARCH_CHUNK) {
+            /**
+             * Stream what is found so far, the list only grows so the adapter
+             * appends the new items. The first chunk is posted even when empty
+             * to take down the results of the previous search.
+             */
+            if (posted == -1 || it.size > posted) {
+                deepSearchData.postValue(DeepSearchResults(keywords, it))
+                posted = it.size
+            }
         }
 
-        // Filter out apps with no results
-
-        list = list.filter {
-            it.permissions > 0 || it.activities > 0 || it.services > 0 ||
-                    it.receivers > 0 || it.providers > 0 || it.resources > 0 ||
-                    it.packageInfo.applicationInfo.name.contains(keywords, SearchPreferences.isCasingIgnored()) ||
-                    it.packageInfo.packageName.contains(keywords, SearchPreferences.isCasingIgnored())
-        } as ArrayList<SearchModel>
-
-        if (Thread.currentThread().name == thread?.name) {
-            deepSearchData.postValue(list)
-        }
+        currentCoroutineContext().ensureActive()
+        deepSearchData.postValue(DeepSearchResults(keywords, list))
     }
 
     private fun loadTags() {
@@ -404,120 +252,56 @@ class SearchViewModel(application: Application) : PackageUtilsViewModel(applicat
         }
     }
 
-    private fun getPermissionCount(keyword: String, app: PackageInfo): Int {
-        var count = 0
-
-        kotlin.runCatching {
-            if (app.requestedPermissions != null) {
-                for (permission in app.requestedPermissions) {
-                    if (permission.lowercase().contains(keyword.lowercase())
-                        || permission.getPermissionInfo(application)?.loadLabel(application.packageManager)
-                            .toString().lowercase().contains(keyword.lowercase())) {
-                        count = count.inc()
-                    }
-                }
-            }
-        }
-
-        return count
-    }
-
-    private fun getActivitiesCount(keywords: String, app: PackageInfo): Int {
-        var count = 0
-
-        kotlin.runCatching {
-            if (app.activities != null) {
-                for (i in app.activities) {
-                    if (i.name.lowercase().contains(keywords.lowercase())) {
-                        count = count.inc()
-                    }
-                }
-            }
-        }
-
-        return count
-    }
-
-    private fun getServicesCount(keywords: String, app: PackageInfo): Int {
-        var count = 0
-
-        kotlin.runCatching {
-            if (app.services != null) {
-                for (i in app.services) {
-                    if (i.name.lowercase().contains(keywords.lowercase())) {
-                        count = count.inc()
-                    }
-                }
-            }
-        }
-
-        return count
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
+        super.onAppsLoaded(apps)
+        isIndexStale = true
+        initiateSearch(SearchPreferences.getLastSearchKeyword())
     }
 
-    private fun getReceiversCount(keywords: String, app: PackageInfo): Int {
-        var count = 0
-
-        kotlin.runCatching {
-            if (app.receivers != null) {
-                for (i in app.receivers) {
-                    if (i.name.lowercase().contains(keywords.lowercase())) {
-                        count = count.inc()
-                    }
-                }
-            }
-        }
-
-        return count
+    override fun onUninstalledAppsLoaded(uninstalledApps: List<PackageInfo>) {
+        super.onUninstalledAppsLoaded(uninstalledApps)
+        isIndexStale = true
     }
 
-    private fun getProvidersCount(keywords: String, app: PackageInfo): Int {
-        var count = 0
-
-        kotlin.runCatching {
-            if (app.providers != null) {
-                for (i in app.providers) {
-                    if (i.name.lowercase().contains(keywords.lowercase())) {
-                        count = count.inc()
-                    }
-                }
-            }
-        }
-
-        return count
-    }
-
-    private fun getResourcesCount(keywords: String, app: PackageInfo): Int {
-        var count = 0
-
-        kotlin.runCatching {
-            with(APKParser.getXmlFiles(app.applicationInfo.sourceDir, keywords)) {
-                count = count()
+    /**
+     * Labels only, the results shown get the new labels without searching
+     * again, the next search rebuilds the index with them. Set on the main
+     * thread so results a search is still posting replace these.
+     */
+    override fun onAppsRelabelled(apps: List<PackageInfo>) {
+        super.onAppsRelabelled(apps)
+        isIndexStale = true
+
+        searchData.value?.let {
+            searchData.value = relabel(it).apply {
+                getSortedList(SearchPreferences.getSortStyle(), SearchPreferences.isReverseSorting())
             }
         }
-
-        return count
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
-        super.onAppsLoaded(apps)
-        initiateSearch(SearchPreferences.getLastSearchKeyword())
+    override fun onUninstalledAppsRelabelled(uninstalledApps: List<PackageInfo>) {
+        super.onUninstalledAppsRelabelled(uninstalledApps)
+        isIndexStale = true
     }
 
     override fun onAppUninstalled(packageName: String?) {
         super.onAppUninstalled(packageName)
+        packageName?.let { searchIndex.remove(it) }
         initiateSearch(SearchPreferences.getLastSearchKeyword())
     }
 
-    override fun onCleared() {
-        super.onCleared()
-        try {
-            thread?.interrupt()
-        } catch (e: IllegalStateException) {
-            e.printStackTrace()
-        }
-    }
-
     fun clearSearch() {
         initiateSearch("")
     }
+
+    /**
+     * Not a data class, searching for the same keywords again has to be
+     * a new value for the flow
+     */
+    private class SearchRequest(val keywords: String)
+
+    companion object {
+        private const val SEARCH_DEBOUNCE = 300L
+        private const val DEEP_SEARCH_CHUNK = 16
+    }
 }
\ No newline at end of file
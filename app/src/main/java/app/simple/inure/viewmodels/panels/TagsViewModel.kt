@@ -33,7 +33,7 @@ class TagsViewModel(application: Application) : PackageUtilsViewModel(applicatio
         return tagNames
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         super.onAppsLoaded(apps)
         refresh()
     }
@@ -42,7 +42,7 @@ class TagsViewModel(application: Application) : PackageUtilsViewModel(applicatio
         viewModelScope.launch(Dispatchers.IO) {
             val database = TagsDatabase.getInstance(application.applicationContext)
             val tags = database?.getTagDao()?.getTags()
-            val apps = getInstalledApps() + getUninstalledApps()
+            val apps = getAllApps()
 
             /**
              * Filter all uninstalled apps from [Tag.packages]
@@ -73,7 +73,7 @@ class TagsViewModel(application: Application) : PackageUtilsViewModel(applicatio
         viewModelScope.launch(Dispatchers.IO) {
             val database = TagsDatabase.getInstance(application.applicationContext)
             val tags = database?.getTagDao()?.getTags()
-            val apps = getInstalledApps() + getUninstalledApps()
+            val apps = getAllApps()
 
             tagNames.postValue(tags?.toArrayList()?.filter {
                 it.packages.isNotEmpty() && it.packages.split(",").any { packageName ->
@@ -59,10 +59,6 @@ class UsageStatsViewModel(application: Application) : app.simple.inure.extension
                 }
             }
 
-            for (app in list) {
-                app.packageInfo!!.applicationInfo.name = getApplicationName(applicationContext(), app.packageInfo!!.applicationInfo)
-            }
-
             if (StatisticsPreferences.areUnusedAppHidden()) {
                 list = list.filter {
                     it.totalTimeUsed != 0L
@@ -225,7 +221,9 @@ class UsageStatsViewModel(application: Application) : app.simple.inure.extension
             }
 
             val packageStats = PackageStats()
-            packageStats.packageInfo = packageManager.getPackageInfo(packageName)
+            packageStats.packageInfo = packageManager.getPackageInfo(packageName)?.apply {
+                applicationInfo.name = getApplicationName(applicationContext(), applicationInfo)
+            }
             packageStats.launchCount = accessCount[packageName] ?: 0
             packageStats.lastUsageTime = lastUse[packageName] ?: 0
             packageStats.totalTimeUsed = screenTimes[packageName] ?: 0
@@ -276,7 +274,7 @@ class UsageStatsViewModel(application: Application) : app.simple.inure.extension
         }
     }
 
-    override fun onAppsLoaded(apps: java.util.ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         super.onAppsLoaded(apps)
         loadAppStats()
     }
@@ -7,7 +7,6 @@ import androidx.annotation.RequiresApi
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.R
-import app.simple.inure.apk.utils.PackageUtils
 import app.simple.inure.extensions.viewmodels.PackageUtilsViewModel
 import app.simple.inure.preferences.AnalyticsPreferences
 import app.simple.inure.util.SDKHelper
@@ -28,7 +27,7 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
     }
 
     @RequiresApi(Build.VERSION_CODES.N)
-    private fun loadSDKFilteredAppsList(apps: ArrayList<PackageInfo>) {
+    private fun loadSDKFilteredAppsList(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             delay(250L) // Optimization baybeee!!!
 
@@ -46,10 +45,6 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
                 }
             }
 
-            for (app in sdkFilteredApps) {
-                app.applicationInfo.name = PackageUtils.getApplicationName(applicationContext(), app.packageName)
-            }
-
             sdkFilteredApps.sortBy {
                 it.applicationInfo.name
             }
@@ -58,7 +53,7 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
         }
     }
 
-    private fun loadTargetSDKFilteredAppsList(apps: ArrayList<PackageInfo>) {
+    private fun loadTargetSDKFilteredAppsList(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             delay(250L) // Optimization baybeee!!!
 
@@ -76,10 +71,6 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
                 }
             }
 
-            for (app in sdkFilteredApps) {
-                app.applicationInfo.name = PackageUtils.getApplicationName(applicationContext(), app.packageName)
-            }
-
             sdkFilteredApps.sortBy {
                 it.applicationInfo.name
             }
@@ -88,7 +79,7 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
         }
     }
 
-    private fun loadSplitPackageAppsList(apps: ArrayList<PackageInfo>) {
+    private fun loadSplitPackageAppsList(apps: List<PackageInfo>) {
         viewModelScope.launch(Dispatchers.IO) {
             delay(250L) // Optimization baybeee!!!
 
@@ -109,10 +100,6 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
                 }
             }
 
-            for (app in packageApps) {
-                app.applicationInfo.name = PackageUtils.getApplicationName(applicationContext(), app.packageName)
-            }
-
             packageApps.sortBy {
                 it.applicationInfo.name
             }
@@ -121,7 +108,7 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
         }
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         super.onAppsLoaded(apps)
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             loadSDKFilteredAppsList(apps)
@@ -130,4 +117,19 @@ class AnalyticsDataViewModel(application: Application, private val entry: Entry)
         loadTargetSDKFilteredAppsList(apps)
         loadSplitPackageAppsList(apps)
     }
+
+    /**
+     * Swap the relabelled apps into the list shown, it's sorted by name
+     * again. Set on the main thread so a list still being posted
+     * replaces this one.
+     */
+    override fun onAppsRelabelled(apps: List<PackageInfo>) {
+        data.value?.let {
+            data.value = relabel(it).apply {
+                sortBy { packageInfo ->
+                    packageInfo.applicationInfo.name
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
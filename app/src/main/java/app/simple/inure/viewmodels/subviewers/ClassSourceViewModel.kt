@@ -4,6 +4,7 @@ import android.app.Application
 import android.content.pm.PackageInfo
 import android.net.Uri
 import android.text.Spannable
+import android.text.SpannableString
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
@@ -12,7 +13,6 @@ import app.simple.inure.trackers.dex.DexLoaderBuilder
 import app.simple.inure.trackers.reflector.Reflector
 import app.simple.inure.trackers.utils.UriUtils
 import app.simple.inure.util.IOUtils
-import app.simple.inure.util.JavaSyntaxUtils.highlightJava
 import dalvik.system.DexClassLoader
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -50,7 +50,7 @@ class ClassSourceViewModel(application: Application, val className: String, val
 
             reflector.generateClassData()
 
-            sourceData.postValue(reflector.toString().trimStart().highlightJava())
+            sourceData.postValue(SpannableString(reflector.toString().trimStart()))
         } catch (e: Exception) {
             e.printStackTrace()
         } finally {
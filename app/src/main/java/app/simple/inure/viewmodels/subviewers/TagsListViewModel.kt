@@ -21,7 +21,7 @@ class TagsListViewModel(application: Application, private val tag: String) : Pac
         return taggedApps
     }
 
-    override fun onAppsLoaded(apps: ArrayList<PackageInfo>) {
+    override fun onAppsLoaded(apps: List<PackageInfo>) {
         super.onAppsLoaded(apps)
         loadTaggedApps()
     }
@@ -30,7 +30,7 @@ class TagsListViewModel(application: Application, private val tag: String) : Pac
         viewModelScope.launch(Dispatchers.IO) {
             val apps = ArrayList<PackageInfo>()
             val tag = TagsDatabase.getInstance(application.applicationContext)?.getTagDao()?.getTag(tag)
-            val allApps = getInstalledApps() + getUninstalledApps()
+            val allApps = getAllApps()
 
             tag?.packages?.split(",")?.forEach {
                 allApps.stream().filter { app ->
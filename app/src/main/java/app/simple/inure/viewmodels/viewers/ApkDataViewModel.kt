@@ -8,6 +8,7 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.apk.parsers.APKParser
+import app.simple.inure.apk.parsers.ResourceTableCache
 import app.simple.inure.apk.utils.PackageUtils.isPackageInstalled
 import app.simple.inure.extensions.viewmodels.WrappedViewModel
 import app.simple.inure.preferences.SearchPreferences
@@ -70,6 +71,11 @@ class ApkDataViewModel(application: Application, val packageInfo: PackageInfo) :
                     if (this.isEmpty() && keyword.isEmpty()) throw NullPointerException()
                     resources.postValue(this)
                 }
+
+                // Parse resources.arsc ahead so the first file opened from the list decodes right away
+                kotlin.runCatching {
+                    ResourceTableCache.get(packageInfo.applicationInfo.sourceDir)
+                }
             }.getOrElse {
                 if (it is NullPointerException) {
                     notFound.postValue(3)
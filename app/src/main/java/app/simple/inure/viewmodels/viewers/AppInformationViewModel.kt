@@ -13,7 +13,7 @@ import androidx.lifecycle.viewModelScope
 import app.simple.inure.R
 import app.simple.inure.apk.parsers.APKParser.getApkArchitecture
 import app.simple.inure.apk.parsers.APKParser.getApkMeta
-import app.simple.inure.apk.parsers.APKParser.getDexData
+import app.simple.inure.apk.parsers.APKParser.getDexMethodCount
 import app.simple.inure.apk.parsers.APKParser.getGlEsVersion
 import app.simple.inure.apk.parsers.APKParser.getNativeLibraries
 import app.simple.inure.apk.parsers.FOSSParser
@@ -35,7 +35,8 @@ import app.simple.inure.util.SDKHelper
 import app.simple.inure.util.StringUtils.applyAccentColor
 import app.simple.inure.util.StringUtils.applySecondaryTextColor
 import app.simple.inure.util.StringUtils.endsWithAny
-import app.simple.inure.util.TrackerUtils.getTrackerSignatures
+import app.simple.inure.util.TrackerCensus
+import app.simple.inure.util.TrackerUtils.getTrackerMatcher
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import net.dongliu.apk.parser.bean.ApkMeta
@@ -333,33 +334,14 @@ class AppInformationViewModel(application: Application, private var packageInfo:
     }
 
     private fun getMethodCount(): Pair<Int, Spannable> {
-        var count = 0
         val method = kotlin.runCatching {
-            val dexClasses = try {
-                packageInfo.applicationInfo.sourceDir.toFile().getDexData()
+            val (dexCount, count) = try {
+                packageInfo.applicationInfo.sourceDir.toFile().getDexMethodCount()
             } catch (e: DexClassesNotFoundException) {
-                packageInfo.applicationInfo.publicSourceDir.toFile().getDexData()
+                packageInfo.applicationInfo.publicSourceDir.toFile().getDexMethodCount()
             }
 
-            for (clazz in dexClasses) {
-                count += clazz.javaClass.methods.size
-            }
-
-            val dexClassesCount = java.util.zip.ZipFile(packageInfo.applicationInfo.sourceDir).use {
-                var dexCount = 0
-
-                with(it.entries()) {
-                    while (hasMoreElements()) {
-                        if (nextElement().name.endsWith(".dex")) {
-                            dexCount += 1
-                        }
-                    }
-                }
-
-                dexCount
-            }
-
-            if (dexClassesCount > 1) {
+            if (dexCount > 1) {
                 String.format(getString(R.string.multi_dex), NumberFormat.getNumberInstance().format(count))
             } else {
                 String.format(getString(R.string.single_dex), NumberFormat.getNumberInstance().format(count))
@@ -465,47 +447,32 @@ class AppInformationViewModel(application: Application, private var packageInfo:
                     names.toString().applySecondaryTextColor())
     }
 
-    private fun getTrackers(): Pair<Int, Spannable> {
-        val trackers = applicationContext().getTrackerSignatures()
-        var count = 0
+    /**
+     * Fallback for packages the [TrackerCensus] hasn't scanned yet
+     */
+    private fun scanTrackers(): List<String> {
+        val trackerMatcher = applicationContext().getTrackerMatcher()
         val list: MutableList<String> = mutableListOf()
 
-        if (packageInfo.activities != null) {
-            for (activity in packageInfo.activities) {
-                for (tracker in trackers) {
-                    if (activity.name.lowercase().contains(tracker.lowercase())) {
-                        count++
-                        list.add(activity.name)
-                        break
-                    }
-                }
-            }
+        packageInfo.activities?.forEach {
+            if (trackerMatcher.hasMatch(it.name)) list.add(it.name)
         }
 
-        if (packageInfo.services != null) {
-            for (service in packageInfo.services) {
-                for (tracker in trackers) {
-                    if (service.name.lowercase().contains(tracker.lowercase())) {
-                        count++
-                        list.add(service.name)
-                        break
-                    }
-                }
-            }
+        packageInfo.services?.forEach {
+            if (trackerMatcher.hasMatch(it.name)) list.add(it.name)
         }
 
-        if (packageInfo.receivers != null) {
-            for (receiver in packageInfo.receivers) {
-                for (tracker in trackers) {
-                    if (receiver.name.lowercase().contains(tracker.lowercase())) {
-                        count++
-                        list.add(receiver.name)
-                        break
-                    }
-                }
-            }
+        packageInfo.receivers?.forEach {
+            if (trackerMatcher.hasMatch(it.name)) list.add(it.name)
         }
 
+        return list
+    }
+
+    private fun getTrackers(): Pair<Int, Spannable> {
+        val list: List<String> = TrackerCensus.getStoredTrackers(applicationContext(), packageInfo) ?: scanTrackers()
+        val count = list.size
+
         buildString {
             for (tracker in list) {
                 if (this.isEmpty()) {
@@ -3,12 +3,12 @@ package app.simple.inure.viewmodels.viewers
 import android.app.Application
 import android.content.pm.PackageInfo
 import android.text.Spannable
+import android.text.SpannableString
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.R
 import app.simple.inure.extensions.viewmodels.RootServiceViewModel
 import app.simple.inure.util.XMLUtils.formatXML
-import app.simple.inure.util.XMLUtils.getPrettyXML
 import com.topjohnwu.superuser.Shell
 import com.topjohnwu.superuser.nio.FileSystemManager
 import kotlinx.coroutines.Dispatchers
@@ -35,7 +35,7 @@ class IFWViewerViewModel(application: Application, packageInfo: PackageInfo) : R
         viewModelScope.launch(Dispatchers.IO) {
             kotlin.runCatching {
                 val code = fileSystemManager?.getXML()!!
-                xml.postValue(code.formatXML().getPrettyXML())
+                xml.postValue(SpannableString(code.formatXML()))
             }.getOrElse {
                 if (it is FileNotFoundException) {
                     postWarning(getString(R.string.no_rules_file_found))
@@ -2,12 +2,12 @@ package app.simple.inure.viewmodels.viewers
 
 import android.app.Application
 import android.content.pm.PackageInfo
+import android.text.SpannableString
 import android.text.Spanned
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.extensions.viewmodels.WrappedViewModel
-import app.simple.inure.util.JavaSyntaxUtils.highlightJava
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
@@ -37,9 +37,7 @@ class JavaViewModel(application: Application, val accentColor: Int, val packageI
             kotlin.runCatching {
                 val code: String = getJavaFile()
 
-                val formattedContent = code.highlightJava()
-
-                spanned.postValue(formattedContent)
+                spanned.postValue(SpannableString(code))
             }.getOrElse {
                 postError(it)
             }
@@ -2,6 +2,7 @@ package app.simple.inure.viewmodels.viewers
 
 import android.app.Application
 import android.content.pm.PackageInfo
+import android.text.SpannableString
 import android.text.Spanned
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
@@ -9,7 +10,6 @@ import androidx.lifecycle.viewModelScope
 import app.simple.inure.extensions.viewmodels.RootServiceViewModel
 import app.simple.inure.util.ConditionUtils.isNotNull
 import app.simple.inure.util.XMLUtils.formatXML
-import app.simple.inure.util.XMLUtils.getPrettyXML
 import com.topjohnwu.superuser.Shell
 import com.topjohnwu.superuser.nio.FileSystemManager
 import kotlinx.coroutines.Dispatchers
@@ -44,7 +44,7 @@ class SharedPreferencesViewerViewModel(private val pathToXml: String, private va
             kotlin.runCatching {
                 val code = fileSystemManager.getSharedPrefsString()
 
-                spanned.postValue(code.formatXML().getPrettyXML())
+                spanned.postValue(SpannableString(code.formatXML()))
             }.getOrElse {
                 postError(it)
             }
@@ -7,12 +7,16 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.apk.xml.XML
+import app.simple.inure.text.MappedTextFile
 import app.simple.inure.util.StringUtils.readTextSafely
 import app.simple.inure.util.XMLUtils.formatXML
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
 import java.io.BufferedInputStream
 import java.io.File
+import java.io.FileNotFoundException
 import java.util.*
 import java.util.zip.ZipEntry
 import java.util.zip.ZipFile
@@ -26,10 +30,96 @@ class TextViewerViewModel(private val packageInfo: PackageInfo, private val path
         }
     }
 
+    private val textFile: MutableLiveData<MappedTextFile> by lazy {
+        MutableLiveData<MappedTextFile>().also {
+            openTextFile()
+        }
+    }
+
+    private val rowCount = MutableLiveData<Int>()
+    private val matches = MutableLiveData<ArrayList<MappedTextFile.Match>>()
+
+    private var file: MappedTextFile? = null
+    private var searchJob: Job? = null
+
     fun getText(): LiveData<String> {
         return text
     }
 
+    /**
+     * The file is only mapped, rows are read on demand and become
+     * available while [getRowCount] is still growing
+     */
+    fun getTextFile(): LiveData<MappedTextFile> {
+        return textFile
+    }
+
+    fun getRowCount(): LiveData<Int> {
+        return rowCount
+    }
+
+    fun getMatches(): LiveData<ArrayList<MappedTextFile.Match>> {
+        return matches
+    }
+
+    fun search(keyword: String) {
+        searchJob?.cancel()
+        searchJob = viewModelScope.launch(Dispatchers.Default) {
+            val file = file ?: return@launch
+            val result = kotlin.runCatching {
+                file.find(keyword, MAX_MATCHES) { isActive.not() }
+            }.getOrElse {
+                ArrayList() // Keyword isn't a valid pattern yet
+            }
+
+            if (isActive) {
+                matches.postValue(result)
+            }
+        }
+    }
+
+    private fun openTextFile() {
+        viewModelScope.launch(Dispatchers.IO) {
+            val mappedTextFile = kotlin.runCatching {
+                if (isRaw) {
+                    MappedTextFile.open(File(path))
+                } else {
+                    ZipFile(packageInfo.applicationInfo.sourceDir).use { zipFile ->
+                        val entry = zipFile.getEntry(path) ?: throw FileNotFoundException("$path not found")
+
+                        if (path.endsWith("xml")) {
+                            kotlin.runCatching {
+                                val xml = XML(packageInfo.applicationInfo.sourceDir).use {
+                                    it.transBinaryXml(path).formatXML()
+                                }
+
+                                MappedTextFile.spool(xml.byteInputStream(), getApplication<Application>().cacheDir)
+                            }.getOrElse {
+                                MappedTextFile.spool(zipFile.getInputStream(entry), getApplication<Application>().cacheDir)
+                            }
+                        } else {
+                            MappedTextFile.spool(zipFile.getInputStream(entry), getApplication<Application>().cacheDir)
+                        }
+                    }
+                }
+            }.getOrElse {
+                MappedTextFile.spool(it.stackTraceToString().byteInputStream(), getApplication<Application>().cacheDir)
+            }
+
+            file = mappedTextFile
+            textFile.postValue(mappedTextFile)
+
+            mappedTextFile.index {
+                rowCount.postValue(it)
+            }
+        }
+    }
+
+    override fun onCleared() {
+        super.onCleared()
+        file?.close()
+    }
+
     private fun getString() {
         viewModelScope.launch(Dispatchers.IO) {
             kotlin.runCatching {
@@ -76,4 +166,8 @@ class TextViewerViewModel(private val packageInfo: PackageInfo, private val path
             }
         }
     }
-}
\ No newline at end of file
+
+    companion object {
+        private const val MAX_MATCHES = 10_000
+    }
+}
@@ -9,17 +9,20 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.viewModelScope
 import app.simple.inure.R
+import app.simple.inure.apk.dex.DexTrackerScanner
+import app.simple.inure.apk.utils.IntentFirewallUtils
 import app.simple.inure.apk.utils.PackageUtils.isPackageInstalled
 import app.simple.inure.apk.utils.ReceiversUtils
 import app.simple.inure.apk.utils.ServicesUtils
 import app.simple.inure.extensions.viewmodels.RootServiceViewModel
 import app.simple.inure.models.Tracker
 import app.simple.inure.preferences.ConfigurationPreferences
+import app.simple.inure.preferences.TrackersPreferences
 import app.simple.inure.util.ActivityUtils
 import app.simple.inure.util.ConditionUtils.invert
 import app.simple.inure.util.ConditionUtils.isNotNull
 import app.simple.inure.util.ConditionUtils.isZero
-import app.simple.inure.util.TrackerUtils.getTrackerSignatures
+import app.simple.inure.util.TrackerUtils.getTrackerMatcher
 import com.topjohnwu.superuser.nio.ExtendedFile
 import com.topjohnwu.superuser.nio.FileSystemManager
 import kotlinx.coroutines.Dispatchers
@@ -79,6 +82,10 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
             trackersList.addAll(getServicesTrackers())
             trackersList.addAll(getReceiversTrackers())
 
+            if (TrackersPreferences.isFullClassesList()) {
+                trackersList.addAll(getDexTrackers(trackersList))
+            }
+
             trackersList.sortBy {
                 it.name.substringAfterLast(".")
             }
@@ -134,34 +141,29 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
     }
 
     private fun getActivityTrackers(): ArrayList<Tracker> {
-        val trackerSignatures = applicationContext().getTrackerSignatures()
+        val trackerMatcher = applicationContext().getTrackerMatcher()
+        val keyword = keyword.lowercase()
         val activities = getPackageInfo().activities ?: null
         val trackersList = arrayListOf<Tracker>()
 
         if (activities != null) {
             for (activity in activities) {
-                for (signature in trackerSignatures) {
-                    if (activity.name.lowercase().contains(keyword.lowercase()) || signature.lowercase().contains(keyword.lowercase())) {
-                        if (activity.name.lowercase().contains(signature.lowercase())) {
-                            val tracker = Tracker()
-
-                            tracker.activityInfo = activity
-                            tracker.name = activity.name
-                            tracker.isEnabled = kotlin.runCatching {
-                                ActivityUtils.isEnabled(applicationContext(), packageInfo.packageName, activity.name)
-                            }.getOrElse {
-                                false
-                            }
-                            tracker.trackerId = signature
-                            tracker.isReceiver = false
-                            tracker.isService = false
-                            tracker.isActivity = true
-
-                            trackersList.add(tracker)
-
-                            break
-                        }
+                trackerMatcher.firstMatch(activity.name, keyword)?.let { signature ->
+                    val tracker = Tracker()
+
+                    tracker.activityInfo = activity
+                    tracker.name = activity.name
+                    tracker.isEnabled = kotlin.runCatching {
+                        ActivityUtils.isEnabled(applicationContext(), packageInfo.packageName, activity.name)
+                    }.getOrElse {
+                        false
                     }
+                    tracker.trackerId = signature
+                    tracker.isReceiver = false
+                    tracker.isService = false
+                    tracker.isActivity = true
+
+                    trackersList.add(tracker)
                 }
             }
         }
@@ -170,34 +172,29 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
     }
 
     private fun getServicesTrackers(): ArrayList<Tracker> {
-        val trackerSignatures = applicationContext().getTrackerSignatures()
+        val trackerMatcher = applicationContext().getTrackerMatcher()
+        val keyword = keyword.lowercase()
         val services = getPackageInfo().services ?: null
         val trackersList = arrayListOf<Tracker>()
 
         if (services != null) {
             for (service in services) {
-                for (signature in trackerSignatures) {
-                    if (service.name.lowercase().contains(keyword.lowercase()) || signature.lowercase().contains(keyword.lowercase())) {
-                        if (service.name.lowercase().contains(signature.lowercase())) {
-                            val tracker = Tracker()
-
-                            tracker.serviceInfo = service
-                            tracker.name = service.name
-                            tracker.isEnabled = kotlin.runCatching {
-                                ServicesUtils.isEnabled(applicationContext(), packageInfo.packageName, service.name)
-                            }.getOrElse {
-                                false
-                            }
-                            tracker.trackerId = signature
-                            tracker.isReceiver = false
-                            tracker.isService = true
-                            tracker.isActivity = false
-
-                            trackersList.add(tracker)
-
-                            break
-                        }
+                trackerMatcher.firstMatch(service.name, keyword)?.let { signature ->
+                    val tracker = Tracker()
+
+                    tracker.serviceInfo = service
+                    tracker.name = service.name
+                    tracker.isEnabled = kotlin.runCatching {
+                        ServicesUtils.isEnabled(applicationContext(), packageInfo.packageName, service.name)
+                    }.getOrElse {
+                        false
                     }
+                    tracker.trackerId = signature
+                    tracker.isReceiver = false
+                    tracker.isService = true
+                    tracker.isActivity = false
+
+                    trackersList.add(tracker)
                 }
             }
         }
@@ -206,35 +203,29 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
     }
 
     private fun getReceiversTrackers(): ArrayList<Tracker> {
-        val trackerSignatures = applicationContext().getTrackerSignatures()
+        val trackerMatcher = applicationContext().getTrackerMatcher()
+        val keyword = keyword.lowercase()
         val receivers = getPackageInfo().receivers ?: null
         val trackersList = arrayListOf<Tracker>()
 
         if (receivers != null) {
             for (receiver in receivers) {
-                for (signature in trackerSignatures) {
-                    if (receiver.name.lowercase().contains(keyword.lowercase())
-                        || signature.lowercase().contains(keyword.lowercase())) {
-                        if (receiver.name.lowercase().contains(signature.lowercase())) {
-                            val tracker = Tracker()
-
-                            tracker.activityInfo = receiver
-                            tracker.name = receiver.name
-                            tracker.isEnabled = kotlin.runCatching {
-                                ReceiversUtils.isEnabled(applicationContext(), packageInfo.packageName, receiver.name)
-                            }.getOrElse {
-                                false
-                            }
-                            tracker.trackerId = signature
-                            tracker.isReceiver = true
-                            tracker.isService = false
-                            tracker.isActivity = false
-
-                            trackersList.add(tracker)
-
-                            break
-                        }
+                trackerMatcher.firstMatch(receiver.name, keyword)?.let { signature ->
+                    val tracker = Tracker()
+
+                    tracker.activityInfo = receiver
+                    tracker.name = receiver.name
+                    tracker.isEnabled = kotlin.runCatching {
+                        ReceiversUtils.isEnabled(applicationContext(), packageInfo.packageName, receiver.name)
+                    }.getOrElse {
+                        false
                     }
+                    tracker.trackerId = signature
+                    tracker.isReceiver = true
+                    tracker.isService = false
+                    tracker.isActivity = false
+
+                    trackersList.add(tracker)
                 }
             }
         }
@@ -242,6 +233,39 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
         return trackersList
     }
 
+    /**
+     * Trackers found in the dex classes, only signatures that
+     * weren't already matched by a manifest component are added
+     */
+    private fun getDexTrackers(componentTrackers: List<Tracker>): ArrayList<Tracker> {
+        val known = componentTrackers.mapTo(HashSet()) { it.trackerId }
+        val keyword = keyword.lowercase()
+        val trackersList = arrayListOf<Tracker>()
+
+        val matches = kotlin.runCatching {
+            DexTrackerScanner(applicationContext().getTrackerMatcher()).scan(packageInfo.applicationInfo.sourceDir)
+        }.getOrElse {
+            it.printStackTrace()
+            emptyMap()
+        }
+
+        for ((signature, className) in matches) {
+            if (signature !in known && className.lowercase().contains(keyword)) {
+                val tracker = Tracker()
+
+                tracker.name = className
+                tracker.trackerId = signature
+                tracker.isReceiver = false
+                tracker.isService = false
+                tracker.isActivity = false
+
+                trackersList.add(tracker)
+            }
+        }
+
+        return trackersList
+    }
+
     override fun runRootProcess(fileSystemManager: FileSystemManager?) {
         if (fileSystemManager.isNotNull()) {
             fileSystemManager?.let {
@@ -395,117 +419,7 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
                 val doc: Document = docBuilder.parse(InputSource(StringReader(xml)))
 
                 // Modify the XML document
-                val rules = doc.getElementsByTagName("rules").item(0)
-
-                for (tracker in trackers) {
-                    val components = doc.getElementsByTagName("component-filter")
-
-                    /**
-                     * Remove the component if it already exists
-                     * This is to prevent duplicate entries
-                     */
-                    for (i in 0 until components.length) {
-                        val component = components.item(i)
-                        val name = component.attributes.getNamedItem("name").nodeValue
-
-                        if (name == "${packageInfo.packageName}/${tracker.name}") {
-                            component.parentNode.removeChild(component)
-                        }
-                    }
-
-                    val componentFilter = doc.createElement("component-filter")
-                    componentFilter.setAttribute("name", "${packageInfo.packageName}/${tracker.name}")
-
-                    if (tracker.isActivity) {
-                        // Check if the activity tag exists
-                        val activity = doc.getElementsByTagName("activity").item(0)
-
-                        if (activity == null) {
-                            val activity1 = doc.createElement("activity")
-                            activity1.setAttribute("block", "true")
-                            activity1.setAttribute("log", "false")
-                            activity1.appendChild(componentFilter)
-
-                            rules.appendChild(activity1)
-                        } else {
-                            /**
-                             * Check if block already exists and is true, if false
-                             * create another activity tag with block and log attributes
-                             * set to true
-                             */
-                            if (activity.attributes.getNamedItem("block") != null && activity.attributes.getNamedItem("block").nodeValue == "false") {
-                                val activity1 = doc.createElement("activity")
-                                activity1.setAttribute("block", "true")
-                                activity1.setAttribute("log", "false")
-                                activity1.appendChild(componentFilter)
-
-                                rules.appendChild(activity1)
-                            } else {
-                                activity.appendChild(componentFilter)
-                            }
-                        }
-                    }
-
-                    if (tracker.isService) {
-                        // Check if the service tag exists
-                        val service = doc.getElementsByTagName("service").item(0)
-
-                        if (service == null) {
-                            val service1 = doc.createElement("service")
-                            service1.setAttribute("block", "true")
-                            service1.setAttribute("log", "false")
-                            service1.appendChild(componentFilter)
-
-                            rules.appendChild(service1)
-                        } else {
-                            /**
-                             * Check if block already exists and is true, if false
-                             * create another service tag with block and log attributes
-                             * set to true
-                             */
-                            if (service.attributes.getNamedItem("block") != null && service.attributes.getNamedItem("block").nodeValue == "false") {
-                                val service1 = doc.createElement("service")
-                                service1.setAttribute("block", "true")
-                                service1.setAttribute("log", "false")
-                                service1.appendChild(componentFilter)
-
-                                rules.appendChild(service1)
-                            } else {
-                                service.appendChild(componentFilter)
-                            }
-                        }
-                    }
-
-                    if (tracker.isReceiver) {
-                        // Check if the broadcast tag exists
-                        val broadcast = doc.getElementsByTagName("broadcast").item(0)
-
-                        if (broadcast == null) {
-                            val broadcast1 = doc.createElement("broadcast")
-                            broadcast1.setAttribute("block", "true")
-                            broadcast1.setAttribute("log", "false")
-                            broadcast1.appendChild(componentFilter)
-
-                            rules.appendChild(broadcast1)
-                        } else {
-                            /**
-                             * Check if block already exists and is true, if false
-                             * create another broadcast tag with block and log attributes
-                             * set to true
-                             */
-                            if (broadcast.attributes.getNamedItem("block") != null && broadcast.attributes.getNamedItem("block").nodeValue == "false") {
-                                val broadcast1 = doc.createElement("broadcast")
-                                broadcast1.setAttribute("block", "true")
-                                broadcast1.setAttribute("log", "false")
-                                broadcast1.appendChild(componentFilter)
-
-                                rules.appendChild(broadcast1)
-                            } else {
-                                broadcast.appendChild(componentFilter)
-                            }
-                        }
-                    }
-                }
+                IntentFirewallUtils.blockTrackers(doc, packageInfo.packageName, trackers)
 
                 // Write the XML document back to the file
                 val transformerFactory: TransformerFactory = TransformerFactory.newInstance()
@@ -561,24 +475,7 @@ class TrackersViewModel(application: Application, private val packageInfo: Packa
                 val doc: Document = docBuilder.parse(InputSource(StringReader(xml)))
 
                 // Modify the XML document
-                // val rules = doc.getElementsByTagName("rules").item(0)
-
-                for (tracker in trackers) {
-                    val components = doc.getElementsByTagName("component-filter")
-
-                    /**
-                     * Remove the component if it already exists
-                     * This is to prevent duplicate entries
-                     */
-                    for (i in 0 until components.length) {
-                        val component = components.item(i)
-                        val name = component.attributes.getNamedItem("name").nodeValue
-
-                        if (name == "${packageInfo.packageName}/${tracker.name}") {
-                            component.parentNode.removeChild(component)
-                        }
-                    }
-                }
+                IntentFirewallUtils.unblockTrackers(doc, packageInfo.packageName, trackers)
 
                 // Write the XML document back to the file
                 val transformerFactory: TransformerFactory = TransformerFactory.newInstance()
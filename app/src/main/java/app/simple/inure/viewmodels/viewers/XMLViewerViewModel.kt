@@ -3,6 +3,7 @@ package app.simple.inure.viewmodels.viewers
 import android.app.Application
 import android.content.pm.PackageInfo
 import android.text.Html
+import android.text.SpannableString
 import android.text.Spanned
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
@@ -10,11 +11,12 @@ import androidx.lifecycle.viewModelScope
 import app.simple.inure.apk.parsers.APKParser.extractManifest
 import app.simple.inure.apk.parsers.ApkManifestFetcher
 import app.simple.inure.apk.xml.XML
+import app.simple.inure.apk.xml.XmlTextStreamer
+import app.simple.inure.constants.AndroidConstants
 import app.simple.inure.extensions.viewmodels.WrappedViewModel
 import app.simple.inure.util.FileUtils.toFile
 import app.simple.inure.util.StringUtils.readTextSafely
 import app.simple.inure.util.XMLUtils.formatXML
-import app.simple.inure.util.XMLUtils.getPrettyXML
 import com.jaredrummler.apkparser.ApkParser
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
@@ -54,6 +56,24 @@ class XMLViewerViewModel(val packageInfo: PackageInfo,
     private fun getSpannedXml() {
         viewModelScope.launch(Dispatchers.IO) {
             kotlin.runCatching {
+                if (raw.not()) {
+                    /**
+                     * Stream the binary xml straight into indented text,
+                     * the engines below need a DOM pass over the whole
+                     * document which takes seconds on large manifests,
+                     * they are only used if this one fails
+                     */
+                    kotlin.runCatching {
+                        XML(packageInfo.applicationInfo.sourceDir).use {
+                            val path = if (isManifest) AndroidConstants.MANIFEST_FILE else pathToXml
+                            it.transBinaryXml(path, XmlTextStreamer())!!
+                        }
+                    }.getOrNull()?.let {
+                        spanned.postValue(SpannableString(it.xml))
+                        return@launch
+                    }
+                }
+
                 val code: String = if (raw) {
                     FileInputStream(File(pathToXml)).use {
                         it.readTextSafely()
@@ -69,7 +89,16 @@ class XMLViewerViewModel(val packageInfo: PackageInfo,
                             ApkManifestFetcher.getManifestXmlFromFilePath(packageInfo.applicationInfo.sourceDir)!!
                         }
                     } else {
+                        /**
+                         * [XML] shares the parsed resources.arsc with every other
+                         * file opened from this apk, the other engines parse it
+                         * again for each file so they are only used as fallbacks
+                         */
                         kotlin.runCatching {
+                            XML(packageInfo.applicationInfo.sourceDir).use {
+                                it.transBinaryXml(pathToXml)!!
+                            }
+                        }.getOrElse {
                             kotlin.runCatching {
                                 ApkParser.create(packageInfo.applicationInfo.sourceDir.toFile()).use {
                                     it.transBinaryXml(pathToXml)
@@ -79,15 +108,11 @@ class XMLViewerViewModel(val packageInfo: PackageInfo,
                                     it.transBinaryXml(pathToXml)
                                 }
                             }
-                        }.getOrElse {
-                            XML(packageInfo.applicationInfo.sourceDir).use {
-                                it.transBinaryXml(pathToXml)
-                            }
                         }
                     }
                 }
 
-                spanned.postValue(code.formatXML().getPrettyXML())
+                spanned.postValue(SpannableString(code.formatXML()))
             }.getOrElse {
                 postError(it)
             }
@@ -0,0 +1,169 @@
+package app.simple.inure.apk.dex
+
+import app.simple.inure.util.Benchmarks
+import app.simple.inure.util.TrackerMatcher
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class DexTrackerScannerTest {
+
+    private val signatures = listOf(
+            "com.google.firebase.analytics.",
+            ".adswizz.",
+            "com.facebook.ads",
+            "io.sentry.",
+            "com.never.present.")
+
+    @Test
+    fun findsTrackerClasses() {
+        val dex = buildDex(classNames(2000))
+        val scanner = DexTrackerScanner(TrackerMatcher(signatures))
+
+        assertEquals(false, scanner.scan(dex))
+
+        val matches = scanner.matches
+        assertEquals(4, matches.size)
+        assertEquals("com.google.firebase.analytics.FirebaseAnalytics", matches["com.google.firebase.analytics."])
+        assertEquals("com.facebook.ads.AdView", matches["com.facebook.ads"])
+        assertEquals("io.sentry.Sentry", matches["io.sentry."])
+    }
+
+    @Test
+    fun stopsOnceAllSignaturesResolved() {
+        val dex = buildDex(classNames(2000))
+        val scanner = DexTrackerScanner(TrackerMatcher(signatures.dropLast(1)))
+
+        assertTrue(scanner.scan(dex))
+        assertTrue(scanner.scan(buildDex(listOf("Lcom/example/Other;"))))
+    }
+
+    @Test
+    fun matchesParsedClasses() {
+        val dex = buildDex(classNames(2000))
+        val scanner = DexTrackerScanner(TrackerMatcher(signatures))
+        scanner.scan(dex)
+
+        assertEquals(parsedMatches(dex), scanner.matches.keys)
+    }
+
+    /**
+     * Reading class types into the automaton against parsing every class
+     * and checking each signature the way it was done before
+     */
+    @Test
+    fun benchmarkSyntheticDex() {
+        Benchmarks.assumeEnabled()
+
+        val classes = classNames(60_000)
+        val dex = buildDex(classes)
+        val matcher = TrackerMatcher(signatures)
+
+        // Warm up
+        DexTrackerScanner(matcher).scan(dex)
+        parsedMatches(dex)
+
+        val scannerTime = Benchmarks.time { DexTrackerScanner(matcher).scan(dex) }
+        val parseTime = Benchmarks.time { parsedMatches(dex) }
+
+        println("DexTrackerScanner: ${classes.size} classes, ${dex.capacity() / 1024} KB dex")
+        println("  readClassTypes + automaton : ${"%.1f".format(scannerTime)} ms")
+        println("  parse() + contains()       : ${"%.1f".format(parseTime)} ms")
+    }
+
+    private fun parsedMatches(dex: ByteBuffer): Set<String> {
+        val found = HashSet<String>()
+
+        for (dexClass in DexParser(dex).parse()) {
+            val name = dexClass.classType.substring(1, dexClass.classType.length - 1).replace('/', '.')
+            for (signature in signatures) {
+                if (name.lowercase().contains(signature.lowercase())) {
+                    found.add(signature)
+                }
+            }
+        }
+
+        return found
+    }
+
+    private fun classNames(count: Int): List<String> {
+        val list = ArrayList<String>(count)
+
+        for (i in 0 until count - 4) {
+            list.add("Lcom/example/feature${i % 250}/Class$i;")
+        }
+
+        list.add(count / 2, "Lcom/google/firebase/analytics/FirebaseAnalytics;")
+        list.add(count / 3, "Lcom/facebook/ads/AdView;")
+        list.add(count / 4, "Lcom/adswizz/sdk/Player;")
+        list.add("Lio/sentry/Sentry;")
+
+        return list
+    }
+
+    /**
+     * Minimal dex with a header, string_ids, type_ids and class_defs,
+     * enough for [DexParser] to read class descriptors
+     */
+    private fun buildDex(classNames: List<String>): ByteBuffer {
+        val count = classNames.size
+        val headerSize = 0x70
+        val stringIdsOff = headerSize
+        val typeIdsOff = stringIdsOff + count * 4
+        val classDefsOff = typeIdsOff + count * 4
+        val dataOff = classDefsOff + count * 32
+
+        val data = ByteArrayOutputStream()
+        val stringOffsets = IntArray(count)
+
+        for ((i, name) in classNames.withIndex()) {
+            stringOffsets[i] = dataOff + data.size()
+            var length = name.length
+            while (length >= 0x80) {
+                data.write((length and 0x7f) or 0x80)
+                length = length ushr 7
+            }
+            data.write(length)
+            data.write(name.toByteArray(Charsets.UTF_8))
+            data.write(0)
+        }
+
+        val buffer = ByteBuffer.allocate(dataOff + data.size()).order(ByteOrder.LITTLE_ENDIAN)
+
+        buffer.put("dex\n035\u0000".toByteArray(Charsets.US_ASCII))
+        buffer.putInt(0) // checksum
+        buffer.put(ByteArray(20)) // signature
+        buffer.putInt(buffer.capacity()) // file_size
+        buffer.putInt(headerSize)
+        buffer.putInt(0x12345678) // endian_tag
+        buffer.putInt(0).putInt(0) // link
+        buffer.putInt(0) // map_off
+        buffer.putInt(count).putInt(stringIdsOff)
+        buffer.putInt(count).putInt(typeIdsOff)
+        buffer.putInt(0).putInt(0) // proto_ids
+        buffer.putInt(0).putInt(0) // field_ids
+        buffer.putInt(0).putInt(0) // method_ids
+        buffer.putInt(count).putInt(classDefsOff)
+        buffer.putInt(data.size()).putInt(dataOff)
+
+        for (offset in stringOffsets) buffer.putInt(offset)
+        for (i in 0 until count) buffer.putInt(i)
+
+        for (i in 0 until count) {
+            buffer.putInt(i) // class_idx
+            buffer.putInt(1) // access_flags
+            buffer.putInt(-1) // superclass_idx
+            buffer.putInt(0) // interfaces_off
+            buffer.putInt(-1) // source_file_idx
+            buffer.putInt(0).putInt(0).putInt(0)
+        }
+
+        buffer.put(data.toByteArray())
+        buffer.rewind()
+
+        return buffer
+    }
+}
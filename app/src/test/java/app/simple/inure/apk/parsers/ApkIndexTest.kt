@@ -0,0 +1,182 @@
+package app.simple.inure.apk.parsers
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+import java.util.Random
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+class ApkIndexTest {
+
+    private val files = mutableListOf<File>()
+
+    @After
+    fun deleteFiles() {
+        ApkIndex.clear()
+        files.forEach { it.delete() }
+    }
+
+    @Test
+    fun readsLikeZipFile() {
+        val apk = zip(comment = "signed by nobody") {
+            stored(it, "resources.arsc", bytes(4096))
+            deflated(it, "AndroidManifest.xml", "<manifest/>".repeat(100).toByteArray())
+            deflated(it, "classes.dex", bytes(10_000))
+            deflated(it, "lib/arm64-v8a/libnative.so", bytes(20_000))
+            stored(it, "res/drawable/icon.png", bytes(300))
+            deflated(it, "res/layout/main.xml", ByteArray(0))
+            deflated(it, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".toByteArray())
+            it.putNextEntry(ZipEntry("assets/"))
+            it.closeEntry()
+        }
+
+        val index = ApkIndex.of(apk.path)
+
+        assertMatchesZipFile(apk, index)
+        assertEquals(ApkIndex.KIND_ARSC, index.getKind(index.indexOf("resources.arsc")))
+        assertEquals(ApkIndex.KIND_XML, index.getKind(index.indexOf("AndroidManifest.xml")))
+        assertEquals(ApkIndex.KIND_DEX, index.getKind(index.indexOf("classes.dex")))
+        assertEquals(ApkIndex.KIND_SO, index.getKind(index.indexOf("lib/arm64-v8a/libnative.so")))
+        assertEquals(ApkIndex.KIND_IMAGE, index.getKind(index.indexOf("res/drawable/icon.png")))
+        assertEquals(ApkIndex.KIND_OTHER, index.getKind(index.indexOf("META-INF/MANIFEST.MF")))
+        assertEquals(listOf("AndroidManifest.xml", "res/layout/main.xml"), index.filterNames(ApkIndex.KIND_XML) { true })
+
+        // Parsed from the central directory, not through the ZipFile fallback
+        assertEquals(0L, index.getLocalHeaderOffset(0))
+        assertTrue(index.getLocalHeaderOffset(1) > 0)
+    }
+
+    /**
+     * More entries than the 16 bits of the end of central directory
+     * record can count, the count is only in the zip64 record
+     */
+    @Test
+    fun readsZip64EntryCount() {
+        val apk = zip {
+            for (i in 0 until 70_000) {
+                stored(it, "res/raw/r$i.xml", byteArrayOf(i.toByte()))
+            }
+            deflated(it, "classes.dex", bytes(1000))
+        }
+
+        val index = ApkIndex.of(apk.path)
+
+        assertEquals(70_001, index.size)
+        assertMatchesZipFile(apk, index)
+        assertTrue(index.getLocalHeaderOffset(70_000) > 0)
+    }
+
+    @Test
+    fun cachesUntilModified() {
+        val apk = zip { deflated(it, "classes.dex", bytes(100)) }
+
+        val index = ApkIndex.of(apk.path)
+        assertTrue(index === ApkIndex.of(apk.path))
+
+        zip(apk) { deflated(it, "classes2.dex", bytes(100)) }
+        apk.setLastModified(index.lastModified + 2000)
+
+        assertEquals("classes2.dex", ApkIndex.of(apk.path).getName(0))
+    }
+
+    /**
+     * Bytes in front of the archive shift every offset of the central
+     * directory, the parser gives up on it and ZipFile reads it instead
+     */
+    @Test
+    fun fallsBackToZipFile() {
+        val zip = zip {
+            deflated(it, "classes.dex", bytes(5000))
+            stored(it, "resources.arsc", bytes(500))
+        }
+        val apk = file().apply { writeBytes(bytes(1000) + zip.readBytes()) }
+
+        val index = ApkIndex.of(apk.path)
+
+        assertMatchesZipFile(apk, index)
+        assertEquals(-1L, index.getLocalHeaderOffset(0))
+    }
+
+    @Test
+    fun failsOnTruncatedFile() {
+        val zip = zip {
+            deflated(it, "classes.dex", bytes(5000))
+            stored(it, "resources.arsc", bytes(500))
+        }
+        val bytes = zip.readBytes()
+
+        for (length in intArrayOf(0, 10, bytes.size / 2, bytes.size - 10)) {
+            val apk = file().apply { writeBytes(bytes.copyOf(length)) }
+
+            try {
+                ApkIndex.of(apk.path)
+                fail("Indexed $length of ${bytes.size} bytes")
+            } catch (e: IOException) {
+                // Neither the parser nor ZipFile can read it
+            }
+        }
+    }
+
+    private fun assertMatchesZipFile(file: File, index: ApkIndex) {
+        ZipFile(file).use { zipFile ->
+            val entries = zipFile.entries().toList()
+            assertEquals(entries.size, index.size)
+
+            for ((i, entry) in entries.withIndex()) {
+                assertEquals(entry.name, index.getName(i))
+                assertEquals(entry.name, entry.size, index.getSize(i))
+                assertEquals(entry.name, entry.compressedSize, index.getCompressedSize(i))
+                assertEquals(entry.name, entry.crc, index.getCrc(i).toLong() and 0xFFFFFFFFL)
+                assertEquals(entry.name, entry.method, index.getMethod(i))
+                assertEquals(entry.name, ApkIndex.kindOf(entry.name), index.getKind(i))
+            }
+        }
+    }
+
+    private fun zip(file: File = file(), comment: String? = null, entries: (ZipOutputStream) -> Unit): File {
+        ZipOutputStream(file.outputStream()).use {
+            it.setComment(comment)
+            entries(it)
+        }
+
+        return file
+    }
+
+    private fun stored(zip: ZipOutputStream, name: String, data: ByteArray) {
+        zip.putNextEntry(ZipEntry(name).apply {
+            method = ZipEntry.STORED
+            size = data.size.toLong()
+            crc = CRC32().apply { update(data) }.value
+        })
+        zip.write(data)
+        zip.closeEntry()
+    }
+
+    private fun deflated(zip: ZipOutputStream, name: String, data: ByteArray) {
+        zip.putNextEntry(ZipEntry(name))
+        zip.write(data)
+        zip.closeEntry()
+    }
+
+    /**
+     * Half random, half repeated bytes, so deflating shrinks them
+     * without making them trivial
+     */
+    private fun bytes(count: Int): ByteArray {
+        val random = Random(count.toLong())
+        return ByteArray(count) { if (it % 2 == 0) random.nextInt().toByte() else 7 }
+    }
+
+    private fun file(): File {
+        return File.createTempFile("index", ".apk").also {
+            files.add(it)
+        }
+    }
+}
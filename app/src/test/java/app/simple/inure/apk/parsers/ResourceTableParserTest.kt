@@ -0,0 +1,270 @@
+package app.simple.inure.apk.parsers
+
+import app.simple.inure.apk.structure.resource.ResourceTable
+import app.simple.inure.apk.structure.string.StringPool
+import app.simple.inure.apk.structure.string.StringPoolHeader
+import app.simple.inure.apk.utils.ParseUtils
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.Locale
+
+class ResourceTableParserTest {
+
+    /**
+     * Keeps the measured object reachable while the heap is sampled
+     */
+    private var sink: Any? = null
+
+    private val samples = listOf(
+            "",
+            "app_name",
+            "Überprüfung läuft…",
+            "日本語のテキスト",
+            "emoji 😀 pair",
+            "x".repeat(200),
+            "ü".repeat(300))
+
+    @Test
+    fun decodesUtf8Pool() {
+        val pool = readPool(buildStringPool(samples, utf8 = true))
+
+        assertEquals(samples.size, pool.size())
+        for (i in samples.indices.reversed()) {
+            assertEquals(samples[i], pool.get(i))
+        }
+    }
+
+    @Test
+    fun decodesUtf16Pool() {
+        val pool = readPool(buildStringPool(samples, utf8 = false))
+
+        assertEquals(samples.size, pool.size())
+        for (i in samples.indices) {
+            assertEquals(samples[i], pool.get(i))
+            assertEquals(samples[i], pool.get(i))
+        }
+    }
+
+    @Test
+    fun cacheCollisionsDecodeAgain() {
+        val strings = List(5000) { "string_$it" }
+        val pool = readPool(buildStringPool(strings, utf8 = true))
+
+        for (round in 0 until 2) {
+            for (i in strings.indices) {
+                assertEquals(strings[i], pool.get(i))
+            }
+        }
+    }
+
+    @Test
+    fun resolvesStringResources() {
+        val table = parse(buildResourceTable(2000))
+
+        for (i in listOf(0, 1, 999, 1999)) {
+            val resources = table.getResourcesById(0x7f010000L + i)
+            assertEquals(1, resources.size)
+            assertEquals("value_$i", resources[0].resourceEntry.toStringValue(table, Locale.US))
+            assertEquals("key_$i", resources[0].resourceEntry.key)
+        }
+    }
+
+    /**
+     * JMH style benchmark, warm up rounds followed by measured rounds,
+     * average time per operation and retained heap of the parsed table
+     * against the same table with its pools fully decoded like before
+     */
+    @Test
+    fun benchmarkFrameworkSizedTable() {
+        Benchmarks.assumeEnabled()
+
+        val count = 100_000
+        val arsc = buildResourceTable(count)
+        val lookups = IntArray(50) { (it * 7919) % MAX_ENTRIES }
+
+        fun lazyLayout(): Int {
+            val table = parse(arsc)
+            var length = 0
+            for (i in lookups) {
+                length += table.getResourcesById(0x7f010000L + i)[0].resourceEntry.toStringValue(table, Locale.US).length
+            }
+            return length
+        }
+
+        fun eagerLayout(): Int {
+            val table = parse(arsc)
+            var length = decodeAll(table.stringPool).size + decodeAll(table.getPackage(0x7f).keyStringPool).size
+            for (i in lookups) {
+                length += table.getResourcesById(0x7f010000L + i)[0].resourceEntry.toStringValue(table, Locale.US).length
+            }
+            return length
+        }
+
+        val parseTime = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) { parse(arsc) }
+        val lazyTime = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) { lazyLayout() }
+        val eagerTime = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) { eagerLayout() }
+
+        val lazyHeap = retainedHeap { parse(arsc) }
+        val eagerHeap = retainedHeap {
+            val table = parse(arsc)
+            Triple(table, decodeAll(table.stringPool), decodeAll(table.getPackage(0x7f).keyStringPool))
+        }
+
+        println("ResourceTableParser: $count strings, ${arsc.size / 1024} KB arsc")
+        println("  parse only              : ${"%.2f".format(parseTime)} ms/op")
+        println("  lazy pool, 50 lookups   : ${"%.2f".format(lazyTime)} ms/op, ${lazyHeap / 1024} KB retained")
+        println("  decoded pool, 50 lookups: ${"%.2f".format(eagerTime)} ms/op, ${eagerHeap / 1024} KB retained")
+    }
+
+    private fun retainedHeap(operation: () -> Any): Long {
+        val before = usedHeap()
+        sink = operation()
+        val after = usedHeap()
+        sink = null
+        return after - before
+    }
+
+    private fun usedHeap(): Long {
+        val runtime = Runtime.getRuntime()
+        repeat(3) {
+            System.gc()
+            Thread.sleep(50)
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+
+    private fun decodeAll(pool: StringPool): Array<String> {
+        return Array(pool.size()) { pool.get(it) }
+    }
+
+    private fun parse(arsc: ByteArray): ResourceTable {
+        val parser = ResourceTableParser(ByteBuffer.wrap(arsc))
+        parser.parse()
+        return parser.resourceTable
+    }
+
+    private fun readPool(chunk: ByteArray): StringPool {
+        val buffer = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN)
+        val header = StringPoolHeader(buffer.getShort(2).toInt(), buffer.getInt(4).toLong())
+        header.setStringCount(buffer.getInt(8).toLong())
+        header.setStyleCount(buffer.getInt(12).toLong())
+        header.setFlags(buffer.getInt(16).toLong())
+        header.setStringsStart(buffer.getInt(20).toLong())
+        header.setStylesStart(buffer.getInt(24).toLong())
+        buffer.position(STRING_POOL_HEADER_SIZE)
+        return ParseUtils.readStringPool(buffer, header)
+    }
+
+    /**
+     * resources.arsc with one package holding a single string type,
+     * entry i is the key key_i with the global string value_i. Entry
+     * ids are 16 bit so only the first [MAX_ENTRIES] strings get one.
+     */
+    private fun buildResourceTable(strings: Int): ByteArray {
+        val count = minOf(strings, MAX_ENTRIES)
+        val values = buildStringPool(List(strings) { "value_$it" }, utf8 = true)
+        val typeStrings = buildStringPool(listOf("string"), utf8 = false)
+        val keyStrings = buildStringPool(List(strings) { "key_$it" }, utf8 = true)
+
+        val typeSpec = chunk(0x0202, 16, 4 * count) {
+            put(1).put(0).putShort(0).putInt(count)
+            repeat(count) { putInt(0) }
+        }
+
+        val typeHeaderSize = 20 + CONFIG_SIZE
+        val type = chunk(0x0201, typeHeaderSize, 4 * count + ENTRY_SIZE * count) {
+            put(1).put(0).putShort(0).putInt(count).putInt(typeHeaderSize + 4 * count)
+            putInt(CONFIG_SIZE).put(ByteArray(CONFIG_SIZE - 4))
+            repeat(count) { putInt(it * ENTRY_SIZE) }
+            repeat(count) {
+                putShort(8).putShort(0).putInt(it)
+                putShort(8).put(0).put(0x03).putInt(it)
+            }
+        }
+
+        val packageBody = typeStrings + keyStrings + typeSpec + type
+        val packageChunk = chunk(0x0200, PACKAGE_HEADER_SIZE, packageBody.size) {
+            putInt(0x7f)
+            val name = "app.simple.inure.test"
+            repeat(128) { putChar(if (it < name.length) name[it] else '\u0000') }
+            putInt(PACKAGE_HEADER_SIZE).putInt(0)
+            putInt(PACKAGE_HEADER_SIZE + typeStrings.size).putInt(0)
+            putInt(0)
+            put(packageBody)
+        }
+
+        return chunk(0x0002, 12, values.size + packageChunk.size) {
+            putInt(1)
+            put(values)
+            put(packageChunk)
+        }
+    }
+
+    private fun buildStringPool(strings: List<String>, utf8: Boolean): ByteArray {
+        val data = ByteArrayOutputStream()
+        val offsets = IntArray(strings.size)
+
+        for ((i, string) in strings.withIndex()) {
+            offsets[i] = data.size()
+
+            if (utf8) {
+                val bytes = string.toByteArray(Charsets.UTF_8)
+                writeLength8(data, string.length)
+                writeLength8(data, bytes.size)
+                data.write(bytes)
+                data.write(0)
+            } else {
+                if (string.length > 0x7fff) {
+                    writeShort(data, 0x8000 or (string.length ushr 16))
+                }
+                writeShort(data, string.length and 0x7fff)
+                for (c in string) writeShort(data, c.code)
+                writeShort(data, 0)
+            }
+        }
+
+        while (data.size() % 4 != 0) data.write(0)
+
+        val stringsStart = STRING_POOL_HEADER_SIZE + 4 * strings.size
+        return chunk(0x0001, STRING_POOL_HEADER_SIZE, 4 * strings.size + data.size()) {
+            putInt(strings.size).putInt(0)
+            putInt(if (utf8) StringPoolHeader.UTF8_FLAG else 0)
+            putInt(stringsStart).putInt(0)
+            for (offset in offsets) putInt(offset)
+            put(data.toByteArray())
+        }
+    }
+
+    private fun chunk(type: Int, headerSize: Int, bodySize: Int, body: ByteBuffer.() -> Unit): ByteArray {
+        val buffer = ByteBuffer.allocate(headerSize + bodySize).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.putShort(type.toShort()).putShort(headerSize.toShort()).putInt(headerSize + bodySize)
+        buffer.body()
+        return buffer.array()
+    }
+
+    private fun writeLength8(out: ByteArrayOutputStream, length: Int) {
+        if (length > 0x7f) {
+            out.write(0x80 or (length ushr 8))
+        }
+        out.write(length and 0xff)
+    }
+
+    private fun writeShort(out: ByteArrayOutputStream, value: Int) {
+        out.write(value and 0xff)
+        out.write(value ushr 8)
+    }
+
+    companion object {
+        private const val WARMUP_ROUNDS = 10
+        private const val MEASURED_ROUNDS = 20
+        private const val STRING_POOL_HEADER_SIZE = 28
+        private const val PACKAGE_HEADER_SIZE = 288
+        private const val CONFIG_SIZE = 64
+        private const val ENTRY_SIZE = 16
+        private const val MAX_ENTRIES = 50_000
+    }
+}
@@ -0,0 +1,82 @@
+package app.simple.inure.apk.utils
+
+import app.simple.inure.models.Tracker
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.w3c.dom.Document
+import org.xml.sax.InputSource
+import java.io.StringReader
+import javax.xml.parsers.DocumentBuilderFactory
+
+class IntentFirewallUtilsTest {
+
+    private val packageName = "com.example"
+
+    @Test
+    fun blocksOnlyComponents() {
+        val document = rules("")
+
+        IntentFirewallUtils.blockTrackers(document, packageName, listOf(
+                tracker("com.tracker.Activity", isActivity = true),
+                tracker("com.tracker.Service", isService = true),
+                tracker("com.tracker.dex.Sdk")))
+
+        assertEquals(listOf("activity:com.example/com.tracker.Activity", "service:com.example/com.tracker.Service"), filters(document))
+    }
+
+    @Test
+    fun unblockingDexTrackerKeepsNamesakeRule() {
+        val document = rules("""<broadcast block="true" log="false"><component-filter name="com.example/com.tracker.Receiver" /></broadcast>""")
+
+        // Found in the dex classes only, it has the name of the blocked receiver
+        IntentFirewallUtils.unblockTrackers(document, packageName, listOf(tracker("com.tracker.Receiver")))
+        assertEquals(listOf("broadcast:com.example/com.tracker.Receiver"), filters(document))
+
+        IntentFirewallUtils.unblockTrackers(document, packageName, listOf(tracker("com.tracker.Receiver", isReceiver = true)))
+        assertEquals(emptyList<String>(), filters(document))
+    }
+
+    @Test
+    fun removesDuplicateFilters() {
+        val receiver = """<component-filter name="com.example/com.tracker.Receiver" />"""
+        val other = """<component-filter name="com.example/com.other.Receiver" />"""
+        val document = rules("""<broadcast block="true" log="false">$receiver$receiver$other$receiver</broadcast>""" +
+                                     """<activity block="true" log="false">$receiver</activity>""")
+
+        IntentFirewallUtils.unblockTrackers(document, packageName, listOf(tracker("com.tracker.Receiver", isReceiver = true)))
+
+        assertEquals(listOf("broadcast:com.example/com.other.Receiver"), filters(document))
+    }
+
+    @Test
+    fun blocksDuplicatesOnce() {
+        val receiver = """<component-filter name="com.example/com.tracker.Receiver" />"""
+        val document = rules("""<broadcast block="true" log="false">$receiver$receiver</broadcast>""")
+
+        IntentFirewallUtils.blockTrackers(document, packageName, listOf(tracker("com.tracker.Receiver", isReceiver = true)))
+
+        assertEquals(listOf("broadcast:com.example/com.tracker.Receiver"), filters(document))
+    }
+
+    private fun tracker(name: String, isActivity: Boolean = false, isService: Boolean = false, isReceiver: Boolean = false): Tracker {
+        return Tracker().apply {
+            this.name = name
+            trackerId = name.substringBeforeLast(".")
+            this.isActivity = isActivity
+            this.isService = isService
+            this.isReceiver = isReceiver
+        }
+    }
+
+    private fun rules(content: String): Document {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(InputSource(StringReader("<rules>$content</rules>")))
+    }
+
+    private fun filters(document: Document): List<String> {
+        val filters = document.getElementsByTagName("component-filter")
+
+        return (0 until filters.length).map {
+            filters.item(it).parentNode.nodeName + ":" + filters.item(it).attributes.getNamedItem("name").nodeValue
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package app.simple.inure.apk.xml
+
+import app.simple.inure.apk.structure.attribute.Attribute
+import app.simple.inure.apk.structure.attribute.Attributes
+import app.simple.inure.apk.structure.xml.XmlNamespaceEndTag
+import app.simple.inure.apk.structure.xml.XmlNamespaceStartTag
+import app.simple.inure.apk.structure.xml.XmlNodeEndTag
+import app.simple.inure.apk.structure.xml.XmlNodeStartTag
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.w3c.dom.NodeList
+import org.xml.sax.InputSource
+import java.io.StringReader
+import java.io.StringWriter
+import java.util.regex.Pattern
+import javax.xml.parsers.DocumentBuilderFactory
+import javax.xml.transform.OutputKeys
+import javax.xml.transform.TransformerFactory
+import javax.xml.transform.dom.DOMSource
+import javax.xml.transform.stream.StreamResult
+import javax.xml.xpath.XPathConstants
+import javax.xml.xpath.XPathFactory
+
+class XmlTextStreamerTest {
+
+    @Test
+    fun rendersIndentedXml() {
+        val streamer = XmlTextStreamer()
+        manifest(streamer, activities = 1)
+
+        assertEquals("""
+            <manifest xmlns:android="$ANDROID" android:versionCode="1" package="app.simple.test">
+                <uses-permission android:name="android.permission.INTERNET"/>
+                <application android:label="Test &amp; &lt;app&gt;">
+                    <activity android:exported="true" android:name=".Activity0">
+                        <intent-filter>
+                            <action android:name="android.intent.action.MAIN"/>
+                        </intent-filter>
+                    </activity>
+                </application>
+            </manifest>
+            
+        """.trimIndent(), streamer.xml)
+    }
+
+    @Test
+    fun matchesFormattedTranslatorOutput() {
+        val streamer = XmlTextStreamer()
+        val xmlTranslator = XmlTranslator()
+        manifest(streamer, activities = 50)
+        manifest(xmlTranslator, activities = 50)
+
+        assertEquals(format(xmlTranslator.xml).trim(), streamer.xml.trim())
+    }
+
+    /**
+     * JMH style benchmark, the translator, DOM formatter and regex
+     * highlighter the viewer used to chain against the streaming one
+     */
+    @Test
+    fun benchmarkLargeManifest() {
+        Benchmarks.assumeEnabled()
+
+        val activities = 5_000
+
+        val old = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            val xmlTranslator = XmlTranslator()
+            manifest(xmlTranslator, activities)
+            highlight(format(xmlTranslator.xml))
+        }
+
+        val new = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            val streamer = XmlTextStreamer()
+            manifest(streamer, activities)
+            streamer.xml
+        }
+
+        val size = XmlTextStreamer().also { manifest(it, activities) }.xml.length
+        println("XmlTextStreamer: $activities activities, ${size / 1024} KB of text")
+        println("  translate, format, regex: ${"%.2f".format(old)} ms/op")
+        println("  streaming text          : ${"%.2f".format(new)} ms/op")
+    }
+
+    /**
+     * Same events [BinaryXmlParser] emits for a manifest, attribute
+     * namespaces are uris and prefixes are resolved by the streamer
+     */
+    private fun manifest(streamer: XmlStreamer, activities: Int) {
+        streamer.onNamespaceStart(XmlNamespaceStartTag().apply {
+            prefix = "android"
+            uri = ANDROID
+        })
+
+        start(streamer, "manifest", ANDROID to "versionCode" to "1", "" to "package" to "app.simple.test")
+        start(streamer, "uses-permission", ANDROID to "name" to "android.permission.INTERNET")
+        end(streamer, "uses-permission")
+        start(streamer, "application", ANDROID to "label" to "Test & <app>")
+
+        for (i in 0 until activities) {
+            start(streamer, "activity", ANDROID to "exported" to "true", ANDROID to "name" to ".Activity$i")
+            start(streamer, "intent-filter")
+            start(streamer, "action", ANDROID to "name" to "android.intent.action.MAIN")
+            end(streamer, "action")
+            end(streamer, "intent-filter")
+            end(streamer, "activity")
+        }
+
+        end(streamer, "application")
+        end(streamer, "manifest")
+
+        streamer.onNamespaceEnd(XmlNamespaceEndTag().apply {
+            prefix = "android"
+            uri = ANDROID
+        })
+    }
+
+    private fun start(streamer: XmlStreamer, name: String, vararg attributes: Pair<Pair<String, String>, String>) {
+        streamer.onStartTag(XmlNodeStartTag().apply {
+            this.name = name
+            this.attributes = Attributes(attributes.size).apply {
+                for ((i, attribute) in attributes.withIndex()) {
+                    set(i, Attribute().apply {
+                        namespace = attribute.first.first
+                        this.name = attribute.first.second
+                        value = attribute.second
+                    })
+                }
+            }
+        })
+    }
+
+    private fun end(streamer: XmlStreamer, name: String) {
+        streamer.onEndTag(XmlNodeEndTag().apply {
+            this.name = name
+        })
+    }
+
+    /**
+     * XMLUtils.getProperXml
+     */
+    private fun format(xml: String): String {
+        val document = DocumentBuilderFactory.newInstance()
+            .newDocumentBuilder()
+            .parse(InputSource(StringReader(xml)))
+        val nodeList = XPathFactory.newInstance().newXPath()
+            .evaluate("//text()[normalize-space()='']", document, XPathConstants.NODESET) as NodeList
+        for (i in 0 until nodeList.length) {
+            val node = nodeList.item(i)
+            node.parentNode.removeChild(node)
+        }
+        val transformer = TransformerFactory.newInstance().newTransformer()
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8")
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes")
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes")
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4")
+        val stringWriter = StringWriter()
+        transformer.transform(DOMSource(document), StreamResult(stringWriter))
+        return stringWriter.toString()
+    }
+
+    /**
+     * XMLUtils.getPrettyXML without the spans
+     */
+    private fun highlight(xml: String): Int {
+        var count = 0
+        val matcher = tags.matcher(xml)
+        while (matcher.find()) count++
+        matcher.usePattern(quotations)
+        while (matcher.find()) count++
+        return count
+    }
+
+    companion object {
+        private const val ANDROID = "http://schemas.android.com/apk/res/android"
+        private const val WARMUP_ROUNDS = 5
+        private const val MEASURED_ROUNDS = 10
+
+        private val quotations: Pattern = Pattern.compile("\"([^\"]*)\"", Pattern.MULTILINE)
+
+        private val tags = Pattern.compile("<\\w+\\.+\\S+|<\\w+\\.+\\S+|</\\w+.+>|</\\w+-+\\S+>|<\\w+-+\\S+|</\\w+>|</\\w+|" +
+                                                   "<\\w+/>|<\\w+>|<\\w+|<.\\w+|\\?>|/>",
+                                           Pattern.MULTILINE or Pattern.CASE_INSENSITIVE)
+    }
+}
@@ -0,0 +1,200 @@
+package app.simple.inure.decorations.emulatorview
+
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.util.Random
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class ByteRingTest {
+
+    @Test
+    fun runsStopAtTheEndOfTheArray() {
+        val ring = ByteRing(10)
+        assertEquals(16, ring.array().size)
+        assertEquals(16, ring.writableRun())
+
+        ring.publish(12)
+        assertEquals(4, ring.writableRun())
+        assertEquals(12, ring.readableRun())
+
+        ring.consume(10)
+        assertEquals(2, ring.readableRun())
+        assertEquals(4, ring.writableRun())
+
+        ring.publish(4)
+        assertEquals(0, ring.writeOffset())
+        assertEquals(10, ring.writableRun())
+        assertEquals(6, ring.readableRun())
+
+        ring.consume(6)
+        assertEquals(0, ring.readOffset())
+        assertEquals(0, ring.getBytesAvailable())
+    }
+
+    @Test
+    fun deliversEveryByteInOrder() {
+        val input = ByteArray(4_000_000).also { Random(1).nextBytes(it) }
+        val ring = ByteRing(4096)
+        val output = ByteArrayOutputStream()
+
+        val reader = Thread {
+            // Odd sized reads, like a pty hands out
+            val random = Random(2)
+            var offset = 0
+            while (offset < input.size) {
+                ring.awaitSpace()
+                val read = minOf(random.nextInt(3000) + 1, ring.writableRun(), input.size - offset)
+                System.arraycopy(input, offset, ring.array(), ring.writeOffset(), read)
+                ring.publish(read)
+                offset += read
+            }
+        }
+        reader.start()
+
+        while (output.size() < input.size) {
+            val run = ring.readableRun()
+            if (run == 0) {
+                Thread.yield()
+                continue
+            }
+            output.write(ring.array(), ring.readOffset(), run)
+            ring.consume(run)
+        }
+
+        reader.join()
+        assertArrayEquals(input, output.toByteArray())
+    }
+
+    @Test
+    fun fullRingParksTheProducer() {
+        val ring = ByteRing(16)
+        ring.publish(16)
+
+        val isWritten = AtomicBoolean()
+        val producer = Thread {
+            ring.awaitSpace()
+            isWritten.set(true)
+        }
+        producer.start()
+
+        Thread.sleep(100)
+        assertEquals(Thread.State.WAITING, producer.state)
+        assertTrue(!isWritten.get())
+
+        ring.consume(1)
+        producer.join(TimeUnit.SECONDS.toMillis(5))
+        assertTrue(isWritten.get())
+    }
+
+    @Test
+    fun interruptStopsAParkedProducer() {
+        val ring = ByteRing(16)
+        ring.publish(16)
+        Thread.currentThread().interrupt()
+
+        val isInterrupted = try {
+            ring.awaitSpace()
+            false
+        } catch (e: InterruptedException) {
+            true
+        }
+
+        assertTrue(isInterrupted)
+    }
+
+    /**
+     * Bytes from a reader thread to the consumer through the ring, against
+     * copying through a ByteQueue into a receive buffer like TermSession did
+     */
+    @Test
+    fun benchmarkHandOver() {
+        Benchmarks.assumeEnabled()
+
+        val chunk = ByteArray(4096).also { Random(3).nextBytes(it) }
+        val total = 64L * 1024 * 1024
+
+        var queue = Long.MAX_VALUE
+        var ring = Long.MAX_VALUE
+        repeat(3) {
+            queue = minOf(queue, timeQueue(chunk, total))
+            ring = minOf(ring, timeRing(chunk, total))
+        }
+
+        println("Handed over %d MB, ByteQueue %.0f MB/s, ByteRing %.0f MB/s".format(
+                total shr 20, (total shr 20) / (queue / 1e9), (total shr 20) / (ring / 1e9)))
+    }
+
+    private fun timeQueue(chunk: ByteArray, total: Long): Long {
+        val queue = ByteQueue(4096)
+        val receiverBuffer = ByteArray(4096)
+        val start = System.nanoTime()
+
+        val reader = Thread {
+            var sent = 0L
+            while (sent < total) {
+                var offset = 0
+                while (offset < chunk.size) {
+                    offset += queue.write(chunk, offset, chunk.size - offset)
+                }
+                sent += chunk.size
+            }
+        }
+        reader.start()
+
+        var received = 0L
+        var sum = 0L
+        while (received < total) {
+            // Only what is there, TermSession never waited on the main thread
+            val available = queue.bytesAvailable
+            if (available == 0) {
+                Thread.yield()
+                continue
+            }
+            val read = queue.read(receiverBuffer, 0, minOf(available, receiverBuffer.size))
+            sum += receiverBuffer[read - 1]
+            received += read
+        }
+
+        reader.join()
+        return System.nanoTime() - start + (sum and 0)
+    }
+
+    private fun timeRing(chunk: ByteArray, total: Long): Long {
+        val ring = ByteRing(64 * 1024)
+        val start = System.nanoTime()
+
+        val reader = Thread {
+            var sent = 0L
+            while (sent < total) {
+                ring.awaitSpace()
+                // What termIn.read() does straight into the ring
+                val read = minOf(chunk.size, ring.writableRun())
+                System.arraycopy(chunk, 0, ring.array(), ring.writeOffset(), read)
+                ring.publish(read)
+                sent += read
+            }
+        }
+        reader.start()
+
+        var received = 0L
+        var sum = 0L
+        while (received < total) {
+            val run = ring.readableRun()
+            if (run == 0) {
+                Thread.yield()
+                continue
+            }
+            sum += ring.array()[ring.readOffset() + run - 1]
+            ring.consume(run)
+            received += run
+        }
+
+        reader.join()
+        return System.nanoTime() - start + (sum and 0)
+    }
+}
@@ -0,0 +1,87 @@
+package app.simple.inure.decorations.emulatorview
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class DamageTrackerTest {
+
+    private val scheme = ColorScheme(0xffcccccc.toInt(), 0xff000000.toInt())
+
+    @Test
+    fun startsAllDirty() {
+        val emulator = emulator()
+        assertEquals(-1, collect(emulator).first)
+        assertEquals(0 to "", collect(emulator))
+    }
+
+    @Test
+    fun damagesOnlyWrittenRows() {
+        val emulator = emulator()
+        collect(emulator)
+
+        append(emulator, "\u001b[5;3Hhello")
+        assertEquals(0 to "4", collect(emulator))
+
+        append(emulator, "\u001b[2;1H\u001b[K\u001b[9;1H\u001b[31mred")
+        assertEquals(0 to "1,8", collect(emulator))
+
+        // Moving the cursor changes nothing on the screen
+        append(emulator, "\u001b[1;1H\u001b[10;40H")
+        assertEquals(0 to "", collect(emulator))
+    }
+
+    @Test
+    fun countsScrolls() {
+        val emulator = emulator()
+        append(emulator, "\u001b[10;1H")
+        collect(emulator)
+
+        // Damage before a scroll moves up with its row
+        append(emulator, "\u001b[5;1Hx\u001b[10;1Hone\r\ntwo\r\nthree")
+        assertEquals(2 to "2,7,8,9", collect(emulator))
+
+        repeat(10) { append(emulator, "\r\nline") }
+        assertEquals(-1, collect(emulator).first)
+    }
+
+    @Test
+    fun damagesScrollRegions() {
+        val emulator = emulator()
+        collect(emulator)
+
+        // Scrolling a region isn't a scroll of the whole screen
+        append(emulator, "\u001b[3;6r\u001b[6;1H\n")
+        assertEquals(0 to "2,3,4,5", collect(emulator))
+
+        append(emulator, "\u001b[r\u001b[4;1H\u001b[2L")
+        assertEquals(0 to "3,4,5,6,7,8,9", collect(emulator))
+    }
+
+    @Test
+    fun damagesAllOnResize() {
+        val emulator = emulator()
+        collect(emulator)
+
+        emulator.updateSize(40, 6)
+        assertEquals(-1, collect(emulator, 6).first)
+    }
+
+    private fun emulator(): TerminalEmulator {
+        val screen = TranscriptScreen(40, 100, 10, scheme)
+        return TerminalEmulator(null, screen, 40, 10, scheme)
+    }
+
+    private fun append(emulator: TerminalEmulator, text: String) {
+        val bytes = text.toByteArray()
+        emulator.append(bytes, 0, bytes.size)
+    }
+
+    /**
+     * @return rows scrolled and the damaged rows
+     */
+    private fun collect(emulator: TerminalEmulator, rows: Int = 10): Pair<Int, String> {
+        val dirty = BooleanArray(rows)
+        val scrolled = emulator.screen.damage.collect(dirty)
+        return scrolled to dirty.indices.filter { dirty[it] }.joinToString(",")
+    }
+}
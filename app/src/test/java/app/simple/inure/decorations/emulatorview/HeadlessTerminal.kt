@@ -0,0 +1,131 @@
+package app.simple.inure.decorations.emulatorview
+
+import java.io.ByteArrayOutputStream
+
+/**
+ * A TerminalEmulator with nothing of Android around it. Output goes in as
+ * bytes and the screen comes out the way EmulatorView would draw it, row by
+ * row through TranscriptScreen.drawText().
+ */
+class HeadlessTerminal(val columns: Int, val rows: Int, transcriptRows: Int = 1000) : TerminalHost {
+
+    private val scheme = ColorScheme(0xffcccccc.toInt(), 0xff000000.toInt())
+    private val cells = Array(columns) { "" }
+    private val styles = IntArray(columns)
+
+    private val emulator = TerminalEmulator(this, TranscriptScreen(columns, transcriptRows, rows, scheme), columns, rows, scheme)
+
+    /**
+     * What the emulator answered the process
+     */
+    val replies = ByteArrayOutputStream()
+    var windowTitle: String? = null
+    var isApplicationCursorKeys = false
+
+    init {
+        emulator.setDefaultUTF8Mode(true)
+    }
+
+    private val sink = object : TextRunSink<Int> {
+        override fun drawTextRun(target: Int, x: Float, y: Float, lineOffset: Int, runWidth: Int, text: CharArray,
+                                 index: Int, count: Int, selectionStyle: Boolean, textStyle: Int,
+                                 cursorOffset: Int, cursorIndex: Int, cursorIncr: Int, cursorWidth: Int, cursorMode: Int) {
+            var column = lineOffset
+            var i = index
+            while (i < index + count) {
+                val codePoint = Character.codePointAt(text, i)
+                val width = UnicodeTranscript.charWidth(codePoint)
+                val string = String(Character.toChars(codePoint))
+
+                if (width == 0) {
+                    // Combining marks go with the character before them
+                    if (column > 0) {
+                        cells[column - 1] += string
+                    }
+                } else if (column < columns) {
+                    cells[column] = string
+                    styles[column] = textStyle
+                    if (width == 2 && column + 1 < columns) {
+                        cells[column + 1] = ""
+                        styles[column + 1] = textStyle
+                    }
+                }
+
+                column += width
+                i += Character.charCount(codePoint)
+            }
+        }
+    }
+
+    /**
+     * Zero based row and column of the cursor
+     */
+    val cursor: String
+        get() = "${emulator.cursorRow},${emulator.cursorCol}"
+
+    var isFastPathEnabled: Boolean
+        get() = emulator.mFastPathEnabled
+        set(value) {
+            emulator.mFastPathEnabled = value
+        }
+
+    /**
+     * Feed output in chunks of at most chunkSize bytes, like TermSession
+     * hands it over
+     */
+    fun append(bytes: ByteArray, chunkSize: Int = 4096) {
+        var offset = 0
+        while (offset < bytes.size) {
+            val length = minOf(chunkSize, bytes.size - offset)
+            emulator.append(bytes, offset, length)
+            offset += length
+        }
+    }
+
+    fun append(text: String) {
+        append(text.toByteArray())
+    }
+
+    /**
+     * Draw a screen row, wide characters take their column and leave the
+     * next one empty
+     */
+    fun line(row: Int): String {
+        draw(row)
+        return cells.joinToString("")
+    }
+
+    /**
+     * Foreground colors of a screen row, a hex digit for the 16 ANSI colors
+     * and '.' for the default
+     */
+    fun colors(row: Int): String {
+        draw(row)
+        return styles.joinToString("") {
+            val color = TextStyle.decodeForeColor(it)
+            if (color < 16) Integer.toHexString(color) else "."
+        }
+    }
+
+    fun screen(): List<String> {
+        return (0 until rows).map { line(it) }
+    }
+
+    fun draw(row: Int) {
+        cells.fill(" ")
+        styles.fill(TextStyle.kNormalTextStyle)
+        emulator.screen.drawText(row, 0, 0f, 0f, sink, -1, -1, -1, "", 0)
+    }
+
+    override fun write(data: ByteArray, offset: Int, count: Int) {
+        replies.write(data, offset, count)
+    }
+
+    override fun setTitle(title: String) {
+        windowTitle = title
+    }
+
+    override fun setCursorKeysApplicationMode(isApplicationMode: Boolean) {
+        isApplicationCursorKeys = isApplicationMode
+    }
+}
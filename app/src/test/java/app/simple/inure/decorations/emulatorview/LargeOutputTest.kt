@@ -0,0 +1,111 @@
+package app.simple.inure.decorations.emulatorview
+
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * Large outputs of the kind a shell produces, replayed through a
+ * HeadlessTerminal, the screen the output leaves is checked. With
+ * -Pbenchmarks the throughput is printed too, for comparing changes to
+ * the emulator.
+ */
+class LargeOutputTest {
+
+    @Test
+    fun numbers() {
+        val output = buildString {
+            for (i in 1..200_000) {
+                append(i).append("\r\n")
+            }
+        }
+
+        val terminal = replay("numbers", output)
+        assertEquals("199999", terminal.line(37).trim())
+        assertEquals("200000", terminal.line(38).trim())
+        assertEquals("39,0", terminal.cursor)
+    }
+
+    @Test
+    fun coloredListing() {
+        val output = buildString {
+            for (i in 0 until 50_000) {
+                append("\u001b[01;34mdir$i\u001b[0m  \u001b[01;32mrun$i\u001b[0m  file$i.txt\r\n")
+            }
+        }
+
+        val terminal = replay("colored listing", output)
+        assertEquals("dir49999  run49999  file49999.txt", terminal.line(38).trim())
+        assertEquals("44444444..22222222..", terminal.colors(38).substring(0, 20))
+    }
+
+    @Test
+    fun fullScreenRedraws() {
+        val output = buildString {
+            for (frame in 0 until 3000) {
+                append("\u001b[H")
+                for (row in 0 until 40) {
+                    append("\u001b[${row + 1};1Hframe $frame row $row cpu ${(frame * 7 + row) % 100}%\u001b[K")
+                }
+            }
+        }
+
+        val terminal = replay("full screen redraws", output)
+        assertEquals("frame 2999 row 0 cpu 93%", terminal.line(0).trim())
+        assertEquals("frame 2999 row 39 cpu 32%", terminal.line(39).trim())
+    }
+
+    @Test
+    fun wideText() {
+        val output = buildString {
+            for (i in 0 until 20_000) {
+                append("中文输出 $i 行\r\n")
+            }
+        }
+
+        val terminal = replay("wide text", output)
+        assertEquals("中文输出 19999 行", terminal.line(38).trim())
+    }
+
+    private fun replay(name: String, output: String): HeadlessTerminal {
+        val bytes = output.toByteArray()
+        val terminal = HeadlessTerminal(120, 40)
+        terminal.append(bytes)
+
+        // Every row of the screen, what a full frame of EmulatorView draws
+        for (row in 0 until terminal.rows) {
+            terminal.draw(row)
+        }
+
+        if (Benchmarks.isEnabled) {
+            benchmark(name, bytes)
+        }
+
+        return terminal
+    }
+
+    private fun benchmark(name: String, bytes: ByteArray) {
+        var terminal = HeadlessTerminal(120, 40)
+        var best = Long.MAX_VALUE
+
+        repeat(3) {
+            terminal = HeadlessTerminal(120, 40)
+            val start = System.nanoTime()
+            terminal.append(bytes)
+            best = minOf(best, System.nanoTime() - start)
+        }
+
+        val frames = 500
+        val start = System.nanoTime()
+        repeat(frames) {
+            for (row in 0 until terminal.rows) {
+                terminal.draw(row)
+            }
+        }
+        val drawing = System.nanoTime() - start
+
+        val megabytes = bytes.size / 1_000_000.0
+        println("%s: %.1f MB at %.1f MB/s, %.0f frames/s".format(
+                name, megabytes, megabytes / (best / 1e9), frames / (drawing / 1e9)))
+    }
+}
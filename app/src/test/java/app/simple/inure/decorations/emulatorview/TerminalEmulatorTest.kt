@@ -0,0 +1,127 @@
+package app.simple.inure.decorations.emulatorview
+
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Random
+
+class TerminalEmulatorTest {
+
+    private val scheme = ColorScheme(0xffcccccc.toInt(), 0xff000000.toInt())
+
+    @Test
+    fun runsLeaveTheSameScreen() {
+        val stream = fixture()
+
+        for (columns in intArrayOf(80, 37, 1)) {
+            assertSameScreen(stream, columns, 24)
+        }
+    }
+
+    @Test
+    fun runsSplitAnywhere() {
+        val stream = fixture()
+        val random = Random(3)
+
+        val chunked = emulator(80, 24, true)
+        var offset = 0
+        while (offset < stream.size) {
+            val length = minOf(random.nextInt(64) + 1, stream.size - offset)
+            chunked.append(stream, offset, length)
+            offset += length
+        }
+
+        assertEquals(dump(emulator(80, 24, false).also { it.append(stream, 0, stream.size) }), dump(chunked))
+    }
+
+    @Test
+    fun runsFollowModes() {
+        val text = "x".repeat(50) + "é".repeat(50) + "中文" + "áb" + "­" + "😀"
+
+        // No wrapping, insert mode, special graphics, Latin-1 and C1 controls
+        val streams = listOf("\u001b[?7l$text\r\n$text",
+                             "abcdef\r\u001b[4hXYZ\u001b[4l123",
+                             "\u001b(0lqqqk\u001b(B plain",
+                             "\u001b[31;1mred\u001b[m \u001b[7minverse\u001b[m\ttab\u0008\u0008bs")
+
+        for (stream in streams) {
+            assertSameScreen(stream.toByteArray(), 20, 5)
+        }
+
+        val latin1 = byteArrayOf(0x61, 0xe9.toByte(), 0x62, 0x9b.toByte(), 0x32, 0x43, 0x63)
+        assertSameScreen(latin1, 20, 5, utf8 = false)
+    }
+
+    /**
+     * Throughput of a build log with the escapes a rich console writes,
+     * byte at a time against runs
+     */
+    @Test
+    fun benchmarkAppend() {
+        Benchmarks.assumeEnabled()
+
+        val fixture = fixture()
+        val copies = 64
+        val stream = ByteArray(fixture.size * copies)
+        for (i in 0 until copies) {
+            System.arraycopy(fixture, 0, stream, i * fixture.size, fixture.size)
+        }
+
+        var slow = Long.MAX_VALUE
+        var fast = Long.MAX_VALUE
+
+        repeat(5) {
+            slow = minOf(slow, time(stream, false))
+            fast = minOf(fast, time(stream, true))
+        }
+
+        val megabytes = stream.size / 1_000_000.0
+        println("Appended %.1f MB, byte at a time %.1f MB/s, runs %.1f MB/s".format(
+                megabytes, megabytes / (slow / 1e9), megabytes / (fast / 1e9)))
+    }
+
+    private fun time(stream: ByteArray, isFastPathEnabled: Boolean): Long {
+        val emulator = emulator(120, 40, isFastPathEnabled)
+        val start = System.nanoTime()
+
+        // Like TermSession, which hands over at most 4 KB at a time
+        var offset = 0
+        while (offset < stream.size) {
+            val length = minOf(4096, stream.size - offset)
+            emulator.append(stream, offset, length)
+            offset += length
+        }
+
+        return System.nanoTime() - start
+    }
+
+    private fun assertSameScreen(stream: ByteArray, columns: Int, rows: Int, utf8: Boolean = true) {
+        val slow = emulator(columns, rows, false, utf8)
+        val fast = emulator(columns, rows, true, utf8)
+
+        slow.append(stream, 0, stream.size)
+        fast.append(stream, 0, stream.size)
+
+        assertEquals("$columns columns", dump(slow), dump(fast))
+    }
+
+    private fun emulator(columns: Int, rows: Int, isFastPathEnabled: Boolean, utf8: Boolean = true): TerminalEmulator {
+        val screen = TranscriptScreen(columns, 2000, rows, scheme)
+        val emulator = TerminalEmulator(null, screen, columns, rows, scheme)
+        emulator.setDefaultUTF8Mode(utf8)
+        emulator.mFastPathEnabled = isFastPathEnabled
+        return emulator
+    }
+
+    private fun dump(emulator: TerminalEmulator): String {
+        val colors = GrowableIntArray(1024)
+        val text = emulator.screen.getTranscriptText(colors)
+        val styles = (0 until colors.length()).joinToString(",") { colors.at(it).toString() }
+
+        return "$text\n$styles\ncursor ${emulator.cursorRow}:${emulator.cursorCol}"
+    }
+
+    private fun fixture(): ByteArray {
+        return javaClass.classLoader!!.getResourceAsStream("terminal/build-log.vt")!!.use { it.readBytes() }
+    }
+}
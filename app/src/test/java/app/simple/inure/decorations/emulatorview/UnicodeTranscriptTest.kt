@@ -0,0 +1,193 @@
+package app.simple.inure.decorations.emulatorview
+
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.util.Random
+
+class UnicodeTranscriptTest {
+
+    private val scheme = ColorScheme(0xffcccccc.toInt(), 0xff000000.toInt())
+
+    @Test
+    fun packedTranscriptReadsTheSame() {
+        val stream = fixture()
+
+        for (columns in intArrayOf(80, 37)) {
+            val plain = emulator(columns, 24, 2000, false)
+            val packed = emulator(columns, 24, 2000, true)
+
+            plain.append(stream, 0, stream.size)
+            packed.append(stream, 0, stream.size)
+
+            assertEquals("$columns columns", dump(plain), dump(packed))
+        }
+    }
+
+    @Test
+    fun deflatedTranscriptReadsTheSame() {
+        val stream = fixture()
+
+        // Deep enough for chunks to fall behind the rows kept raw
+        val plain = emulator(80, 24, 8000, false)
+        val packed = emulator(80, 24, 8000, true)
+
+        while (plain.screen.activeTranscriptRows < 7000) {
+            plain.append(stream, 0, stream.size)
+            packed.append(stream, 0, stream.size)
+        }
+
+        assertEquals(dump(plain), dump(packed))
+    }
+
+    @Test
+    fun packedTranscriptKeepsWideText() {
+        val line = "x".repeat(30) + "é中文😀\u001b[31;1mred\u001b[m á " + "中".repeat(10)
+        val stream = (0 until 300).joinToString("\r\n") { "$it $line" }.toByteArray()
+
+        val plain = emulator(40, 10, 200, false)
+        val packed = emulator(40, 10, 200, true)
+
+        plain.append(stream, 0, stream.size)
+        packed.append(stream, 0, stream.size)
+
+        assertEquals(dump(plain), dump(packed))
+    }
+
+    @Test
+    fun packedTranscriptSurvivesResizeAndReads() {
+        val stream = fixture()
+        val plain = emulator(80, 24, 1000, false)
+        val packed = emulator(80, 24, 1000, true)
+        val random = Random(5)
+
+        for (rows in intArrayOf(40, 12, 60, 24)) {
+            plain.append(stream, 0, stream.size / 2)
+            packed.append(stream, 0, stream.size / 2)
+
+            plain.updateSize(80, rows)
+            packed.updateSize(80, rows)
+
+            // Reading scattered rows goes through the unpacked row cache
+            val first = -plain.screen.activeTranscriptRows
+            repeat(1000) {
+                val row = first + random.nextInt(rows - first)
+                assertEquals(line(plain, row, 80), line(packed, row, 80))
+            }
+
+            plain.append("\u001b[2Aover\u001b[31mwritten".toByteArray(), 0, 20)
+            packed.append("\u001b[2Aover\u001b[31mwritten".toByteArray(), 0, 20)
+
+            assertEquals("$rows rows", dump(plain), dump(packed))
+        }
+    }
+
+    /**
+     * 10k lines of transcript go into chunks holding a fraction of what
+     * the text of the rows alone takes unpacked, and only the screen and
+     * the rows read last stay unpacked
+     */
+    @Test
+    fun packsTranscriptIntoChunks() {
+        val lines = 10_000
+        val columns = 120
+        val holder = arrayOfNulls<TerminalEmulator>(1)
+        fill(holder, lines, true, fixture())
+
+        // Reading every row unpacks each of them once
+        dump(holder[0]!!)
+
+        val transcript = transcript(holder[0]!!.screen)
+        val colors = field(transcript, "mColor") as Array<*>
+        val scrollback = field(transcript, "mScrollback") as ScrollbackStore
+
+        assertTrue(colors.count { it != null } <= UnicodeTranscript.UNPACKED_ROWS + 40)
+        assertTrue(scrollback.size * 5 <= lines * columns * Char.SIZE_BYTES)
+    }
+
+    /**
+     * Heap kept by 10k lines of transcript, rows as they were against
+     * packed rows
+     */
+    @Test
+    fun benchmarkTranscriptMemory() {
+        Benchmarks.assumeEnabled()
+
+        val fixture = fixture()
+        val lines = 10_000
+
+        val plain = retained(lines, false, fixture)
+        val packed = retained(lines, true, fixture)
+
+        println("$lines lines of transcript, rows ${plain / 1024} KB, packed ${packed / 1024} KB")
+    }
+
+    private fun retained(lines: Int, isPackingEnabled: Boolean, fixture: ByteArray): Long {
+        val holder = arrayOfNulls<TerminalEmulator>(1)
+        fill(holder, lines, isPackingEnabled, fixture)
+
+        // Against the heap once the emulator is gone, garbage left behind by
+        // earlier tests throws off a reading taken before it
+        val used = usedHeap()
+        holder[0] = null
+        return used - usedHeap()
+    }
+
+    private fun fill(holder: Array<TerminalEmulator?>, lines: Int, isPackingEnabled: Boolean, fixture: ByteArray) {
+        val emulator = emulator(120, 40, lines + 40, isPackingEnabled)
+
+        while (emulator.screen.activeTranscriptRows < lines) {
+            emulator.append(fixture, 0, fixture.size)
+        }
+
+        assertEquals(lines, emulator.screen.activeTranscriptRows)
+        holder[0] = emulator
+    }
+
+    private fun usedHeap(): Long {
+        val memory = ManagementFactory.getMemoryMXBean()
+        repeat(3) {
+            System.gc()
+            Thread.sleep(50)
+        }
+        return memory.heapMemoryUsage.used
+    }
+
+    private fun emulator(columns: Int, rows: Int, totalRows: Int, isPackingEnabled: Boolean): TerminalEmulator {
+        val screen = TranscriptScreen(columns, totalRows, rows, scheme)
+        transcript(screen).mPackingEnabled = isPackingEnabled
+        return TerminalEmulator(null, screen, columns, rows, scheme)
+    }
+
+    private fun transcript(screen: TranscriptScreen): UnicodeTranscript {
+        return field(screen, "mData") as UnicodeTranscript
+    }
+
+    private fun field(owner: Any, name: String): Any? {
+        val field = owner.javaClass.getDeclaredField(name)
+        field.isAccessible = true
+        return field.get(owner)
+    }
+
+    private fun line(emulator: TerminalEmulator, row: Int, columns: Int): String {
+        val transcript = transcript(emulator.screen)
+        val colors = transcript.getLineColor(row)
+        val styles = (0 until columns).joinToString(",") { colors?.get(it).toString() }
+
+        return String(transcript.getLine(row) ?: CharArray(0)) + "|" + styles
+    }
+
+    private fun dump(emulator: TerminalEmulator): String {
+        val colors = GrowableIntArray(1024)
+        val text = emulator.screen.getTranscriptText(colors)
+        val styles = (0 until colors.length()).joinToString(",") { colors.at(it).toString() }
+
+        return "$text\n$styles\ncursor ${emulator.cursorRow}:${emulator.cursorCol}"
+    }
+
+    private fun fixture(): ByteArray {
+        return javaClass.classLoader!!.getResourceAsStream("terminal/build-log.vt")!!.use { it.readBytes() }
+    }
+}
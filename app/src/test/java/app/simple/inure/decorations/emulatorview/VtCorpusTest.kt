@@ -0,0 +1,152 @@
+package app.simple.inure.decorations.emulatorview
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+
+class VtCorpusTest {
+
+    private class Case(val name: String) {
+        var columns = 80
+        var rows = 24
+        val input = ByteArrayOutputStream()
+        val screen = mutableListOf<String>()
+        val colors = mutableListOf<String>()
+        var cursor: String? = null
+        var reply: ByteArray? = null
+        var title: String? = null
+        var keys: String? = null
+    }
+
+    @Test
+    fun replaysTheCorpus() {
+        val cases = corpus()
+        assertTrue(cases.size > 10)
+
+        val failures = mutableListOf<String>()
+        for (case in cases) {
+            // Runs, byte at a time, and sequences split across appends
+            failures += check(case, "runs", true, 4096)
+            failures += check(case, "bytes", false, 4096)
+            failures += check(case, "split", true, 3)
+        }
+
+        assertTrue(failures.joinToString("\n\n"), failures.isEmpty())
+    }
+
+    /**
+     * The core has to stay off the Android SDK for the corpus and the
+     * benchmarks to run on a plain JVM
+     */
+    @Test
+    fun coreDoesNotUseAndroid() {
+        val directory = File("src/main/java/app/simple/inure/decorations/emulatorview")
+        val core = listOf("TerminalEmulator", "TranscriptScreen", "UnicodeTranscript", "ScrollbackStore",
+                          "StyleRow", "DamageTracker", "ByteQueue", "ByteRing", "ColorScheme", "TextStyle",
+                          "GrowableIntArray", "EmulatorDebug", "EmulatorPlatform", "TerminalHost",
+                          "TextRunSink", "Screen", "UpdateCallback")
+
+        for (name in core) {
+            val imports = File(directory, "$name.java").readLines().filter { it.startsWith("import android") }
+            assertEquals(name, emptyList<String>(), imports)
+        }
+    }
+
+    private fun check(case: Case, mode: String, isFastPathEnabled: Boolean, chunkSize: Int): List<String> {
+        val terminal = HeadlessTerminal(case.columns, case.rows)
+        terminal.isFastPathEnabled = isFastPathEnabled
+        terminal.append(case.input.toByteArray(), chunkSize)
+
+        val failures = mutableListOf<String>()
+        fun expect(what: String, expected: Any?, actual: Any?) {
+            if (expected != null && expected != actual) {
+                failures += "${case.name} ($mode) $what\nexpected:\n$expected\nactual:\n$actual"
+            }
+        }
+
+        if (case.screen.isNotEmpty()) {
+            expect("screen", case.screen.joinToString("\n"), terminal.screen().joinToString("\n"))
+        }
+        if (case.colors.isNotEmpty()) {
+            expect("colors", case.colors.joinToString("\n"), (0 until case.rows).joinToString("\n") { terminal.colors(it) })
+        }
+        expect("cursor", case.cursor, terminal.cursor)
+        expect("reply", case.reply?.let { String(it) }, terminal.replies.toString())
+        expect("title", case.title, terminal.windowTitle)
+        expect("keys", case.keys, if (terminal.isApplicationCursorKeys) "application" else "normal")
+
+        return failures
+    }
+
+    private fun corpus(): List<Case> {
+        val lines = javaClass.classLoader!!.getResourceAsStream("terminal/vt-corpus.txt")!!.bufferedReader().readLines()
+        val cases = mutableListOf<Case>()
+        var block: MutableList<String>? = null
+
+        for (line in lines) {
+            if (line.startsWith("#") || line.isEmpty()) {
+                continue
+            }
+
+            val case = cases.lastOrNull()
+            if (line.startsWith("|") && block != null) {
+                block += line.substring(1, line.length - 1)
+                continue
+            }
+            block = null
+
+            val keyword = line.substringBefore(' ')
+            val value = line.substringAfter(' ', "")
+            when (keyword) {
+                "==" -> cases += Case(value)
+                "size" -> {
+                    case!!.columns = value.substringBefore('x').toInt()
+                    case.rows = value.substringAfter('x').toInt()
+                }
+                "in" -> case!!.input.write(unescape(value))
+                "screen" -> block = case!!.screen
+                "colors" -> block = case!!.colors
+                "cursor" -> case!!.cursor = value
+                "reply" -> case!!.reply = unescape(value)
+                "title" -> case!!.title = value
+                "keys" -> case!!.keys = value
+                else -> throw IllegalArgumentException("Unknown line in the corpus: $line")
+            }
+        }
+
+        return cases
+    }
+
+    private fun unescape(text: String): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        var i = 0
+        while (i < text.length) {
+            val c = text[i++]
+            if (c != '\\') {
+                val end = if (Character.isHighSurrogate(c)) i + 1 else i
+                bytes.write(text.substring(i - 1, end).toByteArray())
+                i = end
+                continue
+            }
+
+            when (val escape = text[i++]) {
+                'e' -> bytes.write(0x1b)
+                'r' -> bytes.write('\r'.code)
+                'n' -> bytes.write('\n'.code)
+                't' -> bytes.write('\t'.code)
+                'b' -> bytes.write('\b'.code)
+                'a' -> bytes.write(0x07)
+                '\\' -> bytes.write('\\'.code)
+                'x' -> {
+                    bytes.write(text.substring(i, i + 2).toInt(16))
+                    i += 2
+                }
+                else -> throw IllegalArgumentException("Unknown escape \\$escape")
+            }
+        }
+
+        return bytes.toByteArray()
+    }
+}
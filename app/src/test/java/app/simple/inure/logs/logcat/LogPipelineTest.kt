@@ -0,0 +1,237 @@
+package app.simple.inure.logs.logcat
+
+import app.simple.inure.logs.collections.SpscRingBuffer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.concurrent.thread
+
+class LogPipelineTest {
+
+    /**
+     * Replays a captured `logcat -v long` dump a frame at a time, with a
+     * UI that needs [UI_FRAMES] frames for every batch
+     */
+    @Test
+    fun floodDoesNotBlockReaderOrFloodUi() {
+        val total = 25_000
+        val delivered = ArrayList<Log>()
+        val busy = ArrayList<() -> Unit>()
+        var batches = 0
+
+        val pipeline = LogPipeline(1 shl 15, total) { logs, done ->
+            batches++
+            delivered.addAll(logs)
+            busy.add(done)
+        }
+        pipeline.addExclusion("chatty", tagFilter("chatty"))
+
+        val frames = dump(total).chunked(LOGS_PER_FRAME)
+
+        for ((frame, logs) in frames.withIndex()) {
+            logs.forEach { assertTrue(pipeline.offer(it)) }
+            pipeline.flush(true)
+
+            if ((frame + 1) % UI_FRAMES == 0) {
+                busy.forEach { it() }
+                busy.clear()
+            }
+        }
+
+        busy.forEach { it() }
+        pipeline.flush(true)
+
+        // One batch for every few frames the UI was busy, plus the last one
+        assertEquals(0L, pipeline.getDroppedCount())
+        assertEquals((frames.size + UI_FRAMES - 1) / UI_FRAMES + 1, batches)
+
+        val expected = pipeline.getHistory().filter { it.tag != "chatty" }
+        assertEquals(total, pipeline.getHistory().size)
+        assertEquals(total / 10 * 9, expected.size)
+        assertEquals(expected.map { it.id }, delivered.map { it.id })
+    }
+
+    @Test
+    fun smallRingDropsInsteadOfBlocking() {
+        val total = 25_000
+        val pipeline = LogPipeline(64, total) { _, done -> done() }
+
+        replay(pipeline, total)
+
+        assertEquals(total.toLong(), pipeline.getHistory().size + pipeline.getDroppedCount())
+
+        val ids = pipeline.getHistory().map { it.id }
+        assertEquals(ids.sorted(), ids)
+    }
+
+    @Test
+    fun readerNeverWaitsForFlusher() {
+        val pipeline = LogPipeline(64, 100) { _, done -> done() }
+        val logs = readFixture()
+
+        // Nobody drains, a blocking offer would hang here
+        for (i in 0 until 10_000) {
+            pipeline.offer(logs[i % logs.size])
+        }
+
+        assertEquals(10_000L - 64, pipeline.getDroppedCount())
+        assertEquals(64, pipeline.flush(false))
+    }
+
+    @Test
+    fun nothingIsDeliveredWhilePaused() {
+        val delivered = ArrayList<Log>()
+        val pipeline = LogPipeline(1024, 10) { logs, done ->
+            delivered.addAll(logs)
+            done()
+        }
+
+        readFixture().take(5).forEach { pipeline.offer(it) }
+        pipeline.flush(false)
+        assertTrue(delivered.isEmpty())
+
+        readFixture().take(20).forEach { pipeline.offer(it) }
+        pipeline.flush(true)
+
+        // Undelivered logs are capped like the history
+        assertEquals(10, delivered.size)
+        assertEquals(pipeline.getHistory().map { it.id }, delivered.map { it.id })
+    }
+
+    @Test
+    fun recordingKeepsFiltersButNotExclusions() {
+        val pipeline = LogPipeline(1024, 100) { _, done -> done() }
+        val logs = readFixture()
+
+        pipeline.offer(logs[0])
+        pipeline.flush(false)
+        pipeline.startRecording()
+        logs.drop(1).forEach { pipeline.offer(it) }
+        pipeline.flush(false)
+
+        pipeline.addFilter("am", object : Filter {
+            override fun apply(log: Log) = log.tag.startsWith("ActivityManager") || log.tag == "chatty"
+        })
+        pipeline.addExclusion("chatty", tagFilter("chatty"))
+
+        assertEquals(listOf("ActivityManager"), pipeline.getLogsFiltered().map { it.tag }.distinct())
+        // Like before, a recording starts with the last log already shown
+        assertEquals(listOf("ActivityManager", "ActivityManager", "chatty"), pipeline.stopRecording().map { it.tag })
+    }
+
+    @Test
+    fun clearDropsLogsInFlight() {
+        val delivered = ArrayList<Log>()
+        val pipeline = LogPipeline(1024, 100) { logs, done ->
+            delivered.addAll(logs)
+            done()
+        }
+
+        readFixture().forEach { pipeline.offer(it) }
+        pipeline.clear()
+        assertEquals(0, pipeline.flush(true))
+        assertTrue(delivered.isEmpty())
+        assertTrue(pipeline.getHistory().isEmpty())
+    }
+
+    @Test
+    fun ringKeepsOrderAcrossWraps() {
+        val ring = SpscRingBuffer<Int>(5)
+        val out = ArrayList<Int>()
+        assertEquals(8, ring.capacity)
+
+        for (i in 0 until 8) {
+            assertTrue(ring.offer(i))
+        }
+        assertFalse(ring.offer(8))
+
+        assertEquals(3, ring.drainTo(out, 3))
+        for (i in 8 until 11) {
+            assertTrue(ring.offer(i))
+        }
+
+        assertEquals(8, ring.drainTo(out))
+        assertTrue(ring.isEmpty())
+        assertEquals((0 until 11).toList(), out)
+    }
+
+    @Test
+    fun ringHandsOverEveryElementOnce() {
+        val count = 2_000_000
+        val ring = SpscRingBuffer<Int>(1024)
+        val producer = thread {
+            var i = 0
+            while (i < count) {
+                if (ring.offer(i)) {
+                    i++
+                }
+            }
+        }
+
+        val out = ArrayList<Int>(count)
+        while (out.size < count) {
+            ring.drainTo(out)
+        }
+        producer.join()
+
+        for (i in 0 until count) {
+            assertEquals(i, out[i])
+        }
+    }
+
+    /**
+     * Reader thread offers [total] parsed logs while this thread keeps
+     * flushing until the reader is done
+     */
+    private fun replay(pipeline: LogPipeline, total: Int) {
+        val logs = dump(total)
+        val isReading = AtomicBoolean(true)
+
+        val reader = thread {
+            logs.forEach { pipeline.offer(it) }
+            isReading.set(false)
+        }
+
+        while (isReading.get()) {
+            pipeline.flush(true)
+        }
+
+        reader.join()
+        pipeline.flush(true)
+    }
+
+    /**
+     * First [total] logs of the fixture parsed over and over again
+     */
+    private fun dump(total: Int): List<Log> {
+        val fixture = fixtureBytes()
+        val perCopy = readFixture().size
+        val copies = (total + perCopy - 1) / perCopy
+        val dump = ByteArray(fixture.size * copies)
+        for (i in 0 until copies) {
+            System.arraycopy(fixture, 0, dump, i * fixture.size, fixture.size)
+        }
+
+        return LogcatStreamReader(ByteArrayInputStream(dump)).use { it.asSequence().take(total).toList() }
+    }
+
+    private fun fixtureBytes(): ByteArray {
+        return javaClass.classLoader!!.getResourceAsStream("logcat/long.txt")!!.use { it.readBytes() }
+    }
+
+    private fun readFixture(): List<Log> {
+        return LogcatStreamReader(ByteArrayInputStream(fixtureBytes())).use { it.asSequence().toList() }
+    }
+
+    private fun tagFilter(tag: String) = object : Filter {
+        override fun apply(log: Log) = log.tag == tag
+    }
+
+    companion object {
+        private const val LOGS_PER_FRAME = 500
+        private const val UI_FRAMES = 3
+    }
+}
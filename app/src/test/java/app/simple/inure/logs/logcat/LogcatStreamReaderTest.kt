@@ -0,0 +1,306 @@
+package app.simple.inure.logs.logcat
+
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.BufferedReader
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.io.InputStreamReader
+import java.lang.management.ManagementFactory
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.TimeZone
+
+class LogcatStreamReaderTest {
+
+    @Test
+    fun readsLikeLineReader() {
+        val logs = read(fixture())
+        val expected = readLegacy(fixture())
+
+        assertEquals(10, logs.size)
+        assertEquals(expected.size, logs.size)
+
+        for (i in logs.indices) {
+            assertEquals(expected[i].toString(), fields(logs[i]).toString())
+        }
+
+        val first = logs[0]
+        assertEquals("10-18", first.date)
+        assertEquals("09:41:02.114", first.time)
+        assertEquals(1523, first.pid)
+        assertEquals(1601, first.tid)
+        assertEquals(LogPriority.INFO, first.priority)
+        assertEquals("ActivityManager", first.tag)
+
+        assertTrue(logs[5].msg.startsWith("java.io.FileNotFoundException"))
+        assertTrue(logs[5].msg.endsWith("\tat org.chromium.base.FileUtils.readFile(FileUtils.java:88)"))
+    }
+
+    @Test
+    fun toStringReadsBack() {
+        val logs = read(fixture())
+        val text = logs.joinToString("") { it.toString() }
+
+        assertEquals(text, read(text.toByteArray()).joinToString("") { it.toString() })
+    }
+
+    @Test
+    fun sharesTags() {
+        val logs = read(fixture())
+        val activityManager = logs.filter { it.tag == "ActivityManager" }
+
+        assertEquals(2, activityManager.size)
+        assertSame(activityManager[0].tag, activityManager[1].tag)
+    }
+
+    @Test
+    fun handlesShortReadsAndLineFeeds() {
+        val crlf = String(fixture()).replace("\n", "\r\n").toByteArray()
+        val expected = read(fixture()).map { it.toString() }
+
+        // One byte per read moves every line across buffer refills
+        val trickle = object : InputStream() {
+            private val source = ByteArrayInputStream(crlf)
+            override fun read() = source.read()
+            override fun read(b: ByteArray, off: Int, len: Int) = source.read(b, off, minOf(len, 1))
+        }
+
+        assertEquals(expected, LogcatStreamReader(trickle).use { it.asSequence().map { log -> log.toString() }.toList() })
+    }
+
+    @Test
+    fun skipsMalformedHeaders() {
+        val text = "[ not a header ]\nmessage\n\n" + String(fixture())
+        assertEquals(10, read(text.toByteArray()).size)
+    }
+
+    @Test
+    fun keepsLongMessages() {
+        val message = (0 until 20_000).joinToString("\n") { "line $it" }
+        val text = "[ 01-02 03:04:05.006  1: 2 E/Big ]\n$message\n\n[ 01-02 03:04:05.007  1: 2 E/Small ]\nsmall\n\n"
+        val logs = read(text.toByteArray())
+
+        assertEquals(message, logs[0].msg)
+        assertEquals("small", logs[1].msg)
+    }
+
+    @Test
+    fun readsMicrosAndYears() {
+        val logs = read("[ 2026-10-18 09:41:02.114982  7: 8 W/Tag With Space ]\nmsg\n\n".toByteArray())
+
+        assertEquals("10-18", logs[0].date)
+        assertEquals("09:41:02.114", logs[0].time)
+        assertEquals("Tag With Space", logs[0].tag)
+    }
+
+    @Test
+    fun readsBinaryEntries() {
+        val timeZone = TimeZone.getDefault()
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"))
+
+        try {
+            val out = ByteArrayOutputStream()
+
+            // 2026-10-18 09:41:02.114 UTC
+            entry(out, 1523, 1601, 1_792_316_462L, 114_000_000, 0, 4, "ActivityManager", "Start proc\nsecond line\n")
+            entry(out, 1, 1, 1_792_316_462L, 0, 2, 4, "event", "binary")
+            entry(out, 892, 892, 1_792_316_463L, 999_999_999, 3, 6, "SurfaceFlinger", "Failed")
+
+            val logs = LogcatStreamReader(ByteArrayInputStream(out.toByteArray()), true).use { it.asSequence().toList() }
+
+            assertEquals(2, logs.size)
+            assertEquals("[10-18 09:41:02.114 1523:1601 I/ActivityManager]", logs[0].metadataToString())
+            assertEquals("Start proc\nsecond line", logs[0].msg)
+            assertEquals("[10-18 09:41:03.999 892:892 E/SurfaceFlinger]", logs[1].metadataToString())
+            assertEquals("Failed", logs[1].msg)
+        } finally {
+            TimeZone.setDefault(timeZone)
+        }
+    }
+
+    @Test
+    fun nextWithoutHasNext() {
+        val reader = LogcatStreamReader(ByteArrayInputStream(fixture()))
+
+        assertEquals("ActivityManager", reader.next().tag)
+        assertTrue(reader.hasNext())
+        assertTrue(reader.hasNext())
+        assertEquals("cr_ChromiumAndroidLinker", reader.next().tag)
+        assertFalse(LogcatStreamReader(ByteArrayInputStream(ByteArray(0))).hasNext())
+    }
+
+    /**
+     * Bytes allocated per log while replaying the fixture many times,
+     * against the line reader this replaced
+     */
+    @Test
+    fun benchmarkAllocations() {
+        Benchmarks.assumeEnabled()
+
+        val copies = 5_000
+        val fixture = fixture()
+        val dump = ByteArray(fixture.size * copies)
+        for (i in 0 until copies) {
+            System.arraycopy(fixture, 0, dump, i * fixture.size, fixture.size)
+        }
+
+        val records = copies * 10
+        var sink = 0L
+
+        // Warm up both before measuring
+        repeat(3) {
+            sink += replayLegacy(dump)
+            sink += replay(dump)
+        }
+
+        var legacyBytes = Long.MAX_VALUE
+        var bytes = Long.MAX_VALUE
+        var legacyNanos = Long.MAX_VALUE
+        var nanos = Long.MAX_VALUE
+
+        repeat(3) {
+            var a = allocated()
+            var t = System.nanoTime()
+            sink += replayLegacy(dump)
+            legacyNanos = minOf(legacyNanos, System.nanoTime() - t)
+            legacyBytes = minOf(legacyBytes, allocated() - a)
+
+            a = allocated()
+            t = System.nanoTime()
+            sink += replay(dump)
+            nanos = minOf(nanos, System.nanoTime() - t)
+            bytes = minOf(bytes, allocated() - a)
+        }
+
+        println("Replayed $records logs, line reader ${legacyBytes / records} B/log ${legacyNanos / 1_000_000} ms, " +
+                        "byte reader ${bytes / records} B/log ${nanos / 1_000_000} ms ($sink)")
+    }
+
+    private fun replay(dump: ByteArray): Long {
+        var sum = 0L
+        LogcatStreamReader(ByteArrayInputStream(dump)).use {
+            for (log in it) {
+                sum += log.pid + log.msgLength
+            }
+        }
+        return sum
+    }
+
+    private fun replayLegacy(dump: ByteArray): Long {
+        var sum = 0L
+        for (log in readLegacy(dump)) {
+            sum += log.pid.length + log.msg.length
+        }
+        return sum
+    }
+
+    private fun allocated(): Long {
+        val bean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        return bean.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private fun entry(out: ByteArrayOutputStream, pid: Int, tid: Int, seconds: Long, nanos: Int, bufferId: Int,
+                      priority: Int, tag: String, message: String) {
+        val payload = ByteArrayOutputStream()
+        payload.write(priority)
+        payload.write(tag.toByteArray())
+        payload.write(0)
+        payload.write(message.toByteArray())
+        payload.write(0)
+
+        // logger_entry v4, 28 bytes
+        val header = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN)
+        header.putShort(payload.size().toShort())
+        header.putShort(28)
+        header.putInt(pid)
+        header.putInt(tid)
+        header.putInt(seconds.toInt())
+        header.putInt(nanos)
+        header.putInt(bufferId)
+        header.putInt(1000)
+
+        out.write(header.array())
+        out.write(payload.toByteArray())
+    }
+
+    private fun fixture(): ByteArray {
+        return javaClass.classLoader!!.getResourceAsStream("logcat/long.txt")!!.use { it.readBytes() }
+    }
+
+    private fun read(bytes: ByteArray): List<Log> {
+        return LogcatStreamReader(ByteArrayInputStream(bytes)).use { it.asSequence().toList() }
+    }
+
+    private fun fields(log: Log): LegacyLog {
+        return LegacyLog(log.date, log.time, log.pid.toString(), log.tid.toString(), log.priority, log.tag, log.msg)
+    }
+
+    private data class LegacyLog(val date: String, val time: String, val pid: String, val tid: String,
+                                 val priority: String, val tag: String, val msg: String)
+
+    /**
+     * What LogcatStreamReader and Log.parse did before reading bytes
+     */
+    private fun readLegacy(bytes: ByteArray): List<LegacyLog> {
+        val logs = ArrayList<LegacyLog>()
+        val reader = BufferedReader(InputStreamReader(ByteArrayInputStream(bytes)))
+        val msgBuffer = StringBuilder()
+
+        while (true) {
+            val metadata = reader.readLine()?.trim() ?: break
+            if (!metadata.startsWith("[")) continue
+
+            msgBuffer.append(reader.readLine() ?: break)
+
+            var msg = reader.readLine() ?: break
+            while (msg.isNotEmpty()) {
+                msgBuffer.append("\n").append(msg)
+                msg = reader.readLine() ?: break
+            }
+
+            logs += parseLegacy(metadata, msgBuffer.toString())
+            msgBuffer.setLength(0)
+        }
+
+        return logs
+    }
+
+    private fun parseLegacy(metadata: String, msg: String): LegacyLog {
+        val trimmed = metadata.substring(1, metadata.length - 1).trim()
+        var startIndex = 0
+
+        var index = trimmed.indexOf(' ', startIndex)
+        val date = trimmed.substring(startIndex, index)
+        startIndex = index + 1
+
+        index = trimmed.indexOf(' ', startIndex)
+        val time = trimmed.substring(startIndex, index)
+        startIndex = index + 1
+
+        while (trimmed[startIndex] == ' ') startIndex++
+
+        index = trimmed.indexOf(':', startIndex)
+        val pid = trimmed.substring(startIndex, index)
+        startIndex = index + 1
+
+        while (trimmed[startIndex] == ' ') startIndex++
+
+        index = trimmed.indexOf(' ', startIndex)
+        val tid = trimmed.substring(startIndex, index)
+        startIndex = index + 1
+
+        index = trimmed.indexOf('/', startIndex)
+        val priority = trimmed.substring(startIndex, index)
+        startIndex = index + 1
+
+        val tag = trimmed.substring(startIndex, trimmed.length).trim()
+
+        return LegacyLog(date, time, pid, tid, priority, tag, msg)
+    }
+}
@@ -0,0 +1,99 @@
+package app.simple.inure.models
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class PackageSnapshotTest {
+
+    @Test
+    fun diffsVersions() {
+        val first = PackageSnapshot.of(1L, listOf(app("com.one"), app("com.two"), app("com.three")), listOf(app("com.old")))
+        val second = first.withInstalled(listOf(app("com.one"), app("com.two", label = "Two renamed"),
+                                                app("com.three", updated = 2L), app("com.four")))
+        val diff = second.diff(first)
+
+        assertEquals(setOf("com.four"), diff.added)
+        assertEquals(setOf("com.two", "com.three"), diff.changed)
+        assertTrue(diff.removed.isEmpty())
+
+        val third = second.withUninstalled(listOf())
+        assertEquals(setOf("com.old"), third.diff(second).removed)
+        assertTrue(third.diff(third).isEmpty())
+    }
+
+    @Test
+    fun detectsChangedPackages() {
+        val app = app("com.one")
+
+        assertFalse(PackageSnapshot.isChanged(app, app))
+        assertFalse(PackageSnapshot.isChanged(app, app("com.one")))
+        assertTrue(PackageSnapshot.isChanged(app, app("com.one", label = "One renamed")))
+        assertTrue(PackageSnapshot.isChanged(app, app("com.one", updated = 2L)))
+        assertTrue(PackageSnapshot.isChanged(app, app("com.one").apply { applicationInfo.enabled = false }))
+    }
+
+    @Test
+    fun sharesUnchangedLists() {
+        val installed = arrayListOf(app("com.one"))
+        val first = PackageSnapshot.of(1L, installed, listOf(app("com.old")))
+        val second = first.withInstalled(listOf(app("com.two")))
+
+        assertSame(first.uninstalled, second.uninstalled)
+        assertEquals(2L, second.version)
+
+        // Changing the loader's list doesn't leak into the published snapshot
+        installed.clear()
+        assertEquals(1, first.installed.size)
+    }
+
+    @Test
+    fun keepsListVersionsForLabels() {
+        val first = PackageSnapshot.of(1L, listOf(app("com.one")), listOf(app("com.old")))
+        val relabelled = first.withLabels(listOf(app("com.one", label = "One")), null)
+
+        assertEquals(2L, relabelled.version)
+        assertEquals(first.installedVersion, relabelled.installedVersion)
+        assertEquals(first.uninstalledVersion, relabelled.uninstalledVersion)
+        assertSame(first.uninstalled, relabelled.uninstalled)
+        assertEquals("One", relabelled.installed[0].applicationInfo.name)
+
+        val reloaded = relabelled.withInstalled(listOf(app("com.one")))
+
+        assertEquals(3L, reloaded.installedVersion)
+        assertEquals(first.uninstalledVersion, reloaded.uninstalledVersion)
+    }
+
+    @Test
+    fun derivesOnce() {
+        val snapshot = PackageSnapshot.of(1L, listOf(app("com.b"), app("com.a")), listOf())
+        var calls = 0
+        val sorted = { it: PackageSnapshot -> calls++; it.all.sortedBy { p -> p.packageName } }
+
+        assertSame(snapshot.derive("sorted", sorted), snapshot.derive("sorted", sorted))
+        assertEquals(1, calls)
+        assertEquals(listOf("com.a", "com.b"), snapshot.derive("sorted", sorted).map { it.packageName })
+    }
+
+    @Test
+    fun prefersInstalledPackages() {
+        val installed = app("com.one")
+        val snapshot = PackageSnapshot.of(1L, listOf(installed), listOf(app("com.one")))
+
+        assertSame(installed, snapshot.byPackageName["com.one"])
+    }
+
+    private fun app(packageName: String, label: String = packageName, updated: Long = 1L): PackageInfo {
+        return PackageInfo().apply {
+            this.packageName = packageName
+            lastUpdateTime = updated
+            applicationInfo = ApplicationInfo().apply {
+                name = label
+            }
+        }
+    }
+}
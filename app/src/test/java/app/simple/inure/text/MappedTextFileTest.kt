@@ -0,0 +1,174 @@
+package app.simple.inure.text
+
+import app.simple.inure.util.Benchmarks
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+
+class MappedTextFileTest {
+
+    private val files = mutableListOf<File>()
+
+    @After
+    fun deleteFiles() {
+        files.forEach { it.delete() }
+    }
+
+    @Test
+    fun splitsRows() {
+        val textFile = open("first\nsecond\r\n\nlast")
+
+        assertEquals(4, textFile.getRowCount())
+        assertEquals(listOf("first", "second", "", "last"), textFile.getRows(0, 10))
+        assertEquals("second", textFile.getRow(1))
+    }
+
+    @Test
+    fun ignoresTrailingLineBreak() {
+        val textFile = open("one\ntwo\n")
+
+        assertEquals(listOf("one", "two"), textFile.getRows(0, 2))
+    }
+
+    @Test
+    fun readsRowsPastCheckpoints() {
+        val lines = List(1_000) { "line $it" }
+        val textFile = open(lines.joinToString("\n"))
+
+        assertEquals(lines.size, textFile.getRowCount())
+        for (row in listOf(0, 63, 64, 65, 127, 128, 500, 999)) {
+            assertEquals(lines[row], textFile.getRow(row))
+        }
+        assertEquals(lines.subList(60, 200), textFile.getRows(60, 140))
+    }
+
+    @Test
+    fun splitsLongRowsOnCharBoundary() {
+        // Three byte chars never line up with the row limit
+        val line = "€".repeat(MappedTextFile.MAX_ROW_BYTES)
+        val textFile = open(line + "\nend")
+        val rows = textFile.getRows(0, textFile.getRowCount())
+
+        assertEquals(line, rows.dropLast(1).joinToString(""))
+        assertEquals("end", rows.last())
+        assertTrue(rows.none { it.contains('�') })
+        assertTrue(rows.all { it.toByteArray().size <= MappedTextFile.MAX_ROW_BYTES })
+    }
+
+    @Test
+    fun findsMatchesByRow() {
+        val textFile = open("alpha beta\ngamma\nBETA beta\n")
+        val matches = textFile.find("beta", 10)
+
+        assertEquals(listOf(Triple(0, 6, 10), Triple(2, 0, 4), Triple(2, 5, 9)),
+                     matches.map { Triple(it.row, it.start, it.end) })
+        assertEquals(2, textFile.find("beta", 2).size)
+        assertTrue(textFile.find("beta", 10) { true }.isEmpty())
+    }
+
+    @Test
+    fun spoolsStreams() {
+        val directory = File(System.getProperty("java.io.tmpdir"))
+        val before = directory.list()!!.count { it.startsWith("text_") }
+
+        val textFile = MappedTextFile.spool("a\nb\nc".byteInputStream(), directory)
+        textFile.index()
+
+        assertEquals(listOf("a", "b", "c"), textFile.getRows(0, 3))
+        assertEquals(before, directory.list()!!.count { it.startsWith("text_") })
+    }
+
+    @Test
+    fun writesBytesUnchanged() {
+        val text = "köln\r\n€\n".repeat(50_000)
+        val textFile = open(text)
+        val outputStream = ByteArrayOutputStream()
+        textFile.writeTo(outputStream)
+
+        assertEquals(text, outputStream.toString("UTF-8"))
+        assertEquals(text, textFile.readText())
+    }
+
+    @Test
+    fun readsWhileIndexing() {
+        val textFile = MappedTextFile.open(file(logLines(200_000)))
+        val progress = mutableListOf<Int>()
+
+        textFile.index {
+            progress.add(it)
+            assertEquals("I/Inure ( 1234): message 0", textFile.getRow(0))
+        }
+
+        assertTrue(progress.size > 1)
+        assertEquals(progress.sorted(), progress)
+        assertEquals(200_000, textFile.getRowCount())
+        assertTrue(textFile.isIndexed)
+    }
+
+    /**
+     * JMH style benchmark, reading the whole file into a string the way
+     * the viewer used to against mapping it and showing the first page
+     */
+    @Test
+    fun benchmarkOpeningLargeFile() {
+        Benchmarks.assumeEnabled()
+
+        val file = file(logLines(3_000_000))
+
+        val string = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            file.readText().length
+        }
+
+        val firstPage = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            val textFile = MappedTextFile.open(file)
+            var rows = 0
+            textFile.index {
+                // First progress report, the viewer shows its rows from here
+                rows = textFile.getRows(0, PAGE_ROWS).size
+                textFile.close()
+            }
+            rows
+        }
+
+        val index = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            val textFile = MappedTextFile.open(file)
+            textFile.index()
+            textFile.getRowCount()
+        }
+
+        println("MappedTextFile: ${file.length() / 1024 / 1024} MB")
+        println("  readText       : ${"%.2f".format(string)} ms/op")
+        println("  first page     : ${"%.2f".format(firstPage)} ms/op")
+        println("  full index     : ${"%.2f".format(index)} ms/op")
+    }
+
+    private fun open(text: String): MappedTextFile {
+        return MappedTextFile.open(file(text)).also {
+            it.index()
+        }
+    }
+
+    private fun file(text: String): File {
+        return File.createTempFile("mapped", ".txt").also {
+            it.writeText(text)
+            files.add(it)
+        }
+    }
+
+    private fun logLines(lines: Int): String {
+        val builder = StringBuilder()
+        for (i in 0 until lines) {
+            builder.append("I/Inure ( 1234): message ").append(i).append('\n')
+        }
+        return builder.toString()
+    }
+
+    companion object {
+        private const val PAGE_ROWS = 128
+        private const val WARMUP_ROUNDS = 2
+        private const val MEASURED_ROUNDS = 5
+    }
+}
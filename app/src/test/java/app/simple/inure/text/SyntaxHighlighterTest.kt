@@ -0,0 +1,254 @@
+package app.simple.inure.text
+
+import android.text.SpannableStringBuilder
+import android.text.style.ForegroundColorSpan
+import app.simple.inure.util.Benchmarks
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+import java.util.regex.Pattern
+
+class SyntaxHighlighterTest {
+
+    private val colors = IntArray(SyntaxTokenizer.TYPES) { it }
+
+    @Test
+    fun tokenizesJava() {
+        val source = "public void run() { // start\n    String s = \"a \\\" b\"; int x = 42; /* done */ }\n"
+
+        assertEquals(listOf("public" to KEYWORD, "void" to KEYWORD, "run" to NAME, "// start" to COMMENT,
+                            "String" to KEYWORD, "\"a \\\" b\"" to STRING, "int" to KEYWORD, "42" to NAME,
+                            "/* done */" to COMMENT), tokens(JavaTokenizer, source))
+    }
+
+    @Test
+    fun tokenizesXml() {
+        val source = "<!-- note -->\n<manifest\n    package=\"app\">\n    <uses-sdk android:minSdkVersion=\"21\"/>\n</manifest>\n"
+
+        assertEquals(listOf("<!-- note -->" to COMMENT, "<manifest" to NAME, "\"app\"" to VALUE, ">" to NAME,
+                            "<uses-sdk" to NAME, "\"21\"" to VALUE, "/>" to NAME, "</manifest" to NAME, ">" to NAME),
+                     tokens(XmlTokenizer, source))
+    }
+
+    @Test
+    fun tokenizesJson() {
+        val source = "{\n  \"name\" : \"inure\",\n  \"tags\": [\"a\"]\n}\n"
+
+        assertEquals(listOf("\"name\" :" to NAME, "\"inure\"" to VALUE, "\"tags\":" to NAME, "\"a\"" to VALUE),
+                     tokens(JsonTokenizer, source))
+    }
+
+    @Test
+    fun carriesStateAcrossLines() {
+        val source = "int a;\n/* first\nsecond */ int b;\n"
+        val secondLine = source.indexOf("second")
+
+        val state = JavaTokenizer.tokenize(source, 0, secondLine, SyntaxTokenizer.STATE_DEFAULT, null)
+        val rest = mutableListOf<Pair<String, Int>>()
+        JavaTokenizer.tokenize(source, secondLine, source.length, state) { start, end, type ->
+            rest.add(source.substring(start, end) to type)
+        }
+
+        assertTrue(state != SyntaxTokenizer.STATE_DEFAULT)
+        assertEquals(listOf("second */" to COMMENT, "int" to KEYWORD), rest)
+    }
+
+    @Test
+    fun highlightsOnlyBlocksNearRange() {
+        val text = SpannableStringBuilder(javaSource(10_000))
+        val highlighter = SyntaxHighlighter(JavaTokenizer, colors)
+        highlighter.setText(text)
+
+        val middle = text.length / 2
+        highlighter.highlight(middle, middle + 100)
+
+        assertEquals(3, highlighter.getHighlightedBlockCount())
+        for (span in text.getSpans(0, text.length, ForegroundColorSpan::class.java)) {
+            val start = text.getSpanStart(span)
+            assertTrue(start > middle - 3 * SyntaxHighlighter.BLOCK_LINES * LINE_LENGTH)
+            assertTrue(start < middle + 3 * SyntaxHighlighter.BLOCK_LINES * LINE_LENGTH)
+        }
+    }
+
+    @Test
+    fun keepsSpanCountFlatWhileScrolling() {
+        val text = SpannableStringBuilder(javaSource(20_000))
+        val highlighter = SyntaxHighlighter(JavaTokenizer, colors)
+        highlighter.setText(text)
+
+        var maxSpans = 0
+        for (offset in 0 until text.length step 2_000) {
+            highlighter.highlight(offset, offset + 2_000)
+            maxSpans = maxOf(maxSpans, text.getSpans(0, text.length, ForegroundColorSpan::class.java).size)
+            assertTrue(highlighter.getHighlightedBlockCount() <= SyntaxHighlighter.MAX_HIGHLIGHTED_BLOCKS)
+        }
+
+        val spansPerBlock = highlight(JavaTokenizer, javaSource(SyntaxHighlighter.BLOCK_LINES)).size
+        assertTrue(maxSpans <= spansPerBlock * SyntaxHighlighter.MAX_HIGHLIGHTED_BLOCKS)
+    }
+
+    @Test
+    fun startsFarBlocksInTheRightState() {
+        val lines = MutableList(1_000) { "int a$it = $it;" }
+        lines[10] = "/* open"
+        lines[500] = "close */ int b;"
+        val text = SpannableStringBuilder(lines.joinToString("\n"))
+
+        val highlighter = SyntaxHighlighter(JavaTokenizer, colors)
+        highlighter.setText(text)
+        highlighter.highlight(text.length - 10, text.length)
+        val middle = text.indexOf("a300 ")
+        highlighter.highlight(middle, middle + 5)
+
+        assertEquals(spans(fresh(text.toString(), listOf(middle, text.length - 10))), spans(text))
+        assertEquals(COMMENT, colorAt(text, middle))
+    }
+
+    @Test
+    fun editsMatchFreshHighlighting() {
+        val random = Random(42)
+        val text = SpannableStringBuilder(javaSource(3_000))
+        val highlighter = SyntaxHighlighter(JavaTokenizer, colors)
+        highlighter.setText(text)
+
+        val snippets = listOf("/*", "*/", "\"", "\n", "\n\n// x\n", "int ", "")
+
+        repeat(300) {
+            val start = random.nextInt(text.length)
+            val end = minOf(text.length, start + random.nextInt(3) * random.nextInt(200))
+            val snippet = snippets[random.nextInt(snippets.size)]
+
+            text.replace(start, end, snippet)
+            highlighter.onTextChanged(start, end - start, snippet.length)
+
+            val view = random.nextInt(text.length)
+            highlighter.highlight(start, start + 1)
+            highlighter.highlight(view, view + 500)
+
+            val expected = fresh(text.toString(), listOf(start, view))
+            assertEquals(colors(expected, view, view + 500), colors(text, view, view + 500))
+        }
+    }
+
+    /**
+     * JMH style benchmark, the regex passes the java viewer used to run
+     * over the whole document against indexing it and highlighting the
+     * first screen
+     */
+    @Test
+    fun benchmarkOpeningLargeSource() {
+        Benchmarks.assumeEnabled()
+
+        val source = javaSource(50_000)
+
+        val regex = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            var count = 0
+            for (pattern in regexPasses) {
+                val matcher = pattern.matcher(source)
+                while (matcher.find()) count++
+            }
+            count
+        }
+
+        val viewport = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            val text = SpannableStringBuilder(source)
+            val highlighter = SyntaxHighlighter(JavaTokenizer, colors)
+            highlighter.setText(text)
+            highlighter.highlight(0, 40 * LINE_LENGTH)
+            highlighter.getHighlightedBlockCount()
+        }
+
+        println("SyntaxHighlighter: 50000 lines, ${source.length / 1024} KB")
+        println("  regex over document: ${"%.2f".format(regex)} ms/op")
+        println("  first screen       : ${"%.2f".format(viewport)} ms/op")
+    }
+
+    private fun tokens(tokenizer: SyntaxTokenizer, source: String): List<Pair<String, Int>> {
+        val list = mutableListOf<Pair<String, Int>>()
+        tokenizer.tokenize(source, 0, source.length, SyntaxTokenizer.STATE_DEFAULT) { start, end, type ->
+            list.add(source.substring(start, end) to type)
+        }
+        return list
+    }
+
+    private fun highlight(tokenizer: SyntaxTokenizer, source: String): List<Triple<Int, Int, Int>> {
+        val text = SpannableStringBuilder(source)
+        val highlighter = SyntaxHighlighter(tokenizer, colors)
+        highlighter.setText(text)
+        highlighter.highlight(0, text.length)
+        return spans(text)
+    }
+
+    private fun fresh(source: String, offsets: List<Int>): SpannableStringBuilder {
+        val text = SpannableStringBuilder(source)
+        val highlighter = SyntaxHighlighter(JavaTokenizer, colors)
+        highlighter.setText(text)
+        for (offset in offsets) {
+            highlighter.highlight(offset, offset + 1)
+        }
+        return text
+    }
+
+    private fun spans(text: SpannableStringBuilder): List<Triple<Int, Int, Int>> {
+        return text.getSpans(0, text.length, ForegroundColorSpan::class.java)
+            .map { Triple(text.getSpanStart(it), text.getSpanEnd(it), it.foregroundColor) }
+            .sortedWith(compareBy({ it.first }, { it.second }))
+    }
+
+    /**
+     * Color of every char, blocks may be split differently after edits
+     * so the spans themselves can't be compared
+     */
+    private fun colors(text: SpannableStringBuilder, start: Int, end: Int): List<Int> {
+        val chars = IntArray(minOf(end, text.length) - start) { -1 }
+        for ((spanStart, spanEnd, color) in spans(text)) {
+            for (i in maxOf(spanStart, start) until minOf(spanEnd, start + chars.size)) {
+                chars[i - start] = color
+            }
+        }
+        return chars.toList()
+    }
+
+    private fun colorAt(text: SpannableStringBuilder, offset: Int): Int {
+        return text.getSpans(offset, offset, ForegroundColorSpan::class.java).single().foregroundColor
+    }
+
+    private fun javaSource(lines: Int): String {
+        val builder = StringBuilder()
+        for (i in 0 until lines) {
+            val line = when (i % 4) {
+                0 -> "    public void method$i() { // call"
+                1 -> "        String s = \"value $i\";"
+                2 -> "        int x = $i; /* note */"
+                else -> "        return;"
+            }
+            builder.append(line.padEnd(LINE_LENGTH - 1)).append('\n')
+        }
+        return builder.toString()
+    }
+
+    companion object {
+        private const val KEYWORD = SyntaxTokenizer.KEYWORD
+        private const val COMMENT = SyntaxTokenizer.COMMENT
+        private const val STRING = SyntaxTokenizer.STRING
+        private const val NAME = SyntaxTokenizer.NAME
+        private const val VALUE = SyntaxTokenizer.VALUE
+
+        private const val LINE_LENGTH = 48
+        private const val WARMUP_ROUNDS = 5
+        private const val MEASURED_ROUNDS = 10
+
+        private val regexPasses = listOf(
+                Pattern.compile("abstract|continue|for|new|switch|assert|default|goto|package|synchronized|boolean|do|if" +
+                                        "|private|this|break|double|implements|protected|throw|byte|else|import|public|throws" +
+                                        "|case|enum|instanceof|return|transient|catch|extends|short|try|char|final|interface" +
+                                        "|int|static|void|class|finally|long|strictfp|volatile|const|float|native|super" +
+                                        "|while|String", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("//.*|(\"(?:\\\\[^\"]|\\\\\"|.)*?\")|(?s)/\\*.*?\\*/"),
+                Pattern.compile("\"([^\"]*)\"", Pattern.MULTILINE or Pattern.CASE_INSENSITIVE),
+                Pattern.compile("([a-zA-Z][a-zA-Z0-9_\$]+)\\s*\\(\\s*([a-zA-Z0-9_\$]+(?:\\s*,\\s*[a-zA-Z0-9_\$]+)*)\\s*\\)" +
+                                        "|^[a-zA-Z_\$][a-zA-Z_\$0-9]*\$"),
+                Pattern.compile("^[0-9,;]+$"))
+    }
+}
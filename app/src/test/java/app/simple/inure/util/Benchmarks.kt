@@ -0,0 +1,47 @@
+package app.simple.inure.util
+
+import org.junit.Assume
+
+/**
+ * Benchmarks time the code on whatever machine runs the tests, how
+ * fast it is there says nothing about whether it works. They are left
+ * out of the default run and only report their numbers, run them with
+ * `./gradlew testGithubDebugUnitTest -Pbenchmarks`
+ */
+object Benchmarks {
+
+    private const val PROPERTY = "inure.benchmarks"
+
+    val isEnabled: Boolean
+        get() = java.lang.Boolean.getBoolean(PROPERTY)
+
+    /**
+     * Skip the calling test unless benchmarks were asked for
+     */
+    fun assumeEnabled() {
+        Assume.assumeTrue("Benchmarks only run with -Pbenchmarks", isEnabled)
+    }
+
+    /**
+     * JMH style measurement, [operation] runs [warmupRounds] times for
+     * the JIT to compile it and then [measuredRounds] times on the clock
+     *
+     * @return milliseconds per call of [operation]
+     */
+    fun measure(warmupRounds: Int, measuredRounds: Int, operation: () -> Any?): Double {
+        repeat(warmupRounds) { operation() }
+
+        val start = System.nanoTime()
+        repeat(measuredRounds) { operation() }
+        return (System.nanoTime() - start) / measuredRounds / 1_000_000.0
+    }
+
+    /**
+     * Milliseconds a single call of [operation] takes
+     */
+    fun time(operation: () -> Any?): Double {
+        val start = System.nanoTime()
+        operation()
+        return (System.nanoTime() - start) / 1_000_000.0
+    }
+}
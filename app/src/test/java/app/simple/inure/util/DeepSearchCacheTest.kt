@@ -0,0 +1,175 @@
+package app.simple.inure.util
+
+import android.content.pm.ActivityInfo
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import android.content.pm.ProviderInfo
+import android.content.pm.ServiceInfo
+import app.simple.inure.models.SearchModel
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+import java.util.concurrent.atomic.AtomicInteger
+
+class DeepSearchCacheTest {
+
+    private val random = Random(3)
+    private val labelCalls = AtomicInteger()
+    private val xmlCalls = AtomicInteger()
+
+    private val permissionLabels = mapOf(
+            "android.permission.CAMERA" to "take pictures and videos",
+            "android.permission.INTERNET" to "have full network access",
+            "android.permission.READ_CONTACTS" to "read your contacts",
+            "android.permission.ACCESS_FINE_LOCATION" to "access precise location")
+
+    private val xmlFiles = HashMap<String, List<String>>()
+
+    @Test
+    fun matchesTheOldCounts() {
+        val packages = packages(200)
+        val cache = cache()
+
+        for (keyword in listOf("camera", "Activity", "layout", "network", "com.", "LOCATION", "main", "zzz")) {
+            for (ignoreCase in listOf(true, false)) {
+                val results = runBlocking { cache.search(packages, keyword, ignoreCase, 16) {} }
+                assertEquals(keyword, oldSearch(packages, keyword, ignoreCase).map { counts(it) }, results.map { counts(it) })
+            }
+        }
+    }
+
+    @Test
+    fun reusesEntriesUntilUpdated() {
+        val packages = packages(50)
+        val cache = cache()
+
+        runBlocking { cache.search(packages, "camera", true, 16) {} }
+        val labels = labelCalls.get()
+        val lists = xmlCalls.get()
+
+        runBlocking { cache.search(packages, "layout", true, 16) {} }
+        assertEquals(labels, labelCalls.get())
+        assertEquals(lists, xmlCalls.get())
+
+        packages[0].versionCode++
+        packages[1].lastUpdateTime++
+        runBlocking { cache.search(packages, "layout", true, 16) {} }
+        assertEquals(lists + 2, xmlCalls.get())
+
+        // Labels are shared, the updated packages request nothing new
+        assertEquals(labels, labelCalls.get())
+        assertEquals(permissionLabels.size + 1, labels)
+    }
+
+    @Test
+    fun streamsGrowingChunks() {
+        val packages = packages(100)
+        val chunks = mutableListOf<ArrayList<SearchModel>>()
+        val results = runBlocking { cache().search(packages, "a", true, 16) { chunks.add(it) } }
+
+        assertEquals(7, chunks.size)
+        for (i in 1 until chunks.size) {
+            assertTrue(chunks[i].size >= chunks[i - 1].size)
+            assertTrue(chunks[i - 1].indices.all { chunks[i][it] === chunks[i - 1][it] })
+        }
+        assertEquals(packages.filter { p -> results.any { it.packageInfo === p } }, results.map { it.packageInfo })
+    }
+
+    /**
+     * JMH style benchmark, PackageManager and zip costs are simulated
+     * with a short sleep per permission label and xml listing
+     */
+    @Test
+    fun benchmarkDeepSearch() {
+        Benchmarks.assumeEnabled()
+
+        val packages = packages(400)
+        val slowLabel = { permission: String -> Thread.sleep(0, 200_000); permissionLabels[permission] }
+        val slowXml = { path: String -> Thread.sleep(2); xmlFiles[path]!! }
+
+        val serial = Benchmarks.time {
+            packages.forEach { packageInfo ->
+                packageInfo.requestedPermissions.forEach { slowLabel(it) }
+                slowXml(packageInfo.applicationInfo.sourceDir)
+            }
+            oldSearch(packages, "layout", true)
+        }
+
+        val cache = DeepSearchCache(slowLabel, slowXml)
+        val cold = Benchmarks.time { runBlocking { cache.search(packages, "layout", true, 16) {} } }
+        val warm = Benchmarks.time { runBlocking { cache.search(packages, "camera", true, 16) {} } }
+
+        println("DeepSearchCache: 400 packages")
+        println("  serial, no cache : ${"%.1f".format(serial)} ms")
+        println("  parallel, cold   : ${"%.1f".format(cold)} ms")
+        println("  parallel, warm   : ${"%.1f".format(warm)} ms")
+    }
+
+    private fun cache(): DeepSearchCache {
+        return DeepSearchCache({
+                                   labelCalls.incrementAndGet()
+                                   permissionLabels[it]
+                               }, {
+                                   xmlCalls.incrementAndGet()
+                                   xmlFiles[it]!!
+                               })
+    }
+
+    /**
+     * Deep search before the cache, every count worked on the package
+     * directly
+     */
+    private fun oldSearch(packages: List<PackageInfo>, keywords: String, ignoreCase: Boolean): List<SearchModel> {
+        return packages.map { app ->
+            SearchModel().apply {
+                packageInfo = app
+                permissions = app.requestedPermissions.count {
+                    it.lowercase().contains(keywords.lowercase()) ||
+                            (permissionLabels[it] ?: "").lowercase().contains(keywords.lowercase())
+                }
+                activities = app.activities.count { it.name.lowercase().contains(keywords.lowercase()) }
+                services = app.services.count { it.name.lowercase().contains(keywords.lowercase()) }
+                receivers = app.receivers.count { it.name.lowercase().contains(keywords.lowercase()) }
+                providers = app.providers.count { it.name.lowercase().contains(keywords.lowercase()) }
+                resources = xmlFiles[app.applicationInfo.sourceDir]!!.count { it.contains(keywords) }
+            }
+        }.filter {
+            it.permissions > 0 || it.activities > 0 || it.services > 0 ||
+                    it.receivers > 0 || it.providers > 0 || it.resources > 0 ||
+                    it.packageInfo.applicationInfo.name.contains(keywords, ignoreCase) ||
+                    it.packageInfo.packageName.contains(keywords, ignoreCase)
+        }
+    }
+
+    private fun counts(searchModel: SearchModel): List<Any> {
+        return listOf(searchModel.packageInfo.packageName, searchModel.permissions, searchModel.activities,
+                      searchModel.services, searchModel.receivers, searchModel.providers, searchModel.resources)
+    }
+
+    private fun packages(count: Int): MutableList<PackageInfo> {
+        val permissions = permissionLabels.keys.toList() + "com.example.permission.UNDEFINED"
+        val resources = listOf("res/layout/activity_main.xml", "res/layout/item.xml", "res/xml/network_security_config.xml",
+                               "res/drawable/ic_camera.xml", "res/menu/main.xml", "res/Layout/upper.xml")
+
+        return (0 until count).map { i ->
+            val packageName = "com.example.app$i"
+            xmlFiles["/data/app/$packageName/base.apk"] = resources.filter { random.nextBoolean() }
+
+            PackageInfo().apply {
+                this.packageName = packageName
+                versionCode = 1
+                applicationInfo = ApplicationInfo().apply {
+                    name = "App $i"
+                    sourceDir = "/data/app/$packageName/base.apk"
+                }
+                requestedPermissions = permissions.filter { random.nextBoolean() }.toTypedArray()
+                activities = arrayOf(ActivityInfo("$packageName.MainActivity"), ActivityInfo("$packageName.CameraActivity"))
+                services = arrayOf(ServiceInfo("$packageName.SyncService"))
+                receivers = arrayOf(ActivityInfo("$packageName.BootReceiver"))
+                providers = if (i % 3 == 0) arrayOf(ProviderInfo("$packageName.FileProvider")) else arrayOf()
+            }
+        }.toMutableList()
+    }
+}
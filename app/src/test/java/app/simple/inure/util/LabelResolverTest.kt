@@ -0,0 +1,173 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class LabelResolverTest {
+
+    private val calls = AtomicInteger()
+
+    private val resolver = LabelResolver({
+                                             calls.incrementAndGet()
+                                             "Label of ${it.packageName}"
+                                         }, 4)
+
+    @Test
+    fun resolvesEveryLabel() {
+        val packages = packages(100)
+        runBlocking { resolver.resolve(packages, "en") }
+
+        assertEquals(100, calls.get())
+        assertTrue(packages.all { resolver.getCached(it, "en") == "Label of ${it.packageName}" })
+
+        // The packages may already be published, only the cache is written
+        assertTrue(packages.all { it.applicationInfo.name == null })
+    }
+
+    @Test
+    fun relabelsWithCopies() {
+        val packages = packages(4)
+        resolver.applyCached(packages, "en")
+        runBlocking { resolver.resolve(packages.take(2), "en") }
+
+        val relabelled = resolver.relabel(packages, "en", ::copy)
+
+        assertEquals(listOf("Label of com.example.app0", "Label of com.example.app1", "com.example.app2", "com.example.app3"),
+                     relabelled.map { it.applicationInfo.name })
+        assertNotSame(packages[0], relabelled[0])
+        assertSame(packages[2], relabelled[2])
+        assertEquals("com.example.app0", packages[0].applicationInfo.name)
+
+        assertSame(relabelled, resolver.relabel(relabelled, "en", ::copy))
+    }
+
+    @Test
+    fun resolvesOnSeveralThreads() {
+        val running = AtomicInteger()
+        val peak = AtomicInteger()
+
+        // Every lookup waits for three others, resolving one label after
+        // another never gets past it
+        val barrier = CyclicBarrier(4)
+        val parallel = LabelResolver({
+                                         peak.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+                                         barrier.await(10, TimeUnit.SECONDS)
+                                         running.decrementAndGet()
+                                         "Label"
+                                     }, 4)
+
+        val packages = packages(32)
+        runBlocking { parallel.resolve(packages, "en") }
+
+        assertEquals(4, peak.get())
+        assertTrue(packages.all { parallel.getCached(it, "en") == "Label" })
+    }
+
+    @Test
+    fun cachesByUpdateTimeAndLocale() {
+        runBlocking { resolver.resolve(packages(10), "en") }
+
+        val packages = packages(10)
+        packages[0].lastUpdateTime++
+
+        assertEquals(listOf(packages[0]), resolver.applyCached(packages, "en"))
+        assertEquals("Label of com.example.app1", packages[1].applicationInfo.name)
+        assertEquals(packages.size, resolver.applyCached(packages, "de").size)
+    }
+
+    @Test
+    fun namesMissingLabelsAfterPackages() {
+        val packages = packages(3)
+        resolver.applyCached(packages, "en")
+
+        assertEquals(packages.map { it.packageName }, packages.map { it.applicationInfo.name })
+    }
+
+    @Test
+    fun reportsEveryChunk() {
+        val progress = mutableListOf<Int>()
+        val packages = packages(100)
+
+        runBlocking {
+            resolver.resolve(packages, "en", 32) {
+                progress.add(it)
+                // Labels of every reported package are already cached
+                assertTrue(packages.take(it).all { p -> resolver.getCached(p, "en") != null })
+            }
+        }
+
+        assertEquals(listOf(32, 64, 96, 100), progress)
+    }
+
+    @Test
+    fun fallsBackToPackageName() {
+        val failing = LabelResolver({ throw IllegalStateException() })
+        val packages = packages(2)
+        runBlocking { failing.resolve(packages, "en") }
+
+        assertEquals(packages.map { it.packageName }, packages.map { failing.getCached(it, "en") })
+    }
+
+    /**
+     * JMH style benchmark, the resource table lookup of a label is
+     * simulated with a short sleep
+     */
+    @Test
+    fun benchmarkLabels() {
+        Benchmarks.assumeEnabled()
+
+        val slow = { _: ApplicationInfo -> Thread.sleep(2); "Label" }
+        val packages = packages(500)
+
+        val serial = Benchmarks.time {
+            packages.forEach { it.applicationInfo.name = slow(it.applicationInfo) }
+        }
+
+        val parallel = Benchmarks.time {
+            runBlocking { LabelResolver(slow, 4).resolve(packages, "en") }
+        }
+
+        val cached = LabelResolver(slow, 4)
+        runBlocking { cached.resolve(packages, "en") }
+        val warm = Benchmarks.time {
+            cached.applyCached(packages, "en")
+        }
+
+        println("LabelResolver: 500 packages")
+        println("  serial     : ${"%.1f".format(serial)} ms")
+        println("  parallel   : ${"%.1f".format(parallel)} ms")
+        println("  cached     : ${"%.1f".format(warm)} ms")
+    }
+
+    private fun copy(packageInfo: PackageInfo): PackageInfo {
+        return PackageInfo().apply {
+            packageName = packageInfo.packageName
+            lastUpdateTime = packageInfo.lastUpdateTime
+            applicationInfo = ApplicationInfo().apply {
+                packageName = packageInfo.applicationInfo.packageName
+                name = packageInfo.applicationInfo.name
+            }
+        }
+    }
+
+    private fun packages(count: Int): List<PackageInfo> {
+        return (0 until count).map {
+            PackageInfo().apply {
+                packageName = "com.example.app$it"
+                lastUpdateTime = 1L
+                applicationInfo = ApplicationInfo().apply {
+                    packageName = "com.example.app$it"
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import app.simple.inure.database.dao.PackageRecordDao
+import app.simple.inure.models.PackageRecord
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class PackageCatalogueTest {
+
+    @Test
+    fun writesEveryPackageOfAnEmptyCatalogue() {
+        val dao = FakeDao()
+        val packages = listOf(packageInfo("com.a"), packageInfo("com.b"))
+
+        assertEquals(2 to 0, PackageCatalogue.reconcile(dao, packages, emptyMap(), "en"))
+        assertEquals(setOf("com.a", "com.b"), dao.records.keys)
+        assertEquals("com.a label", dao.records["com.a"]!!.label)
+        assertEquals("en", dao.records["com.a"]!!.labelLocale)
+    }
+
+    @Test
+    fun writesOnlyChangedPackages() {
+        val dao = FakeDao()
+        PackageCatalogue.reconcile(dao, listOf(packageInfo("com.a"), packageInfo("com.b"), packageInfo("com.c")), emptyMap(), "en")
+        dao.written.clear()
+
+        val packages = listOf(
+                packageInfo("com.a"),
+                packageInfo("com.b", lastUpdateTime = 2L),
+                packageInfo("com.c").apply { applicationInfo.enabled = false },
+                packageInfo("com.d"))
+
+        assertEquals(3 to 0, PackageCatalogue.reconcile(dao, packages, HashMap(dao.records), "en"))
+        assertEquals(listOf("com.b", "com.c", "com.d"), dao.written)
+        assertEquals(2L, dao.records["com.b"]!!.lastUpdateTime)
+        assertFalse(dao.records["com.c"]!!.isEnabled)
+    }
+
+    @Test
+    fun rewritesLabelsOfAnotherLocale() {
+        val dao = FakeDao()
+        PackageCatalogue.reconcile(dao, listOf(packageInfo("com.a")), emptyMap(), "en")
+        dao.written.clear()
+
+        PackageCatalogue.reconcile(dao, listOf(packageInfo("com.a")), HashMap(dao.records), "de")
+
+        assertEquals(listOf("com.a"), dao.written)
+        assertEquals("de", dao.records["com.a"]!!.labelLocale)
+    }
+
+    @Test
+    fun removesPackagesThatAreGone() {
+        val dao = FakeDao()
+        PackageCatalogue.reconcile(dao, (0 until 2000).map { packageInfo("com.app$it") }, emptyMap(), "en")
+        dao.written.clear()
+
+        val kept = (0 until 2000 step 4).map { packageInfo("com.app$it") }
+
+        assertEquals(0 to 1500, PackageCatalogue.reconcile(dao, kept, HashMap(dao.records), "en"))
+        assertEquals(kept.map { it.packageName }.toSet(), dao.records.keys)
+        assertEquals(emptyList<String>(), dao.written)
+
+        // Every delete has to fit the argument limit of SQLite
+        assertTrue(dao.deletes.all { it <= 999 })
+    }
+
+    private fun packageInfo(packageName: String, lastUpdateTime: Long = 1L): PackageInfo {
+        return PackageInfo().apply {
+            this.packageName = packageName
+            this.lastUpdateTime = lastUpdateTime
+            applicationInfo = ApplicationInfo().apply {
+                this.packageName = packageName
+                name = "$packageName label"
+                enabled = true
+            }
+        }
+    }
+
+    private class FakeDao : PackageRecordDao {
+
+        val records = LinkedHashMap<String, PackageRecord>()
+        val written = ArrayList<String>()
+        val deletes = ArrayList<Int>()
+
+        override fun getAllPackages(): MutableList<PackageRecord> {
+            return ArrayList(records.values)
+        }
+
+        override fun getPackage(packageName: String): PackageRecord? {
+            return records[packageName]
+        }
+
+        override fun insertPackages(packages: List<PackageRecord>) {
+            for (record in packages) {
+                records[record.packageName] = record
+                written.add(record.packageName)
+            }
+        }
+
+        override fun deletePackages(packageNames: List<String>) {
+            deletes.add(packageNames.size)
+            records.keys.removeAll(packageNames.toSet())
+        }
+
+        override fun nukeTable() {
+            records.clear()
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import app.simple.inure.constants.SortConstant
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Random
+
+class PackageFilterTest {
+
+    private val random = Random(11)
+    private val types = listOf(SortConstant.SYSTEM, SortConstant.USER, SortConstant.BOTH)
+
+    @Test
+    fun matchesTheOldAppsFilter() {
+        val packages = packages(300)
+
+        for (type in types) {
+            for (filter in 0 until SortConstant.TRACKERS) {
+                for (categories in listOf(SortConstant.ALL_CATEGORIES, SortConstant.CATEGORY_GAME or SortConstant.CATEGORY_UNSPECIFIED, 0L)) {
+                    val filtered = PackageFilter(type, filter, categories, isUninstalledSeparate = true).filter(packages)
+                    assertEquals("$type $filter $categories", names(oldAppsFilter(packages, type, filter, categories)), names(filtered))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun matchesTheOldSearchFilter() {
+        val packages = packages(300)
+
+        for (type in types) {
+            for (filter in 0 until SortConstant.TRACKERS) {
+                val filtered = PackageFilter(type, filter).filter(packages)
+                assertEquals("$type $filter", names(oldSearchFilter(packages, type, filter)), names(filtered))
+            }
+        }
+    }
+
+    @Test
+    fun ignoresTrackers() {
+        val packages = packages(50)
+        val filter = SortConstant.ENABLED or SortConstant.SPLIT
+
+        assertEquals(names(PackageFilter(SortConstant.BOTH, filter).filter(packages)),
+                     names(PackageFilter(SortConstant.BOTH, filter or SortConstant.TRACKERS).filter(packages)))
+    }
+
+    @Test
+    fun matchesTheOldBatchFilter() {
+        val items = (0 until 200).map { BatchItem(random.nextBoolean(), random.nextInt(5) != 0) }
+
+        for (filter in 0..SortConstant.ALL_BATCH_STATES) {
+            val old = ArrayList<BatchItem>()
+
+            for (item in items) {
+                if (FlagUtils.isFlagSet(filter, SortConstant.BATCH_SELECTED) && item.isSelected) add(old, item)
+                if (FlagUtils.isFlagSet(filter, SortConstant.BATCH_NOT_SELECTED) && !item.isSelected) add(old, item)
+                if (FlagUtils.isFlagSet(filter, SortConstant.BATCH_ENABLED) && item.isEnabled) add(old, item)
+                if (FlagUtils.isFlagSet(filter, SortConstant.BATCH_DISABLED) && !item.isEnabled) add(old, item)
+            }
+
+            val filtered = PackageFilter.anyOf(items, filter) {
+                (if (it.isSelected) SortConstant.BATCH_SELECTED else SortConstant.BATCH_NOT_SELECTED) or
+                        if (it.isEnabled) SortConstant.BATCH_ENABLED else SortConstant.BATCH_DISABLED
+            }
+
+            assertEquals(old.map { items.indexOf(it) }, filtered.map { items.indexOf(it) })
+        }
+    }
+
+    /**
+     * JMH style benchmark of the apps panel filter, the old one checked
+     * the whole result list for every flag of every package
+     */
+    @Test
+    fun benchmarkFilter() {
+        Benchmarks.assumeEnabled()
+
+        val packages = packages(2000)
+        val filter = SortConstant.ALL
+
+        val old = Benchmarks.time { repeat(ROUNDS) { oldAppsFilter(packages, SortConstant.BOTH, filter, SortConstant.ALL_CATEGORIES) } }
+        val new = Benchmarks.time {
+            repeat(ROUNDS) {
+                PackageFilter(SortConstant.BOTH, filter, SortConstant.ALL_CATEGORIES, isUninstalledSeparate = true).filter(packages)
+            }
+        }
+
+        println("PackageFilter: 2000 packages, $ROUNDS rounds")
+        println("  old filter : ${"%.1f".format(old)} ms")
+        println("  one pass   : ${"%.1f".format(new)} ms")
+    }
+
+    private fun <T> add(list: ArrayList<T>, item: T) {
+        if (!list.contains(item)) {
+            list.add(item)
+        }
+    }
+
+    /**
+     * Filters of the apps panel before the engine, with the category
+     * part of Android O and above
+     */
+    private fun oldAppsFilter(packages: List<PackageInfo>, type: String, filter: Int, categories: Long): List<PackageInfo> {
+        var apps = packages.filter { PackageFilter.isOfType(it, type) }
+
+        val categoryList = ArrayList<PackageInfo>()
+        val flags = mapOf(ApplicationInfo.CATEGORY_UNDEFINED to SortConstant.CATEGORY_UNSPECIFIED,
+                          ApplicationInfo.CATEGORY_GAME to SortConstant.CATEGORY_GAME,
+                          ApplicationInfo.CATEGORY_AUDIO to SortConstant.CATEGORY_AUDIO,
+                          ApplicationInfo.CATEGORY_VIDEO to SortConstant.CATEGORY_VIDEO,
+                          ApplicationInfo.CATEGORY_IMAGE to SortConstant.CATEGORY_IMAGE,
+                          ApplicationInfo.CATEGORY_SOCIAL to SortConstant.CATEGORY_SOCIAL,
+                          ApplicationInfo.CATEGORY_NEWS to SortConstant.CATEGORY_NEWS,
+                          ApplicationInfo.CATEGORY_MAPS to SortConstant.CATEGORY_MAPS,
+                          ApplicationInfo.CATEGORY_PRODUCTIVITY to SortConstant.CATEGORY_PRODUCTIVITY,
+                          ApplicationInfo.CATEGORY_ACCESSIBILITY to SortConstant.CATEGORY_ACCESSIBILITY)
+
+        for (app in apps) {
+            for ((category, flag) in flags) {
+                if (app.applicationInfo.category == category && FlagUtils.isFlagSet(categories, flag)) {
+                    add(categoryList, app)
+                }
+            }
+        }
+
+        apps = categoryList
+
+        val filteredList = ArrayList<PackageInfo>()
+
+        if (FlagUtils.isFlagSet(filter, SortConstant.COMBINE_FLAGS)) {
+            filteredList.addAll(apps.filter { packageInfo ->
+                if (FlagUtils.isFlagSet(filter, SortConstant.DISABLED)) {
+                    if (FlagUtils.isFlagSet(filter, SortConstant.ENABLED)) {
+                        packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+                    } else {
+                        packageInfo.applicationInfo.enabled.not() &&
+                                packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+                    }
+                } else {
+                    true
+                } && if (FlagUtils.isFlagSet(filter, SortConstant.ENABLED)) {
+                    if (FlagUtils.isFlagSet(filter, SortConstant.DISABLED)) {
+                        packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+                    } else {
+                        packageInfo.applicationInfo.enabled &&
+                                packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+                    }
+                } else {
+                    true
+                } && if (FlagUtils.isFlagSet(filter, SortConstant.APK)) {
+                    FlagUtils.isFlagSet(filter, SortConstant.SPLIT) || packageInfo.applicationInfo.splitSourceDirs.isNullOrEmpty()
+                } else {
+                    true
+                } && if (FlagUtils.isFlagSet(filter, SortConstant.SPLIT)) {
+                    FlagUtils.isFlagSet(filter, SortConstant.APK) || packageInfo.applicationInfo.splitSourceDirs?.isNotEmpty() ?: false
+                } else {
+                    true
+                } && if (FlagUtils.isFlagSet(filter, SortConstant.UNINSTALLED)) {
+                    packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0
+                } else {
+                    true
+                }
+            })
+        } else {
+            for (packageInfo in apps) {
+                val installed = packageInfo.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED != 0
+
+                if (FlagUtils.isFlagSet(filter, SortConstant.UNINSTALLED) && !installed) add(filteredList, packageInfo)
+                if (FlagUtils.isFlagSet(filter, SortConstant.SPLIT) &&
+                    packageInfo.applicationInfo.splitSourceDirs?.isNotEmpty() == true) add(filteredList, packageInfo)
+                if (FlagUtils.isFlagSet(filter, SortConstant.DISABLED) &&
+                    !packageInfo.applicationInfo.enabled && installed) add(filteredList, packageInfo)
+                if (FlagUtils.isFlagSet(filter, SortConstant.APK) &&
+                    packageInfo.applicationInfo.splitSourceDirs.isNullOrEmpty()) add(filteredList, packageInfo)
+                if (FlagUtils.isFlagSet(filter, SortConstant.ENABLED) &&
+                    packageInfo.applicationInfo.enabled && installed) add(filteredList, packageInfo)
+            }
+        }
+
+        return filteredList.distinct()
+    }
+
+    /**
+     * Filters of the deep search before the engine, enabled and disabled
+     * don't care whether the package is installed
+     */
+    private fun oldSearchFilter(packages: List<PackageInfo>, type: String, filter: Int): List<PackageInfo> {
+        val apps = packages.filter { PackageFilter.isOfType(it, type) }
+        val filteredList = ArrayList<PackageInfo>()
+
+        if (FlagUtils.isFlagSet(filter, SortConstant.COMBINE_FLAGS)) {
+            filteredList.addAll(apps.filter { p ->
+                (if (FlagUtils.isFlagSet(filter, SortConstant.DISABLED)) {
+                    FlagUtils.isFlagSet(filter, SortConstant.ENABLED) || p.applicationInfo.enabled.not()
+                } else true) && (if (FlagUtils.isFlagSet(filter, SortConstant.ENABLED)) {
+                    FlagUtils.isFlagSet(filter, SortConstant.DISABLED) || p.applicationInfo.enabled
+                } else true) && (if (FlagUtils.isFlagSet(filter, SortConstant.APK)) {
+                    FlagUtils.isFlagSet(filter, SortConstant.SPLIT) || p.applicationInfo.splitSourceDirs.isNullOrEmpty()
+                } else true) && (if (FlagUtils.isFlagSet(filter, SortConstant.SPLIT)) {
+                    FlagUtils.isFlagSet(filter, SortConstant.APK) || p.applicationInfo.splitSourceDirs?.isNotEmpty() ?: false
+                } else true) && (if (FlagUtils.isFlagSet(filter, SortConstant.UNINSTALLED)) {
+                    p.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0
+                } else true)
+            })
+        } else {
+            for (app in apps) {
+                if (FlagUtils.isFlagSet(filter, SortConstant.DISABLED) && !app.applicationInfo.enabled) add(filteredList, app)
+                if (FlagUtils.isFlagSet(filter, SortConstant.ENABLED) && app.applicationInfo.enabled) add(filteredList, app)
+                if (FlagUtils.isFlagSet(filter, SortConstant.APK) &&
+                    app.applicationInfo.splitSourceDirs.isNullOrEmpty()) add(filteredList, app)
+                if (FlagUtils.isFlagSet(filter, SortConstant.SPLIT) &&
+                    app.applicationInfo.splitSourceDirs?.isNotEmpty() == true) add(filteredList, app)
+                if (FlagUtils.isFlagSet(filter, SortConstant.UNINSTALLED) &&
+                    app.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0) add(filteredList, app)
+            }
+        }
+
+        return filteredList.distinct()
+    }
+
+    private fun names(packages: List<PackageInfo>): List<String> {
+        return packages.map { it.packageName }
+    }
+
+    private fun packages(count: Int): List<PackageInfo> {
+        return (0 until count).map { i ->
+            PackageInfo().apply {
+                packageName = "com.example.app$i"
+                applicationInfo = ApplicationInfo().apply {
+                    name = "App $i"
+                    flags = (if (random.nextInt(3) == 0) ApplicationInfo.FLAG_SYSTEM else 0) or
+                            (if (random.nextInt(10) != 0) ApplicationInfo.FLAG_INSTALLED else 0)
+                    enabled = random.nextInt(5) != 0
+                    splitSourceDirs = if (random.nextInt(4) == 0) arrayOf("split_config.arm64_v8a.apk") else null
+                    category = random.nextInt(11) - 1
+                }
+            }
+        }
+    }
+
+    /**
+     * Compared by identity like the batch panel's items
+     */
+    private class BatchItem(val isSelected: Boolean, val isEnabled: Boolean)
+
+    companion object {
+        private const val ROUNDS = 20
+    }
+}
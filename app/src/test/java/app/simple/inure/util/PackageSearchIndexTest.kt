@@ -0,0 +1,207 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import app.simple.inure.constants.SortConstant
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+class PackageSearchIndexTest {
+
+    private val random = Random(7)
+
+    @Test
+    fun findsLabelsAndPackageNames() {
+        val index = PackageSearchIndex()
+        index.update(listOf(app("com.whatsapp", "WhatsApp"), app("org.mozilla.firefox", "Firefox"),
+                            app("com.android.chrome", "Chrome")))
+
+        assertEquals(setOf("com.whatsapp"), names(index.search("APP", true, SortConstant.BOTH, ALL)))
+        assertEquals(setOf("org.mozilla.firefox"), names(index.search("mozilla", true, SortConstant.BOTH, ALL)))
+        assertEquals(setOf("com.whatsapp", "com.android.chrome"), names(index.search("co", true, SortConstant.BOTH, ALL)))
+        assertTrue(index.search("APP", false, SortConstant.BOTH, ALL).isEmpty())
+        assertTrue(index.search("", true, SortConstant.BOTH, ALL).isEmpty())
+    }
+
+    @Test
+    fun matchesTheOldFilters() {
+        val packages = packages(300)
+        val index = PackageSearchIndex()
+        index.update(packages)
+
+        val keywords = listOf("a", "ap", "app", "com.", "Settings", "SETTINGS", "google", "ğ", "İ", "lab 1", "xyz", ".m")
+        val categories = listOf(SortConstant.SYSTEM, SortConstant.USER, SortConstant.BOTH)
+
+        for (keyword in keywords) {
+            for (category in categories) {
+                for (filter in 0 until SortConstant.TRACKERS) {
+                    for (ignoreCase in listOf(true, false)) {
+                        assertEquals("$keyword $category $filter $ignoreCase",
+                                     names(oldSearch(packages, keyword, ignoreCase, category, filter)),
+                                     names(index.search(keyword, ignoreCase, category, filter)))
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun updatesIncrementally() {
+        val packages = packages(400)
+        val index = PackageSearchIndex()
+        index.update(packages)
+
+        repeat(20) { round ->
+            // Uninstall, install and update a few packages between loads
+            val next = packages.filter { random.nextInt(10) != 0 }.toMutableList()
+            repeat(30) { next.add(app("com.new$round.app$it", "New App $it")) }
+            for (i in 0 until 20) {
+                val updated = next[random.nextInt(next.size)]
+                next[next.indexOf(updated)] = app(updated.packageName, "Renamed ${random.nextInt(100)}",
+                                                  system = random.nextBoolean(), enabled = random.nextBoolean())
+            }
+
+            index.update(next)
+
+            val fresh = PackageSearchIndex()
+            fresh.update(next)
+
+            assertEquals(next.size, index.size())
+            for (keyword in listOf("app", "renamed", "new", "com", "e")) {
+                assertEquals(names(fresh.search(keyword, true, SortConstant.BOTH, COMBINED)),
+                             names(index.search(keyword, true, SortConstant.BOTH, COMBINED)))
+                assertEquals(names(oldSearch(next, keyword, true, SortConstant.USER, ENABLED_OR_SPLIT)),
+                             names(index.search(keyword, true, SortConstant.USER, ENABLED_OR_SPLIT)))
+            }
+
+            packages.clear()
+            packages.addAll(next)
+        }
+    }
+
+    @Test
+    fun removesUninstalledPackages() {
+        val index = PackageSearchIndex()
+        index.update(listOf(app("com.example.one", "One"), app("com.example.two", "Two")))
+        index.remove("com.example.one")
+
+        assertEquals(setOf("com.example.two"), names(index.search("example", true, SortConstant.BOTH, ALL)))
+        assertEquals(setOf("com.example.two"),
+                     names(index.filter(listOf("com.example.one", "com.example.two"), SortConstant.BOTH, ALL)))
+    }
+
+    /**
+     * JMH style benchmark, the stream filters the search panel ran on
+     * every keystroke against an index lookup, 600 packages like an
+     * average device
+     */
+    @Test
+    fun benchmarkKeystrokes() {
+        Benchmarks.assumeEnabled()
+
+        val packages = packages(600)
+        val index = PackageSearchIndex()
+        val queries = listOf("g", "go", "goo", "goog", "googl", "google", "com.android", "settings")
+
+        val build = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            PackageSearchIndex().apply { update(packages) }.size()
+        }
+
+        index.update(packages)
+
+        val old = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            queries.sumOf { oldSearch(ArrayList(packages), it, true, SortConstant.BOTH, COMBINED).size }
+        } / queries.size
+
+        val indexed = Benchmarks.measure(WARMUP_ROUNDS, MEASURED_ROUNDS) {
+            queries.sumOf { index.search(it, true, SortConstant.BOTH, COMBINED).size }
+        } / queries.size
+
+        println("PackageSearchIndex: 600 packages")
+        println("  build          : ${"%.3f".format(build)} ms/op")
+        println("  stream filters : ${"%.3f".format(old)} ms/keystroke")
+        println("  index lookup   : ${"%.3f".format(indexed)} ms/keystroke")
+    }
+
+    /**
+     * The filters of the search panel before the index, kept to pin
+     * the results
+     */
+    private fun oldSearch(packages: List<PackageInfo>, keywords: String, ignoreCase: Boolean,
+                          category: String, filter: Int): List<PackageInfo> {
+        var apps = packages.filter { p ->
+            p.applicationInfo.name.contains(keywords, ignoreCase) || p.packageName.contains(keywords, ignoreCase)
+        }
+
+        when (category) {
+            SortConstant.SYSTEM -> apps = apps.filter { it.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM != 0 }
+            SortConstant.USER -> apps = apps.filter { it.applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM == 0 }
+        }
+
+        val isDisabled = FlagUtils.isFlagSet(filter, SortConstant.DISABLED)
+        val isEnabled = FlagUtils.isFlagSet(filter, SortConstant.ENABLED)
+        val isApk = FlagUtils.isFlagSet(filter, SortConstant.APK)
+        val isSplit = FlagUtils.isFlagSet(filter, SortConstant.SPLIT)
+        val isUninstalled = FlagUtils.isFlagSet(filter, SortConstant.UNINSTALLED)
+
+        return if (FlagUtils.isFlagSet(filter, SortConstant.COMBINE_FLAGS)) {
+            apps.filter { p ->
+                (if (isDisabled) isEnabled || p.applicationInfo.enabled.not() else true) &&
+                        (if (isEnabled) isDisabled || p.applicationInfo.enabled else true) &&
+                        (if (isApk) isSplit || p.applicationInfo.splitSourceDirs.isNullOrEmpty() else true) &&
+                        (if (isSplit) isApk || p.applicationInfo.splitSourceDirs?.isNotEmpty() ?: false else true) &&
+                        (if (isUninstalled) p.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0 else true)
+            }
+        } else {
+            apps.filter { app ->
+                (isDisabled && app.applicationInfo.enabled.not()) ||
+                        (isEnabled && app.applicationInfo.enabled) ||
+                        (isApk && app.applicationInfo.splitSourceDirs.isNullOrEmpty()) ||
+                        (isSplit && app.applicationInfo.splitSourceDirs?.isNotEmpty() == true) ||
+                        (isUninstalled && app.applicationInfo.flags and ApplicationInfo.FLAG_INSTALLED == 0)
+            }.distinct()
+        }
+    }
+
+    private fun names(packages: List<PackageInfo>): Set<String> {
+        return packages.map { it.packageName }.toSet()
+    }
+
+    private fun packages(count: Int): ArrayList<PackageInfo> {
+        val vendors = listOf("com.google.android", "com.android", "org.mozilla", "com.whatsapp", "net.oneplus", "app.simple")
+        val words = listOf("Settings", "Camera", "Google Play", "Lab", "Messages", "Maps", "Çalışma", "İstanbul", "Mail", "App")
+
+        return ArrayList((0 until count).map {
+            val vendor = vendors[random.nextInt(vendors.size)]
+            val word = words[random.nextInt(words.size)]
+            app("$vendor.${word.lowercase().replace(" ", "")}$it", "$word $it",
+                system = random.nextInt(3) == 0,
+                enabled = random.nextInt(5) != 0,
+                split = random.nextInt(4) == 0,
+                installed = random.nextInt(10) != 0)
+        })
+    }
+
+    private fun app(packageName: String, label: String, system: Boolean = false, enabled: Boolean = true,
+                    split: Boolean = false, installed: Boolean = true): PackageInfo {
+        return PackageInfo().apply {
+            this.packageName = packageName
+            applicationInfo = ApplicationInfo().apply {
+                name = label
+                flags = (if (system) ApplicationInfo.FLAG_SYSTEM else 0) or (if (installed) ApplicationInfo.FLAG_INSTALLED else 0)
+                this.enabled = enabled
+                splitSourceDirs = if (split) arrayOf("split_config.arm64_v8a.apk") else null
+            }
+        }
+    }
+
+    companion object {
+        private const val ALL = SortConstant.ALL
+        private const val COMBINED = SortConstant.ENABLED or SortConstant.APK or SortConstant.COMBINE_FLAGS
+        private const val ENABLED_OR_SPLIT = SortConstant.ENABLED or SortConstant.SPLIT
+        private const val WARMUP_ROUNDS = 200
+        private const val MEASURED_ROUNDS = 500
+    }
+}
@@ -0,0 +1,148 @@
+package app.simple.inure.util
+
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import app.simple.inure.util.SortKeys.sortByLongKey
+import app.simple.inure.util.SortKeys.sortByNameKey
+import app.simple.inure.util.SortKeys.sortByPackageSize
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Locale
+import java.util.Random
+import java.util.concurrent.atomic.AtomicInteger
+
+class SortKeysTest {
+
+    private val random = Random(5)
+    private val stats = AtomicInteger()
+    private val lengths = HashMap<String, Long>()
+
+    @Test
+    fun sortsLikeSortBy() {
+        for (reverse in listOf(false, true)) {
+            val packages = packages(300)
+            val expected = if (reverse) {
+                packages.sortedByDescending { it.firstInstallTime }
+            } else {
+                packages.sortedBy { it.firstInstallTime }
+            }
+
+            packages.sortByLongKey(reverse) { it.firstInstallTime }
+
+            // Install times repeat, equal keys have to keep their order
+            assertEquals(expected.map { it.packageName }, packages.map { it.packageName })
+        }
+    }
+
+    @Test
+    fun sortsNamesIgnoringCase() {
+        val names = mutableListOf("banana", "Cherry", "apple", "Apple", "cherry", "Banana")
+        val expected = names.sortedBy { it.lowercase(Locale.ROOT) }
+
+        names.sortByNameKey(false) { it }
+        assertEquals(expected.map { it.lowercase(Locale.ROOT) }, names.map { it.lowercase(Locale.ROOT) })
+
+        names.sortByNameKey(true) { it }
+        assertEquals(expected.reversed().map { it.lowercase(Locale.ROOT) }, names.map { it.lowercase(Locale.ROOT) })
+    }
+
+    @Test
+    fun sortsAccentsWithTheirLetter() {
+        val names = mutableListOf("Zoom", "Éclair", "apple", "Echo", "ebook")
+        names.sortByNameKey(false) { it }
+        assertEquals(listOf("apple", "ebook", "Echo", "Éclair", "Zoom"), names)
+    }
+
+    @Test
+    fun statsEveryPackageOnce() {
+        val sizes = PackageSizeCache(::length)
+        val packages = packages(100)
+
+        packages.sortByPackageSize(false, sizes) { it }
+        assertEquals(packages.sumOf { 1 + (it.applicationInfo.splitSourceDirs?.size ?: 0) }, stats.get())
+        assertEquals(packages.sortedBy { size(it) }.map { size(it) }, packages.map { size(it) })
+
+        stats.set(0)
+        packages.sortByPackageSize(true, sizes) { it }
+        assertEquals(0, stats.get())
+
+        packages[0].lastUpdateTime++
+        sizes.invalidate(packages[1].packageName)
+        packages.sortByPackageSize(true, sizes) { it }
+        assertEquals(2, stats.get() - splitCount(packages[0]) - splitCount(packages[1]))
+    }
+
+    /**
+     * JMH style benchmark, a file stat on a device is simulated with a
+     * 50 µs spin per APK, sleeping is far less precise than that
+     */
+    @Test
+    fun benchmarkSortBySize() {
+        Benchmarks.assumeEnabled()
+
+        val packages = packages(600)
+        val slowLength = { path: String -> spin(50_000); lengths[path]!! }
+
+        val old = ArrayList(packages)
+        val serial = Benchmarks.time {
+            old.sortBy { packageInfo ->
+                (listOf(packageInfo.applicationInfo.sourceDir) +
+                        (packageInfo.applicationInfo.splitSourceDirs?.toList() ?: listOf())).sumOf { slowLength(it) }
+            }
+        }
+
+        val sizes = PackageSizeCache(slowLength)
+        val decorated = ArrayList(packages)
+        val cold = Benchmarks.time { decorated.sortByPackageSize(false, sizes) { it } }
+        val warm = Benchmarks.time { decorated.sortByPackageSize(true, sizes) { it } }
+
+        println("SortKeys: 600 packages by size")
+        println("  sortBy selector : ${"%.1f".format(serial)} ms")
+        println("  keys, cold      : ${"%.1f".format(cold)} ms")
+        println("  keys, cached    : ${"%.1f".format(warm)} ms")
+
+        assertEquals(old.map { size(it) }, decorated.reversed().map { size(it) }.sorted())
+    }
+
+    private fun spin(nanos: Long) {
+        val end = System.nanoTime() + nanos
+        while (System.nanoTime() < end) {
+            // Simulated work
+        }
+    }
+
+    private fun length(path: String): Long {
+        stats.incrementAndGet()
+        return lengths[path]!!
+    }
+
+    private fun size(packageInfo: PackageInfo): Long {
+        return (listOf(packageInfo.applicationInfo.sourceDir) +
+                (packageInfo.applicationInfo.splitSourceDirs?.toList() ?: listOf())).sumOf { lengths[it]!! }
+    }
+
+    private fun splitCount(packageInfo: PackageInfo): Int {
+        return packageInfo.applicationInfo.splitSourceDirs?.size ?: 0
+    }
+
+    private fun packages(count: Int): MutableList<PackageInfo> {
+        return (0 until count).map { i ->
+            val packageName = "com.example.app$i"
+            val base = "/data/app/$packageName/base.apk"
+            val splits = if (i % 4 == 0) arrayOf("/data/app/$packageName/split_config.arm64_v8a.apk") else null
+
+            lengths[base] = random.nextInt(100_000_000).toLong()
+            splits?.forEach { lengths[it] = random.nextInt(10_000_000).toLong() }
+
+            PackageInfo().apply {
+                this.packageName = packageName
+                firstInstallTime = random.nextInt(20).toLong()
+                applicationInfo = ApplicationInfo().apply {
+                    name = "App $i"
+                    sourceDir = base
+                    splitSourceDirs = splits
+                }
+            }
+        }.toMutableList()
+    }
+}
@@ -0,0 +1,110 @@
+package app.simple.inure.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.io.File
+import kotlin.random.Random
+
+/**
+ * Compares [TrackerMatcher] against the nested `contains()` loop it
+ * replaced, for correctness and in an opt-in benchmark for speed.
+ */
+class TrackerMatcherTest {
+
+    private val signatures: List<String> by lazy {
+        val file = File("src/main/res/values/trackers.xml")
+        val oldFile = File("src/main/res/values/old_trackers.xml")
+        val regex = Regex("<item>(.*?)</item>")
+
+        if (file.exists() && oldFile.exists()) {
+            (regex.findAll(file.readText()) + regex.findAll(oldFile.readText()))
+                .map { it.groupValues[1].trim() }
+                .filter { it.isNotEmpty() }
+                .distinct()
+                .toList()
+        } else {
+            List(2000) { "com.tracker$it.sdk." }
+        }
+    }
+
+    private fun components(count: Int): List<String> {
+        val random = Random(42)
+
+        return List(count) {
+            if (random.nextInt(10) == 0) {
+                "com.example." + signatures[random.nextInt(signatures.size)] + "Receiver"
+            } else {
+                "com.example.app.ui.feature${random.nextInt(1000)}.Screen${it}Activity"
+            }
+        }
+    }
+
+    private fun naiveFirstMatch(name: String): String? {
+        for (signature in signatures) {
+            if (name.lowercase().contains(signature.lowercase())) {
+                return signature
+            }
+        }
+
+        return null
+    }
+
+    @Test
+    fun matchesLikeContainsLoop() {
+        val matcher = TrackerMatcher(signatures)
+
+        for (component in components(3000)) {
+            assertEquals(component, naiveFirstMatch(component), matcher.firstMatch(component))
+        }
+    }
+
+    @Test
+    fun reportsEveryMatchingSignature() {
+        val matcher = TrackerMatcher(listOf("com.facebook.", "facebook.ads", ".ads.", "Crashlytics"))
+        val matches = matcher.allMatches("com.facebook.ads.AudienceNetworkActivity")
+
+        assertEquals(listOf("com.facebook.", "facebook.ads", ".ads."), matches)
+        assertEquals("Crashlytics", matcher.firstMatch("io.fabric.crashlytics.CrashlyticsInitProvider"))
+        assertEquals(null, matcher.firstMatch("com.example.MainActivity"))
+    }
+
+    @Test
+    fun keywordRestrictsMatches() {
+        val matcher = TrackerMatcher(listOf("com.facebook.", "facebook.ads"))
+
+        assertEquals("com.facebook.", matcher.firstMatch("com.facebook.ads.Activity", "activity"))
+        assertEquals(null, matcher.firstMatch("com.facebook.ads.Activity", "google"))
+    }
+
+    @Test
+    fun benchmarkAgainstContainsLoop() {
+        Benchmarks.assumeEnabled()
+
+        val components = components(2500)
+
+        var start = System.nanoTime()
+        val matcher = TrackerMatcher(signatures)
+        val buildTime = System.nanoTime() - start
+
+        start = System.nanoTime()
+        var automatonCount = 0
+        for (component in components) {
+            if (matcher.hasMatch(component)) automatonCount++
+        }
+        val automatonTime = System.nanoTime() - start
+
+        start = System.nanoTime()
+        var naiveCount = 0
+        for (component in components) {
+            if (naiveFirstMatch(component) != null) naiveCount++
+        }
+        val naiveTime = System.nanoTime() - start
+
+        println("TrackerMatcher: ${signatures.size} signatures, ${components.size} components")
+        println("  build      : ${buildTime / 1_000_000} ms")
+        println("  automaton  : ${automatonTime / 1_000_000} ms")
+        println("  contains() : ${naiveTime / 1_000_000} ms")
+
+        assertEquals(naiveCount, automatonCount)
+    }
+}